@@ -5,6 +5,10 @@ import java.util.Iterator;
 import java.util.Map;
 import java.util.TreeMap;
 
+import mylang.MyAbstractStringBuilder;
+import mylang.MyMultiMatcher;
+import mylang.MyString;
+import mylang.MyStringBuffer;
 import myutil.MyTreeMap;
 
 public class Test {
@@ -28,8 +32,8 @@ public class Test {
 		// ' ', 'f', ' ' });
 		// System.out.println(ms.trim());
 
-		// String s = "abc";
-		// String s1 = new String("abc");
+		// MyString s = new MyString(new char[] { 'a', 'b', 'c' }).intern();
+		// MyString s1 = new MyString(new char[] { 'a', 'b', 'c' });
 		// s1 = s1.intern();
 		// System.out.println(s == s1);
 		// long start = System.currentTimeMillis();
@@ -102,7 +106,21 @@ public class Test {
 		// myMap.put("b", 2);
 		// myMap.put("y", 4);
 		// System.out.println(myMap.toString());
-		
-		
+
+		// 分段模式的MyStringBuffer，needle跨在两个块之间
+		MyMultiMatcher matcher = new MyMultiMatcher(new MyString[] { new MyString("needle".toCharArray()) });
+		checkMatch(matcher, new MyStringBuffer(4, true).append("xxxxneedlexx"), "[4-10]");
+		// insert、delete之后有间隙，匹配的位置不能把间隙算进去，needle也可能跨在间隙两边
+		checkMatch(matcher, new MyStringBuffer().append("needle tail").insert(0, "ab"), "[2-8]");
+		checkMatch(matcher, new MyStringBuffer().append("neeXdle").deleteCharAt(3), "[0-6]");
+		checkMatch(matcher, new MyStringBuffer(4, true).append("xxneeXdlexx").deleteCharAt(5), "[2-8]");
+	}
+
+	private static void checkMatch(MyMultiMatcher matcher, MyAbstractStringBuilder sb, String expected) {
+		StringBuilder found = new StringBuilder();
+		matcher.match(sb, (p, start, end) -> found.append('[').append(start).append('-').append(end).append(']'));
+		if (!found.toString().equals(expected)) {
+			throw new AssertionError(sb + ": " + found + ", expected " + expected);
+		}
 	}
 }
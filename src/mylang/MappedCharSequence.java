@@ -0,0 +1,289 @@
+package mylang;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/*
+ * 文件（或者任意ByteBuffer）中的文本的字符序列视图，字符直接从缓冲区读取，不拷贝到堆上
+ * 文件用map映射之后，扫描的时候只有操作系统的页缓存读入，查找、切分、比较都不创建字符数组
+ *
+ * 只支持定长的编码：ISO-8859-1（每个字符一个字节，对应LATIN1）和UTF-16LE（每个字符两个字节，和MyStringUTF16的存放顺序相同），
+ * 所以字符的位置可以直接换算成字节的位置，查找、比较和MyString共用同一套按coder划分的核心方法（SWAR查找字符、8字节比较、Horspool）
+ *
+ * 一个ByteBuffer最多Integer.MAX_VALUE个字节，所以一个视图最多映射2GB，更大的文件要分成多个窗口依次映射，
+ * 在窗口之间查找子串的时候，相邻的窗口要重叠模式串长度减1个字符
+ * 视图不可变，可以在多个线程中共用，只用绝对位置读取，不修改缓冲区的position
+ */
+public final class MappedCharSequence implements CharSequence, Comparable<MappedCharSequence> {
+
+	private final ByteBuffer buf;// 只读、小端序
+
+	private final byte coder;
+
+	private final int offset;// 按照字符计算
+
+	private final int length;
+
+	private MappedCharSequence(ByteBuffer buf, byte coder, int offset, int length) {
+		this.buf = buf;
+		this.coder = coder;
+		this.offset = offset;
+		this.length = length;
+	}
+
+	/**
+	 * 把文件的[position, position + size)映射成字符序列，映射在视图不可达之后由虚拟机释放
+	 *
+	 * @param charset
+	 *            只能是ISO_8859_1或者UTF_16LE，UTF16时size是奇数的话忽略最后一个字节
+	 */
+	public static MappedCharSequence map(FileChannel channel, long position, long size, Charset charset)
+			throws IOException {
+		byte coder = coderOf(charset);
+		return wrap(channel.map(FileChannel.MapMode.READ_ONLY, position, size), coder);
+	}
+
+	/**
+	 * 把buffer的[position, limit)作为字符序列，之后buffer的position和limit的变化不影响视图，内容的修改会反映出来
+	 */
+	public static MappedCharSequence wrap(ByteBuffer buffer, Charset charset) {
+		return wrap(buffer, coderOf(charset));
+	}
+
+	private static MappedCharSequence wrap(ByteBuffer buffer, byte coder) {
+		ByteBuffer b = buffer.slice().asReadOnlyBuffer().order(ByteOrder.LITTLE_ENDIAN);
+		return new MappedCharSequence(b, coder, 0, b.limit() >> coder);
+	}
+
+	private static byte coderOf(Charset charset) {
+		if (charset == StandardCharsets.ISO_8859_1) {
+			return MyString.LATIN1;
+		}
+		if (charset == StandardCharsets.UTF_16LE) {
+			return MyString.UTF16;
+		}
+		throw new IllegalArgumentException("Unsupported charset: " + charset);
+	}
+
+	ByteBuffer buffer() {
+		return buf;
+	}
+
+	byte coder() {
+		return coder;
+	}
+
+	int offset() {
+		return offset;
+	}// 在缓冲区中按字符计算的起始位置
+
+	public int length() {
+		return length;
+	}
+
+	public boolean isEmpty() {
+		return length == 0;
+	}
+
+	public char charAt(int index) {
+		if (index < 0 || index >= length) {
+			throw new StringIndexOutOfBoundsException(index);
+		}
+		return getChar(offset + index);
+	}
+
+	// 不检查下标，i是在缓冲区中按字符计算的位置
+	private char getChar(int i) {
+		return coder == MyString.LATIN1 ? (char) (buf.get(i) & 0xff) : buf.getChar(i << 1);
+	}
+
+	// 子序列仍然是同一个缓冲区上的视图
+	public MappedCharSequence subSequence(int start, int end) {
+		MyStringSlice.checkBoundsBeginEnd(start, end, length);
+		if (start == 0 && end == length) {
+			return this;
+		}
+		return new MappedCharSequence(buf, coder, offset + start, end - start);
+	}
+
+	public int indexOf(int ch) {
+		return indexOf(ch, 0);
+	}
+
+	// 和MyString.indexOf(int, int)相同的规则
+	public int indexOf(int ch, int fromIndex) {
+		if (fromIndex < 0) {
+			fromIndex = 0;
+		}
+		else if (fromIndex >= length) {
+			return -1;
+		}
+		int from = offset + fromIndex, to = offset + length;
+		int i;
+		if (coder == MyString.LATIN1) {
+			if (!MyStringLatin1.canEncode(ch)) {
+				return -1;
+			}
+			i = MyStringLatin1.indexOfByte(buf, (byte) ch, from, to);
+		}
+		else {
+			i = MyStringUTF16.indexOf(buf, ch, from, to);
+		}
+		return i < 0 ? -1 : i - offset;
+	}
+
+	public int indexOf(MyString str) {
+		return indexOf(str, 0);
+	}
+
+	// 每次都要编译模式串，同一个模式串查找多次的时候直接使用MyStringSearcher.indexOf(MappedCharSequence, int)
+	public int indexOf(MyString str, int fromIndex) {
+		return new MyStringSearcher(str).indexOf(this, fromIndex);
+	}
+
+	/**
+	 * 按照字符c切分，每一段只回调它的起止位置，规则和MyString.forEachField相同
+	 */
+	public void forEachField(char c, MyString.FieldConsumer action) {
+		int pre = 0;
+		int next;
+		while ((next = indexOf(c, pre)) >= 0) {
+			action.accept(pre, next);
+			pre = next + 1;
+		}
+		if (pre != length) {
+			action.accept(pre, length);
+		}
+	}
+
+	// 延迟切分，每一段都是同一个缓冲区上的视图
+	public Iterator<MappedCharSequence> splitIterator(char c) {
+		return new Iterator<MappedCharSequence>() {
+			private int pos = 0;// 下一段开始的位置，大于length表示已经结束
+
+			private int end = -1;// 已经找到但是还没有返回的一段的结束位置
+
+			public boolean hasNext() {
+				if (end < 0 && pos <= length) {
+					int i = indexOf(c, pos);
+					if (i >= 0) {
+						end = i;
+					}
+					else if (pos != length) {
+						end = length;
+					}// 最后一段不是空串
+					else {
+						pos = length + 1;
+					}
+				}
+				return end >= 0;
+			}
+
+			public MappedCharSequence next() {
+				if (!hasNext()) {
+					throw new NoSuchElementException();
+				}
+				MappedCharSequence s = subSequence(pos, end);
+				pos = end + 1;
+				end = -1;
+				return s;
+			}
+		};
+	}
+
+	/*
+	 * 比较，编码相同的时候和MyString一样先按字节找到第一个不同的位置
+	 * 视图的编码来自文件，UTF16的视图中可能全是LATIN1的字符，所以编码不同的时候不能直接认为不相等
+	 */
+
+	public int compareTo(MappedCharSequence another) {
+		int lim = Math.min(length, another.length);
+		if (coder == another.coder) {
+			int shift = coder;
+			int i = MyArraysSupport.mismatch(buf, offset << shift, another.buf, another.offset << shift, lim << shift);
+			if (i >= 0) {
+				int k = i >> shift;
+				return getChar(offset + k) - another.getChar(another.offset + k);
+			}
+			return length - another.length;
+		}
+		for (int k = 0; k < lim; k++) {
+			char c1 = getChar(offset + k);
+			char c2 = another.getChar(another.offset + k);
+			if (c1 != c2) {
+				return c1 - c2;
+			}
+		}
+		return length - another.length;
+	}
+
+	// 和MyString.compareTo的结果相同
+	public int compareTo(MyString another) {
+		byte[] v = another.value();
+		int n = another.length();
+		int lim = Math.min(length, n);
+		if (coder == another.coder()) {
+			int shift = coder;
+			int i = MyArraysSupport.mismatch(buf, offset << shift, v, 0, lim << shift);
+			if (i >= 0) {
+				int k = i >> shift;
+				return getChar(offset + k) - another.charAt(k);
+			}
+			return length - n;
+		}
+		for (int k = 0; k < lim; k++) {
+			char c1 = getChar(offset + k);
+			char c2 = another.charAt(k);
+			if (c1 != c2) {
+				return c1 - c2;
+			}
+		}
+		return length - n;
+	}
+
+	// 内容是否和另一个字符序列相同
+	public boolean contentEquals(CharSequence cs) {
+		if (cs.length() != length) {
+			return false;
+		}
+		if (cs instanceof MyString) {
+			return compareTo((MyString) cs) == 0;
+		}
+		if (cs instanceof MappedCharSequence) {
+			return compareTo((MappedCharSequence) cs) == 0;
+		}
+		for (int i = 0; i < length; i++) {
+			if (getChar(offset + i) != cs.charAt(i)) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * 拷贝到堆上成为一个独立的字符串，UTF16的内容如果全是LATIN1的字符会压缩
+	 */
+	public MyString toMyString() {
+		byte[] v = new byte[length << coder];
+		ByteBuffer b = buf.duplicate();// 视图共用的缓冲区的position不能修改
+		b.position(offset << coder);
+		b.get(v);
+		if (coder == MyString.UTF16) {
+			byte[] latin1 = MyStringUTF16.compress(v, 0, length);
+			if (latin1 != null) {
+				return new MyString(latin1, MyString.LATIN1);
+			}
+		}
+		return new MyString(v, coder);
+	}
+
+	public String toString() {
+		return toMyString().toString();
+	}
+}
@@ -1,6 +1,18 @@
 package mylang;
 
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.CharacterCodingException;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
 import java.util.Arrays;
+import java.util.Objects;
 
 /*
  * StringBuilder和StringBuilder的抽象父类
@@ -11,13 +23,58 @@ public abstract class MyAbstractStringBuilder {
 
 	int count;// 长度大小
 
+	/*
+	 * 分段模式：扩容的时候不拷贝，value写满之后放进chunks，再分配一个新的块继续写
+	 * 这时value只是最后一块，前面的sealed个字符在chunks中，按顺序拼起来才是完整的内容
+	 * getChars、toString和writeTo直接从各个块中读取，charAt、insert、delete这类按下标访问的操作会先合并成一个数组
+	 * 非分段模式下chunks为null，sealed总是0
+	 */
+	final boolean segmented;
+
+	final int chunkSize;// 分段模式下新分配的块的大小
+
+	char[][] chunks;// 已经写满的块
+
+	int[] chunkLengths;// 每一块中的字符数，flatten之后的第一块可能比chunkSize大
+
+	int chunkCount;
+
+	int sealed;// chunks中的字符总数，value中的字符是count - sealed个
+
+	/*
+	 * 间隙缓冲：insert、delete和replace在编辑的位置留出一段空白（间隙），内容分成value[0, gapStart)和
+	 * value[value.length - (count - gapStart), value.length)两部分，后一部分总是靠在数组的末尾，间隙的长度就是value.length - count
+	 * 下一次编辑只需要把间隙移到新的位置，移动的是两次编辑之间的字符，在同一个位置附近连续编辑的代价和编辑的长度成正比，不再每次移动整个尾部
+	 * charAt、setCharAt和getChars直接跨过间隙读写；追加、toMyString、writeTo这类需要连续内容的操作先合上间隙，把后一部分移回前面
+	 * 间隙在末尾的时候和连续的内容完全一样，所以打开间隙不需要任何拷贝
+	 * 分段模式下编辑之前先把各个块合并，有间隙的时候不会有块
+	 */
+	int gapStart = -1;// 小于0表示没有间隙，value[0, count - sealed)就是value中的全部内容
+
 	/*
 	 * 构造方法，该类无法实例化，只能被继承
 	 */
 	MyAbstractStringBuilder() {
+		this.segmented = false;
+		this.chunkSize = 0;
 	}
 
 	MyAbstractStringBuilder(int capacity) {
+		this(capacity, false);
+	}
+
+	/**
+	 * @param capacity
+	 *            分段模式下是每一块的大小
+	 * @param segmented
+	 *            是否使用分段模式，适合只在末尾追加、最后一次性输出的很长的内容
+	 */
+	MyAbstractStringBuilder(int capacity, boolean segmented) {
+		if (segmented && capacity <= 0) {
+			throw new IllegalArgumentException("Illegal chunk size: " + capacity);
+		}
+		this.segmented = segmented;
+		this.chunkSize = segmented ? capacity : 0;
 		value = new char[capacity];
 	}
 
@@ -26,14 +83,17 @@ public abstract class MyAbstractStringBuilder {
 		return count;
 	}
 
-	// 返回现在能存储的最大存储能力
+	// 返回现在能存储的最大存储能力，分段模式下是已经分配的空间，之后还可以继续分配
 	public int capacity() {
-		return value.length;
+		return sealed + value.length;
 	}
 
-	// 重新分配存储容量
+	// 重新分配存储容量，分段模式下需要的时候才分配新的块，这里什么都不做
 	public void ensureCapacity(int minimumCapacity) {
-		if (minimumCapacity > 0) ensureCapacityInternal(minimumCapacity);
+		if (minimumCapacity > 0 && !segmented) {
+			closeGap();
+			ensureCapacityInternal(minimumCapacity);
+		}
 	}
 
 	private void ensureCapacityInternal(int minimumCapacity) {
@@ -43,6 +103,10 @@ public abstract class MyAbstractStringBuilder {
 
 	// 扩大存储能力
 	void expandCapacity(int minimunCapacity) {
+		value = Arrays.copyOf(value, newCapacity(minimunCapacity));
+	}
+
+	private int newCapacity(int minimunCapacity) {
 		int newCapacity = value.length * 2 + 2;
 		if (newCapacity - minimunCapacity < 0) {
 			newCapacity = minimunCapacity;
@@ -53,11 +117,111 @@ public abstract class MyAbstractStringBuilder {
 			}
 			newCapacity = Integer.MAX_VALUE;
 		}
-		value = Arrays.copyOf(value, newCapacity);
+		return newCapacity;
+	}
+
+	/**
+	 * 返回value中可以连续写入len个字符的位置，写完之后由调用者增加count
+	 * 分段模式下当前块放不下的时候把它放进chunks，换一个新的块，已经写入的字符不会被拷贝
+	 */
+	int reserve(int len) {
+		closeGap();
+		int p = count - sealed;
+		if (value.length - p < len) {
+			if (!segmented) {
+				ensureCapacityInternal(count + len);
+			}
+			else {
+				if (p > 0) {
+					seal(p);
+				}
+				value = new char[Math.max(chunkSize, len)];
+				p = 0;
+			}
+		}
+		return p;
+	}
+
+	// 把value的前n个字符作为一块放进chunks
+	private void seal(int n) {
+		if (chunks == null) {
+			chunks = new char[8][];
+			chunkLengths = new int[8];
+		}
+		else if (chunkCount == chunks.length) {
+			chunks = Arrays.copyOf(chunks, chunkCount << 1);
+			chunkLengths = Arrays.copyOf(chunkLengths, chunkCount << 1);
+		}// 只拷贝块的引用
+		chunks[chunkCount] = value;
+		chunkLengths[chunkCount++] = n;
+		sealed += n;
+	}
+
+	/**
+	 * 把所有的块合并到一个数组中并合上间隙，之后value[0, count)就是完整的内容，分段模式下之后的追加仍然会分块
+	 */
+	void flatten() {
+		closeGap();
+		mergeChunks();
+	}
+
+	private void mergeChunks() {
+		if (sealed == 0) {
+			return;
+		}
+		char[] v = new char[count + chunkSize];
+		getChars(0, count, v, 0);
+		value = v;
+		Arrays.fill(chunks, 0, chunkCount, null);
+		chunkCount = 0;
+		sealed = 0;
+	}
+
+	/*
+	 * 间隙的移动
+	 */
+
+	// 把间隙移到pos，移动的是pos和原来的间隙之间的字符，调用者要保证已经有间隙
+	private void moveGap(int pos) {
+		int g = gapStart;
+		int gap = value.length - count;
+		if (pos < g) {
+			System.arraycopy(value, pos, value, pos + gap, g - pos);
+		}
+		else if (pos > g) {
+			System.arraycopy(value, g + gap, value, g, pos - g);
+		}
+		gapStart = pos;
+	}
+
+	// 在pos打开一个至少能放下n个字符的间隙，空间不够的时候扩容，扩容时前后两部分分别拷贝到新数组的两头
+	private void openGap(int pos, int n) {
+		mergeChunks();
+		if (gapStart < 0) {
+			gapStart = count;
+		}// 间隙在末尾，不需要拷贝
+		if (value.length - count < n) {
+			int newCapacity = newCapacity(count + n);
+			int tail = count - gapStart;
+			char[] v = new char[newCapacity];
+			System.arraycopy(value, 0, v, 0, gapStart);
+			System.arraycopy(value, value.length - tail, v, newCapacity - tail, tail);
+			value = v;
+		}
+		moveGap(pos);
+	}
+
+	// 合上间隙，之后value[0, count)是连续的内容
+	void closeGap() {
+		if (gapStart >= 0) {
+			moveGap(count);
+			gapStart = -1;
+		}
 	}
 
 	// 去掉多余的存储能力
 	public void trimToSize() {
+		flatten();
 		if (count < value.length) {
 			value = Arrays.copyOf(value, count);
 		}
@@ -68,6 +232,7 @@ public abstract class MyAbstractStringBuilder {
 		if (newLength < 0) {
 			throw new StringIndexOutOfBoundsException(newLength);
 		}
+		flatten();
 		ensureCapacityInternal(newLength);
 		if (count < newLength) {
 			Arrays.fill(value, count, newLength, '\0');
@@ -78,14 +243,16 @@ public abstract class MyAbstractStringBuilder {
 	// 返回特定位置的字符
 	public char charAt(int index) {
 		if ((index < 0) || (index >= count)) throw new StringIndexOutOfBoundsException(index);
-		return value[index];
-	}
+		mergeChunks();
+		return value[(gapStart < 0 || index < gapStart) ? index : index + value.length - count];
+	}// 有间隙的时候直接跨过去，不移动字符
 
 	// 因为BMP字符占16位，但是补充字符占32位，所以可能占有两个位
 	public int codePointAt(int index) {
 		if (index < 0 || index > count) {
 			throw new StringIndexOutOfBoundsException(index);
 		}
+		flatten();
 		return Character.codePointAt(value, index);
 	}
 
@@ -102,25 +269,260 @@ public abstract class MyAbstractStringBuilder {
 		if (srcBegin > srcEnd) {
 			throw new StringIndexOutOfBoundsException("srcBegin > srcEnd");
 		}
-		System.arraycopy(value, srcBegin, dst, dstBegin, srcEnd - srcEnd);
+		if (srcEnd > count) {
+			throw new StringIndexOutOfBoundsException(srcEnd);
+		}
+		if (gapStart >= 0) {
+			if (srcBegin < gapStart) {
+				int k = Math.min(srcEnd, gapStart) - srcBegin;
+				System.arraycopy(value, srcBegin, dst, dstBegin, k);
+				srcBegin += k;
+				dstBegin += k;
+			}
+			if (srcBegin < srcEnd) {
+				System.arraycopy(value, srcBegin + value.length - count, dst, dstBegin, srcEnd - srcBegin);
+			}
+			return;
+		}// 有间隙的时候没有块，间隙前后分两次拷贝
+		int pos = 0;// 当前块在整个内容中的起始位置
+		for (int i = 0; i < chunkCount && srcBegin < srcEnd; i++) {
+			int n = chunkLengths[i];
+			if (srcBegin < pos + n) {
+				int k = Math.min(srcEnd, pos + n) - srcBegin;
+				System.arraycopy(chunks[i], srcBegin - pos, dst, dstBegin, k);
+				srcBegin += k;
+				dstBegin += k;
+			}
+			pos += n;
+		}// 分段模式下先从已经写满的块中拷贝
+		if (srcBegin < srcEnd) {
+			System.arraycopy(value, srcBegin - sealed, dst, dstBegin, srcEnd - srcBegin);
+		}
+	}
+
+	/**
+	 * 依次把内容写到out中，分段模式下逐块写出，不需要先合并成一个数组
+	 * Writer直接写字符数组，其他的Appendable使用字符数组的CharBuffer视图
+	 */
+	public void writeTo(Appendable out) throws IOException {
+		closeGap();
+		for (int i = 0; i < chunkCount; i++) {
+			write(out, chunks[i], chunkLengths[i]);
+		}
+		write(out, value, count - sealed);
+	}
+
+	private static void write(Appendable out, char[] chunk, int n) throws IOException {
+		if (out instanceof Writer) {
+			((Writer) out).write(chunk, 0, n);
+		}
+		else {
+			out.append(CharBuffer.wrap(chunk, 0, n));
+		}
+	}
+
+	/**
+	 * 按照dst的字节序把每个字符写成两个字节，从position开始写，写完之后position移到最后
+	 * 需要按照某种字符集编码的时候使用encodeTo
+	 *
+	 * @throws BufferOverflowException
+	 *             剩下的空间不够，这时不会写入任何字节
+	 */
+	public void writeTo(ByteBuffer dst) {
+		if (dst.remaining() >> 1 < count) {
+			throw new BufferOverflowException();
+		}
+		closeGap();
+		CharBuffer cb = dst.asCharBuffer();
+		for (int i = 0; i < chunkCount; i++) {
+			cb.put(chunks[i], 0, chunkLengths[i]);
+		}
+		cb.put(value, 0, count - sealed);
+		dst.position(dst.position() + (count << 1));
+	}
+
+	/*
+	 * 按照字符集编码输出：UTF-8、ISO-8859-1和US-ASCII由MyStringCoding直接从各个块编码，整段的ASCII直接写成字节，
+	 * 不需要先转成String再getBytes，编码的结果和String.getBytes相同
+	 * 写到通道的时候每次编码一个固定大小的缓冲区，写出之后再继续，不管内容多长都不会分配和内容一样大的数组
+	 */
+
+	private static final int ENCODE_BUFFER_SIZE = 8192;
+
+	// 每个线程缓存一个直接缓冲区，使用期间从缓存中拿走，重入的时候另外分配
+	private static final ThreadLocal<ByteBuffer> encodeBuffer = new ThreadLocal<>();
+
+	/**
+	 * 编码到dst的position开始的位置，之后position移到写入的最后一个字节之后
+	 *
+	 * @return 写入的字节数
+	 * @throws BufferOverflowException
+	 *             dst剩下的空间不够，这时position不变
+	 */
+	public int encodeTo(ByteBuffer dst, Charset charset) {
+		Objects.requireNonNull(charset);
+		if (!MyStringCoding.isDirect(charset)) {
+			byte[] ba = newString().getBytes(charset);
+			dst.put(ba);
+			return ba.length;
+		}
+		int pos = dst.position();
+		try {
+			if (encodeChunks(charset, dst, null) < 0) {
+				dst.position(pos);
+				throw new BufferOverflowException();
+			}// 空间不够的时候编码过程中就能发现，不需要先计算编码之后的长度
+		}
+		catch (IOException e) {
+			throw new AssertionError(e);
+		}// 没有通道，不会发生
+		return dst.position() - pos;
+	}
+
+	/**
+	 * 编码之后写到通道中，使用当前线程缓存的直接缓冲区
+	 * 通道必须是阻塞模式，每次都会把缓冲区完全写出
+	 *
+	 * @return 写入的字节数
+	 */
+	public long encodeTo(WritableByteChannel out, Charset charset) throws IOException {
+		ByteBuffer buf = encodeBuffer.get();
+		if (buf == null) {
+			buf = ByteBuffer.allocateDirect(ENCODE_BUFFER_SIZE);
+		}
+		else {
+			encodeBuffer.set(null);
+		}
+		try {
+			return encodeTo(out, charset, buf);
+		}
+		finally {
+			encodeBuffer.set(buf);
+		}
+	}
+
+	/**
+	 * 同上，使用调用者提供的缓冲区，比如每个连接一个，原来的内容会被丢弃
+	 *
+	 * @param buf
+	 *            至少能放下一个字符编码之后的4个字节，直接缓冲区写通道的时候不需要再拷贝
+	 */
+	public long encodeTo(WritableByteChannel out, Charset charset, ByteBuffer buf) throws IOException {
+		Objects.requireNonNull(out);
+		Objects.requireNonNull(charset);
+		if (buf.capacity() < 4) {
+			throw new IllegalArgumentException("Buffer too small: " + buf.capacity());
+		}
+		buf.clear();
+		if (!MyStringCoding.isDirect(charset)) {
+			return encodeWithEncoder(out, charset, buf);
+		}
+		return encodeChunks(charset, buf, out) + drain(out, buf);
+	}
+
+	/**
+	 * 依次把各个块和value编码到buf中，out不为null的时候buf满了就写到out中，清空之后继续
+	 * 分段模式下一对代理字符可能被分在两个块中，这时把高代理字符和下一块的第一个字符放在一起编码
+	 *
+	 * @return 写到out中的字节数，out为null并且buf已经满了的时候返回-1
+	 */
+	private long encodeChunks(Charset cs, ByteBuffer buf, WritableByteChannel out) throws IOException {
+		closeGap();
+		long written = 0;
+		char[] pair = null;// 上一块最后的高代理字符和这一块的第一个字符
+		for (int i = 0; i <= chunkCount; i++) {
+			char[] src = i < chunkCount ? chunks[i] : value;
+			int sl = i < chunkCount ? chunkLengths[i] : count - sealed;
+			boolean last = i == chunkCount;
+			int sp = 0;
+			if (pair != null) {
+				int k = sl > 0 ? 2 : 1;
+				if (sl > 0) {
+					pair[1] = src[0];
+				}
+				int q;
+				while ((q = MyStringCoding.encode(cs, pair, 0, k, buf, last && sl <= 1)) == 0) {
+					if (out == null) {
+						return -1;
+					}
+					written += drain(out, buf);
+				}
+				sp = q - 1;// 两个字符都用掉了说明是一对代理字符，否则这一块从头开始
+				pair = null;
+			}
+			while (sp < sl) {
+				int q = MyStringCoding.encode(cs, src, sp, sl, buf, last);
+				if (q == sl - 1 && !last && Character.isHighSurrogate(src[q])) {
+					pair = new char[] { src[q], 0 };
+					break;
+				}// 留下了最后的高代理字符，也可能是空间不够，都交给和下一块一起编码的时候处理
+				if (q < sl) {
+					if (out == null) {
+						return -1;
+					}
+					written += drain(out, buf);
+				}
+				sp = q;
+			}
+		}
+		return written;
+	}
+
+	// 其他字符集使用CharsetEncoder，需要先合并成一个数组
+	private long encodeWithEncoder(WritableByteChannel out, Charset charset, ByteBuffer buf) throws IOException {
+		flatten();
+		CharsetEncoder encoder = charset.newEncoder().onMalformedInput(CodingErrorAction.REPLACE)
+				.onUnmappableCharacter(CodingErrorAction.REPLACE);
+		CharBuffer in = CharBuffer.wrap(value, 0, count);
+		long written = 0;
+		CoderResult cr;
+		while ((cr = encoder.encode(in, buf, true)).isOverflow()) {
+			written += drain(out, buf);
+		}
+		checkResult(cr);
+		while ((cr = encoder.flush(buf)).isOverflow()) {
+			written += drain(out, buf);
+		}
+		checkResult(cr);
+		return written + drain(out, buf);
+	}
+
+	private static void checkResult(CoderResult cr) {
+		if (cr.isError()) {
+			try {
+				cr.throwException();
+			}
+			catch (CharacterCodingException e) {
+				throw new IllegalStateException(e);
+			}
+		}
+	}// 使用REPLACE之后不会出现
+
+	// 把buf中已经写入的字节全部写到out中，之后清空buf
+	private static long drain(WritableByteChannel out, ByteBuffer buf) throws IOException {
+		buf.flip();
+		long n = 0;
+		while (buf.hasRemaining()) {
+			n += out.write(buf);
+		}
+		buf.clear();
+		return n;
 	}
 
 	// 设置特定位的值
 	public void setCharAt(int index, char ch) {
-		if (index < 0 || index > count) {
+		if (index < 0 || index >= count) {
 			throw new StringIndexOutOfBoundsException(index);
 		}
-		value[index] = ch;
+		mergeChunks();
+		value[(gapStart < 0 || index < gapStart) ? index : index + value.length - count] = ch;
 	}
 
 	public MyAbstractStringBuilder append(String str) {
 		if (str == null) {
 			return appendNull();
 		}
-		int len = str.length();
-		ensureCapacityInternal(count + len);
-		str.getChars(0, len, value, count);
-		count += len;
+		appendChars(str, 0, str.length());
 		return this;
 	}
 
@@ -128,28 +530,142 @@ public abstract class MyAbstractStringBuilder {
 		if (sb == null) {
 			return appendNull();
 		}
-		int len = sb.length();
-		ensureCapacityInternal(count + len);
-		sb.getChars(0, len, value, count);
+		appendChars(sb, 0, sb.length());
+		return this;
+	}
+
+	// 追加s的[start, end)，和StringBuilder一样s为null的时候当作"null"
+	public MyAbstractStringBuilder append(CharSequence s, int start, int end) {
+		if (s == null) {
+			s = "null";
+		}
+		if (start < 0 || start > end || end > s.length()) {
+			throw new IndexOutOfBoundsException("start " + start + ", end " + end + ", length " + s.length());
+		}
+		appendChars(s, start, end);
+		return this;
+	}
+
+	public MyAbstractStringBuilder append(char[] str, int offset, int len) {
+		if (offset < 0 || len < 0 || offset > str.length - len) {
+			throw new IndexOutOfBoundsException("offset " + offset + ", count " + len + ", length " + str.length);
+		}
+		int end = offset + len;
+		while (offset < end) {
+			int p = reserve(segmented ? 1 : end - offset);
+			int n = Math.min(end - offset, value.length - p);
+			System.arraycopy(str, offset, value, p, n);
+			offset += n;
+			count += n;
+		}// 非分段模式下一次就能写完
+		return this;
+	}
+
+	public MyAbstractStringBuilder append(char c) {
+		int p = reserve(1);
+		value[p] = c;
+		count++;
+		return this;
+	}
+
+	public MyAbstractStringBuilder append(boolean b) {
+		if (b) {
+			int c = reserve(4);
+			final char[] value = this.value;
+			value[c++] = 't';
+			value[c++] = 'r';
+			value[c++] = 'u';
+			value[c] = 'e';
+			count += 4;
+		}
+		else {
+			int c = reserve(5);
+			final char[] value = this.value;
+			value[c++] = 'f';
+			value[c++] = 'a';
+			value[c++] = 'l';
+			value[c++] = 's';
+			value[c] = 'e';
+			count += 5;
+		}
+		return this;
+	}
+
+	/*
+	 * 数字先用stringSize算出位数，留出位置之后由getChars从后往前直接写进value，不创建临时的字符串
+	 * 最小值取反之后还是负数，getChars不能处理，单独追加
+	 */
+
+	public MyAbstractStringBuilder append(int i) {
+		if (i == Integer.MIN_VALUE) {
+			return append("-2147483648");
+		}
+		int len = (i < 0) ? MyInteger.stringSize(-i) + 1 : MyInteger.stringSize(i);
+		int p = reserve(len);
+		MyInteger.getChars(i, p + len, value);
 		count += len;
 		return this;
 	}
 
+	public MyAbstractStringBuilder append(long l) {
+		if (l == Long.MIN_VALUE) {
+			return append("-9223372036854775808");
+		}
+		int len = (l < 0) ? MyInteger.stringSize(-l) + 1 : MyInteger.stringSize(l);
+		int p = reserve(len);
+		MyInteger.getChars(l, p + len, value);
+		count += len;
+		return this;
+	}
+
+	/**
+	 * 把s[start, end)追加到最后，分段模式下先填满当前块，剩下的写到新的块中
+	 */
+	private void appendChars(CharSequence s, int start, int end) {
+		while (start < end) {
+			int p = reserve(segmented ? 1 : end - start);
+			int n = Math.min(end - start, value.length - p);
+			putChars(s, start, start + n, value, p);
+			start += n;
+			count += n;
+		}
+	}
+
+	// 常用的类型使用批量拷贝，其他的逐个字符复制
+	private static void putChars(CharSequence s, int start, int end, char[] dst, int p) {
+		if (s instanceof String) {
+			((String) s).getChars(start, end, dst, p);
+		}
+		else if (s instanceof MyString) {
+			((MyString) s).getChars(start, end, dst, p);
+		}
+		else if (s instanceof StringBuffer) {
+			((StringBuffer) s).getChars(start, end, dst, p);
+		}
+		else if (s instanceof StringBuilder) {
+			((StringBuilder) s).getChars(start, end, dst, p);
+		}
+		else {
+			for (int i = start; i < end; i++) {
+				dst[p++] = s.charAt(i);
+			}
+		}
+	}
+
 	// 连接一个“null”字符串
 	private MyAbstractStringBuilder appendNull() {
-		int c = count;
-		ensureCapacityInternal(c + 4);
+		int c = reserve(4);
 		final char[] value = this.value;
 		value[c++] = 'n';
 		value[c++] = 'u';
 		value[c++] = 'l';
 		value[c++] = 'l';
-		count = c;
+		count += 4;
 		return this;
 	}
 
 	/*
-	 * 其他关于append的函数暂时先不考虑
+	 * 插入、删除和替换都在间隙上进行：先把间隙移到编辑的位置，删除就是把间隙后面的字符并进间隙，插入就是写在间隙的开头
 	 */
 
 	// 删除特定范围内的字符
@@ -157,10 +673,9 @@ public abstract class MyAbstractStringBuilder {
 		if (start < 0) throw new StringIndexOutOfBoundsException(start);
 		if (end > count) end = count;
 		if (start > end) throw new StringIndexOutOfBoundsException();
-		int len = end - start;
-		if (len > 0) {
-			System.arraycopy(value, start + len, value, start, count - end);// 将原来的count之后的空内容，复制到start开始，模拟删除
-			count -= len;
+		if (end > start) {
+			openGap(start, 0);
+			count -= end - start;// 后一部分靠在数组末尾，count减小之后它的前end - start个字符就进了间隙
 		}
 		return this;
 	}
@@ -168,17 +683,123 @@ public abstract class MyAbstractStringBuilder {
 	// 刪除特定字符
 	public MyAbstractStringBuilder deleteCharAt(int index) {
 		if ((index < 0) || (index >= count)) throw new StringIndexOutOfBoundsException(index);
-		System.arraycopy(value, index + 1, value, index, count - index - 1);
+		openGap(index, 0);
 		count--;
 		return this;
 	}
 
+	// 用str替换[start, end)，end超过长度的时候替换到最后
+	public MyAbstractStringBuilder replace(int start, int end, String str) {
+		if (start < 0) throw new StringIndexOutOfBoundsException(start);
+		if (start > count) throw new StringIndexOutOfBoundsException("start > length()");
+		if (start > end) throw new StringIndexOutOfBoundsException("start > end");
+		if (end > count) end = count;
+		int len = str.length();
+		openGap(start, 0);
+		count -= end - start;
+		openGap(start, len);// 删掉之后间隙已经变大，一般不需要再扩容
+		str.getChars(0, len, value, start);
+		gapStart += len;
+		count += len;
+		return this;
+	}
+
+	public MyAbstractStringBuilder insert(int offset, String str) {
+		checkOffset(offset);
+		if (str == null) {
+			str = "null";
+		}
+		int len = str.length();
+		openGap(offset, len);
+		str.getChars(0, len, value, offset);
+		gapStart += len;
+		count += len;
+		return this;
+	}
+
+	// 插入str[offset, offset + len)
+	public MyAbstractStringBuilder insert(int index, char[] str, int offset, int len) {
+		checkOffset(index);
+		if (offset < 0 || len < 0 || offset > str.length - len) {
+			throw new StringIndexOutOfBoundsException("offset " + offset + ", len " + len + ", str.length " + str.length);
+		}
+		openGap(index, len);
+		System.arraycopy(str, offset, value, index, len);
+		gapStart += len;
+		count += len;
+		return this;
+	}
+
+	// 插入s[start, end)，s为null的时候当作"null"
+	public MyAbstractStringBuilder insert(int dstOffset, CharSequence s, int start, int end) {
+		checkOffset(dstOffset);
+		if (s == null) {
+			s = "null";
+		}
+		if (start < 0 || start > end || end > s.length()) {
+			throw new IndexOutOfBoundsException("start " + start + ", end " + end + ", length " + s.length());
+		}
+		int len = end - start;
+		openGap(dstOffset, len);
+		putChars(s, start, end, value, dstOffset);
+		gapStart += len;
+		count += len;
+		return this;
+	}
+
+	public MyAbstractStringBuilder insert(int offset, char c) {
+		checkOffset(offset);
+		openGap(offset, 1);
+		value[offset] = c;
+		gapStart++;
+		count++;
+		return this;
+	}
+
+	public MyAbstractStringBuilder insert(int offset, boolean b) {
+		return insert(offset, b ? "true" : "false");
+	}
+
+	// 和append一样直接写进间隙，不创建临时的字符串
+	public MyAbstractStringBuilder insert(int offset, int i) {
+		if (i == Integer.MIN_VALUE) {
+			return insert(offset, "-2147483648");
+		}
+		checkOffset(offset);
+		int len = (i < 0) ? MyInteger.stringSize(-i) + 1 : MyInteger.stringSize(i);
+		openGap(offset, len);
+		MyInteger.getChars(i, offset + len, value);
+		gapStart += len;
+		count += len;
+		return this;
+	}
+
+	public MyAbstractStringBuilder insert(int offset, long l) {
+		if (l == Long.MIN_VALUE) {
+			return insert(offset, "-9223372036854775808");
+		}
+		checkOffset(offset);
+		int len = (l < 0) ? MyInteger.stringSize(-l) + 1 : MyInteger.stringSize(l);
+		openGap(offset, len);
+		MyInteger.getChars(l, offset + len, value);
+		gapStart += len;
+		count += len;
+		return this;
+	}
+
+	private void checkOffset(int offset) {
+		if (offset < 0 || offset > count) {
+			throw new StringIndexOutOfBoundsException("offset " + offset + ", length " + count);
+		}
+	}
+
 	/*
 	 * 中间大部分的内容都是利用Arrays.arraycopy函数来实现的，暂不考虑
 	 */
 
 	// 将内容字符串反转，就是相当于有一个对称轴，然后将然后左右对称一下
 	public MyAbstractStringBuilder reverse() {
+		flatten();
 		boolean hasSurrogates = false;
 		int n = count - 1;
 		for (int j = (n - 1) >> 1; j >= 0; j--) {// 将长度对半分
@@ -209,6 +830,51 @@ public abstract class MyAbstractStringBuilder {
 		}
 	}
 
+	/**
+	 * 转成MyString：直接从value（分段模式下从各个块）压缩成LATIN1的字节数组，遇到不能压缩的字符再重新按UTF16写一遍，
+	 * 得到的数组交给MyString共用数组的构造函数，不会再拷贝
+	 */
+	public MyString toMyString() {
+		closeGap();
+		byte[] v = new byte[count];
+		int n = 0;
+		for (int i = 0; i <= chunkCount; i++) {
+			char[] chunk = i < chunkCount ? chunks[i] : value;
+			int len = i < chunkCount ? chunkLengths[i] : count - sealed;
+			for (int j = 0; j < len; j++) {
+				char c = chunk[j];
+				if (c > 0xFF) {
+					return new MyString(toUTF16Bytes(), MyString.UTF16);
+				}
+				v[n++] = (byte) c;
+			}
+		}
+		return new MyString(v, MyString.LATIN1);
+	}
+
+	private byte[] toUTF16Bytes() {
+		byte[] v = MyStringUTF16.newBytesFor(count);
+		int n = 0;
+		for (int i = 0; i <= chunkCount; i++) {
+			char[] chunk = i < chunkCount ? chunks[i] : value;
+			int len = i < chunkCount ? chunkLengths[i] : count - sealed;
+			for (int j = 0; j < len; j++) {
+				MyStringUTF16.putChar(v, n++, chunk[j]);
+			}
+		}
+		return v;
+	}
+
+	// 连续的时候直接用value[0, count)构造String，分段或者有间隙的时候先拷贝到一个数组中，不移动间隙
+	String newString() {
+		if (sealed == 0 && gapStart < 0) {
+			return new String(value, 0, count);
+		}
+		char[] buf = new char[count];
+		getChars(0, count, buf, 0);
+		return new String(buf);
+	}
+
 	@Override
 	public abstract String toString();
 }
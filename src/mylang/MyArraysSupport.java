@@ -0,0 +1,90 @@
+package mylang;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+/*
+ * 数组的底层操作，参考jdk.internal.util.ArraysSupport，只在包内使用
+ */
+final class MyArraysSupport {
+
+	private MyArraysSupport() {
+	}
+
+	/**
+	 * 字节数组的小端序视图，用getLong按绝对位置取出8个字节，下标小的字节在低位，和MyStringUTF16的存放顺序一致
+	 * 1.8的堆缓冲区getLong是把8个字节逐个读出来再拼成long，9以后才是一次读出整个long，两种情况下结果相同
+	 * 每个方法开始的时候包装一次，不要在循环中包装
+	 */
+	static ByteBuffer littleEndian(byte[] a) {
+		return ByteBuffer.wrap(a).order(ByteOrder.LITTLE_ENDIAN);
+	}
+
+	/**
+	 * 找出a[aFrom, aFrom + length)和b[bFrom, bFrom + length)中第一个不同的字节
+	 *
+	 * 一次比较8个字节，不相等的时候两个long异或，小端序下最低的非0位所在的字节就是第一个不同的字节，剩下不足8个字节的逐个比较
+	 * 调用者要保证范围合法
+	 *
+	 * @return 第一个不同的字节相对于起始位置的下标，完全相同返回-1
+	 */
+	static int mismatch(byte[] a, int aFrom, byte[] b, int bFrom, int length) {
+		int i = 0;
+		if (length >= Long.BYTES) {
+			ByteBuffer la = littleEndian(a), lb = littleEndian(b);
+			for (int last = length - Long.BYTES; i <= last; i += Long.BYTES) {
+				long x = la.getLong(aFrom + i);
+				long y = lb.getLong(bFrom + i);
+				if (x != y) {
+					return i + (Long.numberOfTrailingZeros(x ^ y) >>> 3);
+				}
+			}
+		}// 短的数组不需要包装
+		for (; i < length; i++) {
+			if (a[aFrom + i] != b[bFrom + i]) {
+				return i;
+			}
+		}
+		return -1;
+	}
+
+	/*
+	 * 同上，其中一边或者两边是ByteBuffer（比如映射的文件），下标是缓冲区中的绝对位置，不影响position
+	 * 缓冲区必须是小端序，调用者要保证范围合法
+	 */
+
+	static int mismatch(ByteBuffer a, int aFrom, byte[] b, int bFrom, int length) {
+		int i = 0;
+		ByteBuffer lb = littleEndian(b);
+		for (int last = length - Long.BYTES; i <= last; i += Long.BYTES) {
+			long x = a.getLong(aFrom + i);
+			long y = lb.getLong(bFrom + i);
+			if (x != y) {
+				return i + (Long.numberOfTrailingZeros(x ^ y) >>> 3);
+			}
+		}
+		for (; i < length; i++) {
+			if (a.get(aFrom + i) != b[bFrom + i]) {
+				return i;
+			}
+		}
+		return -1;
+	}
+
+	static int mismatch(ByteBuffer a, int aFrom, ByteBuffer b, int bFrom, int length) {
+		int i = 0;
+		for (int last = length - Long.BYTES; i <= last; i += Long.BYTES) {
+			long x = a.getLong(aFrom + i);
+			long y = b.getLong(bFrom + i);
+			if (x != y) {
+				return i + (Long.numberOfTrailingZeros(x ^ y) >>> 3);
+			}
+		}
+		for (; i < length; i++) {
+			if (a.get(aFrom + i) != b.get(bFrom + i)) {
+				return i;
+			}
+		}
+		return -1;
+	}
+}
@@ -0,0 +1,232 @@
+package mylang;
+
+import java.nio.ByteBuffer;
+import java.security.SecureRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+/*
+ * 带种子的64位hash函数，算法参考wyhash：每次读入16个字节，分成两个64位的数和种子混合之后相乘，
+ * 取128位乘积的高64位和低64位异或作为新的状态（mum），长的输入每次并行处理48个字节，最后的不足16个字节的部分用重叠读取的方式处理
+ *
+ * 和MyString.hashCode的31多项式相比，输入的每一位都会影响结果的每一位，顺序的编号这类低熵的键也能分布均匀
+ * 不同的种子得到的结果没有关系，每个哈希表使用自己的随机种子，外部无法构造出大量碰撞的键
+ *
+ * 这里用的是有符号的乘法高位（和Math.multiplyHigh相同），所以结果和标准的wyhash不同
+ */
+public final class MyHashing {
+
+	private MyHashing() {
+	}
+
+	private static final long P0 = 0xa0761d6478bd642fL;
+
+	private static final long P1 = 0xe7037ed1a0b428dbL;
+
+	private static final long P2 = 0x8ebc6af09c88c6e3L;
+
+	private static final long P3 = 0x589965cc75374cc3L;
+
+	/**
+	 * 有符号的64位乘法的128位结果的高64位，和Java 9的Math.multiplyHigh相同
+	 * 分成高低各32位的两半相乘，方法来自Hacker's Delight 8-2
+	 */
+	static long multiplyHigh(long x, long y) {
+		long x1 = x >> 32;
+		long x2 = x & 0xFFFFFFFFL;
+		long y1 = y >> 32;
+		long y2 = y & 0xFFFFFFFFL;
+		long z2 = x2 * y2;
+		long t = x1 * y2 + (z2 >>> 32);
+		long z1 = t & 0xFFFFFFFFL;
+		long z0 = t >> 32;
+		z1 += x2 * y1;
+		return x1 * y1 + z0 + (z1 >> 32);
+	}
+
+	// 128位乘积的高64位和低64位异或
+	private static long mum(long a, long b) {
+		return (a * b) ^ multiplyHigh(a, b);
+	}
+
+	// 最后一步，把两个64位的数混合成结果
+	private static long finish(long a, long b, long seed, int len) {
+		a ^= P1;
+		b ^= seed;
+		long lo = a * b;
+		long hi = multiplyHigh(a, b);
+		return mum(lo ^ P0 ^ len, hi ^ P1);
+	}
+
+	private static void checkFromIndexSize(int off, int len, int length) {
+		if (off < 0 || len < 0 || off > length - len) {
+			throw new IndexOutOfBoundsException("off " + off + ", len " + len + ", length " + length);
+		}
+	}
+
+	private static long r8(ByteBuffer p, int i) {
+		return p.getLong(i);
+	}
+
+	private static long r4(ByteBuffer p, int i) {
+		return p.getInt(i) & 0xffffffffL;
+	}
+
+	// 1到3个字节，第一个、中间和最后一个字节
+	private static long r3(byte[] p, int i, int k) {
+		return ((p[i] & 0xffL) << 16) | ((p[i + (k >>> 1)] & 0xffL) << 8) | (p[i + k - 1] & 0xffL);
+	}
+
+	/**
+	 * data[off, off + len)的64位hash值
+	 */
+	public static long hash64(byte[] data, int off, int len, long seed) {
+		checkFromIndexSize(off, len, data.length);
+		seed ^= mum(seed ^ P0, P1);
+		ByteBuffer buf = MyArraysSupport.littleEndian(data);
+		long a, b;
+		if (len <= 16) {
+			if (len >= 4) {
+				int d = (len >>> 3) << 2;
+				a = (r4(buf, off) << 32) | r4(buf, off + d);
+				b = (r4(buf, off + len - 4) << 32) | r4(buf, off + len - 4 - d);
+			}// 4到16个字节，读4次可能重叠的4字节
+			else if (len > 0) {
+				a = r3(data, off, len);
+				b = 0;
+			}
+			else {
+				a = b = 0;
+			}
+		}
+		else {
+			int i = len;
+			int p = off;
+			if (i > 48) {
+				long see1 = seed, see2 = seed;
+				do {
+					seed = mum(r8(buf, p) ^ P1, r8(buf, p + 8) ^ seed);
+					see1 = mum(r8(buf, p + 16) ^ P2, r8(buf, p + 24) ^ see1);
+					see2 = mum(r8(buf, p + 32) ^ P3, r8(buf, p + 40) ^ see2);
+					p += 48;
+					i -= 48;
+				} while (i > 48);
+				seed ^= see1 ^ see2;
+			}// 三条互不依赖的链，乘法可以并行执行
+			while (i > 16) {
+				seed = mum(r8(buf, p) ^ P1, r8(buf, p + 8) ^ seed);
+				i -= 16;
+				p += 16;
+			}
+			a = r8(buf, p + i - 16);
+			b = r8(buf, p + i - 8);// 最后16个字节，可能和已经处理过的部分重叠
+		}
+		return finish(a, b, seed, len);
+	}
+
+	public static long hash64(byte[] data, long seed) {
+		return hash64(data, 0, data.length, seed);
+	}
+
+	/*
+	 * char数组按照每个char两个字节、小端序处理，和同样内容的UTF16的MyString的value得到的结果相同
+	 * 所有的读取位置都是偶数字节，正好是完整的char
+	 */
+
+	private static long r8(char[] p, int i) {
+		i >>= 1;
+		return p[i] | ((long) p[i + 1] << 16) | ((long) p[i + 2] << 32) | ((long) p[i + 3] << 48);
+	}
+
+	private static long r4(char[] p, int i) {
+		i >>= 1;
+		return p[i] | ((long) p[i + 1] << 16);
+	}
+
+	/**
+	 * data[off, off + len)的64位hash值，off和len按照char计算
+	 */
+	public static long hash64(char[] data, int off, int len, long seed) {
+		checkFromIndexSize(off, len, data.length);
+		int n = len << 1;// 字节数
+		int base = off << 1;
+		seed ^= mum(seed ^ P0, P1);
+		long a, b;
+		if (n <= 16) {
+			if (n >= 4) {
+				int d = (n >>> 3) << 2;
+				a = (r4(data, base) << 32) | r4(data, base + d);
+				b = (r4(data, base + n - 4) << 32) | r4(data, base + n - 4 - d);
+			}
+			else if (n > 0) {
+				char c = data[off];
+				a = ((c & 0xffL) << 16) | ((long) (c >>> 8) << 8) | (c >>> 8);
+				b = 0;
+			}// 只有一个char，和r3读两个字节的结果相同
+			else {
+				a = b = 0;
+			}
+		}
+		else {
+			int i = n;
+			int p = base;
+			if (i > 48) {
+				long see1 = seed, see2 = seed;
+				do {
+					seed = mum(r8(data, p) ^ P1, r8(data, p + 8) ^ seed);
+					see1 = mum(r8(data, p + 16) ^ P2, r8(data, p + 24) ^ see1);
+					see2 = mum(r8(data, p + 32) ^ P3, r8(data, p + 40) ^ see2);
+					p += 48;
+					i -= 48;
+				} while (i > 48);
+				seed ^= see1 ^ see2;
+			}
+			while (i > 16) {
+				seed = mum(r8(data, p) ^ P1, r8(data, p + 8) ^ seed);
+				i -= 16;
+				p += 16;
+			}
+			a = r8(data, p + i - 16);
+			b = r8(data, p + i - 8);
+		}
+		return finish(a, b, seed, n);
+	}
+
+	public static long hash64(char[] data, long seed) {
+		return hash64(data, 0, data.length, seed);
+	}
+
+	/**
+	 * 直接对MyString的value计算，相等的MyString编码一定相同，所以结果也相同
+	 * LATIN1的字符串和同样内容的char数组的结果不同
+	 */
+	public static long hash64(MyString s, long seed) {
+		byte[] v = s.value();
+		return hash64(v, 0, v.length, seed);
+	}
+
+	// 一个64位整数的hash值，用于编号之类的键
+	public static long hash64(long x, long seed) {
+		long a = x ^ P0;
+		long b = seed ^ P1;
+		long lo = a * b;
+		long hi = multiplyHigh(a, b);
+		return mum(lo ^ P0, hi ^ P1);
+	}
+
+	// 折叠成32位，哈希表使用
+	public static int fold(long h) {
+		return (int) (h ^ (h >>> 32));
+	}
+
+	private static final long GOLDEN_GAMMA = 0x9e3779b97f4a7c15L;
+
+	private static final AtomicLong seeder = new AtomicLong(new SecureRandom().nextLong());
+
+	// 返回一个随机的种子，每次调用都不同，方法和SplittableRandom相同
+	public static long randomSeed() {
+		long z = seeder.addAndGet(GOLDEN_GAMMA);
+		z = (z ^ (z >>> 30)) * 0xbf58476d1ce4e5b9L;
+		z = (z ^ (z >>> 27)) * 0x94d049bb133111ebL;
+		return z ^ (z >>> 31);
+	}
+}
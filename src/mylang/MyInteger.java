@@ -186,6 +186,64 @@ public final class MyInteger extends Number implements Serializable {
 		}
 	}
 
+	/*
+	 * long的版本，参考Long.getChars和Long.stringSize，MyAbstractStringBuilder.append(long)使用
+	 * 先两位两位地处理到int的范围之内，再沿用int的做法
+	 */
+	static void getChars(long i, int index, char[] buf) {
+		long q;
+		int r;
+		int charPos = index;
+		char sign = 0;
+
+		if (i < 0) {
+			sign = '-';
+			i = -i;
+		}
+
+		while (i > Integer.MAX_VALUE) {
+			q = i / 100;
+			r = (int) (i - ((q << 6) + (q << 5) + (q << 2)));// r = i - (q * 100)
+			i = q;
+			buf[--charPos] = DigitOnes[r];
+			buf[--charPos] = DigitTens[r];
+		}// long的除法比较慢，只在超出int范围的时候使用
+
+		int q2;
+		int i2 = (int) i;
+		while (i2 >= 65536) {
+			q2 = i2 / 100;
+			r = i2 - ((q2 << 6) + (q2 << 5) + (q2 << 2));
+			i2 = q2;
+			buf[--charPos] = DigitOnes[r];
+			buf[--charPos] = DigitTens[r];
+		}
+
+		for (;;) {
+			q2 = (i2 * 52429) >>> (16 + 3);
+			r = i2 - ((q2 << 3) + (q2 << 1));
+			buf[--charPos] = digits[r];
+			i2 = q2;
+			if (i2 == 0) break;
+		}
+
+		if (sign != 0) {
+			buf[--charPos] = sign;
+		}
+	}
+
+	// 正的long的十进制长度，long最多19位
+	static int stringSize(long x) {
+		long p = 10;
+		for (int i = 1; i < 19; i++) {
+			if (x < p) {
+				return i;
+			}
+			p = 10 * p;
+		}
+		return 19;
+	}
+
 	// 将字符串转化为整型数，radix是进制,该方法需要考虑各种异常情况
 	public static int parseInt(String s, int radix) throws NumberFormatException {
 		if (s == null) {
@@ -0,0 +1,373 @@
+package mylang;
+
+import java.util.Arrays;
+
+/*
+ * 多模式串匹配，使用Aho-Corasick自动机，一次扫描文本就能找出字典中所有词的所有出现位置，时间和文本长度成线性关系
+ *
+ * 自动机用双数组（double-array）表示：状态s经过字符编码c到达的状态是t = base[s] + c，当且仅当check[t] == s时这条边存在，
+ * 不存在的时候沿着失败指针fail[s]回退，直到根节点0
+ * 字符先通过codes映射成从1开始的连续编码，不在字典中的字符编码为0，直接回到根节点，这样数组不会因为字符值很大而变得稀疏
+ *
+ * 构造的时候先把字典排好序，然后按照层次遍历的顺序直接在双数组中分配节点，不需要先建一棵字典树：
+ * 同一个节点下面的词在排好序的字典中是连续的一段，第depth个字符相同的又是其中连续的一小段，就是这个节点的一个孩子
+ *
+ * 编译之后不可变，可以在多个线程中共用，匹配时不创建任何对象
+ */
+public final class MyMultiMatcher {
+
+	// 每找到一个匹配回调一次，pattern是词在字典中的下标，[start, end)是它在文本中的位置
+	@FunctionalInterface
+	public interface MatchConsumer {
+		void accept(int pattern, int start, int end);
+	}
+
+	private final MyString[] patterns;
+
+	private final int[] lengths;// 每个词的长度
+
+	private final int[] codes;// 字符到编码的映射，下标是字符，0表示字典中没有这个字符
+
+	private int[] base;
+
+	private int[] check;// -1表示空位
+
+	private int[] fail;// 失败指针，匹配失败时转到的状态，它对应的字符串是当前状态的最长的真后缀
+
+	private int[] out;// 在该状态结束的词的下标，没有为-1，相同的词只记录下标最小的一个
+
+	private int[] outLink;// 沿着失败指针最近的一个有词结束的状态，没有为0
+
+	private int size;// 已经使用的数组长度
+
+	/**
+	 * 使用字典构造自动机
+	 *
+	 * @throws IllegalArgumentException
+	 *             字典中有空串
+	 */
+	public MyMultiMatcher(MyString[] dictionary) {
+		int n = dictionary.length;
+		patterns = dictionary.clone();
+		lengths = new int[n];
+		char[][] words = new char[n][];
+		int maxChar = 0;
+		for (int i = 0; i < n; i++) {
+			MyString p = patterns[i];
+			int len = p.length();
+			if (len == 0) {
+				throw new IllegalArgumentException("empty pattern at " + i);
+			}
+			char[] w = new char[len];
+			p.getChars(0, len, w, 0);
+			for (char c : w) {
+				maxChar = Math.max(maxChar, c);
+			}
+			words[i] = w;
+			lengths[i] = len;
+		}
+		codes = new int[maxChar + 1];
+		int code = 0;
+		for (char[] w : words) {
+			for (char c : w) {
+				if (codes[c] == 0) {
+					codes[c] = ++code;
+				}
+			}
+		}// 按照第一次出现的顺序编号
+		build(words);
+	}
+
+	public int size() {
+		return patterns.length;
+	}// 字典中词的个数
+
+	public MyString pattern(int index) {
+		return patterns[index];
+	}
+
+	/*
+	 * 以下是构造自动机的方法
+	 */
+
+	// 按字典序比较两个字符数组，一个是另一个的前缀的时候短的在前面
+	private static int compare(char[] a, char[] b) {
+		int n = Math.min(a.length, b.length);
+		for (int i = 0; i < n; i++) {
+			if (a[i] != b[i]) {
+				return a[i] - b[i];
+			}
+		}
+		return a.length - b.length;
+	}
+
+	private void build(char[][] words) {
+		int n = words.length;
+		Integer[] boxed = new Integer[n];
+		for (int i = 0; i < n; i++) {
+			boxed[i] = i;
+		}
+		Arrays.sort(boxed, (a, b) -> {
+			int c = compare(words[a], words[b]);
+			return c != 0 ? c : a - b;
+		});// 相同的词下标小的在前面
+		int[] order = new int[n];
+		for (int i = 0; i < n; i++) {
+			order[i] = boxed[i];
+		}
+
+		int cap = 64;
+		base = new int[cap];
+		check = new int[cap];
+		fail = new int[cap];
+		out = new int[cap];
+		outLink = new int[cap];
+		Arrays.fill(check, -1);
+		Arrays.fill(out, -1);
+		check[0] = 0;// 根节点，子节点不能分配在0上
+		size = 1;
+
+		/*
+		 * 层次遍历，队列中每个节点占4格：状态，对应的词在order中的区间[lo, hi)，深度
+		 * 节点个数不会超过所有词的长度之和加一
+		 */
+		int total = 1;
+		for (char[] w : words) {
+			total += w.length;
+		}
+		int[] queue = new int[total << 2];
+		int head = 0, tail = 0;
+		queue[tail++] = 0;
+		queue[tail++] = 0;
+		queue[tail++] = n;
+		queue[tail++] = 0;
+		int[] childCodes = new int[codes.length];
+		int[] childLo = new int[codes.length + 1];
+		int nextCheckPos = 1;
+		while (head < tail) {
+			int s = queue[head++], lo = queue[head++], hi = queue[head++], depth = queue[head++];
+			while (lo < hi && words[order[lo]].length == depth) {
+				lo++;
+			}// 在这个节点结束的词在区间的最前面，创建节点的时候已经处理过了
+			if (lo == hi) {
+				continue;
+			}// 叶子节点
+
+			// 按照第depth个字符分组，每一组是一个孩子
+			int k = 0, maxCode = 0;
+			for (int i = lo; i < hi; i++) {
+				int c = codes[words[order[i]][depth]];
+				if (k == 0 || childCodes[k - 1] != c) {
+					childCodes[k] = c;
+					childLo[k++] = i;
+					maxCode = Math.max(maxCode, c);
+				}
+			}
+			childLo[k] = hi;
+
+			/*
+			 * 找到一个base，使得所有孩子的位置都是空的，从nextCheckPos开始找第一个孩子可以放的空位
+			 * 如果找的过程中经过的位置绝大部分都已经被占用，说明前面已经很满了，下次直接从这次找到的第一个空位开始
+			 */
+			int c0 = childCodes[0];
+			int pos = Math.max(c0 + 1, nextCheckPos) - 1;
+			int occupied = 0;
+			boolean first = true;
+			int b;
+			for (;;) {
+				pos++;
+				ensureCapacity(pos + 1);
+				if (check[pos] >= 0) {
+					occupied++;
+					continue;
+				}
+				if (first) {
+					nextCheckPos = pos;
+					first = false;
+				}
+				b = pos - c0;
+				ensureCapacity(b + maxCode + 1);
+				int j = 1;
+				while (j < k && check[b + childCodes[j]] < 0) {
+					j++;
+				}
+				if (j == k) {
+					break;
+				}
+			}
+			if (occupied >= (pos - nextCheckPos + 1) * 0.95) {
+				nextCheckPos = pos;
+			}
+			base[s] = b;
+			for (int j = 0; j < k; j++) {
+				int t = b + childCodes[j];
+				check[t] = s;
+				size = Math.max(size, t + 1);
+			}// 先把所有孩子占住，再计算失败指针，因为孩子的失败指针可能指向自己的兄弟
+
+			for (int j = 0; j < k; j++) {
+				int c = childCodes[j];
+				int t = b + c;
+				int f = 0;
+				if (s != 0) {
+					for (int u = fail[s];; u = fail[u]) {
+						int v = base[u] + c;
+						if (v < size && check[v] == u) {
+							f = v;
+							break;
+						}
+						if (u == 0) {
+							break;
+						}
+					}
+				}// 第一层的节点失败指针都是根节点
+				fail[t] = f;
+				outLink[t] = out[f] >= 0 ? f : outLink[f];// f比t浅，在t之前创建，out和outLink都已经确定
+
+				int clo = childLo[j], chi = childLo[j + 1];
+				if (words[order[clo]].length == depth + 1) {
+					out[t] = order[clo];
+				}// 排序时相同的词下标小的在前面
+				queue[tail++] = t;
+				queue[tail++] = clo;
+				queue[tail++] = chi;
+				queue[tail++] = depth + 1;
+			}
+		}
+		base = Arrays.copyOf(base, size);
+		check = Arrays.copyOf(check, size);
+		fail = Arrays.copyOf(fail, size);
+		out = Arrays.copyOf(out, size);
+		outLink = Arrays.copyOf(outLink, size);
+	}
+
+	private void ensureCapacity(int minCapacity) {
+		int cap = check.length;
+		if (minCapacity > cap) {
+			int newCap = Math.max(minCapacity, cap + (cap >> 1));
+			base = Arrays.copyOf(base, newCap);
+			check = Arrays.copyOf(check, newCap);
+			fail = Arrays.copyOf(fail, newCap);
+			out = Arrays.copyOf(out, newCap);
+			outLink = Arrays.copyOf(outLink, newCap);
+			Arrays.fill(check, cap, newCap, -1);
+			Arrays.fill(out, cap, newCap, -1);
+		}
+	}
+
+	/*
+	 * 以下是匹配的方法，对MyString的两种编码和MyAbstractStringBuilder直接访问内部数组，其他的CharSequence使用charAt
+	 */
+
+	// 状态s读入字符ch之后的状态
+	private int next(int s, char ch) {
+		int c = ch < codes.length ? codes[ch] : 0;
+		if (c == 0) {
+			return 0;
+		}// 字典中没有的字符
+		int[] base = this.base, check = this.check;
+		for (;;) {
+			int t = base[s] + c;
+			if (t < check.length && check[t] == s) {
+				return t;
+			}
+			if (s == 0) {
+				return 0;
+			}
+			s = fail[s];
+		}
+	}
+
+	// 报告在状态s结束的所有词，end是文本中最后一个字符的下一个位置
+	private void report(int s, int end, MatchConsumer action) {
+		for (int u = out[s] >= 0 ? s : outLink[s]; u > 0; u = outLink[u]) {
+			int p = out[u];
+			action.accept(p, end - lengths[p], end);
+		}
+	}
+
+	public void match(MyString text, MatchConsumer action) {
+		byte[] v = text.value();
+		int s = 0;
+		if (text.coder() == MyString.LATIN1) {
+			for (int i = 0; i < v.length; i++) {
+				s = next(s, (char) (v[i] & 0xff));
+				if (out[s] >= 0 || outLink[s] > 0) {
+					report(s, i + 1, action);
+				}
+			}
+		}
+		else {
+			int len = v.length >> 1;
+			for (int i = 0; i < len; i++) {
+				s = next(s, MyStringUTF16.getChar(v, i));
+				if (out[s] >= 0 || outLink[s] > 0) {
+					report(s, i + 1, action);
+				}
+			}
+		}
+	}
+
+	/*
+	 * 分段模式下value只是最后一块，依次扫描各个块，状态在块之间延续，跨块的匹配也能找到
+	 * 有间隙（insert、delete之后）的时候没有块，间隙前后的两部分各扫描一次，不移动字符
+	 */
+	public void match(MyAbstractStringBuilder sb, MatchConsumer action) {
+		int g = sb.gapStart;
+		if (g >= 0) {
+			char[] v = sb.value;
+			int s = scan(v, 0, g, 0, 0, action);
+			scan(v, v.length - (sb.count - g), v.length, s, g, action);
+			return;
+		}
+		int s = 0;
+		int pos = 0;// 当前块在整个内容中的起始位置
+		for (int c = 0; c <= sb.chunkCount; c++) {
+			char[] v = c < sb.chunkCount ? sb.chunks[c] : sb.value;
+			int n = c < sb.chunkCount ? sb.chunkLengths[c] : sb.count - sb.sealed;
+			s = scan(v, 0, n, s, pos, action);
+			pos += n;
+		}
+	}
+
+	// 从状态s开始扫描v[from, to)，pos是v[from]在整个文本中的位置，返回扫描之后的状态
+	private int scan(char[] v, int from, int to, int s, int pos, MatchConsumer action) {
+		for (int i = from; i < to; i++) {
+			s = next(s, v[i]);
+			if (out[s] >= 0 || outLink[s] > 0) {
+				report(s, pos + (i - from) + 1, action);
+			}
+		}
+		return s;
+	}
+
+	public void match(CharSequence text, MatchConsumer action) {
+		if (text instanceof MyString) {
+			match((MyString) text, action);
+			return;
+		}
+		int len = text.length();
+		int s = 0;
+		for (int i = 0; i < len; i++) {
+			s = next(s, text.charAt(i));
+			if (out[s] >= 0 || outLink[s] > 0) {
+				report(s, i + 1, action);
+			}
+		}
+	}
+
+	/**
+	 * 文本中是否出现了字典中的任意一个词，找到第一个就返回
+	 */
+	public boolean containsAny(CharSequence text) {
+		int len = text.length();
+		int s = 0;
+		for (int i = 0; i < len; i++) {
+			s = next(s, text.charAt(i));
+			if (out[s] >= 0 || outLink[s] > 0) {
+				return true;
+			}
+		}
+		return false;
+	}
+}
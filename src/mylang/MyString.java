@@ -1,8 +1,14 @@
 package mylang;
 
 import java.io.Serializable;
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Objects;
 
 /**
  * 参考源码实现String类
@@ -11,24 +17,45 @@ public final class MyString implements Serializable, Comparable<MyString>, CharS
 
 	private static final long serialVersionUID = -6679565187217629939L;
 
-	private final char[] value;// 存储每一个字符
+	/*
+	 * 存储每一个字符，coder为LATIN1时每个字符占一个字节，为UTF16时每个字符占两个字节（小端序）
+	 * 只要所有字符都能用一个字节表示就一定使用LATIN1，所以coder不同的两个字符串一定不相等
+	 */
+	private final byte[] value;
+
+	private final byte coder;// value的编码方式，LATIN1或者UTF16
 
 	private int hash;// 缓存hash值
 
+	transient boolean interned;// 是否是字符串池中的那一个，由MyStringTable设置，两个不同的池中的字符串一定不相等
+
+	static final boolean COMPACT_STRINGS = true;// 是否压缩成LATIN1，关掉之后所有的字符串都是UTF16的
+
+	static final byte LATIN1 = 0;
+
+	static final byte UTF16 = 1;
+
 	public MyString() {
-		this.value = new char[0];
-	}// 无参构造函数，将字符数组初始化为长度为零
+		this.value = new byte[0];
+		this.coder = LATIN1;
+	}// 无参构造函数，将字节数组初始化为长度为零
 
 	public MyString(MyString original) {
 		this.value = original.value;
+		this.coder = original.coder;
 		this.hash = original.hash;
 	}// 用一个字符串初始化一个字符串
 
 	public MyString(char[] value) {
-		this.value = Arrays.copyOf(value, value.length);
+		this(value, 0, value.length, null);
 	}// 使用字符数组初始化，该数组要进行深拷贝
 
 	public MyString(char[] value, int offset, int count) {
+		this(value, offset, count, rangeCheck(value, offset, count));
+	}// 用一个字符数组的一部分来初始化一个String,offset表示起始字符，count表示长度
+
+	// 检查范围，返回值只是为了能在this()调用之前完成检查
+	private static Void rangeCheck(char[] value, int offset, int count) {
 		if (offset < 0) {
 			throw new StringIndexOutOfBoundsException(offset);
 		}
@@ -38,8 +65,22 @@ public final class MyString implements Serializable, Comparable<MyString>, CharS
 		if (offset > value.length - count) {
 			throw new StringIndexOutOfBoundsException(offset + count);
 		}
-		this.value = Arrays.copyOfRange(value, offset, offset + count);// 做深拷贝
-	}// 用一个字符数组的一部分来初始化一个String,offset表示起始字符，count表示长度
+		return null;
+	}
+
+	// 先尝试压缩成LATIN1，有不能压缩的字符再使用UTF16，都要做深拷贝
+	private MyString(char[] value, int off, int len, Void sig) {
+		if (COMPACT_STRINGS) {
+			byte[] val = MyStringUTF16.compress(value, off, len);
+			if (val != null) {
+				this.value = val;
+				this.coder = LATIN1;
+				return;
+			}
+		}
+		this.coder = UTF16;
+		this.value = MyStringUTF16.toBytes(value, off, len);
+	}
 
 	public MyString(int[] codePoints, int offset, int count) {
 		if (offset < 0) {
@@ -48,16 +89,22 @@ public final class MyString implements Serializable, Comparable<MyString>, CharS
 		if (count < 0) {
 			throw new StringIndexOutOfBoundsException(count);
 		}
-		if (offset < codePoints.length - count) {
+		if (offset > codePoints.length - count) {
 			throw new StringIndexOutOfBoundsException(offset + count);
 		}
 		final int end = offset + count;
 
 		// 首先计算需要多少位，BMP占16位，但是增补字符占了两个字符的位数32，所以需要计算一共需要多少位char来表示，如果遇到增补字符，则分成高位和地位分别用一个char类型表示
 		// 0x0000~0xffff之间为基本多语言面，之后的0x10000~0x10ffff为增补字符
+		// 同时检查是不是所有的都能用一个字节表示
 		int n = count;
+		boolean latin1 = COMPACT_STRINGS;
 		for (int i = offset; i < end; i++) {
 			int c = codePoints[i];
+			if (MyStringLatin1.canEncode(c)) {
+				continue;
+			}
+			latin1 = false;
 			if (Character.isBmpCodePoint(c)) {
 				continue;
 			}
@@ -69,38 +116,82 @@ public final class MyString implements Serializable, Comparable<MyString>, CharS
 			}
 		} // 计算真是所需的char字符位数
 
-		// 再者，将没有无法识别字符的数字数组转化为char数组
-		char[] v = new char[n];
+		if (latin1) {
+			byte[] v = new byte[n];
+			for (int i = offset, j = 0; i < end; i++, j++) {
+				v[j] = (byte) codePoints[i];
+			}
+			this.value = v;
+			this.coder = LATIN1;
+			return;
+		}
+
+		// 再者，将没有无法识别字符的数字数组转化为UTF16的字节数组
+		byte[] v = MyStringUTF16.newBytesFor(n);
 		for (int i = offset, j = 0; i < end; i++, j++) {
 			int c = codePoints[i];
 			if (Character.isBmpCodePoint(c)) {
-				v[j] = (char) c;
+				MyStringUTF16.putChar(v, j, c);
 			}
 			else {
 				// 模拟toSurrogates方法
-				v[j++] = Character.highSurrogate(c);// 高位
-				v[j] = Character.lowSurrogate(c);// 低位
+				MyStringUTF16.putChar(v, j++, Character.highSurrogate(c));// 高位
+				MyStringUTF16.putChar(v, j, Character.lowSurrogate(c));// 低位
 			}
 		}
 		this.value = v;
+		this.coder = UTF16;
 	}
 
-	// TODO
 	/*
-	 * 省略了包含编码方式的构造函数，以及以byte数组初始化的构造函数
+	 * 用字节数组按照指定的字符集解码，UTF-8、ISO-8859-1和US-ASCII由MyStringCoding直接解码，不经过String
+	 * 不合法的字节序列替换成U+FFFD
 	 */
 
+	public MyString(byte[] bytes, Charset charset) {
+		this(bytes, 0, bytes.length, charset);
+	}
+
+	public MyString(byte[] bytes, int offset, int length, Charset charset) {
+		Objects.requireNonNull(charset);
+		if (offset < 0) {
+			throw new StringIndexOutOfBoundsException(offset);
+		}
+		if (length < 0) {
+			throw new StringIndexOutOfBoundsException(length);
+		}
+		if (offset > bytes.length - length) {
+			throw new StringIndexOutOfBoundsException(offset + length);
+		}
+		MyString s = MyStringCoding.decode(charset, bytes, offset, length);
+		this.value = s.value;
+		this.coder = s.coder;
+	}
+
 	// TODO
 	/*
 	 * 省略了以StringBuffer和StringBuilder构造String的方式
 	 */
 
-	MyString(char[] value, boolean shared) {
+	MyString(byte[] value, byte coder) {
 		this.value = value;
-	}// 包内部构造函数。以共用char数组的形式创建String，其中shared的参数用来区分于另一个没有该参数的构造函数，并没有实际作用，始终未true
+		this.coder = coder;
+	}// 包内部构造函数，直接共用字节数组，调用者要保证能压缩的一定已经压缩成了LATIN1
+
+	byte coder() {
+		return COMPACT_STRINGS ? coder : UTF16;
+	}
+
+	byte[] value() {
+		return value;
+	}// 包内使用，不能修改
+
+	private boolean isLatin1() {
+		return COMPACT_STRINGS && coder == LATIN1;
+	}
 
 	public int length() {
-		return value.length;
+		return value.length >> coder();
 	}
 
 	public boolean isEmpty() {
@@ -108,10 +199,74 @@ public final class MyString implements Serializable, Comparable<MyString>, CharS
 	}// 判断字符串是否为空
 
 	public char charAt(int index) {
-		if (index < 0 || index >= value.length) {
-			throw new StringIndexOutOfBoundsException(index);
+		if (isLatin1()) {
+			return MyStringLatin1.charAt(value, index);
+		}
+		else {
+			return MyStringUTF16.charAt(value, index);
+		}
+	}
+
+	/*
+	 * 编码成字节，UTF-8、ISO-8859-1和US-ASCII直接从value编码，不能表示的字符替换成'?'
+	 * 后两个方法写到调用者提供的空间中，不创建中间数组
+	 */
+
+	public byte[] getBytes(Charset charset) {
+		return MyStringCoding.encode(Objects.requireNonNull(charset), coder(), value);
+	}
+
+	// 编码之后的字节数，可以用来准备encodeTo的空间
+	public int encodedLength(Charset charset) {
+		Objects.requireNonNull(charset);
+		if (!MyStringCoding.isDirect(charset)) {
+			return getBytes(charset).length;
+		}
+		return MyStringCoding.encodedLength(charset, coder(), value, 0, length());
+	}
+
+	/**
+	 * 编码到dst[dstBegin, ...)中
+	 *
+	 * @return 写入的字节数
+	 * @throws IndexOutOfBoundsException
+	 *             dst剩下的空间不够，这时不会写入任何字节
+	 */
+	public int encodeTo(byte[] dst, int dstBegin, Charset charset) {
+		return MyStringCoding.encode(Objects.requireNonNull(charset), coder(), value, dst, dstBegin);
+	}
+
+	/**
+	 * 编码到dst的position开始的位置，之后position移到写入的最后一个字节之后
+	 *
+	 * @return 写入的字节数
+	 * @throws java.nio.BufferOverflowException
+	 *             dst剩下的空间不够，这时不会写入任何字节
+	 */
+	public int encodeTo(ByteBuffer dst, Charset charset) {
+		return MyStringCoding.encode(Objects.requireNonNull(charset), coder(), value, dst);
+	}
+
+	// 将字符串中的一段拷贝到字符数组中
+	public void getChars(int srcBegin, int srcEnd, char[] dst, int dstBegin) {
+		if (srcBegin < 0) {
+			throw new StringIndexOutOfBoundsException(srcBegin);
+		}
+		if (srcEnd > length()) {
+			throw new StringIndexOutOfBoundsException(srcEnd);
+		}
+		if (srcBegin > srcEnd) {
+			throw new StringIndexOutOfBoundsException(srcEnd - srcBegin);
+		}
+		if (dstBegin < 0 || dstBegin > dst.length - (srcEnd - srcBegin)) {
+			throw new ArrayIndexOutOfBoundsException(dstBegin);
+		}
+		if (isLatin1()) {
+			MyStringLatin1.getChars(value, srcBegin, srcEnd, dst, dstBegin);
+		}
+		else {
+			MyStringUTF16.getChars(value, srcBegin, srcEnd, dst, dstBegin);
 		}
-		return value[index];
 	}
 
 	public boolean equals(Object anObject) {
@@ -119,108 +274,137 @@ public final class MyString implements Serializable, Comparable<MyString>, CharS
 			return true;
 		}
 		if (anObject instanceof MyString) {
-			MyString anotherString = (MyString) anObject;
-			int n = anotherString.value.length;// 尽量减少函数调用，使用属性效率比函数调用高
-			if (n == value.length) {
-				int i = 0;
-				char[] v1 = this.value;
-				char[] v2 = anotherString.value;
-				while (n-- != 0) {
-					if (v1[i] != v2[i]) {
-						return false;
-					}
-					i++;
-				}
-				return true;
-			}
+			MyString aString = (MyString) anObject;
+			if (interned && aString.interned) {
+				return false;
+			}// 池中每种内容只有一个字符串，不是同一个对象就不相等，不需要比较内容
+			if (coder() == aString.coder()) {
+				return MyStringLatin1.equals(value, aString.value);
+			}// coder相同的时候只需要逐字节比较，LATIN1的字符串扫描的字节数只有原来的一半
 		}
 		return false;
 	}
 
 	public int compareTo(MyString anotherString) {
-		int len1 = value.length;
-		int len2 = anotherString.value.length;
-		int lim = Math.min(len1, len2);
-		char[] v1 = value;
-		char[] v2 = anotherString.value;
-
-		int k = 0;
-		while (k < lim) {
-			char c1 = v1[k];
-			char c2 = v2[k];
-			if (c1 != c2) {
-				return c1 - c2;
-			}
-			k++;
+		byte[] v1 = value;
+		byte[] v2 = anotherString.value;
+		byte coder = coder();
+		if (coder == anotherString.coder()) {
+			return coder == LATIN1 ? MyStringLatin1.compareTo(v1, v2) : MyStringUTF16.compareTo(v1, v2);
 		}
-		return len1 - len2;
+		return coder == LATIN1 ? MyStringLatin1.compareToUTF16(v1, v2) : MyStringUTF16.compareToLatin1(v1, v2);
 	}// 比较字典序
 
 	public boolean regionMatches(int toffset, MyString other, int ooffset, int len) {
-		char[] ta = value;
-		int to = toffset;
-		char[] pa = other.value;
-		int po = ooffset;
-		if (to < 0 || po < 0 || (to > value.length - len) || (po > value.length - len)) {
+		if (toffset < 0 || ooffset < 0 || (toffset > (long) length() - len)
+				|| (ooffset > (long) other.length() - len)) {
 			return false;
 		}
-		while (len-- > 0) {
-			if (ta[to++] != pa[po++]) {
-				return false;
-			}
+		byte[] tv = value;
+		byte[] ov = other.value;
+		byte coder = coder();
+		if (coder == other.coder()) {
+			return coder == LATIN1 ? MyStringLatin1.regionMatches(tv, toffset, ov, ooffset, len)
+					: MyStringUTF16.regionMatches(tv, toffset, ov, ooffset, len);
 		}
-		return true;
+		return coder == LATIN1 ? MyStringLatin1.regionMatchesUTF16(tv, toffset, ov, ooffset, len)
+				: MyStringLatin1.regionMatchesUTF16(ov, ooffset, tv, toffset, len);
 	}// 某一区域是否匹配,参数分别表示this的起始位置，另一个字符串，另一个的起始位置，区域长度
 
 	public boolean startsWith(MyString prefix, int toffset) {
-		char ta[] = value;
-		int to = toffset;
-		char pa[] = prefix.value;
-		int po = 0;
-		int pc = prefix.value.length;
-		if (toffset < 0 || toffset > value.length - pc) {
+		if (toffset < 0 || toffset > length() - prefix.length()) {
 			return false;
 		}
-		while (pc-- > 0) {
-			if (ta[to++] != pa[po++]) {
-				return false;
-			}
-		}
-		return true;
+		if (coder() == LATIN1 && prefix.coder() == UTF16) {
+			return false;
+		}// 前缀中有LATIN1表示不了的字符
+		return regionMatches(toffset, prefix, 0, prefix.length());
 	}// 判断某一个字符串是否以某个前缀
 
 	public int hashCode() {
 		int h = hash;
 		if (h == 0 && value.length > 0) {
-			for (int i = 0; i < value.length; i++) {
-				h = 31 * h + value[i];
-			}
+			h = isLatin1() ? MyStringLatin1.hashCode(value) : MyStringUTF16.hashCode(value);
 			hash = h;
 		}
 		return h;
 	}// 加入缓存机制,因为String是不可变类，hash的值确定之后基本不会改变，在第一次使用的时候才会初始化
 
-	public int indexOf(char[] source, int sourceOffset, int sourceCount, char[] target, int targetOffset,
+	public int indexOf(int ch) {
+		return indexOf(ch, 0);
+	}
+
+	public int indexOf(int ch, int fromIndex) {
+		return isLatin1() ? MyStringLatin1.indexOf(value, ch, fromIndex)
+				: MyStringUTF16.indexOf(value, ch, fromIndex);
+	}
+
+	public int indexOf(MyString str) {
+		return indexOf(str, 0);
+	}
+
+	// 按照两个字符串的coder分成四种情况
+	public int indexOf(MyString str, int fromIndex) {
+		byte[] src = value;
+		byte[] tgt = str.value;
+		byte coder = coder();
+		int srcCount = length();
+		int tgtCount = str.length();
+		if (fromIndex >= srcCount) {
+			return tgtCount == 0 ? srcCount : -1;
+		}
+		if (fromIndex < 0) {
+			fromIndex = 0;
+		}
+		if (tgtCount == 0) {
+			return fromIndex;
+		}
+		if (tgtCount > srcCount) {
+			return -1;
+		}
+		if (tgtCount >= MyStringSearcher.HORSPOOL_THRESHOLD
+				&& srcCount - fromIndex >= MyStringSearcher.HORSPOOL_MIN_TEXT) {
+			return new MyStringSearcher(str).indexOf(this, fromIndex);
+		}// 查找字符串较长并且文本足够长的时候使用Horspool
+		if (coder == str.coder()) {
+			return coder == LATIN1 ? MyStringLatin1.indexOf(src, srcCount, tgt, tgtCount, fromIndex)
+					: MyStringUTF16.indexOf(src, srcCount, tgt, tgtCount, fromIndex);
+		}
+		if (coder == LATIN1) {
+			return -1;
+		}// LATIN1的字符串中不可能找到UTF16的字符串
+		return MyStringUTF16.indexOfLatin1(src, srcCount, tgt, tgtCount, fromIndex);
+	}
+
+	/*
+	 * 得到被查找字符串中第一个查找字符串开始的位置，返回值相对于sourceOffset
+	 * 一般情况下先找第一个字符再比较剩下的部分，不创建任何对象；和indexOf(MyString, int)一样，
+	 * 查找字符串和剩下的文本都足够长的时候才临时编译一个MyStringSearcher，同一个查找字符串反复使用时应该直接创建MyStringSearcher
+	 */
+	public static int indexOf(char[] source, int sourceOffset, int sourceCount, char[] target, int targetOffset,
 			int targetCount, int fromIndex) {
-		// TODO
 		if (fromIndex >= sourceCount) {
-			return targetCount == 0 ? sourceCount : -1;
-		} // 开始查找的位置已经大于了被查找字符串的长度
+			return (targetCount == 0 ? sourceCount : -1);
+		}
 		if (fromIndex < 0) {
 			fromIndex = 0;
 		}
 		if (targetCount == 0) {
 			return fromIndex;
 		}
+		if (targetCount >= MyStringSearcher.HORSPOOL_THRESHOLD
+				&& sourceCount - fromIndex >= MyStringSearcher.HORSPOOL_MIN_TEXT) {
+			return new MyStringSearcher(new MyString(target, targetOffset, targetCount)).indexOf(source, sourceOffset,
+					sourceCount, fromIndex);
+		}
 		char first = target[targetOffset];
-		int max = sourceOffset + (sourceCount - targetCount);// 最后的开始位置，再往后就无法满足targetCount
+		int max = sourceOffset + (sourceCount - targetCount);
 		for (int i = sourceOffset + fromIndex; i <= max; i++) {
 			if (source[i] != first) {
 				while (++i <= max && source[i] != first)
 					;
-			} // 寻找到一个等于要查找的第一个字符的位置
+			}// 先找到第一个字符
 			if (i <= max) {
-				// 从接下来的第二个开始
 				int j = i + 1;
 				int end = j + targetCount - 1;
 				for (int k = targetOffset + 1; j < end && source[j] == target[k]; j++, k++)
@@ -228,76 +412,81 @@ public final class MyString implements Serializable, Comparable<MyString>, CharS
 				if (j == end) {
 					return i - sourceOffset;
 				}
-			}
+			}// 再比较剩下的部分
 		}
 		return -1;
-	}// 得到被查找字符串中第一个查找字符串开始的位置
+	}
 
 	public MyString substring(int beginIndex) {
-		if (beginIndex < 0) {
-			throw new StringIndexOutOfBoundsException(beginIndex);
-		}
-		int subLen = value.length - beginIndex;
-		if (subLen < 0) {
-			throw new StringIndexOutOfBoundsException(subLen);
-		}
-		return beginIndex == 0 ? this : new MyString(value, beginIndex, subLen);
+		return substring(beginIndex, length());
 	}
 
 	public MyString substring(int beginIndex, int endIndex) {
+		int length = length();
 		if (beginIndex < 0) {
 			throw new StringIndexOutOfBoundsException(beginIndex);
 		}
-		if (endIndex > value.length) {
+		if (endIndex > length) {
 			throw new StringIndexOutOfBoundsException(endIndex);
 		}
 		int subLen = endIndex - beginIndex;
 		if (subLen < 0) {
 			throw new StringIndexOutOfBoundsException(subLen);
 		}
-		return (beginIndex == 0) && (endIndex == value.length) ? this : new MyString(value, beginIndex, subLen);
+		if (beginIndex == 0 && endIndex == length) {
+			return this;
+		}
+		return isLatin1() ? MyStringLatin1.newString(value, beginIndex, subLen)
+				: MyStringUTF16.newString(value, beginIndex, subLen);
+	}// UTF16的子串可能全是LATIN1的字符，newString会重新压缩
 
-	}//
+	/**
+	 * 返回[beginIndex, endIndex)的视图，和这个字符串共用数组，不拷贝字符
+	 */
+	public MyStringSlice slice(int beginIndex, int endIndex) {
+		MyStringSlice.checkBoundsBeginEnd(beginIndex, endIndex, length());
+		return new MyStringSlice(value, coder(), beginIndex, endIndex - beginIndex);
+	}
+
+	// 整个字符串的视图，可以在上面继续slice、split、trim而不拷贝
+	public MyStringSlice slice() {
+		return new MyStringSlice(value, coder(), 0, length());
+	}
 
 	public MyString concat(MyString str) {
-		int otherLen = str.length();
-		if (otherLen == 0) {
+		if (str.isEmpty()) {
 			return this;
 		}
-		int len = value.length;
-		char[] buf = Arrays.copyOf(value, otherLen + len);
-		// 源码实现是通过本地方法
-		/*
-		 * 模拟实现
-		 */
-		for (int i = otherLen, j = 0; i < buf.length; i++, j++) {
-			buf[i] = str.value[j];
+		if (isEmpty()) {
+			return str;
 		}
-		return new MyString(buf, true);
-		/**/
+		byte coder = coder();
+		if (coder == str.coder()) {
+			byte[] buf = Arrays.copyOf(value, value.length + str.value.length);
+			System.arraycopy(str.value, 0, buf, value.length, str.value.length);
+			return new MyString(buf, coder);
+		}// 编码相同直接拼接字节
+		int len = length();
+		int olen = str.length();
+		byte[] buf = MyStringUTF16.newBytesFor(len + olen);
+		if (coder == LATIN1) {
+			MyStringLatin1.inflate(value, 0, buf, 0, len);
+			System.arraycopy(str.value, 0, buf, len << 1, olen << 1);
+		}
+		else {
+			System.arraycopy(value, 0, buf, 0, len << 1);
+			MyStringLatin1.inflate(str.value, 0, buf, len, olen);
+		}// 编码不同的时候结果一定是UTF16的，LATIN1的部分要展开
+		return new MyString(buf, UTF16);
 	}
 
 	public MyString replace(char oldChar, char newChar) {
 		if (oldChar != newChar) {
-			int i = -1;
-			char[] var = value;
-			int len = var.length;
-			while (++i < len) {
-				if (var[i] == oldChar) {
-					break;
-				}
+			MyString ret = isLatin1() ? MyStringLatin1.replace(value, oldChar, newChar)
+					: MyStringUTF16.replace(value, oldChar, newChar);
+			if (ret != null) {
+				return ret;
 			}
-			if (i < len) {
-				char[] buf = new char[len];
-				for (int j = 0; j < i; j++) {
-					buf[j] = var[j];
-				}
-				while (i < len) {
-					buf[i] = var[i] == oldChar ? newChar : var[i];
-					i++;
-				}
-				return new MyString(buf, true);
-			} // i<len表示在上一次的循环中发现了oldChar，否则i应该等于len
 		}
 		return this;
 	}
@@ -306,39 +495,104 @@ public final class MyString implements Serializable, Comparable<MyString>, CharS
 	public MyString[] split(char c) {
 		ArrayList<MyString> list = new ArrayList<MyString>();
 		int pre = 0;
-		for (int i = 0; i < value.length; i++) {
-			if (value[i] == c) {
-				list.add(substring(pre, i));
-				pre = i + 1;
-			}
-		}
-		if (pre != value.length) {
+		int next;
+		while ((next = indexOf(c, pre)) >= 0) {
+			list.add(substring(pre, next));
+			pre = next + 1;
+		}// indexOf按照coder选择扫描方式，LATIN1的字符串中找不到的字符会直接返回
+		if (pre != length()) {
 			list.add(substring(pre));
 		}
 		MyString[] result = new MyString[list.size()];
 		return list.toArray(result);
 	}// 需要O（n）时间复杂度
 
+	// forEachField的回调，[start, end)是一段在字符串中的位置
+	@FunctionalInterface
+	public interface FieldConsumer {
+		void accept(int start, int end);
+	}
+
+	/**
+	 * 按照字符c切分，每一段只回调它的起止位置，不创建任何对象，规则和split(char)相同
+	 */
+	public void forEachField(char c, FieldConsumer action) {
+		int length = length();
+		int pre = 0;
+		int next;
+		while ((next = indexOf(c, pre)) >= 0) {
+			action.accept(pre, next);
+			pre = next + 1;
+		}
+		if (pre != length) {
+			action.accept(pre, length);
+		}
+	}
+
+	// 返回一个已经指向这个字符串的切分器，可以reset到其他字符串上重复使用
+	public MyStringSplitter splitter(char c) {
+		return new MyStringSplitter(c).reset(this);
+	}
+
+	// 延迟切分，每次next才找下一段，返回的是视图，不拷贝字符
+	public Iterator<MyStringSlice> splitIterator(char c) {
+		return new SplitIterator(splitter(c));
+	}
+
+	private static final class SplitIterator implements Iterator<MyStringSlice> {
+		private final MyStringSplitter splitter;
+		private boolean ready;// splitter已经移动到了下一段但是还没有返回
+		private boolean done;
+
+		SplitIterator(MyStringSplitter splitter) {
+			this.splitter = splitter;
+		}
+
+		public boolean hasNext() {
+			if (!ready && !done) {
+				if (splitter.advance()) {
+					ready = true;
+				}
+				else {
+					done = true;
+				}
+			}
+			return ready;
+		}
+
+		public MyStringSlice next() {
+			if (!hasNext()) {
+				throw new NoSuchElementException();
+			}
+			ready = false;
+			return splitter.slice();
+		}
+	}
+
 	public MyString trim() {
-		int len = value.length;
-		int start = 0;
-		char[] var = value;
-		while (start < len && var[start] <= ' ') {
-			start++;
-		} // space之前的都是不可显示字符，该方法不仅仅是去除space还要去除tab 回车等所有不可显示字符
-		while (len > start && var[len - 1] <= ' ') {
-			len--;
+		int start, len;
+		if (isLatin1()) {
+			start = MyStringLatin1.indexOfNonWhitespace(value);
+			len = MyStringLatin1.lastIndexOfNonWhitespace(value, start);
 		}
-		return (start == 0 && len == value.length) ? this : substring(start, len);
+		else {
+			start = MyStringUTF16.indexOfNonWhitespace(value);
+			len = MyStringUTF16.lastIndexOfNonWhitespace(value, start);
+		} // space之前的都是不可显示字符，该方法不仅仅是去除space还要去除tab 回车等所有不可显示字符
+		return (start == 0 && len == length()) ? this : substring(start, len);
 	}
 
 	/*
 	 * String 的intern方法为本地方法，作用是：如果常量池中包含等于该String的字符串则返回运行时常量池中的String对象，如果没有的话
 	 * 则将次String包含的字符串添加到常量池中
 	 */
+	public MyString intern() {
+		return interned ? this : MyStringTable.intern(this);
+	}// 这里的池是MyStringTable，池中的字符串只被弱引用，没有其他地方使用之后会被回收
+
 	public String toString() {
-		return new String(value);
-	}
+		return isLatin1() ? new String(value, StandardCharsets.ISO_8859_1) : new String(MyStringUTF16.toChars(value));
+	}// UTF16的部分不能用解码器，单独的代理字符会被替换掉
 
 	public CharSequence subSequence(int start, int end) {
 		return substring(start, end);
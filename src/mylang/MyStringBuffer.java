@@ -4,12 +4,15 @@ import java.io.IOException;
 import java.io.ObjectInputStream;
 import java.io.ObjectOutputStream;
 import java.io.Serializable;
-import java.util.Arrays;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.Charset;
 
 public final class MyStringBuffer extends MyAbstractStringBuilder implements Serializable {
 	/*
 	 * 该类的几乎所有方法都是调用abstractStringBuilder的对应方法并且加上同步关键字synchronized，只是：
 	 * 在需要修改值字符串的时候设置toStringCache的值为null,
+	 * 只在一个线程中使用的时候用MyStringBuilder，不需要加锁
 	 */
 
 	/**
@@ -17,14 +20,279 @@ public final class MyStringBuffer extends MyAbstractStringBuilder implements Ser
 	 */
 	private static final long serialVersionUID = 4252559514900245238L;
 
-	private transient char[] toStringCache;// transient表示该值在序列化的时候不被序列化，缓存，如果没有被改变可以不重新计算
+	/*
+	 * 缓存，如果没有被改变可以不重新计算，transient表示该值在序列化的时候不被序列化
+	 * String不能和外面共用数组，所以缓存的是String本身，没有修改的时候重复调用toString不会再拷贝
+	 */
+	private transient String toStringCache;
+
+	private transient MyString toMyStringCache;
+
+	public MyStringBuffer() {
+		super(16);
+	}// 默认容量为16
+
+	public MyStringBuffer(int capacity) {
+		super(capacity);
+	}
+
+	/**
+	 * @param segmented
+	 *            为true的时候使用分段模式，capacity是每一块的大小，扩容的时候不拷贝已经写入的内容
+	 */
+	public MyStringBuffer(int capacity, boolean segmented) {
+		super(capacity, segmented);
+	}
+
+	public MyStringBuffer(String str) {
+		super(str.length() + 16);
+		append(str);
+	}
+
+	/*
+	 * 读操作只加锁，修改内容的操作还要清空缓存
+	 */
+
+	@Override
+	public synchronized int length() {
+		return count;
+	}
+
+	@Override
+	public synchronized int capacity() {
+		return super.capacity();
+	}
+
+	@Override
+	public synchronized void ensureCapacity(int minimumCapacity) {
+		super.ensureCapacity(minimumCapacity);
+	}
+
+	@Override
+	public synchronized void trimToSize() {
+		super.trimToSize();
+	}
+
+	@Override
+	public synchronized void setLength(int newLength) {
+		toStringCache = null;
+		toMyStringCache = null;
+		super.setLength(newLength);
+	}
+
+	@Override
+	public synchronized char charAt(int index) {
+		return super.charAt(index);
+	}
+
+	@Override
+	public synchronized int codePointAt(int index) {
+		return super.codePointAt(index);
+	}
+
+	@Override
+	public synchronized void getChars(int srcBegin, int srcEnd, char[] dst, int dstBegin) {
+		super.getChars(srcBegin, srcEnd, dst, dstBegin);
+	}
+
+	@Override
+	public synchronized void setCharAt(int index, char ch) {
+		toStringCache = null;
+		toMyStringCache = null;
+		super.setCharAt(index, ch);
+	}
+
+	@Override
+	public synchronized MyStringBuffer append(String str) {
+		toStringCache = null;
+		toMyStringCache = null;
+		super.append(str);
+		return this;
+	}
+
+	@Override
+	public synchronized MyStringBuffer append(StringBuffer sb) {
+		toStringCache = null;
+		toMyStringCache = null;
+		super.append(sb);
+		return this;
+	}
+
+	@Override
+	public synchronized MyStringBuffer append(CharSequence s, int start, int end) {
+		toStringCache = null;
+		toMyStringCache = null;
+		super.append(s, start, end);
+		return this;
+	}
+
+	@Override
+	public synchronized MyStringBuffer append(char[] str, int offset, int len) {
+		toStringCache = null;
+		toMyStringCache = null;
+		super.append(str, offset, len);
+		return this;
+	}
+
+	@Override
+	public synchronized MyStringBuffer append(char c) {
+		toStringCache = null;
+		toMyStringCache = null;
+		super.append(c);
+		return this;
+	}
+
+	@Override
+	public synchronized MyStringBuffer append(boolean b) {
+		toStringCache = null;
+		toMyStringCache = null;
+		super.append(b);
+		return this;
+	}
+
+	@Override
+	public synchronized MyStringBuffer append(int i) {
+		toStringCache = null;
+		toMyStringCache = null;
+		super.append(i);
+		return this;
+	}
+
+	@Override
+	public synchronized MyStringBuffer append(long l) {
+		toStringCache = null;
+		toMyStringCache = null;
+		super.append(l);
+		return this;
+	}
+
+	@Override
+	public synchronized MyStringBuffer delete(int start, int end) {
+		toStringCache = null;
+		toMyStringCache = null;
+		super.delete(start, end);
+		return this;
+	}
+
+	@Override
+	public synchronized MyStringBuffer deleteCharAt(int index) {
+		toStringCache = null;
+		toMyStringCache = null;
+		super.deleteCharAt(index);
+		return this;
+	}
+
+	@Override
+	public synchronized MyStringBuffer replace(int start, int end, String str) {
+		toStringCache = null;
+		toMyStringCache = null;
+		super.replace(start, end, str);
+		return this;
+	}
+
+	@Override
+	public synchronized MyStringBuffer insert(int offset, String str) {
+		toStringCache = null;
+		toMyStringCache = null;
+		super.insert(offset, str);
+		return this;
+	}
+
+	@Override
+	public synchronized MyStringBuffer insert(int index, char[] str, int offset, int len) {
+		toStringCache = null;
+		toMyStringCache = null;
+		super.insert(index, str, offset, len);
+		return this;
+	}
+
+	@Override
+	public synchronized MyStringBuffer insert(int dstOffset, CharSequence s, int start, int end) {
+		toStringCache = null;
+		toMyStringCache = null;
+		super.insert(dstOffset, s, start, end);
+		return this;
+	}
+
+	@Override
+	public synchronized MyStringBuffer insert(int offset, char c) {
+		toStringCache = null;
+		toMyStringCache = null;
+		super.insert(offset, c);
+		return this;
+	}
+
+	@Override
+	public synchronized MyStringBuffer insert(int offset, boolean b) {
+		toStringCache = null;
+		toMyStringCache = null;
+		super.insert(offset, b);
+		return this;
+	}
+
+	@Override
+	public synchronized MyStringBuffer insert(int offset, int i) {
+		toStringCache = null;
+		toMyStringCache = null;
+		super.insert(offset, i);
+		return this;
+	}
+
+	@Override
+	public synchronized MyStringBuffer insert(int offset, long l) {
+		toStringCache = null;
+		toMyStringCache = null;
+		super.insert(offset, l);
+		return this;
+	}
+
+	@Override
+	public synchronized MyStringBuffer reverse() {
+		toStringCache = null;
+		toMyStringCache = null;
+		super.reverse();
+		return this;
+	}
+
+	@Override
+	public synchronized void writeTo(Appendable out) throws IOException {
+		super.writeTo(out);
+	}
+
+	@Override
+	public synchronized void writeTo(ByteBuffer dst) {
+		super.writeTo(dst);
+	}
+
+	@Override
+	public synchronized int encodeTo(ByteBuffer dst, Charset charset) {
+		return super.encodeTo(dst, charset);
+	}
+
+	@Override
+	public synchronized long encodeTo(WritableByteChannel out, Charset charset) throws IOException {
+		return super.encodeTo(out, charset);
+	}
+
+	@Override
+	public synchronized long encodeTo(WritableByteChannel out, Charset charset, ByteBuffer buf) throws IOException {
+		return super.encodeTo(out, charset, buf);
+	}
+
+	@Override
+	public synchronized MyString toMyString() {
+		if (toMyStringCache == null) {
+			toMyStringCache = super.toMyString();
+		}
+		return toMyStringCache;
+	}// MyString不可变，可以直接返回同一个对象
 
 	@Override
-	public String toString() {
+	public synchronized String toString() {
 		if (toStringCache == null) {
-			toStringCache = Arrays.copyOfRange(value, 0, count);
+			toStringCache = newString();
 		}
-		return new String(toStringCache);// 该处本应该使用String类内部的直接使用传进去的字符串的方法，但该方法只是包内可见
+		return toStringCache;
 	}
 
 	/*
@@ -42,6 +310,7 @@ public final class MyStringBuffer extends MyAbstractStringBuilder implements Ser
 			new java.io.ObjectStreamField("shared", Boolean.TYPE), };
 
 	private synchronized void writeObject(ObjectOutputStream s) throws IOException {
+		flatten();// 序列化的格式只有一个数组
 		ObjectOutputStream.PutField fields = s.putFields();
 		fields.put("value", value);
 		fields.put("count", count);
@@ -0,0 +1,172 @@
+package mylang;
+
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.Serializable;
+
+/*
+ * 和MyStringBuffer相同，但是不加锁，也不缓存toString的结果，只在一个线程中使用
+ * 重写append等方法只是为了返回MyStringBuilder，可以连续调用
+ */
+public final class MyStringBuilder extends MyAbstractStringBuilder implements Serializable {
+
+	private static final long serialVersionUID = 4383685877147921099L;
+
+	public MyStringBuilder() {
+		super(16);
+	}
+
+	public MyStringBuilder(int capacity) {
+		super(capacity);
+	}
+
+	/**
+	 * @param segmented
+	 *            为true的时候使用分段模式，capacity是每一块的大小，扩容的时候不拷贝已经写入的内容
+	 */
+	public MyStringBuilder(int capacity, boolean segmented) {
+		super(capacity, segmented);
+	}
+
+	public MyStringBuilder(String str) {
+		super(str.length() + 16);
+		append(str);
+	}
+
+	@Override
+	public MyStringBuilder append(String str) {
+		super.append(str);
+		return this;
+	}
+
+	@Override
+	public MyStringBuilder append(StringBuffer sb) {
+		super.append(sb);
+		return this;
+	}
+
+	@Override
+	public MyStringBuilder append(CharSequence s, int start, int end) {
+		super.append(s, start, end);
+		return this;
+	}
+
+	@Override
+	public MyStringBuilder append(char[] str, int offset, int len) {
+		super.append(str, offset, len);
+		return this;
+	}
+
+	@Override
+	public MyStringBuilder append(char c) {
+		super.append(c);
+		return this;
+	}
+
+	@Override
+	public MyStringBuilder append(boolean b) {
+		super.append(b);
+		return this;
+	}
+
+	@Override
+	public MyStringBuilder append(int i) {
+		super.append(i);
+		return this;
+	}
+
+	@Override
+	public MyStringBuilder append(long l) {
+		super.append(l);
+		return this;
+	}
+
+	@Override
+	public MyStringBuilder delete(int start, int end) {
+		super.delete(start, end);
+		return this;
+	}
+
+	@Override
+	public MyStringBuilder deleteCharAt(int index) {
+		super.deleteCharAt(index);
+		return this;
+	}
+
+	@Override
+	public MyStringBuilder replace(int start, int end, String str) {
+		super.replace(start, end, str);
+		return this;
+	}
+
+	@Override
+	public MyStringBuilder insert(int offset, String str) {
+		super.insert(offset, str);
+		return this;
+	}
+
+	@Override
+	public MyStringBuilder insert(int index, char[] str, int offset, int len) {
+		super.insert(index, str, offset, len);
+		return this;
+	}
+
+	@Override
+	public MyStringBuilder insert(int dstOffset, CharSequence s, int start, int end) {
+		super.insert(dstOffset, s, start, end);
+		return this;
+	}
+
+	@Override
+	public MyStringBuilder insert(int offset, char c) {
+		super.insert(offset, c);
+		return this;
+	}
+
+	@Override
+	public MyStringBuilder insert(int offset, boolean b) {
+		super.insert(offset, b);
+		return this;
+	}
+
+	@Override
+	public MyStringBuilder insert(int offset, int i) {
+		super.insert(offset, i);
+		return this;
+	}
+
+	@Override
+	public MyStringBuilder insert(int offset, long l) {
+		super.insert(offset, l);
+		return this;
+	}
+
+	@Override
+	public MyStringBuilder reverse() {
+		super.reverse();
+		return this;
+	}
+
+	@Override
+	public String toString() {
+		return newString();
+	}// 每次都创建新的字符串
+
+	/*
+	 * 序列化，和StringBuilder一样先写长度再写数组
+	 */
+
+	private void writeObject(ObjectOutputStream s) throws IOException {
+		s.defaultWriteObject();
+		flatten();
+		s.writeInt(count);
+		s.writeObject(value);
+	}
+
+	private void readObject(ObjectInputStream s) throws IOException, ClassNotFoundException {
+		s.defaultReadObject();
+		count = s.readInt();
+		value = (char[]) s.readObject();
+	}
+}
@@ -0,0 +1,606 @@
+package mylang;
+
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/*
+ * MyString和字节之间的编码解码，参考java.lang.StringCoding和String中的UTF-8部分
+ *
+ * UTF-8、ISO-8859-1和US-ASCII直接在value上处理，不经过java.lang.String和CharsetEncoder，其他的字符集转成String处理
+ * 大部分文本是ASCII，所以先一次检查8个字节（或者UTF16的4个字符）的最高位，整段是ASCII的时候直接拷贝、扩展或者压缩，
+ * 遇到非ASCII的字节再逐个处理
+ *
+ * 错误的输入和String的处理方式相同：解码时不合法的字节序列替换成U+FFFD，编码时不能表示的字符（包括单独的代理字符）替换成'?'
+ * 只在包内使用，参数检查由MyString完成
+ */
+final class MyStringCoding {
+
+	private MyStringCoding() {
+	}
+
+	private static final char REPL = '\uFFFD';// 解码的替换字符
+
+	private static final byte ENC_REPL = '?';// 编码的替换字符
+
+	private static final long HIGH_BITS = 0x8080808080808080L;// 8个字节的最高位
+
+	private static final long NON_ASCII_CHARS = 0xff80ff80ff80ff80L;// 4个UTF16字符中大于0x7f的位
+
+	/**
+	 * ba[off, off + len)开头连续的ASCII字节数
+	 */
+	static int countPositives(byte[] ba, int off, int len) {
+		int i = off, end = off + len;
+		if (len >= Long.BYTES) {
+			ByteBuffer b = MyArraysSupport.littleEndian(ba);
+			for (int last = end - Long.BYTES; i <= last; i += Long.BYTES) {
+				if ((b.getLong(i) & HIGH_BITS) != 0) {
+					break;
+				}
+			}
+		}// 找到第一个含有负数的8字节块，再在块中逐个查找
+		while (i < end && ba[i] >= 0) {
+			i++;
+		}
+		return i - off;
+	}
+
+	/*
+	 * 解码
+	 */
+
+	static MyString decode(Charset cs, byte[] ba, int off, int len) {
+		if (cs == StandardCharsets.UTF_8) {
+			return decodeUTF8(ba, off, len);
+		}
+		if (cs == StandardCharsets.ISO_8859_1) {
+			return new MyString(Arrays.copyOfRange(ba, off, off + len), MyString.LATIN1);
+		}// 每个字节就是一个LATIN1字符
+		if (cs == StandardCharsets.US_ASCII) {
+			return decodeASCII(ba, off, len);
+		}
+		return new MyString(new String(ba, off, len, cs).toCharArray());
+	}
+
+	private static MyString decodeASCII(byte[] ba, int off, int len) {
+		int n = countPositives(ba, off, len);
+		if (n == len) {
+			return new MyString(Arrays.copyOfRange(ba, off, off + len), MyString.LATIN1);
+		}
+		byte[] dst = MyStringUTF16.newBytesFor(len);
+		inflateASCII(ba, off, dst, 0, n);
+		for (int i = n; i < len; i++) {
+			byte b = ba[off + i];
+			MyStringUTF16.putChar(dst, i, b >= 0 ? b : REPL);
+		}
+		return new MyString(dst, MyString.UTF16);
+	}
+
+	/*
+	 * 先假设结果是LATIN1：ASCII字节直接拷贝，C2、C3开头的两字节序列是0x80到0xff的字符
+	 * 遇到其他的字节说明需要UTF16，把已经解码的部分展开，然后继续按UTF16解码
+	 */
+	private static MyString decodeUTF8(byte[] ba, int off, int len) {
+		int sp = off + countPositives(ba, off, len);
+		int sl = off + len;
+		if (sp == sl) {
+			return new MyString(Arrays.copyOfRange(ba, off, sl), MyString.LATIN1);
+		}// 全是ASCII
+		byte[] dst = new byte[len];
+		int dp = sp - off;
+		System.arraycopy(ba, off, dst, 0, dp);
+		while (sp < sl) {
+			int b1 = ba[sp];
+			if (b1 >= 0) {
+				int n = countPositives(ba, sp, sl - sp);
+				System.arraycopy(ba, sp, dst, dp, n);
+				sp += n;
+				dp += n;
+				continue;
+			}
+			if ((b1 == (byte) 0xc2 || b1 == (byte) 0xc3) && sp + 1 < sl) {
+				int b2 = ba[sp + 1];
+				if (isContinuation(b2)) {
+					dst[dp++] = (byte) (((b1 & 0x1f) << 6) | (b2 & 0x3f));
+					sp += 2;
+					continue;
+				}
+			}
+			break;
+		}
+		if (sp == sl) {
+			return new MyString(dp == len ? dst : Arrays.copyOf(dst, dp), MyString.LATIN1);
+		}
+		byte[] utf16 = MyStringUTF16.newBytesFor(len);// 每个字节最多解出一个字符
+		MyStringLatin1.inflate(dst, 0, utf16, 0, dp);
+		dp = decodeUTF8_UTF16(ba, sp, sl, utf16, dp);
+		return new MyString(Arrays.copyOf(utf16, dp << 1), MyString.UTF16);
+	}
+
+	private static boolean isContinuation(int b) {
+		return (b & 0xc0) == 0x80;
+	}
+
+	/**
+	 * 解码到UTF16的数组中，不合法的序列和String一样按照最长的合法前缀替换成一个U+FFFD
+	 *
+	 * @return 解码之后的字符数
+	 */
+	private static int decodeUTF8_UTF16(byte[] src, int sp, int sl, byte[] dst, int dp) {
+		while (sp < sl) {
+			int b1 = src[sp++];
+			if (b1 >= 0) {
+				int n = countPositives(src, sp - 1, sl - sp + 1);
+				inflateASCII(src, sp - 1, dst, dp, n);
+				sp += n - 1;
+				dp += n;
+			}// 一段ASCII一起展开
+			else if ((b1 >> 5) == -2 && (b1 & 0x1e) != 0) {
+				if (sp < sl && isContinuation(src[sp])) {
+					int b2 = src[sp++];
+					MyStringUTF16.putChar(dst, dp++, ((b1 & 0x1f) << 6) | (b2 & 0x3f));
+				}
+				else {
+					MyStringUTF16.putChar(dst, dp++, REPL);
+				}
+			}// 两字节，C0和C1只能表示ASCII，不合法
+			else if ((b1 >> 4) == -2) {
+				if (sp + 1 < sl) {
+					int b2 = src[sp];
+					int b3 = src[sp + 1];
+					if ((b1 == (byte) 0xe0 && (b2 & 0xe0) == 0x80) || !isContinuation(b2)) {
+						MyStringUTF16.putChar(dst, dp++, REPL);
+					}// E0之后的第二个字节小于A0是过长的编码，只替换第一个字节
+					else if (!isContinuation(b3)) {
+						MyStringUTF16.putChar(dst, dp++, REPL);
+						sp++;
+					}// 前两个字节是合法的前缀，一起替换
+					else {
+						char c = (char) (((b1 & 0x0f) << 12) | ((b2 & 0x3f) << 6) | (b3 & 0x3f));
+						MyStringUTF16.putChar(dst, dp++, Character.isSurrogate(c) ? REPL : c);
+						sp += 2;
+					}// 编码的代理字符不合法，三个字节替换成一个U+FFFD
+				}
+				else {
+					if (sp < sl && isContinuation(src[sp]) && !(b1 == (byte) 0xe0 && (src[sp] & 0xe0) == 0x80)) {
+						sp++;
+					}// 结尾不完整的序列，合法的前缀替换成一个U+FFFD
+					MyStringUTF16.putChar(dst, dp++, REPL);
+				}
+			}// 三字节
+			else if ((b1 >> 3) == -2) {
+				int u1 = b1 & 0xff;
+				int n = 0;// 合法的前缀中除了第一个字节之外的字节数
+				if (u1 <= 0xf4 && sp < sl) {
+					int u2 = src[sp] & 0xff;
+					if (!((u1 == 0xf0 && (u2 < 0x90 || u2 > 0xbf)) || (u1 == 0xf4 && (u2 & 0xf0) != 0x80)
+							|| !isContinuation(u2))) {
+						n = 1;
+						if (sp + 1 < sl && isContinuation(src[sp + 1])) {
+							n = 2;
+							if (sp + 2 < sl && isContinuation(src[sp + 2])) {
+								n = 3;
+							}
+						}
+					}
+				}// F0之后小于90是过长的编码，F4之后大于8F超出了0x10ffff
+				if (n == 3) {
+					int uc = ((u1 & 0x07) << 18) | ((src[sp] & 0x3f) << 12) | ((src[sp + 1] & 0x3f) << 6)
+							| (src[sp + 2] & 0x3f);
+					MyStringUTF16.putChar(dst, dp++, Character.highSurrogate(uc));
+					MyStringUTF16.putChar(dst, dp++, Character.lowSurrogate(uc));
+				}
+				else {
+					MyStringUTF16.putChar(dst, dp++, REPL);
+				}
+				sp += n;
+			}// 四字节，解成一对代理字符
+			else {
+				MyStringUTF16.putChar(dst, dp++, REPL);
+			}// 单独的后续字节或者F8以上的字节
+		}
+		return dp;
+	}
+
+	// 把n个ASCII字节展开到UTF16的dst[dp, dp + n)中，一次处理4个字节
+	private static void inflateASCII(byte[] src, int sp, byte[] dst, int dp, int n) {
+		int i = 0;
+		ByteBuffer s = MyArraysSupport.littleEndian(src), d = MyArraysSupport.littleEndian(dst);
+		for (int last = n - Integer.BYTES; i <= last; i += Integer.BYTES) {
+			long x = s.getInt(sp + i) & 0xffffffffL;
+			x = (x | (x << 16)) & 0x0000ffff0000ffffL;
+			x = (x | (x << 8)) & 0x00ff00ff00ff00ffL;
+			d.putLong((dp + i) << 1, x);
+		}// 每个字节之后插入一个0字节，小端序正好是对应的字符
+		for (; i < n; i++) {
+			MyStringUTF16.putChar(dst, dp + i, src[sp + i]);
+		}
+	}
+
+	/*
+	 * 编码
+	 */
+
+	/**
+	 * value[from, to)（按字符计算）编码之后的字节数
+	 */
+	static int encodedLength(Charset cs, byte coder, byte[] value, int from, int to) {
+		if (cs != StandardCharsets.UTF_8) {
+			if (coder == MyString.LATIN1) {
+				return to - from;
+			}
+			int n = 0;
+			for (int i = from; i < to; i++) {
+				if (Character.isHighSurrogate(MyStringUTF16.getChar(value, i)) && i + 1 < to
+						&& Character.isLowSurrogate(MyStringUTF16.getChar(value, i + 1))) {
+					i++;
+				}// 一对代理字符替换成一个'?'
+				n++;
+			}
+			return n;
+		}
+		if (coder == MyString.LATIN1) {
+			int n = to - from;
+			for (int i = from + countPositives(value, from, to - from); i < to; i++) {
+				if (value[i] < 0) {
+					n++;
+				}
+			}// 0x80以上的字符是两个字节
+			return n;
+		}
+		ByteBuffer v = MyArraysSupport.littleEndian(value);
+		int n = 0;
+		int i = from;
+		while (i < to) {
+			for (int last = to - 4; i <= last; i += 4, n += 4) {
+				if ((v.getLong(i << 1) & NON_ASCII_CHARS) != 0) {
+					break;
+				}
+			}// 跳过整块的ASCII
+			if (i == to) {
+				break;
+			}
+			char c = MyStringUTF16.getChar(value, i++);
+			if (c < 0x80) {
+				n++;
+			}
+			else if (c < 0x800) {
+				n += 2;
+			}
+			else if (Character.isHighSurrogate(c) && i < to && Character.isLowSurrogate(MyStringUTF16.getChar(value, i))) {
+				n += 4;
+				i++;
+			}
+			else if (Character.isSurrogate(c)) {
+				n++;
+			}// 单独的代理字符编码成'?'
+			else {
+				n += 3;
+			}
+		}
+		return n;
+	}
+
+	// 可能的最大字节数，空间足够的时候不需要先计算准确的长度
+	private static long maxEncodedLength(Charset cs, byte coder, int len) {
+		return cs != StandardCharsets.UTF_8 ? len : coder == MyString.LATIN1 ? 2L * len : 3L * len;
+	}
+
+	static boolean isDirect(Charset cs) {
+		return cs == StandardCharsets.UTF_8 || cs == StandardCharsets.ISO_8859_1 || cs == StandardCharsets.US_ASCII;
+	}// 可以直接编码的字符集
+
+	static byte[] encode(Charset cs, byte coder, byte[] value) {
+		int len = value.length >> coder;
+		if (!isDirect(cs)) {
+			return new MyString(value, coder).toString().getBytes(cs);
+		}
+		if (coder == MyString.LATIN1 && (cs == StandardCharsets.ISO_8859_1 || countPositives(value, 0, len) == len)) {
+			return Arrays.copyOf(value, len);
+		}// 全是ASCII的时候三种字符集的结果都和value相同
+		byte[] dst = new byte[encodedLength(cs, coder, value, 0, len)];
+		encode(cs, coder, value, 0, len, dst, 0);
+		return dst;
+	}
+
+	/**
+	 * 编码到dst[dp, ...)中，空间不够的时候抛出IndexOutOfBoundsException，不写入任何字节
+	 *
+	 * @return 写入的字节数
+	 */
+	static int encode(Charset cs, byte coder, byte[] value, byte[] dst, int dp) {
+		int len = value.length >> coder;
+		if (!isDirect(cs)) {
+			byte[] ba = encode(cs, coder, value);
+			System.arraycopy(ba, 0, dst, dp, ba.length);
+			return ba.length;
+		}
+		if (dp < 0 || dp > dst.length) {
+			throw new IndexOutOfBoundsException("dstBegin " + dp + ", length " + dst.length);
+		}
+		if (maxEncodedLength(cs, coder, len) > dst.length - dp) {
+			int n = encodedLength(cs, coder, value, 0, len);
+			if (n > dst.length - dp) {
+				throw new IndexOutOfBoundsException("need " + n + " bytes, but only " + (dst.length - dp) + " left");
+			}
+		}
+		return encode(cs, coder, value, 0, len, dst, dp) - dp;
+	}
+
+	/**
+	 * 编码到dst中，从position开始写，写完之后position移到最后，空间不够的时候抛出BufferOverflowException，不写入任何字节
+	 * 有底层数组的缓冲区直接写数组，直接缓冲区整段的ASCII用批量put，其他的逐个字节put
+	 *
+	 * @return 写入的字节数
+	 */
+	static int encode(Charset cs, byte coder, byte[] value, ByteBuffer dst) {
+		int len = value.length >> coder;
+		if (!isDirect(cs)) {
+			byte[] ba = encode(cs, coder, value);
+			dst.put(ba);
+			return ba.length;
+		}
+		int rem = dst.remaining();
+		if (maxEncodedLength(cs, coder, len) > rem && encodedLength(cs, coder, value, 0, len) > rem) {
+			throw new BufferOverflowException();
+		}
+		int pos = dst.position();
+		if (dst.hasArray()) {
+			int off = dst.arrayOffset();
+			int end = encode(cs, coder, value, 0, len, dst.array(), off + pos);
+			dst.position(end - off);
+			return end - off - pos;
+		}
+		if (coder == MyString.LATIN1) {
+			int i = 0;
+			while (i < len) {
+				int n = cs == StandardCharsets.ISO_8859_1 ? len - i : countPositives(value, i, len - i);
+				dst.put(value, i, n);
+				i += n;
+				for (; i < len && value[i] < 0; i++) {
+					int c = value[i] & 0xff;
+					if (cs == StandardCharsets.UTF_8) {
+						dst.put((byte) (0xc0 | (c >> 6)));
+						dst.put((byte) (0x80 | (c & 0x3f)));
+					}
+					else {
+						dst.put(ENC_REPL);
+					}
+				}
+			}
+		}
+		else {
+			for (int i = 0; i < len; i++) {
+				char c = MyStringUTF16.getChar(value, i);
+				if (c < 0x80) {
+					dst.put((byte) c);
+				}
+				else if (Character.isHighSurrogate(c) && i + 1 < len
+						&& Character.isLowSurrogate(MyStringUTF16.getChar(value, i + 1))) {
+					if (cs == StandardCharsets.UTF_8) {
+						int uc = Character.toCodePoint(c, MyStringUTF16.getChar(value, i + 1));
+						dst.put((byte) (0xf0 | (uc >> 18)));
+						dst.put((byte) (0x80 | ((uc >> 12) & 0x3f)));
+						dst.put((byte) (0x80 | ((uc >> 6) & 0x3f)));
+						dst.put((byte) (0x80 | (uc & 0x3f)));
+					}
+					else {
+						dst.put(ENC_REPL);
+					}
+					i++;
+				}
+				else if (cs != StandardCharsets.UTF_8) {
+					dst.put(c <= 0xff && cs == StandardCharsets.ISO_8859_1 ? (byte) c : ENC_REPL);
+				}
+				else if (c < 0x800) {
+					dst.put((byte) (0xc0 | (c >> 6)));
+					dst.put((byte) (0x80 | (c & 0x3f)));
+				}
+				else if (Character.isSurrogate(c)) {
+					dst.put(ENC_REPL);
+				}
+				else {
+					dst.put((byte) (0xe0 | (c >> 12)));
+					dst.put((byte) (0x80 | ((c >> 6) & 0x3f)));
+					dst.put((byte) (0x80 | (c & 0x3f)));
+				}
+			}
+		}
+		return dst.position() - pos;
+	}
+
+	/**
+	 * 把value[from, to)编码到dst[dp, ...)中，调用者保证空间足够
+	 *
+	 * @return 写完之后的位置
+	 */
+	private static int encode(Charset cs, byte coder, byte[] value, int from, int to, byte[] dst, int dp) {
+		if (coder == MyString.LATIN1) {
+			if (cs == StandardCharsets.ISO_8859_1) {
+				System.arraycopy(value, from, dst, dp, to - from);
+				return dp + to - from;
+			}
+			int i = from;
+			while (i < to) {
+				int n = countPositives(value, i, to - i);
+				System.arraycopy(value, i, dst, dp, n);
+				i += n;
+				dp += n;
+				for (; i < to && value[i] < 0; i++) {
+					int c = value[i] & 0xff;
+					if (cs == StandardCharsets.UTF_8) {
+						dst[dp++] = (byte) (0xc0 | (c >> 6));
+						dst[dp++] = (byte) (0x80 | (c & 0x3f));
+					}
+					else {
+						dst[dp++] = ENC_REPL;
+					}
+				}
+			}
+			return dp;
+		}
+		ByteBuffer v = MyArraysSupport.littleEndian(value), d = MyArraysSupport.littleEndian(dst);
+		int i = from;
+		while (i < to) {
+			for (int last = to - 4; i <= last; i += 4, dp += 4) {
+				long x = v.getLong(i << 1);
+				if ((x & NON_ASCII_CHARS) != 0) {
+					break;
+				}
+				d.putInt(dp, (int) ((x & 0xff) | ((x >>> 8) & 0xff00) | ((x >>> 16) & 0xff0000)
+						| ((x >>> 24) & 0xff000000L)));
+			}// 4个字符都是ASCII的时候去掉每个字符的高字节，一次写4个字节
+			int end = Math.min(to, i + 4);
+			for (; i < end; i++) {
+				char c = MyStringUTF16.getChar(value, i);
+				if (c < 0x80) {
+					dst[dp++] = (byte) c;
+				}
+				else if (Character.isHighSurrogate(c) && i + 1 < to
+						&& Character.isLowSurrogate(MyStringUTF16.getChar(value, i + 1))) {
+					if (cs == StandardCharsets.UTF_8) {
+						int uc = Character.toCodePoint(c, MyStringUTF16.getChar(value, i + 1));
+						dst[dp++] = (byte) (0xf0 | (uc >> 18));
+						dst[dp++] = (byte) (0x80 | ((uc >> 12) & 0x3f));
+						dst[dp++] = (byte) (0x80 | ((uc >> 6) & 0x3f));
+						dst[dp++] = (byte) (0x80 | (uc & 0x3f));
+					}
+					else {
+						dst[dp++] = ENC_REPL;
+					}
+					i++;
+				}
+				else if (cs != StandardCharsets.UTF_8) {
+					dst[dp++] = c <= 0xff && cs == StandardCharsets.ISO_8859_1 ? (byte) c : ENC_REPL;
+				}
+				else if (c < 0x800) {
+					dst[dp++] = (byte) (0xc0 | (c >> 6));
+					dst[dp++] = (byte) (0x80 | (c & 0x3f));
+				}
+				else if (Character.isSurrogate(c)) {
+					dst[dp++] = ENC_REPL;
+				}
+				else {
+					dst[dp++] = (byte) (0xe0 | (c >> 12));
+					dst[dp++] = (byte) (0x80 | ((c >> 6) & 0x3f));
+					dst[dp++] = (byte) (0x80 | (c & 0x3f));
+				}
+			}// 含有非ASCII字符的4个字符逐个处理，然后回到快速路径，最后一个是高代理字符的时候会多处理一个
+		}
+		return dp;
+	}
+
+	/*
+	 * 字符数组的流式编码，MyAbstractStringBuilder把内容分成几段依次写到一个固定大小的缓冲区中，满了就交给调用者清空再继续
+	 */
+
+	/**
+	 * 把src[sp, sl)尽量多地编码到dst中，从position开始写，剩下的空间放不下下一个字符的时候停止，一个字符的字节不会被分开
+	 * endOfInput为false的时候，最后一个字符如果是高代理字符就留给下一次调用，和下一段的第一个字符一起编码
+	 * 错误的输入和encode(Charset, byte, byte[])的处理方式相同，cs必须是isDirect的字符集
+	 *
+	 * @return 已经编码的位置，等于sl说明全部写完
+	 */
+	static int encode(Charset cs, char[] src, int sp, int sl, ByteBuffer dst, boolean endOfInput) {
+		boolean utf8 = cs == StandardCharsets.UTF_8;
+		boolean latin1 = cs == StandardCharsets.ISO_8859_1;
+		int i = sp;
+		while (i < sl) {
+			i += putASCII(src, i, Math.min(sl - i, dst.remaining()), dst);
+			if (i == sl || src[i] < 0x80) {
+				break;
+			}// 全部写完或者dst已经满了
+			char c = src[i];
+			int uc = c;
+			int nc = 1;// 这一步用掉的字符数
+			if (Character.isHighSurrogate(c)) {
+				if (i + 1 < sl && Character.isLowSurrogate(src[i + 1])) {
+					uc = Character.toCodePoint(c, src[i + 1]);
+					nc = 2;
+				}
+				else if (i + 1 == sl && !endOfInput) {
+					break;
+				}// 低代理字符可能在下一段
+				else {
+					uc = -1;
+				}
+			}
+			else if (Character.isLowSurrogate(c)) {
+				uc = -1;
+			}// 单独的代理字符，uc为-1表示替换成'?'
+			int n = !utf8 || uc < 0 ? 1 : uc < 0x800 ? 2 : uc < Character.MIN_SUPPLEMENTARY_CODE_POINT ? 3 : 4;
+			if (dst.remaining() < n) {
+				break;
+			}
+			if (n == 1) {
+				dst.put(latin1 && uc >= 0 && uc <= 0xff ? (byte) uc : ENC_REPL);
+			}
+			else if (n == 2) {
+				dst.put((byte) (0xc0 | (uc >> 6)));
+				dst.put((byte) (0x80 | (uc & 0x3f)));
+			}
+			else if (n == 3) {
+				dst.put((byte) (0xe0 | (uc >> 12)));
+				dst.put((byte) (0x80 | ((uc >> 6) & 0x3f)));
+				dst.put((byte) (0x80 | (uc & 0x3f)));
+			}
+			else {
+				dst.put((byte) (0xf0 | (uc >> 18)));
+				dst.put((byte) (0x80 | ((uc >> 12) & 0x3f)));
+				dst.put((byte) (0x80 | ((uc >> 6) & 0x3f)));
+				dst.put((byte) (0x80 | (uc & 0x3f)));
+			}
+			i += nc;
+		}
+		return i;
+	}
+
+	/**
+	 * 把src[sp, sp + n)开头的ASCII字符写到dst中，遇到非ASCII字符停止，调用者保证dst至少还有n个字节
+	 * 有底层数组的缓冲区直接写数组，直接缓冲区每8个字符拼成一个long写入，按照dst的字节序排列，使第一个字符在最前面
+	 *
+	 * @return 写入的字符数
+	 */
+	private static int putASCII(char[] src, int sp, int n, ByteBuffer dst) {
+		int pos = dst.position();
+		int i = 0;
+		if (dst.hasArray()) {
+			byte[] ba = dst.array();
+			int dp = dst.arrayOffset() + pos;
+			for (; i < n; i++) {
+				char c = src[sp + i];
+				if (c >= 0x80) {
+					break;
+				}
+				ba[dp + i] = (byte) c;
+			}
+		}
+		else {
+			boolean bigEndian = dst.order() == ByteOrder.BIG_ENDIAN;
+			for (int last = n - 8; i <= last; i += 8) {
+				int p = sp + i;
+				if (((src[p] | src[p + 1] | src[p + 2] | src[p + 3] | src[p + 4] | src[p + 5] | src[p + 6]
+						| src[p + 7]) & 0xff80) != 0) {
+					break;
+				}
+				long x = src[p] | (src[p + 1] << 8) | (src[p + 2] << 16) | ((long) src[p + 3] << 24)
+						| ((long) src[p + 4] << 32) | ((long) src[p + 5] << 40) | ((long) src[p + 6] << 48)
+						| ((long) src[p + 7] << 56);
+				dst.putLong(pos + i, bigEndian ? Long.reverseBytes(x) : x);
+			}// 小端序的long第一个字符在最低的字节
+			for (; i < n; i++) {
+				char c = src[sp + i];
+				if (c >= 0x80) {
+					break;
+				}
+				dst.put(pos + i, (byte) c);
+			}
+		}
+		dst.position(pos + i);
+		return i;
+	}
+}
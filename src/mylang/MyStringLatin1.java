@@ -0,0 +1,261 @@
+package mylang;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+/*
+ * MyString在coder为LATIN1时的各种操作，每个字符只占一个字节，取出来的时候要& 0xff变成无符号的
+ *
+ * 只在包内使用，所有的参数检查都由MyString完成
+ */
+final class MyStringLatin1 {
+
+	private MyStringLatin1() {
+	}
+
+	static final long ONES = 0x0101010101010101L;
+
+	static final long HIGHS = 0x8080808080808080L;
+
+	public static char charAt(byte[] value, int index) {
+		if (index < 0 || index >= value.length) {
+			throw new StringIndexOutOfBoundsException(index);
+		}
+		return (char) (value[index] & 0xff);
+	}
+
+	// 能否用一个字节表示
+	public static boolean canEncode(int cp) {
+		return cp >>> 8 == 0;
+	}
+
+	public static int length(byte[] value) {
+		return value.length;
+	}
+
+	public static boolean equals(byte[] value, byte[] other) {
+		return value.length == other.length && MyArraysSupport.mismatch(value, 0, other, 0, value.length) < 0;
+	}// 两个UTF16的字符串按字节比较也是一样的结果，所以MyString.equals对两种coder都调用这个方法
+
+	public static int compareTo(byte[] value, byte[] other) {
+		int len1 = value.length;
+		int len2 = other.length;
+		int k = MyArraysSupport.mismatch(value, 0, other, 0, Math.min(len1, len2));
+		if (k >= 0) {
+			return getChar(value, k) - getChar(other, k);
+		}
+		return len1 - len2;
+	}// 找到第一个不同的字节之后才需要转成无符号数
+
+	// other是UTF16的，按字符比较
+	public static int compareToUTF16(byte[] value, byte[] other) {
+		int len1 = length(value);
+		int len2 = MyStringUTF16.length(other);
+		int lim = Math.min(len1, len2);
+		for (int k = 0; k < lim; k++) {
+			char c1 = getChar(value, k);
+			char c2 = MyStringUTF16.getChar(other, k);
+			if (c1 != c2) {
+				return c1 - c2;
+			}
+		}
+		return len1 - len2;
+	}
+
+	public static int hashCode(byte[] value) {
+		int h = 0;
+		for (byte v : value) {
+			h = 31 * h + (v & 0xff);
+		}
+		return h;
+	}
+
+	public static int indexOf(byte[] value, int ch, int fromIndex) {
+		if (!canEncode(ch)) {
+			return -1;
+		}// 不能用一个字节表示的字符肯定不在LATIN1的字符串中
+		int max = value.length;
+		if (fromIndex < 0) {
+			fromIndex = 0;
+		}
+		else if (fromIndex >= max) {
+			return -1;
+		}
+		return indexOfByte(value, (byte) ch, fromIndex, max);
+	}
+
+	/*
+	 * 在[from, to)中查找字节c，一次比较8个字节（SWAR）
+	 * 先和c的8份拷贝异或，相等的字节变成0，再用(x - 0x01..) & ~x & 0x80..找出为0的字节，
+	 * 这个式子在最低的0字节处一定准确（更高的字节可能因为借位误报），小端序下最低的字节就是下标最小的字节
+	 */
+	static int indexOfByte(byte[] value, byte c, int from, int to) {
+		long pattern = (c & 0xffL) * ONES;
+		ByteBuffer v = MyArraysSupport.littleEndian(value);
+		int i = from;
+		for (int last = to - Long.BYTES; i <= last; i += Long.BYTES) {
+			long x = v.getLong(i) ^ pattern;
+			long t = (x - ONES) & ~x & HIGHS;
+			if (t != 0) {
+				return i + (Long.numberOfTrailingZeros(t) >>> 3);
+			}
+		}
+		for (; i < to; i++) {
+			if (value[i] == c) {
+				return i;
+			}
+		}// 剩下不足8个字节的部分
+		return -1;
+	}
+
+	// 同上，在小端序的缓冲区中查找，下标是缓冲区中的绝对位置
+	static int indexOfByte(ByteBuffer buf, byte c, int from, int to) {
+		long pattern = (c & 0xffL) * ONES;
+		int i = from;
+		for (int last = to - Long.BYTES; i <= last; i += Long.BYTES) {
+			long x = buf.getLong(i) ^ pattern;
+			long t = (x - ONES) & ~x & HIGHS;
+			if (t != 0) {
+				return i + (Long.numberOfTrailingZeros(t) >>> 3);
+			}
+		}
+		for (; i < to; i++) {
+			if (buf.get(i) == c) {
+				return i;
+			}
+		}
+		return -1;
+	}
+
+	public static int indexOf(byte[] value, byte[] str) {
+		if (str.length == 0) {
+			return 0;
+		}
+		if (value.length == 0) {
+			return -1;
+		}
+		return indexOf(value, value.length, str, str.length, 0);
+	}
+
+	// 和原来的char[]版本一样，先找到第一个字符，再比较剩下的部分，查找第一个字符使用indexOfByte
+	public static int indexOf(byte[] value, int valueCount, byte[] str, int strCount, int fromIndex) {
+		byte first = str[0];
+		int max = (valueCount - strCount);
+		for (int i = fromIndex; i <= max; i++) {
+			if (value[i] != first && (i = indexOfByte(value, first, i + 1, max + 1)) < 0) {
+				return -1;
+			}// 寻找到一个等于要查找的第一个字符的位置
+			int j = i + 1;
+			int end = j + strCount - 1;
+			for (int k = 1; j < end && value[j] == str[k]; j++, k++)
+				;
+			if (j == end) {
+				return i;
+			}
+		}
+		return -1;
+	}
+
+	public static boolean regionMatches(byte[] value, int toffset, byte[] other, int ooffset, int len) {
+		return MyArraysSupport.mismatch(value, toffset, other, ooffset, len) < 0;
+	}
+
+	// other是UTF16的
+	public static boolean regionMatchesUTF16(byte[] value, int toffset, byte[] other, int ooffset, int len) {
+		while (len-- > 0) {
+			if (getChar(value, toffset++) != MyStringUTF16.getChar(other, ooffset++)) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	// 返回null表示没有需要替换的字符
+	public static MyString replace(byte[] value, char oldChar, char newChar) {
+		if (canEncode(oldChar)) {
+			int len = value.length;
+			int i = -1;
+			while (++i < len) {
+				if (value[i] == (byte) oldChar) {
+					break;
+				}
+			}
+			if (i < len) {
+				if (canEncode(newChar)) {
+					byte[] buf = Arrays.copyOf(value, len);
+					while (i < len) {
+						if (buf[i] == (byte) oldChar) {
+							buf[i] = (byte) newChar;
+						}
+						i++;
+					}
+					return new MyString(buf, MyString.LATIN1);
+				}
+				else {
+					byte[] buf = MyStringUTF16.newBytesFor(len);
+					inflate(value, 0, buf, 0, i);// 前面不需要替换的部分直接展开
+					while (i < len) {
+						char c = getChar(value, i);
+						MyStringUTF16.putChar(buf, i, c == oldChar ? newChar : c);
+						i++;
+					}
+					return new MyString(buf, MyString.UTF16);
+				}// 新的字符不能用一个字节表示，结果只能是UTF16的
+			}
+		}
+		return null;
+	}
+
+	// 开头第一个可显示字符的位置
+	public static int indexOfNonWhitespace(byte[] value) {
+		int len = value.length;
+		int start = 0;
+		while (start < len && getChar(value, start) <= ' ') {
+			start++;
+		}
+		return start;
+	}
+
+	// 末尾最后一个可显示字符的下一个位置
+	public static int lastIndexOfNonWhitespace(byte[] value, int start) {
+		int len = value.length;
+		while (len > start && getChar(value, len - 1) <= ' ') {
+			len--;
+		}
+		return len;
+	}
+
+	public static MyString newString(byte[] value, int index, int len) {
+		return new MyString(Arrays.copyOfRange(value, index, index + len), MyString.LATIN1);
+	}
+
+	public static void getChars(byte[] value, int srcBegin, int srcEnd, char[] dst, int dstBegin) {
+		for (int i = srcBegin; i < srcEnd; i++) {
+			dst[dstBegin++] = (char) (value[i] & 0xff);
+		}
+	}
+
+	public static char[] toChars(byte[] value) {
+		char[] dst = new char[value.length];
+		getChars(value, 0, value.length, dst, 0);
+		return dst;
+	}
+
+	// 把LATIN1的字节展开成UTF16的字节，dst和dstOff是按照字符计算的
+	public static void inflate(byte[] src, int srcOff, byte[] dst, int dstOff, int len) {
+		for (int i = 0; i < len; i++) {
+			MyStringUTF16.putChar(dst, dstOff++, src[srcOff++] & 0xff);
+		}
+	}
+
+	// 展开成UTF16的字节数组
+	public static byte[] toUTF16(byte[] value) {
+		byte[] dst = MyStringUTF16.newBytesFor(value.length);
+		inflate(value, 0, dst, 0, value.length);
+		return dst;
+	}
+
+	static char getChar(byte[] value, int index) {
+		return (char) (value[index] & 0xff);
+	}
+}
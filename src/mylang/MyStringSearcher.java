@@ -0,0 +1,268 @@
+package mylang;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+/*
+ * 预先编译好的子串查找器，同一个模式串要在很多文本中查找的时候只需要编译一次，编译之后不可变，可以在多个线程中共用
+ *
+ * 模式串较短的时候沿用MyString.indexOf的做法：先找第一个字符（一次比较8个字节）再比较剩下的部分
+ * 模式串较长的时候使用Boyer-Moore-Horspool算法：每次取窗口的最后一个字符，根据它在模式串中（除最后一位外）最后出现的位置
+ * 决定窗口右移的距离，没有出现过的字符可以直接跳过整个模式串的长度，平均每次比较可以前进接近模式串长度的距离
+ */
+public final class MyStringSearcher {
+
+	static final int HORSPOOL_THRESHOLD = 8;// 模式串至少这么长才使用Horspool，太短的时候跳跃的距离不够抵消查表的开销
+
+	static final int HORSPOOL_MIN_TEXT = 256;// MyString.indexOf临时编译模式串时要求文本至少这么长，否则建表的开销不划算
+
+	private final MyString pattern;
+
+	private final byte[] value;// 模式串的内容，编码和pattern相同
+
+	private final byte coder;
+
+	private final char[] chars;// 模式串的字符，在UTF16和char[]的文本中查找时使用
+
+	/*
+	 * 坏字符表，下标是字符的低8位，值是窗口最后一个字符为该字符时窗口可以右移的距离
+	 * 低8位相同的字符共用一格，取其中最小的距离，所以对UTF16的字符也是安全的，只是可能跳得少一些
+	 * 模式串较短时为null
+	 */
+	private final int[] shift;
+
+	public MyStringSearcher(MyString pattern) {
+		this.pattern = pattern;
+		this.value = pattern.value();
+		this.coder = pattern.coder();
+		int m = pattern.length();
+		this.chars = new char[m];
+		pattern.getChars(0, m, chars, 0);
+		this.shift = m >= HORSPOOL_THRESHOLD ? buildShift(chars) : null;
+	}
+
+	private static int[] buildShift(char[] p) {
+		int m = p.length;
+		int last = m - 1;
+		int[] shift = new int[256];
+		Arrays.fill(shift, m);
+		for (int i = 0; i < last; i++) {
+			shift[p[i] & 0xff] = last - i;// 从前往后覆盖，留下的是最后一次出现的位置，也就是最小的距离
+		}
+		return shift;
+	}
+
+	public MyString pattern() {
+		return pattern;
+	}
+
+	public int indexOf(MyString text) {
+		return indexOf(text, 0);
+	}
+
+	// 返回值和MyString.indexOf(MyString, int)相同
+	public int indexOf(MyString text, int fromIndex) {
+		int n = text.length();
+		int m = chars.length;
+		if (fromIndex >= n) {
+			return m == 0 ? n : -1;
+		}
+		if (fromIndex < 0) {
+			fromIndex = 0;
+		}
+		if (m == 0) {
+			return fromIndex;
+		}
+		if (m > n - fromIndex) {
+			return -1;
+		}
+		byte[] tv = text.value();
+		if (text.coder() == MyString.LATIN1) {
+			if (coder != MyString.LATIN1) {
+				return -1;
+			}// LATIN1的字符串中不可能找到UTF16的字符串
+			return shift == null ? MyStringLatin1.indexOf(tv, n, value, m, fromIndex) : horspoolLatin1(tv, n,
+					fromIndex);
+		}
+		if (shift == null) {
+			return coder == MyString.LATIN1 ? MyStringUTF16.indexOfLatin1(tv, n, value, m, fromIndex)
+					: MyStringUTF16.indexOf(tv, n, value, m, fromIndex);
+		}
+		return horspoolUTF16(tv, n, fromIndex);
+	}
+
+	/**
+	 * 在source[sourceOffset, sourceOffset + sourceCount)中查找，返回值是相对于sourceOffset的位置
+	 */
+	public int indexOf(char[] source, int sourceOffset, int sourceCount, int fromIndex) {
+		int m = chars.length;
+		if (fromIndex >= sourceCount) {
+			return m == 0 ? sourceCount : -1;
+		}
+		if (fromIndex < 0) {
+			fromIndex = 0;
+		}
+		if (m == 0) {
+			return fromIndex;
+		}
+		char[] p = chars;
+		int last = m - 1;
+		char lastChar = p[last];
+		int max = sourceOffset + (sourceCount - m);
+		if (shift == null) {
+			char first = p[0];
+			for (int i = sourceOffset + fromIndex; i <= max; i++) {
+				if (source[i] != first) {
+					while (++i <= max && source[i] != first)
+						;
+				}
+				if (i <= max && source[i + last] == lastChar && matches(source, i, last)) {
+					return i - sourceOffset;
+				}
+			}
+			return -1;
+		}
+		int[] shift = this.shift;
+		for (int i = sourceOffset + fromIndex; i <= max;) {
+			char c = source[i + last];
+			if (c == lastChar && matches(source, i, last)) {
+				return i - sourceOffset;
+			}
+			i += shift[c & 0xff];
+		}
+		return -1;
+	}
+
+	/**
+	 * 在映射的文本中查找，返回值是相对于视图开头的位置，规则和indexOf(MyString, int)相同
+	 * 和MyString使用同样的做法：模式串短的时候先用SWAR找第一个字符，长的时候用Horspool，只是从缓冲区中读取
+	 */
+	public int indexOf(MappedCharSequence text, int fromIndex) {
+		int n = text.length();
+		int m = chars.length;
+		if (fromIndex >= n) {
+			return m == 0 ? n : -1;
+		}
+		if (fromIndex < 0) {
+			fromIndex = 0;
+		}
+		if (m == 0) {
+			return fromIndex;
+		}
+		if (m > n - fromIndex) {
+			return -1;
+		}
+		ByteBuffer buf = text.buffer();
+		int base = text.offset();
+		int last = m - 1;
+		int max = base + (n - m);
+		int i = base + fromIndex;
+		if (text.coder() == MyString.LATIN1) {
+			if (coder != MyString.LATIN1) {
+				return -1;
+			}
+			byte[] p = value;
+			if (shift == null) {
+				while (i <= max && (i = MyStringLatin1.indexOfByte(buf, p[0], i, max + 1)) >= 0) {
+					if (MyArraysSupport.mismatch(buf, i + 1, p, 1, last) < 0) {
+						return i - base;
+					}
+					i++;
+				}
+				return -1;
+			}
+			byte lastByte = p[last];
+			while (i <= max) {
+				byte b = buf.get(i + last);
+				if (b == lastByte && MyArraysSupport.mismatch(buf, i, p, 0, last) < 0) {
+					return i - base;
+				}
+				i += shift[b & 0xff];
+			}
+			return -1;
+		}
+		char[] p = chars;
+		if (shift == null) {
+			while (i <= max && (i = MyStringUTF16.indexOfChar(buf, p[0], i, max + 1)) >= 0) {
+				if (matches(buf, i, 1, m)) {
+					return i - base;
+				}
+				i++;
+			}
+			return -1;
+		}
+		char lastChar = p[last];
+		while (i <= max) {
+			char c = buf.getChar((i + last) << 1);
+			if (c == lastChar && matches(buf, i, 0, last)) {
+				return i - base;
+			}
+			i += shift[c & 0xff];
+		}
+		return -1;
+	}
+
+	// 缓冲区中从字符位置i开始的窗口，第from到to个字符是否和模式串相同
+	private boolean matches(ByteBuffer buf, int i, int from, int to) {
+		char[] p = chars;
+		for (int k = from; k < to; k++) {
+			if (buf.getChar((i + k) << 1) != p[k]) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	// 窗口的前len个字符是否和模式串相同
+	private boolean matches(char[] source, int i, int len) {
+		char[] p = chars;
+		for (int k = 0; k < len; k++) {
+			if (source[i + k] != p[k]) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	// 文本和模式串都是LATIN1
+	private int horspoolLatin1(byte[] text, int n, int from) {
+		byte[] p = value;
+		int[] shift = this.shift;
+		int last = p.length - 1;
+		byte lastByte = p[last];
+		for (int i = from, max = n - p.length; i <= max;) {
+			byte b = text[i + last];
+			if (b == lastByte && MyStringLatin1.regionMatches(text, i, p, 0, last)) {
+				return i;
+			}
+			i += shift[b & 0xff];
+		}
+		return -1;
+	}
+
+	// 文本是UTF16，模式串按照字符比较
+	private int horspoolUTF16(byte[] text, int n, int from) {
+		char[] p = chars;
+		int[] shift = this.shift;
+		int last = p.length - 1;
+		char lastChar = p[last];
+		for (int i = from, max = n - p.length; i <= max;) {
+			char c = MyStringUTF16.getChar(text, i + last);
+			if (c == lastChar && matchesUTF16(text, i, last)) {
+				return i;
+			}
+			i += shift[c & 0xff];
+		}
+		return -1;
+	}
+
+	private boolean matchesUTF16(byte[] text, int i, int len) {
+		char[] p = chars;
+		for (int k = 0; k < len; k++) {
+			if (MyStringUTF16.getChar(text, i + k) != p[k]) {
+				return false;
+			}
+		}
+		return true;
+	}
+}
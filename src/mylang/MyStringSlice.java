@@ -0,0 +1,218 @@
+package mylang;
+
+import java.util.ArrayList;
+
+/*
+ * MyString的一段的视图，和原来的字符串共用value数组，只记录起始位置和长度，创建的时候不拷贝任何字符
+ * 用MyString.slice创建，切分大量文本的时候每一段只需要创建一个很小的对象
+ *
+ * 因为共用数组，只要还有一个视图在使用，整个原来的字符串都不能被回收，所以需要长期保存的时候（比如作为map的键）
+ * 要调用toMyString拷贝出一个独立的字符串
+ * 编码和原来的字符串相同，所以UTF16的字符串中截出来的视图可能全是LATIN1的字符，比较的时候不能只看coder
+ */
+public final class MyStringSlice implements CharSequence, Comparable<MyStringSlice> {
+
+	private final byte[] value;// 原来的字符串的数组，不能修改
+
+	private final byte coder;
+
+	private final int offset;// 按照字符计算
+
+	private final int length;
+
+	private int hash;// 缓存hash值，和内容相同的MyString的hash值相同
+
+	MyStringSlice(byte[] value, byte coder, int offset, int length) {
+		this.value = value;
+		this.coder = coder;
+		this.offset = offset;
+		this.length = length;
+	}
+
+	public int length() {
+		return length;
+	}
+
+	public boolean isEmpty() {
+		return length == 0;
+	}
+
+	public char charAt(int index) {
+		if (index < 0 || index >= length) {
+			throw new StringIndexOutOfBoundsException(index);
+		}
+		return getChar(offset + index);
+	}
+
+	// 不检查下标，i是在value中的位置
+	private char getChar(int i) {
+		return coder == MyString.LATIN1 ? (char) (value[i] & 0xff) : MyStringUTF16.getChar(value, i);
+	}
+
+	public MyStringSlice subSequence(int start, int end) {
+		return slice(start, end);
+	}
+
+	// 视图的视图仍然共用原来的数组
+	public MyStringSlice slice(int beginIndex, int endIndex) {
+		checkBoundsBeginEnd(beginIndex, endIndex, length);
+		if (beginIndex == 0 && endIndex == length) {
+			return this;
+		}
+		return new MyStringSlice(value, coder, offset + beginIndex, endIndex - beginIndex);
+	}
+
+	static void checkBoundsBeginEnd(int begin, int end, int length) {
+		if (begin < 0 || begin > end || end > length) {
+			throw new StringIndexOutOfBoundsException("begin " + begin + ", end " + end + ", length " + length);
+		}
+	}
+
+	public int indexOf(int ch) {
+		return indexOf(ch, 0);
+	}
+
+	public int indexOf(int ch, int fromIndex) {
+		if (fromIndex < 0) {
+			fromIndex = 0;
+		}
+		else if (fromIndex >= length) {
+			return -1;
+		}
+		int from = offset + fromIndex, to = offset + length;
+		int i;
+		if (coder == MyString.LATIN1) {
+			if (!MyStringLatin1.canEncode(ch)) {
+				return -1;
+			}
+			i = MyStringLatin1.indexOfByte(value, (byte) ch, from, to);
+		}
+		else {
+			i = MyStringUTF16.indexOf(MyArraysSupport.littleEndian(value), ch, from, to);
+		}
+		return i < 0 ? -1 : i - offset;
+	}
+
+	// 去掉两端的不可显示字符，返回的仍然是视图
+	public MyStringSlice trim() {
+		int start = offset, end = offset + length;
+		while (start < end && getChar(start) <= ' ') {
+			start++;
+		}
+		while (end > start && getChar(end - 1) <= ' ') {
+			end--;
+		}
+		return slice(start - offset, end - offset);
+	}
+
+	// 和MyString.split(char)相同的规则，每一段都是视图
+	public MyStringSlice[] split(char c) {
+		ArrayList<MyStringSlice> list = new ArrayList<MyStringSlice>();
+		int pre = 0;
+		int next;
+		while ((next = indexOf(c, pre)) >= 0) {
+			list.add(slice(pre, next));
+			pre = next + 1;
+		}
+		if (pre != length) {
+			list.add(slice(pre, length));
+		}
+		return list.toArray(new MyStringSlice[list.size()]);
+	}
+
+	public void getChars(int srcBegin, int srcEnd, char[] dst, int dstBegin) {
+		checkBoundsBeginEnd(srcBegin, srcEnd, length);
+		if (coder == MyString.LATIN1) {
+			MyStringLatin1.getChars(value, offset + srcBegin, offset + srcEnd, dst, dstBegin);
+		}
+		else {
+			MyStringUTF16.getChars(value, offset + srcBegin, offset + srcEnd, dst, dstBegin);
+		}
+	}
+
+	/**
+	 * 拷贝出一个独立的字符串，之后不再引用原来的数组，UTF16的部分如果全是LATIN1的字符会重新压缩
+	 */
+	public MyString toMyString() {
+		return coder == MyString.LATIN1 ? MyStringLatin1.newString(value, offset, length) : MyStringUTF16
+				.newString(value, offset, length);
+	}
+
+	// 内容是否和另一个字符序列相同
+	public boolean contentEquals(CharSequence cs) {
+		int n = cs.length();
+		if (n != length) {
+			return false;
+		}
+		for (int i = 0; i < n; i++) {
+			if (getChar(offset + i) != cs.charAt(i)) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	// 只和视图比较，和MyString比较使用contentEquals
+	public boolean equals(Object anObject) {
+		if (this == anObject) {
+			return true;
+		}
+		if (anObject instanceof MyStringSlice) {
+			MyStringSlice s = (MyStringSlice) anObject;
+			if (s.length != length) {
+				return false;
+			}
+			if (coder == s.coder) {
+				int shift = coder;// LATIN1每个字符一个字节，UTF16两个
+				return MyArraysSupport.mismatch(value, offset << shift, s.value, s.offset << shift,
+						length << shift) < 0;
+			}// 编码相同的时候逐字节比较
+			for (int k = 0; k < length; k++) {
+				if (getChar(offset + k) != s.getChar(s.offset + k)) {
+					return false;
+				}
+			}
+			return true;
+		}
+		return false;
+	}
+
+	public int hashCode() {
+		int h = hash;
+		if (h == 0 && length > 0) {
+			for (int i = offset, end = offset + length; i < end; i++) {
+				h = 31 * h + getChar(i);
+			}
+			hash = h;
+		}
+		return h;
+	}
+
+	public int compareTo(MyStringSlice another) {
+		int lim = Math.min(length, another.length);
+		if (coder == another.coder) {
+			int shift = coder;
+			int i = MyArraysSupport.mismatch(value, offset << shift, another.value, another.offset << shift,
+					lim << shift);
+			if (i >= 0) {
+				int k = i >> shift;
+				return getChar(offset + k) - another.getChar(another.offset + k);
+			}
+			return length - another.length;
+		}// 编码相同的时候先按字节找到第一个不同的位置
+		for (int k = 0; k < lim; k++) {
+			char c1 = getChar(offset + k);
+			char c2 = another.getChar(another.offset + k);
+			if (c1 != c2) {
+				return c1 - c2;
+			}
+		}
+		return length - another.length;
+	}
+
+	public String toString() {
+		char[] buf = new char[length];
+		getChars(0, length, buf, 0);
+		return new String(buf);
+	}
+}
@@ -0,0 +1,82 @@
+package mylang;
+
+/*
+ * 按照单个字符切分字符串的游标，每次advance找到下一段，只记录这一段的[start, end)，不创建任何字符串
+ * 需要内容的时候再调用slice（不拷贝）或者field（拷贝）
+ *
+ * 切分的规则和MyString.split(char)相同：连续的分隔符之间是空串，只有最后一段是空串的时候不算
+ * 可以用reset换一个字符串继续使用，处理大量的行的时候整个过程只需要一个切分器对象
+ * 不是线程安全的
+ */
+public final class MyStringSplitter {
+
+	private final char separator;
+
+	private MyString text;
+
+	private int length;
+
+	private int pos;// 下一段开始的位置，大于length表示已经结束
+
+	private int start;
+
+	private int end;
+
+	public MyStringSplitter(char separator) {
+		this.separator = separator;
+		this.pos = 1;// 还没有设置字符串的时候视为已经结束
+	}
+
+	// 开始切分另一个字符串
+	public MyStringSplitter reset(MyString text) {
+		this.text = text;
+		this.length = text.length();
+		this.pos = 0;
+		this.start = this.end = 0;
+		return this;
+	}
+
+	/**
+	 * 移动到下一段
+	 *
+	 * @return 没有下一段的时候返回false
+	 */
+	public boolean advance() {
+		int p = pos;
+		if (p > length) {
+			return false;
+		}
+		int i = text.indexOf(separator, p);
+		if (i >= 0) {
+			start = p;
+			end = i;
+			pos = i + 1;
+			return true;
+		}
+		pos = length + 1;
+		if (p != length) {
+			start = p;
+			end = length;
+			return true;
+		}// 最后一段不是空串
+		return false;
+	}
+
+	public int start() {
+		return start;
+	}// 当前段在字符串中的起始位置
+
+	public int end() {
+		return end;
+	}// 当前段结束的位置（不包括）
+
+	// 当前段的视图，不拷贝
+	public MyStringSlice slice() {
+		return text.slice(start, end);
+	}
+
+	// 当前段拷贝出来的字符串
+	public MyString field() {
+		return text.substring(start, end);
+	}
+}
@@ -0,0 +1,167 @@
+package mylang;
+
+import java.lang.ref.Reference;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/*
+ * MyString.intern使用的字符串池，相当于虚拟机中的StringTable
+ *
+ * 池中的字符串只被弱引用持有，外面没有人使用之后可以被回收，回收之后对应的节点由ReferenceQueue通知，在下一次加锁的时候清理掉
+ * 整个表分成SEGMENTS段，每一段有自己的数组和锁（锁分段），不同段的写操作互不影响
+ * 查找不加锁，数组和节点的next都是发布之后不再修改的，数组是AtomicReferenceArray，元素以volatile的方式读、lazySet的方式写，
+ * 没有找到的时候再加锁查找一次，然后插入
+ */
+final class MyStringTable {
+
+	private MyStringTable() {
+	}
+
+	static final int SEGMENT_SHIFT = 6;
+
+	static final int SEGMENTS = 1 << SEGMENT_SHIFT;// 段数，必须是2的幂
+
+	static final int INITIAL_CAPACITY = 64;// 每一段数组的初始长度
+
+	private static final Segment[] segments = new Segment[SEGMENTS];
+
+	static {
+		for (int i = 0; i < SEGMENTS; i++) {
+			segments[i] = new Segment();
+		}
+	}
+
+	static WeakEntry tabAt(AtomicReferenceArray<WeakEntry> tab, int i) {
+		return tab.get(i);
+	}
+
+	static void setTabAt(AtomicReferenceArray<WeakEntry> tab, int i, WeakEntry e) {
+		tab.lazySet(i, e);
+	}
+
+	// 高位决定在哪一段，低位决定在段中的位置，所以先把高位扰动到低位
+	static int spread(int h) {
+		return h ^ (h >>> 16);
+	}
+
+	/**
+	 * 返回池中与s相等的字符串，没有的话把s放进池中并返回s
+	 */
+	static MyString intern(MyString s) {
+		int h = spread(s.hashCode());
+		return segments[h >>> (32 - SEGMENT_SHIFT)].intern(s, h);
+	}
+
+	// 池中现在的节点数，包括已经被回收但是还没有清理的
+	static int size() {
+		int n = 0;
+		for (Segment seg : segments) {
+			synchronized (seg) {
+				seg.expunge();
+				n += seg.count;
+			}
+		}
+		return n;
+	}
+
+	// 弱引用节点，hash和next创建之后不再修改，删除的时候复制被删除节点之前的部分
+	static final class WeakEntry extends WeakReference<MyString> {
+		final int hash;
+		final WeakEntry next;
+
+		WeakEntry(MyString s, int hash, WeakEntry next, ReferenceQueue<MyString> queue) {
+			super(s, queue);
+			this.hash = hash;
+			this.next = next;
+		}
+	}
+
+	static final class Segment {
+		volatile AtomicReferenceArray<WeakEntry> table = new AtomicReferenceArray<WeakEntry>(INITIAL_CAPACITY);
+
+		int count;// 只在持有锁的时候读写
+
+		final ReferenceQueue<MyString> queue = new ReferenceQueue<>();
+
+		MyString intern(MyString s, int h) {
+			MyString r = find(table, s, h);
+			if (r != null) {
+				return r;
+			}// 大多数情况下字符串已经在池中，不需要加锁
+			synchronized (this) {
+				expunge();
+				AtomicReferenceArray<WeakEntry> tab = table;
+				if ((r = find(tab, s, h)) != null) {
+					return r;
+				}// 加锁之前可能已经有其他线程放进去了
+				if (count >= tab.length() - (tab.length() >>> 2)) {
+					tab = resize(tab);
+				}
+				int i = h & (tab.length() - 1);
+				s.interned = true;// 在发布之前设置，其他线程从池中拿到s的时候一定能看到
+				setTabAt(tab, i, new WeakEntry(s, h, tabAt(tab, i), queue));
+				count++;
+				return s;
+			}
+		}
+
+		private static MyString find(AtomicReferenceArray<WeakEntry> tab, MyString s, int h) {
+			for (WeakEntry e = tabAt(tab, h & (tab.length() - 1)); e != null; e = e.next) {
+				MyString k;
+				if (e.hash == h && (k = e.get()) != null && (k == s || k.equals(s))) {
+					return k;
+				}
+			}
+			return null;
+		}
+
+		// 清理已经被回收的字符串对应的节点，持有锁的时候调用
+		void expunge() {
+			Reference<? extends MyString> ref;
+			while ((ref = queue.poll()) != null) {
+				WeakEntry dead = (WeakEntry) ref;
+				AtomicReferenceArray<WeakEntry> tab = table;
+				int i = dead.hash & (tab.length() - 1);
+				WeakEntry first = tabAt(tab, i);
+				for (WeakEntry e = first; e != null; e = e.next) {
+					if (e == dead) {
+						WeakEntry newFirst = e.next;
+						count--;
+						for (WeakEntry p = first; p != e; p = p.next) {
+							MyString k = p.get();
+							if (k != null) {
+								newFirst = new WeakEntry(k, p.hash, newFirst, queue);
+							}
+							else {
+								count--;
+							}
+						}// next不能修改，复制dead之前的节点，顺便丢掉其他已经被回收的节点
+						setTabAt(tab, i, newFirst);
+						break;
+					}
+				}// 已经被丢掉的节点和扩容时丢掉的旧节点也会进入队列，在表中找不到，直接忽略
+			}
+		}
+
+		// 长度翻倍，只搬还活着的字符串，持有锁的时候调用
+		private AtomicReferenceArray<WeakEntry> resize(AtomicReferenceArray<WeakEntry> oldTab) {
+			int n = oldTab.length();
+			AtomicReferenceArray<WeakEntry> tab = new AtomicReferenceArray<WeakEntry>(n << 1);
+			int live = 0;
+			for (int j = 0; j < n; j++) {
+				for (WeakEntry e = oldTab.get(j); e != null; e = e.next) {
+					MyString k = e.get();
+					if (k != null) {
+						int i = e.hash & (tab.length() - 1);
+						tab.lazySet(i, new WeakEntry(k, e.hash, tab.get(i), queue));
+						live++;
+					}
+				}
+			}
+			count = live;
+			table = tab;// volatile写，之前对数组元素的写对读到新数组的线程可见
+			return tab;
+		}
+	}
+}
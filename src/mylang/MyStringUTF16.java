@@ -0,0 +1,308 @@
+package mylang;
+
+import java.nio.ByteBuffer;
+
+/*
+ * MyString在coder为UTF16时的各种操作，每个字符占两个字节
+ *
+ * 固定使用小端序存放，低字节在前，下面的index都是按照字符计算的，对应的字节下标是index << 1
+ * 只在包内使用，所有的参数检查都由MyString完成
+ */
+final class MyStringUTF16 {
+
+	private MyStringUTF16() {
+	}
+
+	static final int HI_BYTE_SHIFT = 0;// 第一个字节是低8位
+
+	static final int LO_BYTE_SHIFT = 8;// 第二个字节是高8位
+
+	public static byte[] newBytesFor(int len) {
+		if (len < 0) {
+			throw new NegativeArraySizeException();
+		}
+		if (len > Integer.MAX_VALUE >> 1) {
+			throw new OutOfMemoryError("UTF16 String size is " + len + ", should be less than "
+					+ (Integer.MAX_VALUE >> 1));
+		}
+		return new byte[len << 1];
+	}
+
+	static void putChar(byte[] val, int index, int c) {
+		index <<= 1;
+		val[index++] = (byte) (c >> HI_BYTE_SHIFT);
+		val[index] = (byte) (c >> LO_BYTE_SHIFT);
+	}
+
+	static char getChar(byte[] val, int index) {
+		index <<= 1;
+		return (char) (((val[index++] & 0xff) << HI_BYTE_SHIFT) | ((val[index] & 0xff) << LO_BYTE_SHIFT));
+	}
+
+	public static int length(byte[] value) {
+		return value.length >> 1;
+	}
+
+	public static char charAt(byte[] value, int index) {
+		if (index < 0 || index >= value.length >> 1) {
+			throw new StringIndexOutOfBoundsException(index);
+		}
+		return getChar(value, index);
+	}
+
+	// 把char数组的一段转成UTF16的字节数组
+	public static byte[] toBytes(char[] value, int off, int len) {
+		byte[] val = newBytesFor(len);
+		for (int i = 0; i < len; i++) {
+			putChar(val, i, value[off]);
+			off++;
+		}
+		return val;
+	}
+
+	// 如果每一个字符都能用一个字节表示则返回压缩之后的LATIN1字节数组，否则返回null
+	public static byte[] compress(char[] val, int off, int len) {
+		byte[] ret = new byte[len];
+		for (int i = 0; i < len; i++) {
+			char c = val[off++];
+			if (c > 0xFF) {
+				return null;
+			}
+			ret[i] = (byte) c;
+		}
+		return ret;
+	}
+
+	// 同上，val是UTF16的字节数组，off和len按照字符计算
+	public static byte[] compress(byte[] val, int off, int len) {
+		byte[] ret = new byte[len];
+		for (int i = 0; i < len; i++) {
+			char c = getChar(val, off++);
+			if (c > 0xFF) {
+				return null;
+			}
+			ret[i] = (byte) c;
+		}
+		return ret;
+	}
+
+	public static int compareTo(byte[] value, byte[] other) {
+		int len1 = length(value);
+		int len2 = length(other);
+		int lim = Math.min(len1, len2);
+		int i = MyArraysSupport.mismatch(value, 0, other, 0, lim << 1);
+		if (i >= 0) {
+			int k = i >> 1;
+			return getChar(value, k) - getChar(other, k);
+		}
+		return len1 - len2;
+	}// 小端序下不能直接比较字节的大小，找到第一个不同的字节之后要取出它所在的整个字符再比较
+
+	public static int compareToLatin1(byte[] value, byte[] other) {
+		return -MyStringLatin1.compareToUTF16(other, value);
+	}
+
+	public static int hashCode(byte[] value) {
+		int h = 0;
+		int length = value.length >> 1;
+		for (int i = 0; i < length; i++) {
+			h = 31 * h + getChar(value, i);
+		}
+		return h;
+	}
+
+	public static int indexOf(byte[] value, int ch, int fromIndex) {
+		int max = value.length >> 1;
+		if (fromIndex < 0) {
+			fromIndex = 0;
+		}
+		else if (fromIndex >= max) {
+			return -1;
+		}
+		return indexOf(MyArraysSupport.littleEndian(value), ch, fromIndex, max);
+	}
+
+	/*
+	 * 在小端序缓冲区的[from, to)中查找代码点ch，from和to是按字符计算的位置
+	 * 负数或者超过MAX_CODE_POINT的ch不是合法的代码点，直接返回-1，不能交给indexOfChar，它只比较低16位
+	 */
+	static int indexOf(ByteBuffer buf, int ch, int from, int to) {
+		if (!Character.isValidCodePoint(ch)) {
+			return -1;
+		}
+		if (ch < Character.MIN_SUPPLEMENTARY_CODE_POINT) {
+			return indexOfChar(buf, ch, from, to);
+		}
+		final char hi = Character.highSurrogate(ch);
+		final char lo = Character.lowSurrogate(ch);
+		for (int i = from; i < to - 1; i++) {
+			if (buf.getChar(i << 1) == hi && buf.getChar((i + 1) << 1) == lo) {
+				return i;
+			}
+		}// 增补字符由高位和低位两个char组成，要两个都匹配
+		return -1;
+	}
+
+	/*
+	 * 在[from, to)中查找字符ch，一次读出4个字符，做法和MyStringLatin1.indexOfByte相同，只是每一格是16位
+	 * 两边都是小端序，所以读出来的long中每16位正好是一个字符
+	 */
+	static int indexOfChar(byte[] value, int ch, int from, int to) {
+		long pattern = (ch & 0xffffL) * 0x0001000100010001L;
+		ByteBuffer v = MyArraysSupport.littleEndian(value);
+		int i = from;
+		for (int last = to - 4; i <= last; i += 4) {
+			long x = v.getLong(i << 1) ^ pattern;
+			long t = (x - 0x0001000100010001L) & ~x & 0x8000800080008000L;
+			if (t != 0) {
+				return i + (Long.numberOfTrailingZeros(t) >>> 4);
+			}
+		}
+		for (; i < to; i++) {
+			if (getChar(value, i) == ch) {
+				return i;
+			}
+		}
+		return -1;
+	}
+
+	// 同上，在小端序的缓冲区中查找，from和to是缓冲区中按字符计算的位置
+	static int indexOfChar(ByteBuffer buf, int ch, int from, int to) {
+		long pattern = (ch & 0xffffL) * 0x0001000100010001L;
+		int i = from;
+		for (int last = to - 4; i <= last; i += 4) {
+			long x = buf.getLong(i << 1) ^ pattern;
+			long t = (x - 0x0001000100010001L) & ~x & 0x8000800080008000L;
+			if (t != 0) {
+				return i + (Long.numberOfTrailingZeros(t) >>> 4);
+			}
+		}
+		for (; i < to; i++) {
+			if (buf.getChar(i << 1) == ch) {
+				return i;
+			}
+		}
+		return -1;
+	}
+
+	public static int indexOf(byte[] value, byte[] str) {
+		if (str.length == 0) {
+			return 0;
+		}
+		if (value.length < str.length) {
+			return -1;
+		}
+		return indexOf(value, length(value), str, length(str), 0);
+	}
+
+	public static int indexOf(byte[] value, int valueCount, byte[] str, int strCount, int fromIndex) {
+		char first = getChar(str, 0);
+		int max = (valueCount - strCount);
+		for (int i = fromIndex; i <= max; i++) {
+			if (getChar(value, i) != first && (i = indexOfChar(value, first, i + 1, max + 1)) < 0) {
+				return -1;
+			}// 寻找到一个等于要查找的第一个字符的位置
+			int j = i + 1;
+			int end = j + strCount - 1;
+			for (int k = 1; j < end && getChar(value, j) == getChar(str, k); j++, k++)
+				;
+			if (j == end) {
+				return i;
+			}
+		}
+		return -1;
+	}
+
+	// 在UTF16的字符串中查找LATIN1的字符串
+	public static int indexOfLatin1(byte[] value, int valueCount, byte[] str, int strCount, int fromIndex) {
+		char first = (char) (str[0] & 0xff);
+		int max = (valueCount - strCount);
+		for (int i = fromIndex; i <= max; i++) {
+			if (getChar(value, i) != first && (i = indexOfChar(value, first, i + 1, max + 1)) < 0) {
+				return -1;
+			}// 寻找到一个等于要查找的第一个字符的位置
+			int j = i + 1;
+			int end = j + strCount - 1;
+			for (int k = 1; j < end && getChar(value, j) == (str[k] & 0xff); j++, k++)
+				;
+			if (j == end) {
+				return i;
+			}
+		}
+		return -1;
+	}
+
+	public static boolean regionMatches(byte[] value, int toffset, byte[] other, int ooffset, int len) {
+		return MyArraysSupport.mismatch(value, toffset << 1, other, ooffset << 1, len << 1) < 0;
+	}// 两边都是UTF16，可以直接比较字节
+
+	// 返回null表示没有需要替换的字符
+	public static MyString replace(byte[] value, char oldChar, char newChar) {
+		int len = value.length >> 1;
+		int i = -1;
+		while (++i < len) {
+			if (getChar(value, i) == oldChar) {
+				break;
+			}
+		}
+		if (i < len) {
+			byte[] buf = new byte[value.length];
+			System.arraycopy(value, 0, buf, 0, i << 1);
+			while (i < len) {
+				char c = getChar(value, i);
+				putChar(buf, i, c == oldChar ? newChar : c);
+				i++;
+			}
+			if (MyString.COMPACT_STRINGS) {
+				byte[] val = compress(buf, 0, len);
+				if (val != null) {
+					return new MyString(val, MyString.LATIN1);
+				}
+			}// 替换掉的可能正好是唯一一个超过LATIN1的字符
+			return new MyString(buf, MyString.UTF16);
+		}
+		return null;
+	}
+
+	public static int indexOfNonWhitespace(byte[] value) {
+		int length = value.length >> 1;
+		int start = 0;
+		while (start < length && getChar(value, start) <= ' ') {
+			start++;
+		}
+		return start;
+	}
+
+	public static int lastIndexOfNonWhitespace(byte[] value, int start) {
+		int length = value.length >> 1;
+		while (length > start && getChar(value, length - 1) <= ' ') {
+			length--;
+		}
+		return length;
+	}
+
+	// 截取的部分可能全是LATIN1的字符，这时候要压缩
+	public static MyString newString(byte[] value, int index, int len) {
+		if (MyString.COMPACT_STRINGS) {
+			byte[] buf = compress(value, index, len);
+			if (buf != null) {
+				return new MyString(buf, MyString.LATIN1);
+			}
+		}
+		byte[] buf = new byte[len << 1];
+		System.arraycopy(value, index << 1, buf, 0, len << 1);
+		return new MyString(buf, MyString.UTF16);
+	}
+
+	public static void getChars(byte[] value, int srcBegin, int srcEnd, char[] dst, int dstBegin) {
+		for (int i = srcBegin; i < srcEnd; i++) {
+			dst[dstBegin++] = getChar(value, i);
+		}
+	}
+
+	public static char[] toChars(byte[] value) {
+		char[] dst = new char[value.length >> 1];
+		getChars(value, 0, dst.length, dst, 0);
+		return dst;
+	}
+}
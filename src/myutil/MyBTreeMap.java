@@ -0,0 +1,1715 @@
+package myutil;
+
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.Serializable;
+import java.util.AbstractCollection;
+import java.util.AbstractSet;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
+import java.util.NavigableSet;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.Set;
+import java.util.SortedSet;
+
+/*
+ * 通过B+树来实现有序的map，和MyTreeMap的接口和视图的语义相同
+ *
+ * B+树的性质：
+ * 1.每个节点最多有nodeCapacity个键，除了根节点和最右边的一条路径，每个节点至少有nodeCapacity / 2个键
+ * 2.所有的键值对都保存在叶子节点中，叶子节点通过next，prev连成一个有序的双向链表
+ * 3.内部节点只保存分隔键，第i个孩子中的键都小于keys[i]，第i + 1个孩子中的键都大于等于keys[i]
+ * 4.所有的叶子节点都在同一层
+ *
+ * 与红黑树相比，一个节点中的键放在一个连续的数组中，一次查找只需要访问log(n) / log(nodeCapacity)个节点，
+ * 节点内部用二分查找，cache miss比红黑树逐个访问log2(n)个分散的Entry对象少得多
+ * 范围查询和遍历沿着叶子节点的链表进行，不需要像successor那样在树中上下移动
+ *
+ * 插入和删除都先从根节点向下查找，记录经过的路径，然后在叶子节点上修改，节点满了就分裂，不足一半就向兄弟节点借或者合并，
+ * 再沿着记录的路径向上调整
+ */
+public class MyBTreeMap<K, V> extends MyAbstractMap<K, V> implements MyNavigableMap<K, V>, Cloneable, Serializable {
+	private static final long serialVersionUID = -6034470651426428553L;
+
+	// 默认每个节点最多的键的个数
+	static final int DEFAULT_NODE_CAPACITY = 64;
+
+	// 节点最少要能放下的键的个数
+	static final int MIN_NODE_CAPACITY = 4;
+
+	// 比较器，为null的时候使用键的自然顺序
+	private final Comparator<? super K> comparator;
+
+	// 每个节点最多的键的个数
+	private final int nodeCapacity;
+
+	private transient Node root;
+
+	// 叶子节点链表的头和尾
+	private transient Leaf first, last;
+
+	// 内部节点的层数，只有一个叶子节点的时候为0
+	private transient int height;
+
+	private transient int size;
+
+	private transient int modCount;
+
+	// 插入和删除时记录从根节点到叶子节点经过的内部节点和孩子下标，重复使用避免每次分配
+	private transient Inner[] path;
+	private transient int[] pathIndex;
+
+	// 视图，延迟创建
+	private transient KeySet<K> navigableKeySet;
+	private transient EntrySet entrySet;
+	private transient Values valuesView;
+	private transient MyNavigableMap<K, V> descendingMap;
+
+	/*
+	 * 节点，键和值都用Object数组保存，不使用泛型
+	 */
+
+	abstract static class Node {
+		final Object[] keys;
+		int size;
+
+		Node(int capacity) {
+			keys = new Object[capacity];
+		}
+	}
+
+	// 叶子节点，保存键值对，vals[i]是keys[i]对应的值
+	static final class Leaf extends Node {
+		final Object[] vals;
+		Leaf next, prev;
+
+		Leaf(int capacity) {
+			super(capacity);
+			vals = new Object[capacity];
+		}
+	}
+
+	// 内部节点，有size个分隔键和size + 1个孩子
+	static final class Inner extends Node {
+		final Node[] children;
+
+		Inner(int capacity) {
+			super(capacity);
+			children = new Node[capacity + 1];
+		}
+	}
+
+	/*
+	 * 叶子节点中的一个位置，用来遍历和导航
+	 */
+	static class Cursor {
+		Leaf leaf;
+		int index;
+
+		final Object key() {
+			return leaf.keys[index];
+		}
+
+		final Object value() {
+			return leaf.vals[index];
+		}
+
+		// 移到下一个位置，没有了返回false
+		final boolean forward() {
+			if (++index >= leaf.size) {
+				leaf = leaf.next;
+				index = 0;
+			}
+			return leaf != null;
+		}
+
+		// 移到上一个位置，没有了返回false
+		final boolean backward() {
+			if (--index < 0) {
+				if ((leaf = leaf.prev) == null) {
+					return false;
+				}
+				index = leaf.size - 1;
+			}
+			return true;
+		}
+	}
+
+	/*
+	 * 构造函数
+	 */
+
+	public MyBTreeMap() {
+		this(null, DEFAULT_NODE_CAPACITY);
+	}
+
+	public MyBTreeMap(Comparator<? super K> comparator) {
+		this(comparator, DEFAULT_NODE_CAPACITY);
+	}
+
+	/**
+	 * @param comparator
+	 *            比较器，为null的时候使用键的自然顺序
+	 * @param nodeCapacity
+	 *            每个节点最多的键的个数，越大树越矮，但是节点内的插入删除要移动的元素越多
+	 */
+	public MyBTreeMap(Comparator<? super K> comparator, int nodeCapacity) {
+		if (nodeCapacity < MIN_NODE_CAPACITY) {
+			throw new IllegalArgumentException("Illegal node capacity: " + nodeCapacity);
+		}
+		this.comparator = comparator;
+		this.nodeCapacity = nodeCapacity;
+	}
+
+	public MyBTreeMap(MyMap<? extends K, ? extends V> m) {
+		this(null, DEFAULT_NODE_CAPACITY);
+		putAll(m);
+	}
+
+	public MyBTreeMap(MySortedMap<K, ? extends V> m) {
+		this(m.comparator(), DEFAULT_NODE_CAPACITY);
+		putAll(m);// 按顺序插入，每次都添加在最后一个叶子节点的末尾
+	}
+
+	/*
+	 * 比较和查找
+	 */
+
+	@SuppressWarnings("unchecked")
+	final int compare(Object k1, Object k2) {
+		return comparator == null ? ((Comparable<? super K>) k1).compareTo((K) k2) : comparator.compare((K) k1,
+				(K) k2);
+	}
+
+	// 在节点中二分查找，找到返回下标，找不到返回-(插入位置) - 1，和Arrays.binarySearch相同
+	@SuppressWarnings("unchecked")
+	final int search(Node x, Object key) {
+		Object[] ks = x.keys;
+		int lo = 0, hi = x.size - 1;
+		Comparator<? super K> cpr = comparator;
+		if (cpr != null) {
+			K k = (K) key;
+			while (lo <= hi) {
+				int mid = (lo + hi) >>> 1;
+				int c = cpr.compare((K) ks[mid], k);
+				if (c < 0) {
+					lo = mid + 1;
+				}
+				else if (c > 0) {
+					hi = mid - 1;
+				}
+				else {
+					return mid;
+				}
+			}
+		}
+		else {
+			Comparable<? super K> k = (Comparable<? super K>) key;
+			while (lo <= hi) {
+				int mid = (lo + hi) >>> 1;
+				int c = k.compareTo((K) ks[mid]);
+				if (c > 0) {
+					lo = mid + 1;
+				}
+				else if (c < 0) {
+					hi = mid - 1;
+				}
+				else {
+					return mid;
+				}
+			}
+		}
+		return -(lo + 1);
+	}
+
+	// 返回key所在（或者应该插入）的叶子节点，root不能为null
+	final Leaf leafFor(Object key) {
+		Node x = root;
+		for (int h = height; h > 0; h--) {
+			Inner in = (Inner) x;
+			int i = search(in, key);
+			x = in.children[i >= 0 ? i + 1 : -i - 1];
+		}
+		return (Leaf) x;
+	}
+
+	// 使用自然顺序的时候键不能为null
+	private void checkKey(Object key) {
+		if (key == null && comparator == null) {
+			throw new NullPointerException();
+		}
+	}
+
+	/*
+	 * 下面的一系列方法把Cursor定位到满足条件的位置上，不存在返回false
+	 */
+
+	final boolean firstPos(Cursor c) {
+		c.leaf = first;
+		c.index = 0;
+		return first != null;
+	}
+
+	final boolean lastPos(Cursor c) {
+		Leaf l = last;
+		c.leaf = l;
+		c.index = l == null ? 0 : l.size - 1;
+		return l != null;
+	}
+
+	// 大于（等于）key的第一个位置
+	final boolean ceilingPos(Cursor c, Object key, boolean inclusive) {
+		checkKey(key);
+		if (root == null) {
+			return false;
+		}
+		Leaf l = leafFor(key);
+		int i = search(l, key);
+		if (i >= 0) {
+			if (!inclusive) {
+				i++;
+			}
+		}
+		else {
+			i = -i - 1;
+		}
+		if (i >= l.size) {
+			// 除了根节点之外叶子节点都不是空的，所以下一个叶子节点的第一个就是要找的位置
+			if ((l = l.next) == null) {
+				return false;
+			}
+			i = 0;
+		}
+		c.leaf = l;
+		c.index = i;
+		return true;
+	}
+
+	// 小于（等于）key的第一个位置
+	final boolean floorPos(Cursor c, Object key, boolean inclusive) {
+		checkKey(key);
+		if (root == null) {
+			return false;
+		}
+		Leaf l = leafFor(key);
+		int i = search(l, key);
+		if (i >= 0) {
+			if (!inclusive) {
+				i--;
+			}
+		}
+		else {
+			i = -i - 2;
+		}
+		if (i < 0) {
+			if ((l = l.prev) == null) {
+				return false;
+			}
+			i = l.size - 1;
+		}
+		c.leaf = l;
+		c.index = i;
+		return true;
+	}
+
+	// 返回一个不能修改的键值对，修改需要通过map
+	static <K, V> MyMap.Entry<K, V> exportEntry(Cursor c) {
+		@SuppressWarnings("unchecked")
+		K k = (K) c.key();
+		@SuppressWarnings("unchecked")
+		V v = (V) c.value();
+		return new MyAbstractMap.SimpleImmutableEntry<K, V>(k, v);
+	}
+
+	@SuppressWarnings("unchecked")
+	static <K> K key(Cursor c) {
+		if (c == null) {
+			throw new NoSuchElementException();
+		}
+		return (K) c.key();
+	}
+
+	/*
+	 * 查询操作
+	 */
+
+	public int size() {
+		return size;
+	}
+
+	public boolean containsKey(Object key) {
+		checkKey(key);
+		return root != null && search(leafFor(key), key) >= 0;
+	}
+
+	// 沿着叶子节点的链表查找
+	public boolean containsValue(Object value) {
+		for (Leaf l = first; l != null; l = l.next) {
+			Object[] vs = l.vals;
+			for (int i = 0, n = l.size; i < n; i++) {
+				if (Objects.equals(value, vs[i])) {
+					return true;
+				}
+			}
+		}
+		return false;
+	}
+
+	@SuppressWarnings("unchecked")
+	public V get(Object key) {
+		checkKey(key);
+		Leaf l;
+		int i;
+		if (root != null && (i = search(l = leafFor(key), key)) >= 0) {
+			return (V) l.vals[i];
+		}
+		return null;
+	}
+
+	public Comparator<? super K> comparator() {
+		return comparator;
+	}
+
+	public K firstKey() {
+		Leaf l = first;
+		if (l == null) {
+			throw new NoSuchElementException();
+		}
+		@SuppressWarnings("unchecked")
+		K k = (K) l.keys[0];
+		return k;
+	}
+
+	public K lastKey() {
+		Leaf l = last;
+		if (l == null) {
+			throw new NoSuchElementException();
+		}
+		@SuppressWarnings("unchecked")
+		K k = (K) l.keys[l.size - 1];
+		return k;
+	}
+
+	/*
+	 * 插入
+	 */
+
+	// 保证记录路径的数组能放下h层
+	private Inner[] pathFor(int h) {
+		Inner[] p = path;
+		if (p == null || p.length < h) {
+			p = path = new Inner[h + 2];
+			pathIndex = new int[h + 2];
+		}
+		return p;
+	}
+
+	public V put(K key, V value) {
+		Node x = root;
+		if (x == null) {
+			compare(key, key);// 类型检查，自然顺序的时候也检查null
+			Leaf l = new Leaf(nodeCapacity);
+			l.keys[0] = key;
+			l.vals[0] = value;
+			l.size = 1;
+			root = first = last = l;
+			height = 0;
+			size = 1;
+			modCount++;
+			return null;
+		}
+		checkKey(key);
+		int h = height;
+		Inner[] p = pathFor(h);
+		int[] pi = pathIndex;
+		for (int d = 0; d < h; d++) {
+			Inner in = (Inner) x;
+			int i = search(in, key);
+			i = i >= 0 ? i + 1 : -i - 1;
+			p[d] = in;
+			pi[d] = i;
+			x = in.children[i];
+		}
+		Leaf l = (Leaf) x;
+		int i = search(l, key);
+		if (i >= 0) {
+			// 已经存在，替换值，不是结构性修改
+			@SuppressWarnings("unchecked")
+			V old = (V) l.vals[i];
+			l.vals[i] = value;
+			return old;
+		}
+		insertIntoLeaf(l, -i - 1, key, value, h);
+		size++;
+		modCount++;
+		return null;
+	}
+
+	/*
+	 * 在叶子节点的第i个位置插入，满了就先分裂成两个，然后把右边节点的第一个键作为分隔键插入到父节点中
+	 *
+	 * 在最后一个叶子节点的末尾插入的时候（按顺序插入），左边的节点保持满的，右边的节点只放新的键，
+	 * 这样按顺序插入得到的树的节点都是满的
+	 */
+	private void insertIntoLeaf(Leaf l, int i, Object key, Object value, int h) {
+		int cap = nodeCapacity;
+		int n = l.size;
+		if (n < cap) {
+			insertAt(l, i, key, value);
+			return;
+		}
+		boolean append = l == last && i == n;
+		int mid = append ? cap : (cap + 1) >>> 1;// 左边保留的键的个数
+		Leaf r = new Leaf(cap);
+		int rn = n - mid;
+		System.arraycopy(l.keys, mid, r.keys, 0, rn);
+		System.arraycopy(l.vals, mid, r.vals, 0, rn);
+		for (int j = mid; j < n; j++) {
+			l.keys[j] = null;
+			l.vals[j] = null;
+		}
+		l.size = mid;
+		r.size = rn;
+		if ((r.next = l.next) != null) {
+			r.next.prev = r;
+		}
+		else {
+			last = r;
+		}
+		r.prev = l;
+		l.next = r;
+		if (i < mid || (i == mid && mid < cap)) {
+			insertAt(l, i, key, value);
+		}
+		else {
+			insertAt(r, i - mid, key, value);
+		}
+		insertIntoParent(h - 1, r.keys[0], r, append);
+	}
+
+	private static void insertAt(Leaf l, int i, Object key, Object value) {
+		int n = l.size;
+		System.arraycopy(l.keys, i, l.keys, i + 1, n - i);
+		System.arraycopy(l.vals, i, l.vals, i + 1, n - i);
+		l.keys[i] = key;
+		l.vals[i] = value;
+		l.size = n + 1;
+	}
+
+	/*
+	 * 孩子节点分裂之后，把分隔键和新的右边节点插入到第d层的父节点中，d小于0的时候创建新的根节点
+	 * 父节点满了也要分裂，中间的键提升到上一层，一直到某一层不需要分裂为止
+	 */
+	private void insertIntoParent(int d, Object key, Node child, boolean append) {
+		int cap = nodeCapacity;
+		for (;;) {
+			if (d < 0) {
+				Inner nr = new Inner(cap);
+				nr.keys[0] = key;
+				nr.children[0] = root;
+				nr.children[1] = child;
+				nr.size = 1;
+				root = nr;
+				height++;
+				return;
+			}
+			Inner p = path[d];
+			int i = pathIndex[d];// 分裂的是第i个孩子，新的键放在i，新的孩子放在i + 1
+			int n = p.size;
+			if (n < cap) {
+				insertChild(p, i, key, child);
+				return;
+			}
+			// 左边保留mid个键和mid + 1个孩子，keys[mid]提升到上一层，剩下的放到右边
+			int mid = append ? cap - 1 : cap >>> 1;
+			Inner r = new Inner(cap);
+			int rn = n - mid - 1;
+			Object up = p.keys[mid];
+			System.arraycopy(p.keys, mid + 1, r.keys, 0, rn);
+			System.arraycopy(p.children, mid + 1, r.children, 0, rn + 1);
+			for (int j = mid; j < n; j++) {
+				p.keys[j] = null;
+				p.children[j + 1] = null;
+			}
+			p.size = mid;
+			r.size = rn;
+			if (i <= mid) {
+				insertChild(p, i, key, child);
+			}
+			else {
+				insertChild(r, i - mid - 1, key, child);
+			}
+			key = up;
+			child = r;
+			d--;
+		}
+	}
+
+	private static void insertChild(Inner p, int i, Object key, Node child) {
+		int n = p.size;
+		System.arraycopy(p.keys, i, p.keys, i + 1, n - i);
+		System.arraycopy(p.children, i + 1, p.children, i + 2, n - i);
+		p.keys[i] = key;
+		p.children[i + 1] = child;
+		p.size = n + 1;
+	}
+
+	/*
+	 * 删除
+	 */
+
+	public V remove(Object key) {
+		checkKey(key);
+		Node x = root;
+		if (x == null) {
+			return null;
+		}
+		int h = height;
+		Inner[] p = pathFor(h);
+		int[] pi = pathIndex;
+		for (int d = 0; d < h; d++) {
+			Inner in = (Inner) x;
+			int i = search(in, key);
+			i = i >= 0 ? i + 1 : -i - 1;
+			p[d] = in;
+			pi[d] = i;
+			x = in.children[i];
+		}
+		Leaf l = (Leaf) x;
+		int i = search(l, key);
+		if (i < 0) {
+			return null;
+		}
+		@SuppressWarnings("unchecked")
+		V old = (V) l.vals[i];
+		deleteAt(l, i, h);
+		return old;
+	}
+
+	/*
+	 * 删除叶子节点中的第i个键值对，path中必须是到这个叶子节点的路径
+	 * 内部节点中的分隔键可能和删除的键相等，不需要修改，因为右边的键仍然都大于它
+	 */
+	private void deleteAt(Leaf l, int i, int h) {
+		int n = l.size - 1;
+		System.arraycopy(l.keys, i + 1, l.keys, i, n - i);
+		System.arraycopy(l.vals, i + 1, l.vals, i, n - i);
+		l.keys[n] = null;
+		l.vals[n] = null;
+		l.size = n;
+		size--;
+		modCount++;
+		if (h == 0) {
+			if (n == 0) {
+				root = first = last = null;
+			}
+			return;
+		}
+		int min = nodeCapacity >>> 1;
+		if (n >= min) {
+			return;
+		}
+		Inner p = path[h - 1];
+		int ci = pathIndex[h - 1];
+		Leaf left = ci > 0 ? (Leaf) p.children[ci - 1] : null;
+		Leaf right = ci < p.size ? (Leaf) p.children[ci + 1] : null;
+		if (left != null && left.size > min) {
+			// 从左边的兄弟借最后一个
+			int ln = left.size - 1;
+			insertAt(l, 0, left.keys[ln], left.vals[ln]);
+			left.keys[ln] = null;
+			left.vals[ln] = null;
+			left.size = ln;
+			p.keys[ci - 1] = l.keys[0];
+		}
+		else if (right != null && right.size > min) {
+			// 从右边的兄弟借第一个
+			int rn = right.size - 1;
+			l.keys[n] = right.keys[0];
+			l.vals[n] = right.vals[0];
+			l.size = n + 1;
+			System.arraycopy(right.keys, 1, right.keys, 0, rn);
+			System.arraycopy(right.vals, 1, right.vals, 0, rn);
+			right.keys[rn] = null;
+			right.vals[rn] = null;
+			right.size = rn;
+			p.keys[ci] = right.keys[0];
+		}
+		else if (left != null) {
+			mergeLeaves(left, l);
+			removeChild(p, ci - 1);
+			fixInner(h - 1);
+		}
+		else {
+			mergeLeaves(l, right);
+			removeChild(p, ci);
+			fixInner(h - 1);
+		}
+	}
+
+	// 把r中的键值对全部移到l的末尾，并且从链表中删除r
+	private void mergeLeaves(Leaf l, Leaf r) {
+		int n = l.size, rn = r.size;
+		System.arraycopy(r.keys, 0, l.keys, n, rn);
+		System.arraycopy(r.vals, 0, l.vals, n, rn);
+		l.size = n + rn;
+		if ((l.next = r.next) != null) {
+			l.next.prev = l;
+		}
+		else {
+			last = l;
+		}
+		r.next = r.prev = null;
+	}
+
+	// 删除第i个分隔键和它右边的孩子
+	private static void removeChild(Inner p, int i) {
+		int n = p.size - 1;
+		System.arraycopy(p.keys, i + 1, p.keys, i, n - i);
+		System.arraycopy(p.children, i + 2, p.children, i + 1, n - i);
+		p.keys[n] = null;
+		p.children[n + 1] = null;
+		p.size = n;
+	}
+
+	/*
+	 * 第d层的内部节点删除了一个孩子之后，如果键的个数不足一半，向兄弟节点借或者合并，一直向上调整
+	 * 借的时候通过父节点中的分隔键旋转，合并的时候把父节点中的分隔键拉下来
+	 */
+	private void fixInner(int d) {
+		int min = nodeCapacity >>> 1;
+		for (;; d--) {
+			Inner x = path[d];
+			if (d == 0) {
+				if (x.size == 0) {
+					// 根节点只剩一个孩子，树的高度减1
+					root = x.children[0];
+					x.children[0] = null;
+					height--;
+				}
+				return;
+			}
+			if (x.size >= min) {
+				return;
+			}
+			Inner p = path[d - 1];
+			int ci = pathIndex[d - 1];
+			Inner left = ci > 0 ? (Inner) p.children[ci - 1] : null;
+			Inner right = ci < p.size ? (Inner) p.children[ci + 1] : null;
+			if (left != null && left.size > min) {
+				int n = x.size, ln = left.size;
+				System.arraycopy(x.keys, 0, x.keys, 1, n);
+				System.arraycopy(x.children, 0, x.children, 1, n + 1);
+				x.keys[0] = p.keys[ci - 1];
+				x.children[0] = left.children[ln];
+				x.size = n + 1;
+				p.keys[ci - 1] = left.keys[ln - 1];
+				left.keys[ln - 1] = null;
+				left.children[ln] = null;
+				left.size = ln - 1;
+				return;
+			}
+			if (right != null && right.size > min) {
+				int n = x.size, rn = right.size - 1;
+				x.keys[n] = p.keys[ci];
+				x.children[n + 1] = right.children[0];
+				x.size = n + 1;
+				p.keys[ci] = right.keys[0];
+				System.arraycopy(right.keys, 1, right.keys, 0, rn);
+				System.arraycopy(right.children, 1, right.children, 0, rn + 1);
+				right.keys[rn] = null;
+				right.children[rn + 1] = null;
+				right.size = rn;
+				return;
+			}
+			if (left != null) {
+				mergeInner(left, p.keys[ci - 1], x);
+				removeChild(p, ci - 1);
+			}
+			else {
+				mergeInner(x, p.keys[ci], right);
+				removeChild(p, ci);
+			}
+		}
+	}
+
+	// 把父节点中的分隔键sep和r中的所有键和孩子移到l的末尾
+	private static void mergeInner(Inner l, Object sep, Inner r) {
+		int n = l.size, rn = r.size;
+		l.keys[n] = sep;
+		System.arraycopy(r.keys, 0, l.keys, n + 1, rn);
+		System.arraycopy(r.children, 0, l.children, n + 1, rn + 1);
+		l.size = n + 1 + rn;
+	}
+
+	public void clear() {
+		modCount++;
+		size = 0;
+		height = 0;
+		root = first = last = null;
+		path = null;
+		pathIndex = null;
+	}
+
+	/*
+	 * 导航方法，和MyTreeMap一样返回的键值对都是不能修改的
+	 */
+
+	public MyMap.Entry<K, V> firstEntry() {
+		Cursor c = new Cursor();
+		return firstPos(c) ? exportEntry(c) : null;
+	}
+
+	public MyMap.Entry<K, V> lastEntry() {
+		Cursor c = new Cursor();
+		return lastPos(c) ? exportEntry(c) : null;
+	}
+
+	public MyMap.Entry<K, V> pollFirstEntry() {
+		Cursor c = new Cursor();
+		if (!firstPos(c)) {
+			return null;
+		}
+		MyMap.Entry<K, V> result = exportEntry(c);
+		remove(c.key());
+		return result;
+	}
+
+	public MyMap.Entry<K, V> pollLastEntry() {
+		Cursor c = new Cursor();
+		if (!lastPos(c)) {
+			return null;
+		}
+		MyMap.Entry<K, V> result = exportEntry(c);
+		remove(c.key());
+		return result;
+	}
+
+	public MyMap.Entry<K, V> lowerEntry(K key) {
+		Cursor c = new Cursor();
+		return floorPos(c, key, false) ? exportEntry(c) : null;
+	}
+
+	public K lowerKey(K key) {
+		Cursor c = new Cursor();
+		return floorPos(c, key, false) ? key(c) : null;
+	}
+
+	public MyMap.Entry<K, V> floorEntry(K key) {
+		Cursor c = new Cursor();
+		return floorPos(c, key, true) ? exportEntry(c) : null;
+	}
+
+	public K floorKey(K key) {
+		Cursor c = new Cursor();
+		return floorPos(c, key, true) ? key(c) : null;
+	}
+
+	public MyMap.Entry<K, V> ceilingEntry(K key) {
+		Cursor c = new Cursor();
+		return ceilingPos(c, key, true) ? exportEntry(c) : null;
+	}
+
+	public K ceilingKey(K key) {
+		Cursor c = new Cursor();
+		return ceilingPos(c, key, true) ? key(c) : null;
+	}
+
+	public MyMap.Entry<K, V> higherEntry(K key) {
+		Cursor c = new Cursor();
+		return ceilingPos(c, key, false) ? exportEntry(c) : null;
+	}
+
+	public K higherKey(K key) {
+		Cursor c = new Cursor();
+		return ceilingPos(c, key, false) ? key(c) : null;
+	}
+
+	/*
+	 * 视图
+	 */
+
+	public Set<K> keySet() {
+		return navigableKeySet();
+	}
+
+	public NavigableSet<K> navigableKeySet() {
+		KeySet<K> nks = navigableKeySet;
+		return (nks != null) ? nks : (navigableKeySet = new KeySet<>(this));
+	}
+
+	public NavigableSet<K> descendingKeySet() {
+		return descendingMap().navigableKeySet();
+	}
+
+	public Collection<V> values() {
+		Values vs = valuesView;
+		return (vs != null) ? vs : (valuesView = new Values());
+	}
+
+	public Set<MyMap.Entry<K, V>> entrySet() {
+		EntrySet es = entrySet;
+		return (es != null) ? es : (entrySet = new EntrySet());
+	}
+
+	public MyNavigableMap<K, V> descendingMap() {
+		MyNavigableMap<K, V> km = descendingMap;
+		return (km != null) ? km : (descendingMap = new SubMap<>(this, true, null, true, true, null, true, true));
+	}
+
+	public MyNavigableMap<K, V> subMap(K fromKey, boolean fromInclusive, K toKey, boolean toInclusive) {
+		if (compare(fromKey, toKey) > 0) {
+			throw new IllegalArgumentException("fromKey > toKey");
+		}
+		return new SubMap<>(this, false, fromKey, fromInclusive, false, toKey, toInclusive, false);
+	}
+
+	public MyNavigableMap<K, V> headMap(K toKey, boolean inclusive) {
+		compare(toKey, toKey);
+		return new SubMap<>(this, true, null, true, false, toKey, inclusive, false);
+	}
+
+	public MyNavigableMap<K, V> tailMap(K fromKey, boolean inclusive) {
+		compare(fromKey, fromKey);
+		return new SubMap<>(this, false, fromKey, inclusive, true, null, true, false);
+	}
+
+	public MySortedMap<K, V> subMap(K fromKey, K toKey) {
+		return subMap(fromKey, true, toKey, false);
+	}
+
+	public MySortedMap<K, V> headMap(K toKey) {
+		return headMap(toKey, false);
+	}
+
+	public MySortedMap<K, V> tailMap(K fromKey) {
+		return tailMap(fromKey, true);
+	}
+
+	Iterator<K> keyIterator() {
+		return new KeyIterator<K>(this, false, true, null, false);
+	}
+
+	Iterator<K> descendingKeyIterator() {
+		return new KeyIterator<K>(this, true, true, null, false);
+	}
+
+	class Values extends AbstractCollection<V> {
+		public Iterator<V> iterator() {
+			return new ValueIterator<V>(MyBTreeMap.this, false, true, null, false);
+		}
+
+		public int size() {
+			return MyBTreeMap.this.size;
+		}
+
+		public boolean contains(Object o) {
+			return containsValue(o);
+		}
+
+		public void clear() {
+			MyBTreeMap.this.clear();
+		}
+	}
+
+	class EntrySet extends AbstractSet<MyMap.Entry<K, V>> {
+		public Iterator<MyMap.Entry<K, V>> iterator() {
+			return new EntryIterator<K, V>(MyBTreeMap.this, false, true, null, false);
+		}
+
+		public boolean contains(Object o) {
+			if (!(o instanceof MyMap.Entry)) {
+				return false;
+			}
+			MyMap.Entry<?, ?> entry = (MyMap.Entry<?, ?>) o;
+			Object key = entry.getKey();
+			return containsKey(key) && Objects.equals(get(key), entry.getValue());
+		}
+
+		public boolean remove(Object o) {
+			if (contains(o)) {
+				MyBTreeMap.this.remove(((MyMap.Entry<?, ?>) o).getKey());
+				return true;
+			}
+			return false;
+		}
+
+		public int size() {
+			return MyBTreeMap.this.size;
+		}
+
+		public void clear() {
+			MyBTreeMap.this.clear();
+		}
+	}
+
+	/*
+	 * 迭代器，沿着叶子节点的链表移动，子map的迭代器在越过边界bound的时候结束
+	 */
+	abstract static class BTreeIterator<K, V, T> extends Cursor implements Iterator<T> {
+		final MyBTreeMap<K, V> m;
+		final boolean descending;
+		final boolean unbounded; // true表示一直到最后
+		final Object bound; // 结束的键
+		final boolean boundInclusive; // 是否包含bound
+		Object lastReturned; // 上一次返回的键，remove使用
+		boolean canRemove;
+		int expectedModCount;
+
+		// 从第一个（逆序的时候是最后一个）位置开始
+		BTreeIterator(MyBTreeMap<K, V> m, boolean descending, boolean unbounded, Object bound,
+				boolean boundInclusive) {
+			this(m, descending, unbounded, bound, boundInclusive, null);
+			if (!(descending ? m.lastPos(this) : m.firstPos(this))) {
+				leaf = null;
+			}
+			checkBound();
+		}
+
+		// 从start开始，start为null表示没有元素
+		BTreeIterator(MyBTreeMap<K, V> m, boolean descending, boolean unbounded, Object bound,
+				boolean boundInclusive, Cursor start) {
+			this.m = m;
+			this.descending = descending;
+			this.unbounded = unbounded;
+			this.bound = bound;
+			this.boundInclusive = boundInclusive;
+			this.expectedModCount = m.modCount;
+			if (start != null) {
+				leaf = start.leaf;
+				index = start.index;
+				checkBound();
+			}
+		}
+
+		// 越过了边界，遍历结束
+		final void checkBound() {
+			if (leaf != null && !unbounded) {
+				int c = m.compare(key(), bound);
+				if (descending ? (c < 0 || (c == 0 && !boundInclusive)) : (c > 0 || (c == 0 && !boundInclusive))) {
+					leaf = null;
+				}
+			}
+		}
+
+		public final boolean hasNext() {
+			return leaf != null;
+		}
+
+		// 返回前先记录当前的位置，然后移动到下一个位置
+		final void advance() {
+			if (leaf == null) {
+				throw new NoSuchElementException();
+			}
+			if (m.modCount != expectedModCount) {
+				throw new ConcurrentModificationException();
+			}
+			lastReturned = key();
+			canRemove = true;
+			if (!(descending ? backward() : forward())) {
+				leaf = null;
+			}
+			checkBound();
+		}
+
+		/*
+		 * 删除可能导致叶子节点合并或者借用，当前的位置会失效，
+		 * 所以删除之后用下一个键重新定位
+		 */
+		public final void remove() {
+			if (!canRemove) {
+				throw new IllegalStateException();
+			}
+			if (m.modCount != expectedModCount) {
+				throw new ConcurrentModificationException();
+			}
+			canRemove = false;
+			Object nextKey = leaf != null ? key() : null;
+			boolean hasNext = leaf != null;
+			m.remove(lastReturned);
+			expectedModCount = m.modCount;
+			if (hasNext) {
+				if (descending) {
+					m.floorPos(this, nextKey, true);
+				}
+				else {
+					m.ceilingPos(this, nextKey, true);
+				}
+			}
+		}
+	}
+
+	static final class KeyIterator<K> extends BTreeIterator<K, Object, K> {
+		@SuppressWarnings("unchecked")
+		KeyIterator(MyBTreeMap<K, ?> m, boolean descending, boolean unbounded, Object bound, boolean boundInclusive) {
+			super((MyBTreeMap<K, Object>) m, descending, unbounded, bound, boundInclusive);
+		}
+
+		@SuppressWarnings("unchecked")
+		KeyIterator(MyBTreeMap<K, ?> m, boolean descending, boolean unbounded, Object bound, boolean boundInclusive,
+				Cursor start) {
+			super((MyBTreeMap<K, Object>) m, descending, unbounded, bound, boundInclusive, start);
+		}
+
+		@SuppressWarnings("unchecked")
+		public K next() {
+			advance();
+			return (K) lastReturned;
+		}
+	}
+
+	static final class ValueIterator<V> extends BTreeIterator<Object, V, V> {
+		@SuppressWarnings("unchecked")
+		ValueIterator(MyBTreeMap<?, V> m, boolean descending, boolean unbounded, Object bound,
+				boolean boundInclusive) {
+			super((MyBTreeMap<Object, V>) m, descending, unbounded, bound, boundInclusive);
+		}
+
+		@SuppressWarnings("unchecked")
+		ValueIterator(MyBTreeMap<?, V> m, boolean descending, boolean unbounded, Object bound, boolean boundInclusive,
+				Cursor start) {
+			super((MyBTreeMap<Object, V>) m, descending, unbounded, bound, boundInclusive, start);
+		}
+
+		@SuppressWarnings("unchecked")
+		public V next() {
+			V v = (V) (leaf != null ? value() : null);
+			advance();
+			return v;
+		}
+	}
+
+	static final class EntryIterator<K, V> extends BTreeIterator<K, V, MyMap.Entry<K, V>> {
+		EntryIterator(MyBTreeMap<K, V> m, boolean descending, boolean unbounded, Object bound,
+				boolean boundInclusive) {
+			super(m, descending, unbounded, bound, boundInclusive);
+		}
+
+		EntryIterator(MyBTreeMap<K, V> m, boolean descending, boolean unbounded, Object bound, boolean boundInclusive,
+				Cursor start) {
+			super(m, descending, unbounded, bound, boundInclusive, start);
+		}
+
+		public MyMap.Entry<K, V> next() {
+			Leaf l = leaf;
+			int i = index;
+			advance();
+			return new LeafEntry<>(m, l, i);
+		}
+	}
+
+	/*
+	 * 迭代器返回的键值对，直接读写叶子节点中的值
+	 * 叶子节点因为插入删除发生变化之后，通过map查找
+	 */
+	static final class LeafEntry<K, V> implements MyMap.Entry<K, V> {
+		final MyBTreeMap<K, V> m;
+		final Leaf leaf;
+		final int index;
+		final K key;
+
+		@SuppressWarnings("unchecked")
+		LeafEntry(MyBTreeMap<K, V> m, Leaf leaf, int index) {
+			this.m = m;
+			this.leaf = leaf;
+			this.index = index;
+			this.key = (K) leaf.keys[index];
+		}
+
+		public K getKey() {
+			return key;
+		}
+
+		@SuppressWarnings("unchecked")
+		public V getValue() {
+			return (index < leaf.size && leaf.keys[index] == key) ? (V) leaf.vals[index] : m.get(key);
+		}
+
+		public V setValue(V value) {
+			if (index < leaf.size && leaf.keys[index] == key) {
+				@SuppressWarnings("unchecked")
+				V old = (V) leaf.vals[index];
+				leaf.vals[index] = value;
+				return old;
+			}
+			return m.put(key, value);
+		}
+
+		public boolean equals(Object o) {
+			if (!(o instanceof MyMap.Entry)) {
+				return false;
+			}
+			MyMap.Entry<?, ?> e = (MyMap.Entry<?, ?>) o;
+			return Objects.equals(key, e.getKey()) && Objects.equals(getValue(), e.getValue());
+		}
+
+		public int hashCode() {
+			return Objects.hashCode(key) ^ Objects.hashCode(getValue());
+		}
+
+		public String toString() {
+			return key + "=" + getValue();
+		}
+	}
+
+	/*
+	 * 键的集合，和MyTreeMap.KeySet相同，所有的操作都代理给map
+	 */
+	static final class KeySet<E> extends AbstractSet<E> implements NavigableSet<E> {
+		private final MyNavigableMap<E, ?> m;
+
+		KeySet(MyNavigableMap<E, ?> map) {
+			m = map;
+		}
+
+		public Iterator<E> iterator() {
+			if (m instanceof MyBTreeMap) {
+				return ((MyBTreeMap<E, ?>) m).keyIterator();
+			}
+			else {
+				return ((MyBTreeMap.SubMap<E, ?>) m).keyIterator();
+			}
+		}
+
+		public Iterator<E> descendingIterator() {
+			if (m instanceof MyBTreeMap) {
+				return ((MyBTreeMap<E, ?>) m).descendingKeyIterator();
+			}
+			else {
+				return ((MyBTreeMap.SubMap<E, ?>) m).descendingKeyIterator();
+			}
+		}
+
+		public int size() {
+			return m.size();
+		}
+
+		public boolean isEmpty() {
+			return m.isEmpty();
+		}
+
+		public boolean contains(Object o) {
+			return m.containsKey(o);
+		}
+
+		public void clear() {
+			m.clear();
+		}
+
+		public E lower(E e) {
+			return m.lowerKey(e);
+		}
+
+		public E floor(E e) {
+			return m.floorKey(e);
+		}
+
+		public E ceiling(E e) {
+			return m.ceilingKey(e);
+		}
+
+		public E higher(E e) {
+			return m.higherKey(e);
+		}
+
+		public E first() {
+			return m.firstKey();
+		}
+
+		public E last() {
+			return m.lastKey();
+		}
+
+		public Comparator<? super E> comparator() {
+			return m.comparator();
+		}
+
+		public E pollFirst() {
+			MyMap.Entry<E, ?> e = m.pollFirstEntry();
+			return e == null ? null : e.getKey();
+		}
+
+		public E pollLast() {
+			MyMap.Entry<E, ?> e = m.pollLastEntry();
+			return e == null ? null : e.getKey();
+		}
+
+		public boolean remove(Object o) {
+			int oldSize = size();
+			m.remove(o);
+			return size() != oldSize;
+		}
+
+		public NavigableSet<E> subSet(E fromElement, boolean fromInclusive, E toElement, boolean toInclusive) {
+			return new KeySet<>(m.subMap(fromElement, fromInclusive, toElement, toInclusive));
+		}
+
+		public NavigableSet<E> headSet(E toElement, boolean inclusive) {
+			return new KeySet<>(m.headMap(toElement, inclusive));
+		}
+
+		public NavigableSet<E> tailSet(E fromElement, boolean inclusive) {
+			return new KeySet<>(m.tailMap(fromElement, inclusive));
+		}
+
+		public SortedSet<E> subSet(E fromElement, E toElement) {
+			return subSet(fromElement, true, toElement, false);
+		}
+
+		public SortedSet<E> headSet(E toElement) {
+			return headSet(toElement, false);
+		}
+
+		public SortedSet<E> tailSet(E fromElement) {
+			return tailSet(fromElement, true);
+		}
+
+		public NavigableSet<E> descendingSet() {
+			return new KeySet<>(m.descendingMap());
+		}
+	}
+
+	/*
+	 * 子map，正序和逆序用同一个类实现，descending为true的时候所有的方向都反过来
+	 * lo和hi是在原来的map中的绝对边界，和方向无关
+	 */
+	static final class SubMap<K, V> extends MyAbstractMap<K, V> implements MyNavigableMap<K, V>, Serializable {
+		private static final long serialVersionUID = -2102997345730753016L;
+
+		final MyBTreeMap<K, V> m;
+
+		final K lo, hi;
+		final boolean fromStart, toEnd;
+		final boolean loInclusive, hiInclusive;
+		final boolean descending;
+
+		private transient MyNavigableMap<K, V> descendingMapView;
+		private transient KeySet<K> navigableKeySetView;
+		private transient SubEntrySet entrySetView;
+
+		SubMap(MyBTreeMap<K, V> m, boolean fromStart, K lo, boolean loInclusive, boolean toEnd, K hi,
+				boolean hiInclusive, boolean descending) {
+			if (!fromStart && !toEnd) {
+				if (m.compare(lo, hi) > 0) {
+					throw new IllegalArgumentException("fromKey > toKey");
+				}
+			}
+			else {
+				if (!fromStart) {
+					m.compare(lo, lo);// 类型检查
+				}
+				if (!toEnd) {
+					m.compare(hi, hi);
+				}
+			}
+			this.m = m;
+			this.fromStart = fromStart;
+			this.lo = lo;
+			this.loInclusive = loInclusive;
+			this.toEnd = toEnd;
+			this.hi = hi;
+			this.hiInclusive = hiInclusive;
+			this.descending = descending;
+		}
+
+		/*
+		 * 判断键是否在范围内
+		 */
+
+		final boolean tooLow(Object key) {
+			if (!fromStart) {
+				int c = m.compare(key, lo);
+				if (c < 0 || (c == 0 && !loInclusive)) {
+					return true;
+				}
+			}
+			return false;
+		}
+
+		final boolean tooHigh(Object key) {
+			if (!toEnd) {
+				int c = m.compare(key, hi);
+				if (c > 0 || (c == 0 && !hiInclusive)) {
+					return true;
+				}
+			}
+			return false;
+		}
+
+		final boolean inRange(Object key) {
+			return !tooLow(key) && !tooHigh(key);
+		}
+
+		final boolean inClosedRange(Object key) {
+			return (fromStart || m.compare(key, lo) >= 0) && (toEnd || m.compare(hi, key) >= 0);
+		}
+
+		final boolean inRange(Object key, boolean inclusive) {
+			return inclusive ? inRange(key) : inClosedRange(key);
+		}
+
+		/*
+		 * 在原来的map中的绝对位置
+		 */
+
+		final boolean absLowest(Cursor c) {
+			boolean found = fromStart ? m.firstPos(c) : m.ceilingPos(c, lo, loInclusive);
+			return found && !tooHigh(c.key());
+		}
+
+		final boolean absHighest(Cursor c) {
+			boolean found = toEnd ? m.lastPos(c) : m.floorPos(c, hi, hiInclusive);
+			return found && !tooLow(c.key());
+		}
+
+		final boolean absCeiling(Cursor c, Object key, boolean inclusive) {
+			if (tooLow(key)) {
+				return absLowest(c);
+			}
+			return m.ceilingPos(c, key, inclusive) && !tooHigh(c.key());
+		}
+
+		final boolean absFloor(Cursor c, Object key, boolean inclusive) {
+			if (tooHigh(key)) {
+				return absHighest(c);
+			}
+			return m.floorPos(c, key, inclusive) && !tooLow(c.key());
+		}
+
+		/*
+		 * 相对于这个子map的方向的位置
+		 */
+
+		final boolean subLowest(Cursor c) {
+			return descending ? absHighest(c) : absLowest(c);
+		}
+
+		final boolean subHighest(Cursor c) {
+			return descending ? absLowest(c) : absHighest(c);
+		}
+
+		final boolean subCeiling(Cursor c, Object key) {
+			return descending ? absFloor(c, key, true) : absCeiling(c, key, true);
+		}
+
+		final boolean subHigher(Cursor c, Object key) {
+			return descending ? absFloor(c, key, false) : absCeiling(c, key, false);
+		}
+
+		final boolean subFloor(Cursor c, Object key) {
+			return descending ? absCeiling(c, key, true) : absFloor(c, key, true);
+		}
+
+		final boolean subLower(Cursor c, Object key) {
+			return descending ? absCeiling(c, key, false) : absFloor(c, key, false);
+		}
+
+		/*
+		 * 迭代器，从这个子map的第一个位置开始，到另一端的边界结束
+		 */
+
+		Iterator<K> keyIterator() {
+			return keyIterator(descending);
+		}
+
+		Iterator<K> descendingKeyIterator() {
+			return keyIterator(!descending);
+		}
+
+		private Iterator<K> keyIterator(boolean desc) {
+			Cursor c = new Cursor();
+			boolean found = desc ? absHighest(c) : absLowest(c);
+			return new KeyIterator<K>(m, desc, desc ? fromStart : toEnd, desc ? lo : hi, desc ? loInclusive
+					: hiInclusive, found ? c : null);
+		}
+
+		/*
+		 * 查询和修改
+		 */
+
+		public boolean containsKey(Object key) {
+			return inRange(key) && m.containsKey(key);
+		}
+
+		public V get(Object key) {
+			return !inRange(key) ? null : m.get(key);
+		}
+
+		public V put(K key, V value) {
+			if (!inRange(key)) {
+				throw new IllegalArgumentException("key out of range");
+			}
+			return m.put(key, value);
+		}
+
+		public V remove(Object key) {
+			return !inRange(key) ? null : m.remove(key);
+		}
+
+		public boolean isEmpty() {
+			return !absLowest(new Cursor());
+		}
+
+		// 需要遍历整个范围
+		public int size() {
+			if (fromStart && toEnd) {
+				return m.size();
+			}
+			int n = 0;
+			for (Iterator<K> it = keyIterator(false); it.hasNext(); it.next()) {
+				n++;
+			}
+			return n;
+		}
+
+		public Comparator<? super K> comparator() {
+			return descending ? Collections.reverseOrder(m.comparator()) : m.comparator();
+		}
+
+		public K firstKey() {
+			Cursor c = new Cursor();
+			return key(subLowest(c) ? c : null);
+		}
+
+		public K lastKey() {
+			Cursor c = new Cursor();
+			return key(subHighest(c) ? c : null);
+		}
+
+		public MyMap.Entry<K, V> firstEntry() {
+			Cursor c = new Cursor();
+			return subLowest(c) ? exportEntry(c) : null;
+		}
+
+		public MyMap.Entry<K, V> lastEntry() {
+			Cursor c = new Cursor();
+			return subHighest(c) ? exportEntry(c) : null;
+		}
+
+		public MyMap.Entry<K, V> pollFirstEntry() {
+			Cursor c = new Cursor();
+			if (!subLowest(c)) {
+				return null;
+			}
+			MyMap.Entry<K, V> result = exportEntry(c);
+			m.remove(c.key());
+			return result;
+		}
+
+		public MyMap.Entry<K, V> pollLastEntry() {
+			Cursor c = new Cursor();
+			if (!subHighest(c)) {
+				return null;
+			}
+			MyMap.Entry<K, V> result = exportEntry(c);
+			m.remove(c.key());
+			return result;
+		}
+
+		public MyMap.Entry<K, V> ceilingEntry(K key) {
+			Cursor c = new Cursor();
+			return subCeiling(c, key) ? exportEntry(c) : null;
+		}
+
+		public K ceilingKey(K key) {
+			Cursor c = new Cursor();
+			return subCeiling(c, key) ? key(c) : null;
+		}
+
+		public MyMap.Entry<K, V> higherEntry(K key) {
+			Cursor c = new Cursor();
+			return subHigher(c, key) ? exportEntry(c) : null;
+		}
+
+		public K higherKey(K key) {
+			Cursor c = new Cursor();
+			return subHigher(c, key) ? key(c) : null;
+		}
+
+		public MyMap.Entry<K, V> floorEntry(K key) {
+			Cursor c = new Cursor();
+			return subFloor(c, key) ? exportEntry(c) : null;
+		}
+
+		public K floorKey(K key) {
+			Cursor c = new Cursor();
+			return subFloor(c, key) ? key(c) : null;
+		}
+
+		public MyMap.Entry<K, V> lowerEntry(K key) {
+			Cursor c = new Cursor();
+			return subLower(c, key) ? exportEntry(c) : null;
+		}
+
+		public K lowerKey(K key) {
+			Cursor c = new Cursor();
+			return subLower(c, key) ? key(c) : null;
+		}
+
+		/*
+		 * 视图
+		 */
+
+		public Set<K> keySet() {
+			return navigableKeySet();
+		}
+
+		public NavigableSet<K> navigableKeySet() {
+			KeySet<K> nksv = navigableKeySetView;
+			return (nksv != null) ? nksv : (navigableKeySetView = new KeySet<>(this));
+		}
+
+		public NavigableSet<K> descendingKeySet() {
+			return descendingMap().navigableKeySet();
+		}
+
+		public Set<MyMap.Entry<K, V>> entrySet() {
+			SubEntrySet es = entrySetView;
+			return (es != null) ? es : (entrySetView = new SubEntrySet());
+		}
+
+		public MyNavigableMap<K, V> descendingMap() {
+			MyNavigableMap<K, V> mv = descendingMapView;
+			return (mv != null) ? mv : (descendingMapView = new SubMap<>(m, fromStart, lo, loInclusive, toEnd, hi,
+					hiInclusive, !descending));
+		}
+
+		/*
+		 * 在逆序的子map中，from和to是按照逆序的方向给出的，所以对应的是绝对边界中的hi和lo
+		 */
+		public MyNavigableMap<K, V> subMap(K fromKey, boolean fromInclusive, K toKey, boolean toInclusive) {
+			if (!inRange(fromKey, fromInclusive)) {
+				throw new IllegalArgumentException("fromKey out of range");
+			}
+			if (!inRange(toKey, toInclusive)) {
+				throw new IllegalArgumentException("toKey out of range");
+			}
+			if (descending) {
+				return new SubMap<>(m, false, toKey, toInclusive, false, fromKey, fromInclusive, true);
+			}
+			return new SubMap<>(m, false, fromKey, fromInclusive, false, toKey, toInclusive, false);
+		}
+
+		public MyNavigableMap<K, V> headMap(K toKey, boolean inclusive) {
+			if (!inRange(toKey, inclusive)) {
+				throw new IllegalArgumentException("toKey out of range");
+			}
+			if (descending) {
+				return new SubMap<>(m, false, toKey, inclusive, toEnd, hi, hiInclusive, true);
+			}
+			return new SubMap<>(m, fromStart, lo, loInclusive, false, toKey, inclusive, false);
+		}
+
+		public MyNavigableMap<K, V> tailMap(K fromKey, boolean inclusive) {
+			if (!inRange(fromKey, inclusive)) {
+				throw new IllegalArgumentException("fromKey out of range");
+			}
+			if (descending) {
+				return new SubMap<>(m, fromStart, lo, loInclusive, false, fromKey, inclusive, true);
+			}
+			return new SubMap<>(m, false, fromKey, inclusive, toEnd, hi, hiInclusive, false);
+		}
+
+		public MySortedMap<K, V> subMap(K fromKey, K toKey) {
+			return subMap(fromKey, true, toKey, false);
+		}
+
+		public MySortedMap<K, V> headMap(K toKey) {
+			return headMap(toKey, false);
+		}
+
+		public MySortedMap<K, V> tailMap(K fromKey) {
+			return tailMap(fromKey, true);
+		}
+
+		final class SubEntrySet extends AbstractSet<MyMap.Entry<K, V>> {
+			public Iterator<MyMap.Entry<K, V>> iterator() {
+				Cursor c = new Cursor();
+				boolean found = subLowest(c);
+				return new EntryIterator<K, V>(m, descending, descending ? fromStart : toEnd, descending ? lo : hi,
+						descending ? loInclusive : hiInclusive, found ? c : null);
+			}
+
+			public int size() {
+				return SubMap.this.size();
+			}
+
+			public boolean isEmpty() {
+				return SubMap.this.isEmpty();
+			}
+
+			public boolean contains(Object o) {
+				if (!(o instanceof MyMap.Entry)) {
+					return false;
+				}
+				MyMap.Entry<?, ?> entry = (MyMap.Entry<?, ?>) o;
+				Object key = entry.getKey();
+				return inRange(key) && m.containsKey(key) && Objects.equals(m.get(key), entry.getValue());
+			}
+
+			public boolean remove(Object o) {
+				if (contains(o)) {
+					m.remove(((MyMap.Entry<?, ?>) o).getKey());
+					return true;
+				}
+				return false;
+			}
+		}
+	}
+
+	/*
+	 * 复制和序列化
+	 */
+
+	// 浅拷贝，按顺序插入到新的树中
+	@SuppressWarnings("unchecked")
+	public Object clone() {
+		MyBTreeMap<K, V> clone;
+		try {
+			clone = (MyBTreeMap<K, V>) super.clone();
+		} catch (CloneNotSupportedException e) {
+			throw new InternalError(e);
+		}
+		clone.root = clone.first = clone.last = null;
+		clone.height = clone.size = clone.modCount = 0;
+		clone.path = null;
+		clone.pathIndex = null;
+		clone.navigableKeySet = null;
+		clone.entrySet = null;
+		clone.valuesView = null;
+		clone.descendingMap = null;
+		for (Leaf l = first; l != null; l = l.next) {
+			for (int i = 0; i < l.size; i++) {
+				clone.put((K) l.keys[i], (V) l.vals[i]);
+			}
+		}
+		return clone;
+	}
+
+	private void writeObject(ObjectOutputStream s) throws IOException {
+		s.defaultWriteObject();
+		s.writeInt(size);
+		for (Leaf l = first; l != null; l = l.next) {
+			for (int i = 0; i < l.size; i++) {
+				s.writeObject(l.keys[i]);
+				s.writeObject(l.vals[i]);
+			}
+		}
+	}
+
+	@SuppressWarnings("unchecked")
+	private void readObject(ObjectInputStream s) throws IOException, ClassNotFoundException {
+		s.defaultReadObject();
+		int n = s.readInt();
+		for (int i = 0; i < n; i++) {
+			K key = (K) s.readObject();
+			V value = (V) s.readObject();
+			put(key, value);
+		}
+	}
+}
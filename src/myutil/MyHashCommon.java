@@ -0,0 +1,60 @@
+package myutil;
+
+/*
+ * 基本类型哈希表共用的工具方法，包内可见
+ */
+final class MyHashCommon {
+	private MyHashCommon() {
+	}
+
+	// 默认的加载因子
+	static final float DEFAULT_LOAD_FACTOR = 0.75f;
+
+	// 默认的初始容量
+	static final int DEFAULT_INITIAL_CAPACITY = 16;
+
+	static final int MAXIMUM_CAPACITY = 1 << 30;
+
+	/*
+	 * murmur3的finalizer，每一位输入都会影响到每一位输出，连续的整数也会被打散到整个数组中
+	 * 线性探测对聚集很敏感，所以不能像MyHashMap.hash那样只把高16位异或下来
+	 */
+	static int mix(int x) {
+		x ^= x >>> 16;
+		x *= 0x85ebca6b;
+		x ^= x >>> 13;
+		x *= 0xc2b2ae35;
+		x ^= x >>> 16;
+		return x;
+	}
+
+	static int mix(long x) {
+		x ^= x >>> 33;
+		x *= 0xff51afd7ed558ccdL;
+		x ^= x >>> 33;
+		x *= 0xc4ceb9fe1a85ec53L;
+		x ^= x >>> 33;
+		return (int) x;
+	}
+
+	// 能够容纳expected个元素而不超过加载因子的最小的2的幂
+	static int arraySize(int expected, float loadFactor) {
+		long s = Math.max(2, (long) Math.ceil(expected / (double) loadFactor));
+		if (s > MAXIMUM_CAPACITY) {
+			throw new IllegalArgumentException("Too large (" + expected + " expected elements with load factor "
+					+ loadFactor + ")");
+		}
+		return MyHashMap.tableSizeFor((int) s);
+	}
+
+	// 容量为n的数组最多能放的元素个数，至少留一个空位，保证探测一定能结束
+	static int maxFill(int n, float loadFactor) {
+		return Math.min((int) Math.ceil(n * loadFactor), n - 1);
+	}
+
+	static void checkLoadFactor(float loadFactor) {
+		if (loadFactor <= 0 || loadFactor >= 1 || Float.isNaN(loadFactor)) {
+			throw new IllegalArgumentException("Illegal load factor: " + loadFactor);
+		}
+	}
+}
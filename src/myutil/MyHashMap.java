@@ -1,7 +1,14 @@
 package myutil;
 
 import java.io.Serializable;
-import java.util.Map;
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
+import java.util.AbstractCollection;
+import java.util.AbstractSet;
+import java.util.Collection;
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
 import java.util.Objects;
 import java.util.Set;
 
@@ -29,6 +36,9 @@ public class MyHashMap<K, V> extends MyAbstractMap<K, V> implements MyMap<K, V>,
 	// 最小扩容容量
 	static final int MIN_TREEIFY_CAPACITY = 64;
 
+	// 渐进式扩容时，每一次添加或者删除操作最多迁移的bucket个数
+	static final int TRANSFER_STEP = 16;
+
 	// 存放键值对的数据结构，链表表示
 	static class Node<K, V> implements MyMap.Entry<K, V> {
 		final int hash;// 这里保存的hash其实是key的hash
@@ -85,11 +95,17 @@ public class MyHashMap<K, V> extends MyAbstractMap<K, V> implements MyMap<K, V>,
 	 * 一系列的静态方法
 	 */
 
-	// 根据hashCode返回值来计算hash值
+	// 根据hashCode返回值来计算hash值，指定了hashStrategy的时候用hashStrategy代替hashCode
+	@SuppressWarnings("unchecked")
 	public final int hash(Object key) {
 		int h;
+		if (key == null) {
+			return 0;
+		}
+		MyHashStrategy<Object> s = (MyHashStrategy<Object>) hashStrategy;
+		h = (s == null) ? key.hashCode() : s.hash(key);
 		// 高16位不变，低16位是高16位和低16位的异或，这样做的目的是：让hashCode的高位也参与进来，减少碰撞
-		return (key == null) ? 0 : (h = key.hashCode()) ^ (h >>> 16);
+		return h ^ (h >>> 16);
 	}
 
 	// 最终得到的结果是第一个大于等于cap的2的幂的数
@@ -105,6 +121,36 @@ public class MyHashMap<K, V> extends MyAbstractMap<K, V> implements MyMap<K, V>,
 		return (n < 0) ? 1 : (n >= MAXIMUM_CAPACITY) ? MAXIMUM_CAPACITY : n + 1;
 	}
 
+	// 如果x的类型是C，并且实现了Comparable<C>接口，则返回C，否则返回null，红黑树中用来判断两个键能否直接比较
+	static Class<?> comparableClassFor(Object x) {
+		if (x instanceof Comparable) {
+			Class<?> c;
+			Type[] ts, as;
+			Type t;
+			ParameterizedType p;
+			if ((c = x.getClass()) == String.class) {// String是最常用的键，直接返回
+				return c;
+			}
+			// 遍历x的类型实现的所有泛型接口，找到Comparable<C>并且C就是x的类型
+			if ((ts = c.getGenericInterfaces()) != null) {
+				for (int i = 0; i < ts.length; ++i) {
+					if (((t = ts[i]) instanceof ParameterizedType)
+							&& ((p = (ParameterizedType) t).getRawType() == Comparable.class)
+							&& (as = p.getActualTypeArguments()) != null && as.length == 1 && as[0] == c) {
+						return c;
+					}
+				}
+			}
+		}
+		return null;
+	}
+
+	// 如果x的类型是kc（kc由comparableClassFor得到）则返回k.compareTo(x)，否则返回0，表示无法比较
+	@SuppressWarnings({ "rawtypes", "unchecked" })
+	static int compareComparables(Class<?> kc, Object k, Object x) {
+		return (x == null || x.getClass() != kc ? 0 : ((Comparable) k).compareTo(x));
+	}
+
 	/*
 	 * 实例变量，反序列化之后变成一个全新的失实例了，相当于拿原先的元素直接初始化
 	 */
@@ -116,12 +162,33 @@ public class MyHashMap<K, V> extends MyAbstractMap<K, V> implements MyMap<K, V>,
 
 	transient int modCount;
 
+	// 渐进式扩容时的旧table，没有处于扩容过程中的时候为null，其中不为空的bucket都还没有迁移
+	transient Node<K, V>[] oldTable;
+
+	// 渐进式扩容时下一个需要迁移的旧table的位置
+	transient int transferIndex;
+
 	// 阈值，表示哈希表中元素达到该值进行下一次扩容，capacity * loadFactor
 	int threshold;
 
 	final float loadFactor;
 
-	public MyHashMap(int initialCapacity, float loadFactor) {
+	// 是否使用渐进式扩容，扩容时不在一次put中迁移所有数据，而是由之后的每一次添加、删除操作迁移一部分，避免单次操作的停顿
+	final boolean incrementalResize;
+
+	// 计算键的hash值的方式，为null的时候使用键的hashCode
+	final MyHashStrategy<? super K> hashStrategy;
+
+	/**
+	 * @param initialCapacity
+	 * @param loadFactor
+	 * @param incrementalResize
+	 *            为true的时候扩容的数据迁移分摊到之后的操作中，扩容期间查找需要同时查看新旧两个table
+	 * @param hashStrategy
+	 *            计算键的hash值的方式，为null的时候使用键的hashCode，比如MyHashStrategy.seeded()
+	 */
+	public MyHashMap(int initialCapacity, float loadFactor, boolean incrementalResize,
+			MyHashStrategy<? super K> hashStrategy) {
 		if (initialCapacity < 0) {
 			throw new IllegalArgumentException("Illegal initial capacity: " + initialCapacity);
 		}
@@ -133,20 +200,40 @@ public class MyHashMap<K, V> extends MyAbstractMap<K, V> implements MyMap<K, V>,
 			throw new IllegalArgumentException("Illegal load factor: " + loadFactor);
 		}
 		this.loadFactor = loadFactor;
+		this.incrementalResize = incrementalResize;
+		this.hashStrategy = hashStrategy;
 		// 首次进行扩容的阈值即为第一次创建table时的长度，指定的capacity并没有保存而是转化为了一个tableSize，供创建table时使用，该值是第一个大于等于capacity的2的幂
 		this.threshold = tableSizeFor(initialCapacity);
 	}
 
+	public MyHashMap(int initialCapacity, float loadFactor, boolean incrementalResize) {
+		this(initialCapacity, loadFactor, incrementalResize, null);
+	}
+
+	public MyHashMap(int initialCapacity, float loadFactor) {
+		this(initialCapacity, loadFactor, false);
+	}
+
 	public MyHashMap(int initialCapaticy) {
 		this(initialCapaticy, DEFAULT_LOAD_FACTOR);
 	}
 
 	public MyHashMap() {
 		this.loadFactor = DEFAULT_LOAD_FACTOR;
+		this.incrementalResize = false;
+		this.hashStrategy = null;
+	}
+
+	public MyHashMap(MyHashStrategy<? super K> hashStrategy) {
+		this.loadFactor = DEFAULT_LOAD_FACTOR;
+		this.incrementalResize = false;
+		this.hashStrategy = hashStrategy;
 	}
 
 	public MyHashMap(MyMap<? extends K, ? extends V> m) {
 		this.loadFactor = DEFAULT_LOAD_FACTOR;
+		this.incrementalResize = false;
+		this.hashStrategy = null;
 		putMapEntries(m, false);
 	}
 
@@ -191,6 +278,63 @@ public class MyHashMap<K, V> extends MyAbstractMap<K, V> implements MyMap<K, V>,
 		return size == 0;
 	}
 
+	// 通过key得到value，返回null可能是不存在该键，也可能是该键的值本身就是null
+	public V get(Object key) {
+		Node<K, V> e;
+		advanceTransfer();// 渐进式扩容期间查找也迁移一部分bucket，只查找、替换已有键的负载也能完成迁移
+		return (e = getNode(hash(key), key)) == null ? null : e.value;
+	}
+
+	/**
+	 * 查找的具体实现，先定位到bucket，首先检查第一个节点，然后根据存储结构（链表，红黑树）分别查找
+	 * 
+	 * @param hash
+	 *            键的哈希值
+	 * @param key
+	 * @return 找到的节点，没有找到返回null
+	 */
+	final Node<K, V> getNode(int hash, Object key) {
+		Node<K, V>[] tab;
+		Node<K, V> first;
+		int n;
+		// 渐进式扩容期间，如果旧table上对应的bucket还没有迁移，键只可能在旧的bucket中
+		if ((tab = oldTable) != null && (first = tab[(tab.length - 1) & hash]) != null) {
+			return findNode(first, hash, key);
+		}
+		if ((tab = table) != null && (n = tab.length) > 0 && (first = tab[(n - 1) & hash]) != null) {
+			return findNode(first, hash, key);
+		}
+		return null;
+	}
+
+	// 在以first开头的bucket中查找键
+	final Node<K, V> findNode(Node<K, V> first, int hash, Object key) {
+		Node<K, V> e;
+		K k;
+		// 总是先检查第一个节点
+		if (first.hash == hash && ((k = first.key) == key || (key != null && key.equals(k)))) {
+			return first;
+		}
+		if ((e = first.next) != null) {
+			// 红黑树的查找，最坏情况下也是O(logn)
+			if (first instanceof TreeNode) {
+				return ((TreeNode<K, V>) first).getTreeNode(hash, key);
+			}
+			do {
+				if (e.hash == hash && ((k = e.key) == key || (key != null && key.equals(k)))) {
+					return e;
+				}
+			} while ((e = e.next) != null);
+		}
+		return null;
+	}
+
+	// 判断是否存在某个键，可以区分值为null和不存在键两种情况
+	public boolean containsKey(Object key) {
+		advanceTransfer();// 和get相同
+		return getNode(hash(key), key) != null;
+	}
+
 	// 重写抽象父类的方法，添加一个元素
 	/*
 	 * 首先根据hashCode做hash，再确定table的index，如果没有碰撞就直接放在bucket中，
@@ -211,21 +355,38 @@ public class MyHashMap<K, V> extends MyAbstractMap<K, V> implements MyMap<K, V>,
 		if ((tab = table) == null || (n = tab.length) == 0) {
 			n = (tab = resize()).length;// 同时设置了table和n
 		}
+		Node<K, V>[] oldTab;
+		int oi;
+		// 渐进式扩容期间，对应的bucket还在旧table上：已经存在的键直接替换，否则先把这个bucket迁移过来再添加
+		if ((oldTab = oldTable) != null && (p = oldTab[oi = hash & (oldTab.length - 1)]) != null) {
+			Node<K, V> e = findNode(p, hash, key);
+			if (e != null) {
+				V oldValue = e.value;
+				if (!onlyIfAbsent || oldValue == null) {
+					e.value = value;
+				}
+				afterNodeAccess(e);
+				advanceTransfer();// 替换已有的键也要迁移，否则只更新已有键的时候扩容永远不会结束
+				return oldValue;
+			}
+			transferBin(oldTab, oi, tab);
+		}
 		// index的计算方式：传进来的hash&(table的长度-1)，只有hash的最后几位进行了计算，所以之前的hash函数把高位加进来很有必要
 		if ((p = tab[i = hash & (n - 1)]) == null) {// 这一步即设置了p(当前table的index里的元素)，又设置了i（index）
-			// 没有碰撞，直接添加
-			tab[i] = new Node<K, V>(hash, key, value, null);
+			// 没有碰撞，直接添加，通过newNode创建节点，LinkedHashMap会重写该方法
+			tab[i] = newNode(hash, key, value, null);
 		}
 		// 发生了碰撞
 		else {
 			Node<K, V> e = null;// 遍历链表的局部变量，最终会成为添加的元素的指针
 			K k = null;// 表示table的index位置第一个元素的key
 			// 这一步判断第一个元素先不用关心存储的方式，接下来要针对不同的存储结构（链表，树）进行不同的操作
-			if (p.hash == hash && (k = p.key) == key || (key != null && key.equals(k))) {
+			if (p.hash == hash && ((k = p.key) == key || (key != null && key.equals(k)))) {
 				e = p;
 			}
 			else if (p instanceof TreeNode) {
-				((TreeNode<K, V>) p).putTreeVal(this, tab, hash, key, value);// 直接调用红黑树的方法实现添加
+				// 直接调用红黑树的方法实现添加，返回已经存在的节点，新添加则返回null
+				e = ((TreeNode<K, V>) p).putTreeVal(this, tab, hash, key, value);
 			}
 			else {
 				// 这里是直接的链表实现方式,找到最终需要添加的地方
@@ -240,7 +401,7 @@ public class MyHashMap<K, V> extends MyAbstractMap<K, V> implements MyMap<K, V>,
 						break;
 					}
 					// 找到相同的键了，接下来直接替换
-					if (e.hash == hash && (k = e.key) == key || (k != null && k.equals(key))) {
+					if (e.hash == hash && ((k = e.key) == key || (key != null && key.equals(k)))) {
 						break;
 					}
 					p = e;
@@ -251,14 +412,18 @@ public class MyHashMap<K, V> extends MyAbstractMap<K, V> implements MyMap<K, V>,
 				// 如果设置了没有只有缺少才可以添加，或者不管有没有设置onlyIfAbsent位只要原来的value是null
 				if (!onlyIfAbsent || oldValue == null) {
 					e.value = value;
-					afterNodeAccess(e);
-					return oldValue;
 				}
+				afterNodeAccess(e);
+				advanceTransfer();
+				return oldValue;// 已经存在的键不改变size
 			}
 		}
 		++modCount;
 		if (++size > threshold) {// 如果添加之后超过loadFactor*currentCapacity，需要resize
-			resize();
+			resize(incrementalResize);
+		}
+		else {
+			advanceTransfer();// 渐进式扩容期间，迁移一部分bucket
 		}
 		// evict是为了在LinkedHashMap中使用的，在LinkedHashMap中会重写该方法进行其他操作
 		afterNodeInsertion(evict);
@@ -269,9 +434,21 @@ public class MyHashMap<K, V> extends MyAbstractMap<K, V> implements MyMap<K, V>,
 	 * 如果table为空就用initialCapacity创建table，否则就将table的length变成两倍，然后进行数据迁移，
 	 * 迁移的过程中可能会有红黑树、链表的拆分，红黑树的退化为链表等操作
 	 * 
-	 * @return
+	 * @return 新的table
 	 */
 	final Node<K, V>[] resize() {
+		return resize(false);
+	}
+
+	/**
+	 * 扩容的具体实现
+	 * 
+	 * @param incremental
+	 *            为true的时候不立即迁移数据，由之后的操作分批迁移，见{@link #advanceTransfer()}
+	 * @return 新的table
+	 */
+	final Node<K, V>[] resize(boolean incremental) {
+		finishTransfer();// 上一次的渐进式扩容还没有完成，先全部迁移完
 		Node<K, V>[] oldTab = table;
 		int oldCap = (oldTab == null) ? 0 : oldTab.length;
 		int oldThr = threshold;
@@ -307,56 +484,100 @@ public class MyHashMap<K, V> extends MyAbstractMap<K, V> implements MyMap<K, V>,
 		Node<K, V>[] newTab = new Node[newCap];
 		table = newTab;
 		if (oldTab != null) {
-			for (int j = 0; j < newCap; ++j) {
-				Node<K, V> e;
-				if ((e = oldTab[j]) != null) {
-					oldTab[j] = null;// 将原来的table上的一个节点上的内容缓存到e上，使得oldTable能够被GC回收
-					if (e.next == null) {// 只有一个元素，只需要将该元素本身迁移
-						newTab[e.hash & (newCap - 1)] = e;// newCap是2的k次幂，求模相当于取其最后的k位
-															// ！！！
-					}
-					else if (e instanceof TreeNode) {// 已经是一棵红黑树，需要把该红黑树分裂开来，一半放在高位，一半放在低位，具体处理在split方法中
-						((TreeNode<K, V>) e).split(this, newTab, j, newCap);
+			if (incremental) {
+				// 渐进式扩容：只保存旧的table，之后每一次添加、删除操作迁移一部分bucket
+				oldTable = oldTab;
+				transferIndex = 0;
+			}
+			else {
+				for (int j = 0; j < oldCap; ++j) {// 遍历的是旧的table
+					transferBin(oldTab, j, newTab);
+				}
+			}
+		}
+		return newTab;
+	}
+
+	/**
+	 * 将旧table上的一个bucket迁移到新的table上，新table的长度是旧table的两倍，所以旧的j位置上的元素只会迁移到新的j或者j+oldCap位置上
+	 * 
+	 * @param oldTab
+	 * @param j
+	 *            旧table上的位置
+	 * @param newTab
+	 */
+	final void transferBin(Node<K, V>[] oldTab, int j, Node<K, V>[] newTab) {
+		Node<K, V> e;
+		int oldCap = oldTab.length;
+		if ((e = oldTab[j]) != null) {
+			oldTab[j] = null;// 将原来的table上的一个节点上的内容缓存到e上，使得oldTable能够被GC回收
+			if (e.next == null) {// 只有一个元素，只需要将该元素本身迁移
+				newTab[e.hash & (newTab.length - 1)] = e;// newCap是2的k次幂，求模相当于取其最后的k位！！！
+			}
+			else if (e instanceof TreeNode) {// 已经是一棵红黑树，需要把该红黑树分裂开来，一半放在高位，一半放在低位，具体处理在split方法中
+				((TreeNode<K, V>) e).split(this, newTab, j);
+			}
+			else {
+				// 原本是一个链表，将其分裂成两个链表，分别放在高低位
+				Node<K, V> loHead = null, loTail = null;
+				Node<K, V> hiHead = null, hiTail = null;
+				Node<K, V> next;
+				do {
+					next = e.next;
+					if ((e.hash & oldCap) == 0) { // 说明是模newCap的值小于oldCap，应该放在低位
+						if (loTail == null) {
+							loHead = e;// head保存第一个指针
+						}
+						else {
+							loTail.next = e;// tail是一个游标，将之后的元素链上去
+						}
+						loTail = e;
 					}
-					else {
-						// 原本是一个链表，将其分裂成两个链表，分别放在高低位
-						Node<K, V> loHead = null, loTail = null;
-						Node<K, V> hiHead = null, hiTail = null;
-						Node<K, V> next;
-						do {
-							next = e.next;
-							if ((e.hash & oldCap) == 0) { // 说明是模newCap的值小于oldCap，应该放在低位
-								if (loTail == null) {
-									loHead = e;// head保存第一个指针
-								}
-								else {
-									loTail.next = e;// tail是一个游标，将之后的元素链上去
-								}
-								loTail = e;
-							}
-							else { // 高位
-								if (hiTail == null) {
-									hiHead = e;
-								}
-								else {
-									hiTail.next = e;
-								}
-								hiTail = e;
-							}
-						} while ((e = next) != null);
-						if (loTail != null) {// 低位有元素
-							loTail.next = null;
-							newTab[j] = loHead;
+					else { // 高位
+						if (hiTail == null) {
+							hiHead = e;
 						}
-						if (hiTail != null) {// 高位有元素
-							hiTail.next = null;
-							newTab[j + oldCap] = hiHead;
+						else {
+							hiTail.next = e;
 						}
+						hiTail = e;
 					}
+				} while ((e = next) != null);
+				if (loTail != null) {// 低位有元素
+					loTail.next = null;
+					newTab[j] = loHead;
+				}
+				if (hiTail != null) {// 高位有元素
+					hiTail.next = null;
+					newTab[j + oldCap] = hiHead;
 				}
 			}
 		}
-		return newTab;
+	}
+
+	// 渐进式扩容的时候，每一次操作最多迁移TRANSFER_STEP个bucket，全部迁移完之后丢弃旧的table
+	final void advanceTransfer() {
+		Node<K, V>[] oldTab = oldTable, newTab = table;
+		if (oldTab != null) {
+			int i = transferIndex, bound = Math.min(i + TRANSFER_STEP, oldTab.length);
+			for (; i < bound; ++i) {
+				transferBin(oldTab, i, newTab);
+			}
+			if ((transferIndex = i) >= oldTab.length) {
+				oldTable = null;
+			}
+		}
+	}
+
+	// 一次性迁移完剩下的所有bucket，在需要进行下一次扩容或者批量操作之前调用
+	final void finishTransfer() {
+		Node<K, V>[] oldTab = oldTable, newTab = table;
+		if (oldTab != null) {
+			for (int i = transferIndex; i < oldTab.length; ++i) {
+				transferBin(oldTab, i, newTab);
+			}
+			oldTable = null;
+		}
 	}
 
 	/**
@@ -409,7 +630,8 @@ public class MyHashMap<K, V> extends MyAbstractMap<K, V> implements MyMap<K, V>,
 	 * @return 如果不存在key的键返回null，但是返回null也可能是key键的值本来就是null
 	 */
 	public V remove(Object key) {
-		return null;
+		Node<K, V> e;
+		return (e = removeNode(hash(key), key, null, false, true)) == null ? null : e.value;
 	}
 
 	/**
@@ -423,7 +645,7 @@ public class MyHashMap<K, V> extends MyAbstractMap<K, V> implements MyMap<K, V>,
 	 * @param matchValue
 	 *            设置之后，只有当value和通过key取到的值匹配才进行删除
 	 * @param movable
-	 *            TODO 作用暂且不明
+	 *            为false的时候删除红黑树节点时不移动其他节点（不将根节点移到bucket的头部），迭代器删除时使用
 	 * 
 	 * @return
 	 */
@@ -431,8 +653,12 @@ public class MyHashMap<K, V> extends MyAbstractMap<K, V> implements MyMap<K, V>,
 		Node<K, V>[] tab;
 		Node<K, V> p;// 通过hash定位到当前的budget的第一个元素
 		int n, index;
+		// 渐进式扩容期间，如果对应的bucket还没有迁移，直接在旧table上删除
+		if ((tab = oldTable) == null || tab[(tab.length - 1) & hash] == null) {
+			tab = table;
+		}
 		// map已经初始化，且不为空，且待处理的位置上有元素，此种编码方式将赋值操作和判断操作同时进行了
-		if ((tab = table) != null && (n = tab.length) > 0 && (p = tab[index = (n - 1) & hash]) != null) {
+		if (tab != null && (n = tab.length) > 0 && (p = tab[index = (n - 1) & hash]) != null) {
 			Node<K, V> node = null, e;// node用以保存目标节点，e作为循环变量
 			K k;
 			V v;
@@ -476,14 +702,233 @@ public class MyHashMap<K, V> extends MyAbstractMap<K, V> implements MyMap<K, V>,
 				++modCount;
 				--size;
 				afterNodeRemoval(node);// 钩子函数，可扩展删除元素之后的行为
+				if (movable) {
+					advanceTransfer();// 迭代器删除的时候不能迁移，否则迭代器的位置会失效
+				}
 				return node;
 			}
 		}
 		return null;
 	}
 
+	// 删除所有的元素，table的长度不变
+	public void clear() {
+		Node<K, V>[] tab;
+		modCount++;
+		if ((tab = table) != null && size > 0) {
+			size = 0;
+			for (int i = 0; i < tab.length; ++i) {
+				tab[i] = null;
+			}
+		}
+		oldTable = null;// 渐进式扩容还没有迁移的元素直接丢弃
+	}
+
+	// 值没有索引，只能遍历所有的bucket，扩容期间两个table都要查找
+	public boolean containsValue(Object value) {
+		Node<K, V>[] tab;
+		V v;
+		if (size > 0) {
+			for (int t = 0; t < 2; ++t) {
+				if ((tab = (t == 0) ? oldTable : table) != null) {
+					for (int i = 0; i < tab.length; ++i) {
+						for (Node<K, V> e = tab[i]; e != null; e = e.next) {
+							if ((v = e.value) == value || (value != null && value.equals(v))) {
+								return true;
+							}
+						}
+					}
+				}
+			}
+		}
+		return false;
+	}
+
+	public Set<K> keySet() {
+		Set<K> ks = keySet;
+		if (ks == null) {
+			ks = new KeySet();
+			keySet = ks;
+		}
+		return ks;
+	}
+
+	public Collection<V> values() {
+		Collection<V> vs = values;
+		if (vs == null) {
+			vs = new Values();
+			values = vs;
+		}
+		return vs;
+	}
+
 	public Set<MyMap.Entry<K, V>> entrySet() {
-		return null;
+		Set<MyMap.Entry<K, V>> es;
+		return (es = entrySet) == null ? (entrySet = new EntrySet()) : es;
+	}
+
+	/*
+	 * 以下是键、值、键值对的视图以及对应的迭代器
+	 */
+
+	final class KeySet extends AbstractSet<K> {
+		public final int size() {
+			return size;
+		}
+
+		public final void clear() {
+			MyHashMap.this.clear();
+		}
+
+		public final Iterator<K> iterator() {
+			return new KeyIterator();
+		}
+
+		public final boolean contains(Object o) {
+			return containsKey(o);
+		}
+
+		public final boolean remove(Object key) {
+			return removeNode(hash(key), key, null, false, true) != null;
+		}
+	}
+
+	final class Values extends AbstractCollection<V> {
+		public final int size() {
+			return size;
+		}
+
+		public final void clear() {
+			MyHashMap.this.clear();
+		}
+
+		public final Iterator<V> iterator() {
+			return new ValueIterator();
+		}
+
+		public final boolean contains(Object o) {
+			return containsValue(o);
+		}
+	}
+
+	final class EntrySet extends AbstractSet<MyMap.Entry<K, V>> {
+		public final int size() {
+			return size;
+		}
+
+		public final void clear() {
+			MyHashMap.this.clear();
+		}
+
+		public final Iterator<MyMap.Entry<K, V>> iterator() {
+			return new EntryIterator();
+		}
+
+		// 键和值都相等才算包含
+		public final boolean contains(Object o) {
+			if (!(o instanceof MyMap.Entry)) {
+				return false;
+			}
+			MyMap.Entry<?, ?> e = (MyMap.Entry<?, ?>) o;
+			Object key = e.getKey();
+			Node<K, V> candidate = getNode(hash(key), key);
+			return candidate != null && candidate.equals(e);
+		}
+
+		public final boolean remove(Object o) {
+			if (o instanceof MyMap.Entry) {
+				MyMap.Entry<?, ?> e = (MyMap.Entry<?, ?>) o;
+				Object key = e.getKey();
+				Object value = e.getValue();
+				return removeNode(hash(key), key, value, true, true) != null;
+			}
+			return false;
+		}
+	}
+
+	/*
+	 * 迭代器依次遍历每一个bucket中的链表（红黑树也通过next保留了链表）
+	 * get和替换已有的键也会迁移bucket，所以创建迭代器的时候先完成渐进式扩容，迭代期间只有结构性修改（会改变modCount）才会开始新的扩容，
+	 * 这样迭代器只需要遍历一个table，不会重复或者遗漏元素
+	 */
+	abstract class HashIterator {
+		Node<K, V> next;// 下一个返回的节点
+		Node<K, V> current;// 上一次返回的节点
+		int expectedModCount;
+		int index;// table中的下一个位置
+
+		HashIterator() {
+			finishTransfer();
+			expectedModCount = modCount;
+			current = next = null;
+			index = 0;
+			if (size > 0) {
+				advance();
+			}
+		}
+
+		// 找到下一个不为空的bucket
+		private void advance() {
+			Node<K, V>[] t = table;
+			if (t != null) {
+				while (index < t.length) {
+					if ((next = t[index++]) != null) {
+						return;
+					}
+				}
+			}
+			next = null;
+		}
+
+		public final boolean hasNext() {
+			return next != null;
+		}
+
+		final Node<K, V> nextNode() {
+			Node<K, V> e = next;
+			if (modCount != expectedModCount) {
+				throw new ConcurrentModificationException();
+			}
+			if (e == null) {
+				throw new NoSuchElementException();
+			}
+			current = e;
+			if ((next = e.next) == null) {
+				advance();
+			}
+			return e;
+		}
+
+		public final void remove() {
+			Node<K, V> p = current;
+			if (p == null) {
+				throw new IllegalStateException();
+			}
+			if (modCount != expectedModCount) {
+				throw new ConcurrentModificationException();
+			}
+			current = null;
+			removeNode(p.hash, p.key, null, false, false);
+			expectedModCount = modCount;
+		}
+	}
+
+	final class KeyIterator extends HashIterator implements Iterator<K> {
+		public final K next() {
+			return nextNode().key;
+		}
+	}
+
+	final class ValueIterator extends HashIterator implements Iterator<V> {
+		public final V next() {
+			return nextNode().value;
+		}
+	}
+
+	final class EntryIterator extends HashIterator implements Iterator<MyMap.Entry<K, V>> {
+		public final MyMap.Entry<K, V> next() {
+			return nextNode();
+		}
 	}
 
 	// 得到一个普通的节点
@@ -491,6 +936,16 @@ public class MyHashMap<K, V> extends MyAbstractMap<K, V> implements MyMap<K, V>,
 		return new Node<K, V>(hash, key, value, next);
 	}
 
+	// 将一个红黑树的TreeNode转化为普通的node，在红黑树退化为链表时使用
+	Node<K, V> replacementNode(Node<K, V> p, Node<K, V> next) {
+		return new Node<K, V>(p.hash, p.key, p.value, next);
+	}
+
+	// 得到一个红黑树节点，在向红黑树中添加元素时使用
+	TreeNode<K, V> newTreeNode(int hash, K key, V value, Node<K, V> next) {
+		return new TreeNode<K, V>(hash, key, value, next);
+	}
+
 	// 将一个hashMap的node转化为一个红黑树的Treenode，在将链表转化为红黑树时使用
 	TreeNode<K, V> replacementTreeNode(Node<K, V> p, Node<K, V> next) {
 		return new TreeNode<K, V>(p.hash, p.key, p.value, next);
@@ -506,48 +961,201 @@ public class MyHashMap<K, V> extends MyAbstractMap<K, V> implements MyMap<K, V>,
 	void afterNodeRemoval(Node<K, V> p) {
 	}
 
-	// TODO这个类需要重点来完善,通过红黑树节点来存储过长的链表
+	/*
+	 * 红黑树节点，链表过长（超过TREEIFY_THRESHOLD）的bucket转化为红黑树来存储，最坏情况下查找的复杂度为O(logn)
+	 * 
+	 * 红黑树按照hash值排序，hash相同的时候如果键实现了同一个Comparable类型则用compareTo比较，否则用tieBreakOrder强行分出大小
+	 * 同时通过next和prev保留了一个双向链表，遍历、拆分、退化为链表的时候使用，bucket的第一个节点始终是根节点
+	 */
 	static final class TreeNode<K, V> extends MyLinkedHashMap.Entry<K, V> {
 		TreeNode<K, V> parent;
 		TreeNode<K, V> left;
 		TreeNode<K, V> right;
-		TreeNode<K, V> prev;
+		TreeNode<K, V> prev;// 删除节点的时候需要断开next链，所以需要前驱
+		boolean red;
 
 		TreeNode(int hash, K key, V value, Node<K, V> next) {
 			super(hash, key, value, next);
 		}
 
+		// 返回该节点所在的红黑树的根节点
+		final TreeNode<K, V> root() {
+			for (TreeNode<K, V> r = this, p;;) {
+				if ((p = r.parent) == null) {
+					return r;
+				}
+				r = p;
+			}
+		}
+
+		// 确保根节点是bucket的第一个节点，需要将根节点从双向链表中摘下放到链表的头部
+		static <K, V> void moveRootToFront(Node<K, V>[] tab, TreeNode<K, V> root) {
+			int n;
+			if (root != null && tab != null && (n = tab.length) > 0) {
+				int index = (n - 1) & root.hash;
+				TreeNode<K, V> first = (TreeNode<K, V>) tab[index];
+				if (root != first) {
+					Node<K, V> rn;
+					tab[index] = root;
+					TreeNode<K, V> rp = root.prev;
+					// 将root从原来的位置摘下来
+					if ((rn = root.next) != null) {
+						((TreeNode<K, V>) rn).prev = rp;
+					}
+					if (rp != null) {
+						rp.next = rn;
+					}
+					// 放到原来的第一个节点之前
+					if (first != null) {
+						first.prev = root;
+					}
+					root.next = first;
+					root.prev = null;
+				}
+				assert checkInvariants(root);
+			}
+		}
+
 		/**
-		 * 查找红黑树中对应的节点
+		 * 从当前节点开始查找红黑树中对应的节点，先比较hash，hash相同再比较Comparable，都无法区分的时候需要两边都查找
 		 * 
-		 * @param hash
-		 * @param key
-		 * @param keyClass
-		 * @return
+		 * @param h
+		 *            键的哈希值
+		 * @param k
+		 *            键
+		 * @param kc
+		 *            键的Comparable类型，第一次使用的时候计算出来并缓存
+		 * @return 找到的节点，没有找到返回null
 		 */
-		final TreeNode<K, V> find(int hash, Object key, Class<?> keyClass) {
-			// TODO
+		final TreeNode<K, V> find(int h, Object k, Class<?> kc) {
+			TreeNode<K, V> p = this;
+			do {
+				int ph, dir;
+				K pk;
+				TreeNode<K, V> pl = p.left, pr = p.right, q;
+				if ((ph = p.hash) > h) {
+					p = pl;
+				}
+				else if (ph < h) {
+					p = pr;
+				}
+				else if ((pk = p.key) == k || (k != null && k.equals(pk))) {
+					return p;
+				}
+				// hash相同但是键不等，只有一边有子树的时候直接往那边找
+				else if (pl == null) {
+					p = pr;
+				}
+				else if (pr == null) {
+					p = pl;
+				}
+				// 键实现了相同的Comparable类型，可以直接比较
+				else if ((kc != null || (kc = comparableClassFor(k)) != null)
+						&& (dir = compareComparables(kc, k, pk)) != 0) {
+					p = (dir < 0) ? pl : pr;
+				}
+				// 无法比较，先递归的查找右子树，再查找左子树
+				else if ((q = pr.find(h, k, kc)) != null) {
+					return q;
+				}
+				else {
+					p = pl;
+				}
+			} while (p != null);
 			return null;
 		}
 
 		/**
+		 * 从根节点开始查找
 		 * 
-		 * @param hash
-		 * @param key
+		 * @param h
+		 * @param k
 		 * @return
 		 */
-		final TreeNode<K, V> getTreeNode(int hash, Object key) {
-			// TODO
-			return null;
+		final TreeNode<K, V> getTreeNode(int h, Object k) {
+			return ((parent != null) ? root() : this).find(h, k, null);
+		}
+
+		// hash相同而且无法通过Comparable比较的时候，用类名和identityHashCode强行比较，保证插入时的顺序一致，不会返回0
+		static int tieBreakOrder(Object a, Object b) {
+			int d;
+			if (a == null || b == null || (d = a.getClass().getName().compareTo(b.getClass().getName())) == 0) {
+				d = (System.identityHashCode(a) <= System.identityHashCode(b) ? -1 : 1);
+			}
+			return d;
 		}
 
 		/**
-		 * 将链表转化为红黑树
+		 * 将链表转化为红黑树，调用该方法的节点是链表的头结点，链表中的节点已经全部是TreeNode
 		 * 
 		 * @param tab
 		 */
 		final void treeify(Node<K, V>[] tab) {
-			// TODO
+			TreeNode<K, V> root = null;
+			for (TreeNode<K, V> x = this, next; x != null; x = next) {
+				next = (TreeNode<K, V>) x.next;
+				x.left = x.right = null;
+				if (root == null) {
+					x.parent = null;
+					x.red = false;// 根节点为黑色
+					root = x;
+				}
+				else {
+					K k = x.key;
+					int h = x.hash;
+					Class<?> kc = null;
+					// 从根节点开始找到插入的位置
+					for (TreeNode<K, V> p = root;;) {
+						int dir, ph;
+						K pk = p.key;
+						if ((ph = p.hash) > h) {
+							dir = -1;
+						}
+						else if (ph < h) {
+							dir = 1;
+						}
+						else if ((kc == null && (kc = comparableClassFor(k)) == null)
+								|| (dir = compareComparables(kc, k, pk)) == 0) {
+							dir = tieBreakOrder(k, pk);
+						}
+
+						TreeNode<K, V> xp = p;
+						if ((p = (dir <= 0) ? p.left : p.right) == null) {
+							x.parent = xp;
+							if (dir <= 0) {
+								xp.left = x;
+							}
+							else {
+								xp.right = x;
+							}
+							root = balanceInsertion(root, x);
+							break;
+						}
+					}
+				}
+			}
+			moveRootToFront(tab, root);
+		}
+
+		/**
+		 * 将红黑树退化为普通的链表，调用该方法的节点是链表的头结点
+		 * 
+		 * @param map
+		 * @return 新的链表的头结点
+		 */
+		final Node<K, V> untreeify(MyHashMap<K, V> map) {
+			Node<K, V> hd = null, tl = null;
+			for (Node<K, V> q = this; q != null; q = q.next) {
+				Node<K, V> p = map.replacementNode(q, null);
+				if (tl == null) {
+					hd = p;
+				}
+				else {
+					tl.next = p;
+				}
+				tl = p;
+			}
+			return hd;
 		}
 
 		/**
@@ -558,22 +1166,194 @@ public class MyHashMap<K, V> extends MyAbstractMap<K, V> implements MyMap<K, V>,
 		 * @param hash
 		 * @param key
 		 * @param value
-		 * @return
+		 * @return 如果已经存在该键返回对应的节点，新添加的节点返回null
 		 */
-		final Node<K, V> putTreeVal(MyHashMap<K, V> map, Node<K, V>[] tab, int hash, K key, V value) {
-			// TODO
-			return null;
+		final TreeNode<K, V> putTreeVal(MyHashMap<K, V> map, Node<K, V>[] tab, int h, K k, V v) {
+			Class<?> kc = null;
+			boolean searched = false;
+			TreeNode<K, V> root = (parent != null) ? root() : this;
+			for (TreeNode<K, V> p = root;;) {
+				int dir, ph;
+				K pk;
+				if ((ph = p.hash) > h) {
+					dir = -1;
+				}
+				else if (ph < h) {
+					dir = 1;
+				}
+				else if ((pk = p.key) == k || (k != null && k.equals(pk))) {
+					return p;
+				}
+				else if ((kc == null && (kc = comparableClassFor(k)) == null)
+						|| (dir = compareComparables(kc, k, pk)) == 0) {
+					// 无法比较的时候先在左右子树中查找一次，只需要查找一次
+					if (!searched) {
+						TreeNode<K, V> q, ch;
+						searched = true;
+						if (((ch = p.left) != null && (q = ch.find(h, k, kc)) != null)
+								|| ((ch = p.right) != null && (q = ch.find(h, k, kc)) != null)) {
+							return q;
+						}
+					}
+					dir = tieBreakOrder(k, pk);
+				}
+
+				TreeNode<K, V> xp = p;
+				if ((p = (dir <= 0) ? p.left : p.right) == null) {
+					// 找到了插入的位置，新节点在链表中插入在xp的后面
+					Node<K, V> xpn = xp.next;
+					TreeNode<K, V> x = map.newTreeNode(h, k, v, xpn);
+					if (dir <= 0) {
+						xp.left = x;
+					}
+					else {
+						xp.right = x;
+					}
+					xp.next = x;
+					x.parent = x.prev = xp;
+					if (xpn != null) {
+						((TreeNode<K, V>) xpn).prev = x;
+					}
+					moveRootToFront(tab, balanceInsertion(root, x));
+					return null;
+				}
+			}
 		}
 
 		/**
-		 * 失信从红黑树中删除一个元素
+		 * 从红黑树中删除调用该方法的节点，该节点一定存在
+		 * 先从双向链表中删除，如果树太小就直接退化为链表，否则用后继结点替换该节点之后再进行调整
 		 * 
 		 * @param map
 		 * @param tab
 		 * @param movable
+		 *            是否需要将根节点移到bucket头部
 		 */
 		final void removeTreeNode(MyHashMap<K, V> map, Node<K, V>[] tab, boolean movable) {
-			// TODO 从红黑树中删除一个元素
+			int n;
+			if (tab == null || (n = tab.length) == 0) {
+				return;
+			}
+			int index = (n - 1) & hash;
+			TreeNode<K, V> first = (TreeNode<K, V>) tab[index], root = first, rl;
+			TreeNode<K, V> succ = (TreeNode<K, V>) next, pred = prev;
+			// 从双向链表中删除
+			if (pred == null) {
+				tab[index] = first = succ;
+			}
+			else {
+				pred.next = succ;
+			}
+			if (succ != null) {
+				succ.prev = pred;
+			}
+			if (first == null) {
+				return;
+			}
+			if (root.parent != null) {
+				root = root.root();
+			}
+			// 节点太少（红黑树的结构保证此时节点数小于等于UNTREEIFY_THRESHOLD）直接退化为链表
+			if (root == null || (movable && (root.right == null || (rl = root.left) == null || rl.left == null))) {
+				tab[index] = first.untreeify(map);
+				return;
+			}
+			TreeNode<K, V> p = this, pl = left, pr = right, replacement;
+			if (pl != null && pr != null) {
+				// 有两个子树，与后继节点交换位置（不是交换内容，因为节点同时在链表中）
+				TreeNode<K, V> s = pr, sl;
+				while ((sl = s.left) != null) {
+					s = sl;
+				}
+				boolean c = s.red;
+				s.red = p.red;
+				p.red = c;// 交换颜色
+				TreeNode<K, V> sr = s.right;
+				TreeNode<K, V> pp = p.parent;
+				if (s == pr) {// p是后继的直接父节点
+					p.parent = s;
+					s.right = p;
+				}
+				else {
+					TreeNode<K, V> sp = s.parent;
+					if ((p.parent = sp) != null) {
+						if (s == sp.left) {
+							sp.left = p;
+						}
+						else {
+							sp.right = p;
+						}
+					}
+					if ((s.right = pr) != null) {
+						pr.parent = s;
+					}
+				}
+				p.left = null;
+				if ((p.right = sr) != null) {
+					sr.parent = p;
+				}
+				if ((s.left = pl) != null) {
+					pl.parent = s;
+				}
+				if ((s.parent = pp) == null) {
+					root = s;
+				}
+				else if (p == pp.left) {
+					pp.left = s;
+				}
+				else {
+					pp.right = s;
+				}
+				if (sr != null) {
+					replacement = sr;
+				}
+				else {
+					replacement = p;
+				}
+			}
+			else if (pl != null) {
+				replacement = pl;
+			}
+			else if (pr != null) {
+				replacement = pr;
+			}
+			else {
+				replacement = p;
+			}
+			// 用唯一的子树替换p
+			if (replacement != p) {
+				TreeNode<K, V> pp = replacement.parent = p.parent;
+				if (pp == null) {
+					root = replacement;
+				}
+				else if (p == pp.left) {
+					pp.left = replacement;
+				}
+				else {
+					pp.right = replacement;
+				}
+				p.left = p.right = p.parent = null;
+			}
+
+			// 删除红色节点不需要调整
+			TreeNode<K, V> r = p.red ? root : balanceDeletion(root, replacement);
+
+			// p没有子树，调整之后再断开
+			if (replacement == p) {
+				TreeNode<K, V> pp = p.parent;
+				p.parent = null;
+				if (pp != null) {
+					if (p == pp.left) {
+						pp.left = null;
+					}
+					else if (p == pp.right) {
+						pp.right = null;
+					}
+				}
+			}
+			if (movable) {
+				moveRootToFront(tab, r);
+			}
 		}
 
 		/**
@@ -586,13 +1366,290 @@ public class MyHashMap<K, V> extends MyAbstractMap<K, V> implements MyMap<K, V>,
 		 *            扩容后的table
 		 * @param index
 		 *            扩容前的位置
-		 * @param bit
-		 *            扩容前的capacity
 		 */
-		final void split(MyHashMap<K, V> map, Node<K, V>[] tab, int index, int bit) {
-			// TODO
+		final void split(MyHashMap<K, V> map, Node<K, V>[] tab, int index) {
+			int bit = tab.length >>> 1;// 扩容前的capacity，决定放在低位还是高位，不能用扩容后的capacity
+			TreeNode<K, V> b = this;
+			// 和链表的拆分相同，通过next链保持原来的相对顺序
+			TreeNode<K, V> loHead = null, loTail = null;
+			TreeNode<K, V> hiHead = null, hiTail = null;
+			int lc = 0, hc = 0;
+			for (TreeNode<K, V> e = b, next; e != null; e = next) {
+				next = (TreeNode<K, V>) e.next;
+				e.next = null;
+				if ((e.hash & bit) == 0) {
+					if ((e.prev = loTail) == null) {
+						loHead = e;
+					}
+					else {
+						loTail.next = e;
+					}
+					loTail = e;
+					++lc;
+				}
+				else {
+					if ((e.prev = hiTail) == null) {
+						hiHead = e;
+					}
+					else {
+						hiTail.next = e;
+					}
+					hiTail = e;
+					++hc;
+				}
+			}
+
+			if (loHead != null) {
+				if (lc <= UNTREEIFY_THRESHOLD) {
+					tab[index] = loHead.untreeify(map);
+				}
+				else {
+					tab[index] = loHead;
+					if (hiHead != null) {// 如果全部在低位，原来的树结构仍然有效，不需要重新构建
+						loHead.treeify(tab);
+					}
+				}
+			}
+			if (hiHead != null) {
+				if (hc <= UNTREEIFY_THRESHOLD) {
+					tab[index + bit] = hiHead.untreeify(map);
+				}
+				else {
+					tab[index + bit] = hiHead;
+					if (loHead != null) {
+						hiHead.treeify(tab);
+					}
+				}
+			}
+		}
+
+		/*
+		 * 以下是红黑树的旋转和调整，与MyTreeMap中的思路相同，只是需要返回新的根节点
+		 */
+
+		static <K, V> TreeNode<K, V> rotateLeft(TreeNode<K, V> root, TreeNode<K, V> p) {
+			TreeNode<K, V> r, pp, rl;
+			if (p != null && (r = p.right) != null) {
+				if ((rl = p.right = r.left) != null) {
+					rl.parent = p;
+				}
+				if ((pp = r.parent = p.parent) == null) {
+					(root = r).red = false;
+				}
+				else if (pp.left == p) {
+					pp.left = r;
+				}
+				else {
+					pp.right = r;
+				}
+				r.left = p;
+				p.parent = r;
+			}
+			return root;
+		}
+
+		static <K, V> TreeNode<K, V> rotateRight(TreeNode<K, V> root, TreeNode<K, V> p) {
+			TreeNode<K, V> l, pp, lr;
+			if (p != null && (l = p.left) != null) {
+				if ((lr = p.left = l.right) != null) {
+					lr.parent = p;
+				}
+				if ((pp = l.parent = p.parent) == null) {
+					(root = l).red = false;
+				}
+				else if (pp.right == p) {
+					pp.right = l;
+				}
+				else {
+					pp.left = l;
+				}
+				l.right = p;
+				p.parent = l;
+			}
+			return root;
 		}
 
+		// 插入之后的调整，x是新插入的节点
+		static <K, V> TreeNode<K, V> balanceInsertion(TreeNode<K, V> root, TreeNode<K, V> x) {
+			x.red = true;
+			for (TreeNode<K, V> xp, xpp, xppl, xppr;;) {
+				if ((xp = x.parent) == null) {// x是根节点
+					x.red = false;
+					return x;
+				}
+				else if (!xp.red || (xpp = xp.parent) == null) {// 父节点是黑色，不需要调整
+					return root;
+				}
+				if (xp == (xppl = xpp.left)) {
+					// 叔叔节点是红色，颜色颠倒之后继续调整爷爷节点
+					if ((xppr = xpp.right) != null && xppr.red) {
+						xppr.red = false;
+						xp.red = false;
+						xpp.red = true;
+						x = xpp;
+					}
+					else {
+						if (x == xp.right) {
+							root = rotateLeft(root, x = xp);
+							xpp = (xp = x.parent) == null ? null : xp.parent;
+						}
+						if (xp != null) {
+							xp.red = false;
+							if (xpp != null) {
+								xpp.red = true;
+								root = rotateRight(root, xpp);
+							}
+						}
+					}
+				}
+				else {
+					if (xppl != null && xppl.red) {
+						xppl.red = false;
+						xp.red = false;
+						xpp.red = true;
+						x = xpp;
+					}
+					else {
+						if (x == xp.left) {
+							root = rotateRight(root, x = xp);
+							xpp = (xp = x.parent) == null ? null : xp.parent;
+						}
+						if (xp != null) {
+							xp.red = false;
+							if (xpp != null) {
+								xpp.red = true;
+								root = rotateLeft(root, xpp);
+							}
+						}
+					}
+				}
+			}
+		}
+
+		// 删除之后的调整，x是替换被删除节点的节点
+		static <K, V> TreeNode<K, V> balanceDeletion(TreeNode<K, V> root, TreeNode<K, V> x) {
+			for (TreeNode<K, V> xp, xpl, xpr;;) {
+				if (x == null || x == root) {
+					return root;
+				}
+				else if ((xp = x.parent) == null) {
+					x.red = false;
+					return x;
+				}
+				else if (x.red) {// 红色节点直接变黑就可以补上少的一个黑节点
+					x.red = false;
+					return root;
+				}
+				else if ((xpl = xp.left) == x) {
+					if ((xpr = xp.right) != null && xpr.red) {
+						xpr.red = false;
+						xp.red = true;
+						root = rotateLeft(root, xp);
+						xpr = (xp = x.parent) == null ? null : xp.right;
+					}
+					if (xpr == null) {
+						x = xp;
+					}
+					else {
+						TreeNode<K, V> sl = xpr.left, sr = xpr.right;
+						if ((sr == null || !sr.red) && (sl == null || !sl.red)) {
+							xpr.red = true;
+							x = xp;
+						}
+						else {
+							if (sr == null || !sr.red) {
+								if (sl != null) {
+									sl.red = false;
+								}
+								xpr.red = true;
+								root = rotateRight(root, xpr);
+								xpr = (xp = x.parent) == null ? null : xp.right;
+							}
+							if (xpr != null) {
+								xpr.red = (xp == null) ? false : xp.red;
+								if ((sr = xpr.right) != null) {
+									sr.red = false;
+								}
+							}
+							if (xp != null) {
+								xp.red = false;
+								root = rotateLeft(root, xp);
+							}
+							x = root;
+						}
+					}
+				}
+				else { // 与上面对称
+					if (xpl != null && xpl.red) {
+						xpl.red = false;
+						xp.red = true;
+						root = rotateRight(root, xp);
+						xpl = (xp = x.parent) == null ? null : xp.left;
+					}
+					if (xpl == null) {
+						x = xp;
+					}
+					else {
+						TreeNode<K, V> sl = xpl.left, sr = xpl.right;
+						if ((sl == null || !sl.red) && (sr == null || !sr.red)) {
+							xpl.red = true;
+							x = xp;
+						}
+						else {
+							if (sl == null || !sl.red) {
+								if (sr != null) {
+									sr.red = false;
+								}
+								xpl.red = true;
+								root = rotateLeft(root, xpl);
+								xpl = (xp = x.parent) == null ? null : xp.left;
+							}
+							if (xpl != null) {
+								xpl.red = (xp == null) ? false : xp.red;
+								if ((sl = xpl.left) != null) {
+									sl.red = false;
+								}
+							}
+							if (xp != null) {
+								xp.red = false;
+								root = rotateRight(root, xp);
+							}
+							x = root;
+						}
+					}
+				}
+			}
+		}
+
+		// 递归检查红黑树和双向链表的结构是否正确，只在开启断言的时候使用
+		static <K, V> boolean checkInvariants(TreeNode<K, V> t) {
+			TreeNode<K, V> tp = t.parent, tl = t.left, tr = t.right, tb = t.prev, tn = (TreeNode<K, V>) t.next;
+			if (tb != null && tb.next != t) {
+				return false;
+			}
+			if (tn != null && tn.prev != t) {
+				return false;
+			}
+			if (tp != null && t != tp.left && t != tp.right) {
+				return false;
+			}
+			if (tl != null && (tl.parent != t || tl.hash > t.hash)) {
+				return false;
+			}
+			if (tr != null && (tr.parent != t || tr.hash < t.hash)) {
+				return false;
+			}
+			if (t.red && tl != null && tl.red && tr != null && tr.red) {
+				return false;
+			}
+			if (tl != null && !checkInvariants(tl)) {
+				return false;
+			}
+			if (tr != null && !checkInvariants(tr)) {
+				return false;
+			}
+			return true;
+		}
 	}
 }
 /*
@@ -0,0 +1,26 @@
+package myutil;
+
+import mylang.MyHashing;
+
+/*
+ * 哈希表计算键的hash值的方式，MyHashMap和MyConcurrentHashMap没有指定的时候使用键的hashCode
+ *
+ * 必须和键的equals一致：相等的键返回相同的值，键不会是null
+ * 返回值还会再经过哈希表自己的扰动，但是哈希表只用到低位，所以低位最好也分布均匀
+ * 哈希表需要序列化的时候，实现类也要能序列化
+ */
+@FunctionalInterface
+public interface MyHashStrategy<K> {
+
+	int hash(K key);
+
+	/**
+	 * 使用MyHashing的带种子的64位hash，每次调用都会取一个新的随机种子
+	 *
+	 * MyString的键直接对内容计算，攻击者不知道种子，无法构造出大量hash值相同的键
+	 * 其他的键把hashCode和种子再混合一次，顺序的编号这类低位变化少的hashCode也能分布均匀，但是hashCode本身相同的键仍然会碰撞
+	 */
+	static <K> MyHashStrategy<K> seeded() {
+		return new MySeededHashStrategy<K>(MyHashing.randomSeed());
+	}
+}
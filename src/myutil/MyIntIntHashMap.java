@@ -0,0 +1,331 @@
+package myutil;
+
+import java.io.Serializable;
+import java.util.Arrays;
+
+/*
+ * 键和值都是int的哈希表，不需要装箱成MyInteger，也没有Node对象
+ *
+ * 键和值放在两个平行的int数组中，使用线性探测，0作为空位的标记，键为0的元素单独保存
+ * getOrDefault和addTo在计数的场景下完全不会创建对象
+ */
+public class MyIntIntHashMap implements Cloneable, Serializable {
+	private static final long serialVersionUID = 6279419212765087351L;
+
+	// 遍历所有键值对时的回调，避免装箱
+	@FunctionalInterface
+	public interface IntIntConsumer {
+		void accept(int key, int value);
+	}
+
+	int[] keys;
+
+	int[] values;
+
+	// 键为0的元素不能放在数组中，因为0表示空位
+	boolean containsZeroKey;
+
+	int zeroValue;
+
+	int size;
+
+	int mask;
+
+	int maxFill;
+
+	final float loadFactor;
+
+	public MyIntIntHashMap(int expected, float loadFactor) {
+		MyHashCommon.checkLoadFactor(loadFactor);
+		if (expected < 0) {
+			throw new IllegalArgumentException("Illegal initial capacity: " + expected);
+		}
+		this.loadFactor = loadFactor;
+		int n = MyHashCommon.arraySize(expected, loadFactor);
+		keys = new int[n];
+		values = new int[n];
+		mask = n - 1;
+		maxFill = MyHashCommon.maxFill(n, loadFactor);
+	}
+
+	public MyIntIntHashMap(int expected) {
+		this(expected, MyHashCommon.DEFAULT_LOAD_FACTOR);
+	}
+
+	public MyIntIntHashMap() {
+		this(MyHashCommon.DEFAULT_INITIAL_CAPACITY, MyHashCommon.DEFAULT_LOAD_FACTOR);
+	}
+
+	public int size() {
+		return size;
+	}
+
+	public boolean isEmpty() {
+		return size == 0;
+	}
+
+	// 返回键所在的下标，不存在返回-1，键不能为0
+	final int indexOf(int key) {
+		int[] ks = keys;
+		int m = mask;
+		for (int i = MyHashCommon.mix(key) & m;; i = (i + 1) & m) {
+			int k = ks[i];
+			if (k == key) {
+				return i;
+			}
+			if (k == 0) {
+				return -1;
+			}
+		}
+	}
+
+	public boolean containsKey(int key) {
+		return key == 0 ? containsZeroKey : indexOf(key) >= 0;
+	}
+
+	// 不存在的时候返回0
+	public int get(int key) {
+		return getOrDefault(key, 0);
+	}
+
+	public int getOrDefault(int key, int defaultValue) {
+		if (key == 0) {
+			return containsZeroKey ? zeroValue : defaultValue;
+		}
+		int i = indexOf(key);
+		return i < 0 ? defaultValue : values[i];
+	}
+
+	/**
+	 * 添加或者替换键值对
+	 *
+	 * @return 原来的值，不存在返回0
+	 */
+	public int put(int key, int value) {
+		if (key == 0) {
+			int old = zeroValue;
+			if (!containsZeroKey) {
+				containsZeroKey = true;
+				size++;
+			}
+			zeroValue = value;
+			return old;
+		}
+		int[] ks = keys;
+		int m = mask;
+		int i = MyHashCommon.mix(key) & m;
+		int k;
+		while ((k = ks[i]) != 0) {
+			if (k == key) {
+				int old = values[i];
+				values[i] = value;
+				return old;
+			}
+			i = (i + 1) & m;
+		}
+		ks[i] = key;
+		values[i] = value;
+		if (++size >= maxFill) {
+			rehash(keys.length << 1);
+		}
+		return 0;
+	}
+
+	/**
+	 * 将键对应的值加上increment，不存在的时候当作0处理，计数的时候使用，只需要一次查找
+	 *
+	 * @return 原来的值，不存在返回0
+	 */
+	public int addTo(int key, int increment) {
+		if (key == 0) {
+			int old = zeroValue;
+			if (!containsZeroKey) {
+				containsZeroKey = true;
+				size++;
+				old = 0;
+			}
+			zeroValue = old + increment;
+			return old;
+		}
+		int[] ks = keys;
+		int m = mask;
+		int i = MyHashCommon.mix(key) & m;
+		int k;
+		while ((k = ks[i]) != 0) {
+			if (k == key) {
+				int old = values[i];
+				values[i] = old + increment;
+				return old;
+			}
+			i = (i + 1) & m;
+		}
+		ks[i] = key;
+		values[i] = increment;
+		if (++size >= maxFill) {
+			rehash(keys.length << 1);
+		}
+		return 0;
+	}
+
+	/**
+	 * 删除键值对
+	 *
+	 * @return 原来的值，不存在返回0
+	 */
+	public int remove(int key) {
+		if (key == 0) {
+			if (!containsZeroKey) {
+				return 0;
+			}
+			containsZeroKey = false;
+			size--;
+			int old = zeroValue;
+			zeroValue = 0;
+			return old;
+		}
+		int i = indexOf(key);
+		if (i < 0) {
+			return 0;
+		}
+		int old = values[i];
+		shiftKeys(i);
+		size--;
+		return old;
+	}
+
+	/*
+	 * 删除之后把后面探测链上的元素往前移，填补空出来的位置，不需要墓碑
+	 * 一个元素可以移动到last的条件是：last在它的理想位置slot和它现在的位置pos之间（循环意义上）
+	 */
+	final void shiftKeys(int pos) {
+		int[] ks = keys;
+		int m = mask;
+		for (;;) {
+			int last = pos;
+			pos = (pos + 1) & m;
+			int curr;
+			for (;;) {
+				if ((curr = ks[pos]) == 0) {
+					ks[last] = 0;
+					values[last] = 0;
+					return;
+				}
+				int slot = MyHashCommon.mix(curr) & m;
+				if (last <= pos ? (last >= slot || slot > pos) : (last >= slot && slot > pos)) {
+					break;
+				}
+				pos = (pos + 1) & m;
+			}
+			ks[last] = curr;
+			values[last] = values[pos];
+		}
+	}
+
+	// 扩容，将所有元素重新插入到新的数组中
+	final void rehash(int newN) {
+		if (newN > MyHashCommon.MAXIMUM_CAPACITY || newN <= 0) {
+			throw new IllegalStateException("Map is full");
+		}
+		int[] oldKeys = keys, oldValues = values;
+		int[] ks = new int[newN], vs = new int[newN];
+		int m = newN - 1;
+		for (int j = 0; j < oldKeys.length; j++) {
+			int k = oldKeys[j];
+			if (k != 0) {
+				int i = MyHashCommon.mix(k) & m;
+				while (ks[i] != 0) {
+					i = (i + 1) & m;
+				}
+				ks[i] = k;
+				vs[i] = oldValues[j];
+			}
+		}
+		keys = ks;
+		values = vs;
+		mask = m;
+		maxFill = MyHashCommon.maxFill(newN, loadFactor);
+	}
+
+	public void clear() {
+		if (size > 0) {
+			size = 0;
+			containsZeroKey = false;
+			zeroValue = 0;
+			Arrays.fill(keys, 0);
+			Arrays.fill(values, 0);
+		}
+	}
+
+	public void forEach(IntIntConsumer action) {
+		if (containsZeroKey) {
+			action.accept(0, zeroValue);
+		}
+		int[] ks = keys, vs = values;
+		for (int i = 0; i < ks.length; i++) {
+			if (ks[i] != 0) {
+				action.accept(ks[i], vs[i]);
+			}
+		}
+	}
+
+	public MyIntIntHashMap clone() {
+		MyIntIntHashMap result;
+		try {
+			result = (MyIntIntHashMap) super.clone();
+		} catch (CloneNotSupportedException e) {
+			throw new InternalError(e);
+		}
+		result.keys = keys.clone();
+		result.values = values.clone();
+		return result;
+	}
+
+	public boolean equals(Object o) {
+		if (o == this) {
+			return true;
+		}
+		if (!(o instanceof MyIntIntHashMap)) {
+			return false;
+		}
+		MyIntIntHashMap m = (MyIntIntHashMap) o;
+		if (m.size != size || m.containsZeroKey != containsZeroKey
+				|| (containsZeroKey && m.zeroValue != zeroValue)) {
+			return false;
+		}
+		int[] ks = keys, vs = values;
+		for (int i = 0; i < ks.length; i++) {
+			int k = ks[i];
+			if (k != 0) {
+				int j = m.indexOf(k);
+				if (j < 0 || m.values[j] != vs[i]) {
+					return false;
+				}
+			}
+		}
+		return true;
+	}
+
+	// 与MyMap相同，是每一个键值对的hash的和
+	public int hashCode() {
+		int h = containsZeroKey ? zeroValue : 0;
+		int[] ks = keys, vs = values;
+		for (int i = 0; i < ks.length; i++) {
+			if (ks[i] != 0) {
+				h += ks[i] ^ vs[i];
+			}
+		}
+		return h;
+	}
+
+	public String toString() {
+		StringBuilder sb = new StringBuilder();
+		sb.append('{');
+		forEach((k, v) -> {
+			if (sb.length() > 1) {
+				sb.append(',').append(' ');
+			}
+			sb.append(k).append('=').append(v);
+		});
+		return sb.append('}').toString();
+	}
+}
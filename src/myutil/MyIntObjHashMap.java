@@ -0,0 +1,364 @@
+package myutil;
+
+import java.io.Serializable;
+import java.util.Arrays;
+import java.util.Objects;
+import java.util.function.IntFunction;
+
+/*
+ * 键是int的哈希表，键不需要装箱成MyInteger，也没有Node对象
+ *
+ * 键放在int数组中，值放在平行的Object数组中，使用线性探测，0作为空位的标记，键为0的元素单独保存
+ */
+public class MyIntObjHashMap<V> implements Cloneable, Serializable {
+	private static final long serialVersionUID = -1942358623187410427L;
+
+	// 遍历所有键值对时的回调，键不需要装箱
+	@FunctionalInterface
+	public interface IntObjConsumer<V> {
+		void accept(int key, V value);
+	}
+
+	int[] keys;
+
+	Object[] values;
+
+	// 键为0的元素不能放在数组中，因为0表示空位
+	boolean containsZeroKey;
+
+	V zeroValue;
+
+	int size;
+
+	int mask;
+
+	int maxFill;
+
+	final float loadFactor;
+
+	public MyIntObjHashMap(int expected, float loadFactor) {
+		MyHashCommon.checkLoadFactor(loadFactor);
+		if (expected < 0) {
+			throw new IllegalArgumentException("Illegal initial capacity: " + expected);
+		}
+		this.loadFactor = loadFactor;
+		int n = MyHashCommon.arraySize(expected, loadFactor);
+		keys = new int[n];
+		values = new Object[n];
+		mask = n - 1;
+		maxFill = MyHashCommon.maxFill(n, loadFactor);
+	}
+
+	public MyIntObjHashMap(int expected) {
+		this(expected, MyHashCommon.DEFAULT_LOAD_FACTOR);
+	}
+
+	public MyIntObjHashMap() {
+		this(MyHashCommon.DEFAULT_INITIAL_CAPACITY, MyHashCommon.DEFAULT_LOAD_FACTOR);
+	}
+
+	public int size() {
+		return size;
+	}
+
+	public boolean isEmpty() {
+		return size == 0;
+	}
+
+	// 返回键所在的下标，不存在返回-1，键不能为0
+	final int indexOf(int key) {
+		int[] ks = keys;
+		int m = mask;
+		for (int i = MyHashCommon.mix(key) & m;; i = (i + 1) & m) {
+			int k = ks[i];
+			if (k == key) {
+				return i;
+			}
+			if (k == 0) {
+				return -1;
+			}
+		}
+	}
+
+	public boolean containsKey(int key) {
+		return key == 0 ? containsZeroKey : indexOf(key) >= 0;
+	}
+
+	public boolean containsValue(Object value) {
+		if (containsZeroKey && Objects.equals(value, zeroValue)) {
+			return true;
+		}
+		int[] ks = keys;
+		Object[] vs = values;
+		for (int i = 0; i < ks.length; i++) {
+			if (ks[i] != 0 && Objects.equals(value, vs[i])) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	public V get(int key) {
+		return getOrDefault(key, null);
+	}
+
+	@SuppressWarnings("unchecked")
+	public V getOrDefault(int key, V defaultValue) {
+		if (key == 0) {
+			return containsZeroKey ? zeroValue : defaultValue;
+		}
+		int i = indexOf(key);
+		return i < 0 ? defaultValue : (V) values[i];
+	}
+
+	/**
+	 * 添加或者替换键值对
+	 *
+	 * @return 原来的值，不存在返回null
+	 */
+	@SuppressWarnings("unchecked")
+	public V put(int key, V value) {
+		if (key == 0) {
+			V old = zeroValue;
+			if (!containsZeroKey) {
+				containsZeroKey = true;
+				size++;
+			}
+			zeroValue = value;
+			return old;
+		}
+		int[] ks = keys;
+		int m = mask;
+		int i = MyHashCommon.mix(key) & m;
+		int k;
+		while ((k = ks[i]) != 0) {
+			if (k == key) {
+				V old = (V) values[i];
+				values[i] = value;
+				return old;
+			}
+			i = (i + 1) & m;
+		}
+		insertAt(i, key, value);
+		return null;
+	}
+
+	/**
+	 * 如果不存在键或者键对应的值为null，则用传入的函数计算值并保存，只需要一次查找
+	 *
+	 * @return 现在键对应的值
+	 */
+	@SuppressWarnings("unchecked")
+	public V computeIfAbsent(int key, IntFunction<? extends V> mappingFunction) {
+		Objects.requireNonNull(mappingFunction);
+		if (key == 0) {
+			if (zeroValue == null) {
+				V v = mappingFunction.apply(key);
+				if (v != null) {
+					put(0, v);
+				}
+				return v;
+			}
+			return zeroValue;
+		}
+		int[] ks = keys;
+		int m = mask;
+		int i = MyHashCommon.mix(key) & m;
+		int k;
+		while ((k = ks[i]) != 0) {
+			if (k == key) {
+				V old = (V) values[i];
+				if (old == null) {
+					old = mappingFunction.apply(key);
+					values[i] = old;
+				}
+				return old;
+			}
+			i = (i + 1) & m;
+		}
+		V v = mappingFunction.apply(key);
+		if (v != null) {
+			insertAt(i, key, v);
+		}
+		return v;
+	}
+
+	// 在空位i上插入新的元素
+	private void insertAt(int i, int key, V value) {
+		keys[i] = key;
+		values[i] = value;
+		if (++size >= maxFill) {
+			rehash(keys.length << 1);
+		}
+	}
+
+	/**
+	 * 删除键值对
+	 *
+	 * @return 原来的值，不存在返回null
+	 */
+	@SuppressWarnings("unchecked")
+	public V remove(int key) {
+		if (key == 0) {
+			if (!containsZeroKey) {
+				return null;
+			}
+			containsZeroKey = false;
+			size--;
+			V old = zeroValue;
+			zeroValue = null;
+			return old;
+		}
+		int i = indexOf(key);
+		if (i < 0) {
+			return null;
+		}
+		V old = (V) values[i];
+		shiftKeys(i);
+		size--;
+		return old;
+	}
+
+	/*
+	 * 删除之后把后面探测链上的元素往前移，填补空出来的位置，不需要墓碑
+	 * 一个元素可以移动到last的条件是：last在它的理想位置slot和它现在的位置pos之间（循环意义上）
+	 */
+	final void shiftKeys(int pos) {
+		int[] ks = keys;
+		int m = mask;
+		for (;;) {
+			int last = pos;
+			pos = (pos + 1) & m;
+			int curr;
+			for (;;) {
+				if ((curr = ks[pos]) == 0) {
+					ks[last] = 0;
+					values[last] = null;
+					return;
+				}
+				int slot = MyHashCommon.mix(curr) & m;
+				if (last <= pos ? (last >= slot || slot > pos) : (last >= slot && slot > pos)) {
+					break;
+				}
+				pos = (pos + 1) & m;
+			}
+			ks[last] = curr;
+			values[last] = values[pos];
+		}
+	}
+
+	// 扩容，将所有元素重新插入到新的数组中
+	final void rehash(int newN) {
+		if (newN > MyHashCommon.MAXIMUM_CAPACITY || newN <= 0) {
+			throw new IllegalStateException("Map is full");
+		}
+		int[] oldKeys = keys;
+		Object[] oldValues = values;
+		int[] ks = new int[newN];
+		Object[] vs = new Object[newN];
+		int m = newN - 1;
+		for (int j = 0; j < oldKeys.length; j++) {
+			int k = oldKeys[j];
+			if (k != 0) {
+				int i = MyHashCommon.mix(k) & m;
+				while (ks[i] != 0) {
+					i = (i + 1) & m;
+				}
+				ks[i] = k;
+				vs[i] = oldValues[j];
+			}
+		}
+		keys = ks;
+		values = vs;
+		mask = m;
+		maxFill = MyHashCommon.maxFill(newN, loadFactor);
+	}
+
+	public void clear() {
+		if (size > 0) {
+			size = 0;
+			containsZeroKey = false;
+			zeroValue = null;
+			Arrays.fill(keys, 0);
+			Arrays.fill(values, null);
+		}
+	}
+
+	@SuppressWarnings("unchecked")
+	public void forEach(IntObjConsumer<? super V> action) {
+		if (containsZeroKey) {
+			action.accept(0, zeroValue);
+		}
+		int[] ks = keys;
+		Object[] vs = values;
+		for (int i = 0; i < ks.length; i++) {
+			if (ks[i] != 0) {
+				action.accept(ks[i], (V) vs[i]);
+			}
+		}
+	}
+
+	@SuppressWarnings("unchecked")
+	public MyIntObjHashMap<V> clone() {
+		MyIntObjHashMap<V> result;
+		try {
+			result = (MyIntObjHashMap<V>) super.clone();
+		} catch (CloneNotSupportedException e) {
+			throw new InternalError(e);
+		}
+		result.keys = keys.clone();
+		result.values = values.clone();
+		return result;
+	}
+
+	public boolean equals(Object o) {
+		if (o == this) {
+			return true;
+		}
+		if (!(o instanceof MyIntObjHashMap)) {
+			return false;
+		}
+		MyIntObjHashMap<?> m = (MyIntObjHashMap<?>) o;
+		if (m.size != size || m.containsZeroKey != containsZeroKey
+				|| (containsZeroKey && !Objects.equals(m.zeroValue, zeroValue))) {
+			return false;
+		}
+		int[] ks = keys;
+		Object[] vs = values;
+		for (int i = 0; i < ks.length; i++) {
+			int k = ks[i];
+			if (k != 0) {
+				int j = m.indexOf(k);
+				if (j < 0 || !Objects.equals(m.values[j], vs[i])) {
+					return false;
+				}
+			}
+		}
+		return true;
+	}
+
+	// 与MyMap相同，是每一个键值对的hash的和
+	public int hashCode() {
+		int h = containsZeroKey ? Objects.hashCode(zeroValue) : 0;
+		int[] ks = keys;
+		Object[] vs = values;
+		for (int i = 0; i < ks.length; i++) {
+			if (ks[i] != 0) {
+				h += ks[i] ^ Objects.hashCode(vs[i]);
+			}
+		}
+		return h;
+	}
+
+	public String toString() {
+		StringBuilder sb = new StringBuilder();
+		sb.append('{');
+		forEach((k, v) -> {
+			if (sb.length() > 1) {
+				sb.append(',').append(' ');
+			}
+			sb.append(k).append('=').append(v == this ? "(this map)" : v);
+		});
+		return sb.append('}').toString();
+	}
+}
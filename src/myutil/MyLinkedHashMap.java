@@ -1,5 +1,23 @@
 package myutil;
 
+import java.util.AbstractCollection;
+import java.util.AbstractSet;
+import java.util.Collection;
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.BiConsumer;
+import java.util.function.BiFunction;
+
+/*
+ * 在MyHashMap的基础上，用一个双向链表把所有的节点串起来，保存插入顺序或者访问顺序
+ *
+ * 节点的添加、删除、访问都通过MyHashMap中的回调函数（afterNodeAccess，afterNodeInsertion，afterNodeRemoval）来维护双向链表
+ * 访问顺序模式下，每一次get或者put已经存在的键都会把节点移到链表的尾部，所以头部就是最久没有被访问的节点，
+ * 重写removeEldestEntry就可以实现一个LRU缓存
+ */
 public class MyLinkedHashMap<K, V> extends MyHashMap<K, V> implements MyMap<K, V> {
 	static class Entry<K, V> extends MyHashMap.Node<K, V> {
 		Entry<K, V> before, after;
@@ -10,4 +28,410 @@ public class MyLinkedHashMap<K, V> extends MyHashMap<K, V> implements MyMap<K, V
 	}
 
 	private static final long serialVersionUID = 3801124242820219131L;
+
+	// 双向链表的头结点，最早插入（或者最久没有访问）的节点
+	transient MyLinkedHashMap.Entry<K, V> head;
+
+	// 双向链表的尾节点，最晚插入（或者最近访问）的节点
+	transient MyLinkedHashMap.Entry<K, V> tail;
+
+	// true表示按照访问顺序，false表示按照插入顺序
+	final boolean accessOrder;
+
+	/*
+	 * 内部的链表操作
+	 */
+
+	// 把新的节点链接到链表的尾部
+	private void linkNodeLast(MyLinkedHashMap.Entry<K, V> p) {
+		MyLinkedHashMap.Entry<K, V> last = tail;
+		tail = p;
+		if (last == null) {
+			head = p;
+		}
+		else {
+			p.before = last;
+			last.after = p;
+		}
+	}
+
+	// 用dst替换src在链表中的位置，链表和红黑树互相转化的时候使用
+	private void transferLinks(MyLinkedHashMap.Entry<K, V> src, MyLinkedHashMap.Entry<K, V> dst) {
+		MyLinkedHashMap.Entry<K, V> b = dst.before = src.before;
+		MyLinkedHashMap.Entry<K, V> a = dst.after = src.after;
+		if (b == null) {
+			head = dst;
+		}
+		else {
+			b.after = dst;
+		}
+		if (a == null) {
+			tail = dst;
+		}
+		else {
+			a.before = dst;
+		}
+	}
+
+	/*
+	 * 重写MyHashMap中创建节点的方法，所有新建的节点都要链接到链表的尾部
+	 */
+
+	Node<K, V> newNode(int hash, K key, V value, Node<K, V> e) {
+		MyLinkedHashMap.Entry<K, V> p = new MyLinkedHashMap.Entry<K, V>(hash, key, value, e);
+		linkNodeLast(p);
+		return p;
+	}
+
+	Node<K, V> replacementNode(Node<K, V> p, Node<K, V> next) {
+		MyLinkedHashMap.Entry<K, V> q = (MyLinkedHashMap.Entry<K, V>) p;
+		MyLinkedHashMap.Entry<K, V> t = new MyLinkedHashMap.Entry<K, V>(q.hash, q.key, q.value, next);
+		transferLinks(q, t);
+		return t;
+	}
+
+	TreeNode<K, V> newTreeNode(int hash, K key, V value, Node<K, V> next) {
+		TreeNode<K, V> p = new TreeNode<K, V>(hash, key, value, next);
+		linkNodeLast(p);
+		return p;
+	}
+
+	TreeNode<K, V> replacementTreeNode(Node<K, V> p, Node<K, V> next) {
+		MyLinkedHashMap.Entry<K, V> q = (MyLinkedHashMap.Entry<K, V>) p;
+		TreeNode<K, V> t = new TreeNode<K, V>(q.hash, q.key, q.value, next);
+		transferLinks(q, t);
+		return t;
+	}
+
+	/*
+	 * 重写MyHashMap中的回调函数
+	 */
+
+	// 节点已经从哈希表中删除，再从链表中摘下来
+	void afterNodeRemoval(Node<K, V> e) {
+		MyLinkedHashMap.Entry<K, V> p = (MyLinkedHashMap.Entry<K, V>) e, b = p.before, a = p.after;
+		p.before = p.after = null;
+		if (b == null) {
+			head = a;
+		}
+		else {
+			b.after = a;
+		}
+		if (a == null) {
+			tail = b;
+		}
+		else {
+			a.before = b;
+		}
+	}
+
+	// 插入新节点之后，如果需要的话删除最老的节点（链表的头结点）
+	void afterNodeInsertion(boolean evict) {
+		MyLinkedHashMap.Entry<K, V> first;
+		if (evict && (first = head) != null && removeEldestEntry(first)) {
+			K key = first.key;
+			removeNode(hash(key), key, null, false, true);
+		}
+	}
+
+	// 访问顺序模式下，把被访问的节点移到链表的尾部，O(1)
+	void afterNodeAccess(Node<K, V> e) {
+		MyLinkedHashMap.Entry<K, V> last;
+		if (accessOrder && (last = tail) != e) {
+			MyLinkedHashMap.Entry<K, V> p = (MyLinkedHashMap.Entry<K, V>) e, b = p.before, a = p.after;
+			p.after = null;
+			if (b == null) {
+				head = a;
+			}
+			else {
+				b.after = a;
+			}
+			if (a != null) {
+				a.before = b;
+			}
+			else {
+				last = b;
+			}
+			if (last == null) {
+				head = p;
+			}
+			else {
+				p.before = last;
+				last.after = p;
+			}
+			tail = p;
+			++modCount;// 访问顺序模式下访问也会改变迭代顺序，算作结构性修改
+		}
+	}
+
+	/*
+	 * 构造函数
+	 */
+
+	public MyLinkedHashMap(int initialCapacity, float loadFactor) {
+		super(initialCapacity, loadFactor);
+		accessOrder = false;
+	}
+
+	public MyLinkedHashMap(int initialCapacity) {
+		super(initialCapacity);
+		accessOrder = false;
+	}
+
+	public MyLinkedHashMap() {
+		super();
+		accessOrder = false;
+	}
+
+	public MyLinkedHashMap(MyMap<? extends K, ? extends V> m) {
+		super();
+		accessOrder = false;
+		putMapEntries(m, false);
+	}
+
+	/**
+	 * @param initialCapacity
+	 * @param loadFactor
+	 * @param accessOrder
+	 *            true表示按照访问顺序，false表示按照插入顺序
+	 */
+	public MyLinkedHashMap(int initialCapacity, float loadFactor, boolean accessOrder) {
+		super(initialCapacity, loadFactor);
+		this.accessOrder = accessOrder;
+	}
+
+	// 沿着链表查找，比遍历整个table要快
+	public boolean containsValue(Object value) {
+		for (MyLinkedHashMap.Entry<K, V> e = head; e != null; e = e.after) {
+			V v = e.value;
+			if (v == value || (value != null && value.equals(v))) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	public V get(Object key) {
+		Node<K, V> e;
+		if ((e = getNode(hash(key), key)) == null) {
+			return null;
+		}
+		if (accessOrder) {
+			afterNodeAccess(e);
+		}
+		return e.value;
+	}
+
+	public V getOrDefault(Object key, V defaultValue) {
+		Node<K, V> e;
+		if ((e = getNode(hash(key), key)) == null) {
+			return defaultValue;
+		}
+		if (accessOrder) {
+			afterNodeAccess(e);
+		}
+		return e.value;
+	}
+
+	public void clear() {
+		super.clear();
+		head = tail = null;
+	}
+
+	/**
+	 * 每一次插入新的元素之后调用，返回true则删除最老的元素，默认不删除
+	 *
+	 * 子类可以重写该方法实现容量固定的缓存，例如size() > MAX_ENTRIES的时候返回true
+	 *
+	 * @param eldest
+	 *            链表的头结点，插入顺序下是最早插入的，访问顺序下是最久没有访问的
+	 * @return
+	 */
+	protected boolean removeEldestEntry(MyMap.Entry<K, V> eldest) {
+		return false;
+	}
+
+	public Set<K> keySet() {
+		Set<K> ks = keySet;
+		if (ks == null) {
+			ks = new LinkedKeySet();
+			keySet = ks;
+		}
+		return ks;
+	}
+
+	public Collection<V> values() {
+		Collection<V> vs = values;
+		if (vs == null) {
+			vs = new LinkedValues();
+			values = vs;
+		}
+		return vs;
+	}
+
+	public Set<MyMap.Entry<K, V>> entrySet() {
+		Set<MyMap.Entry<K, V>> es;
+		return (es = entrySet) == null ? (entrySet = new LinkedEntrySet()) : es;
+	}
+
+	// 按照链表的顺序遍历
+	public void forEach(BiConsumer<? super K, ? super V> action) {
+		Objects.requireNonNull(action);
+		int mc = modCount;
+		for (MyLinkedHashMap.Entry<K, V> e = head; e != null; e = e.after) {
+			action.accept(e.key, e.value);
+		}
+		if (modCount != mc) {
+			throw new ConcurrentModificationException();
+		}
+	}
+
+	public void replaceAll(BiFunction<? super K, ? super V, ? extends V> function) {
+		Objects.requireNonNull(function);
+		int mc = modCount;
+		for (MyLinkedHashMap.Entry<K, V> e = head; e != null; e = e.after) {
+			e.value = function.apply(e.key, e.value);
+		}
+		if (modCount != mc) {
+			throw new ConcurrentModificationException();
+		}
+	}
+
+	/*
+	 * 以下是按照链表顺序的视图以及迭代器
+	 */
+
+	final class LinkedKeySet extends AbstractSet<K> {
+		public final int size() {
+			return size;
+		}
+
+		public final void clear() {
+			MyLinkedHashMap.this.clear();
+		}
+
+		public final Iterator<K> iterator() {
+			return new LinkedKeyIterator();
+		}
+
+		public final boolean contains(Object o) {
+			return containsKey(o);
+		}
+
+		public final boolean remove(Object key) {
+			return removeNode(hash(key), key, null, false, true) != null;
+		}
+	}
+
+	final class LinkedValues extends AbstractCollection<V> {
+		public final int size() {
+			return size;
+		}
+
+		public final void clear() {
+			MyLinkedHashMap.this.clear();
+		}
+
+		public final Iterator<V> iterator() {
+			return new LinkedValueIterator();
+		}
+
+		public final boolean contains(Object o) {
+			return containsValue(o);
+		}
+	}
+
+	final class LinkedEntrySet extends AbstractSet<MyMap.Entry<K, V>> {
+		public final int size() {
+			return size;
+		}
+
+		public final void clear() {
+			MyLinkedHashMap.this.clear();
+		}
+
+		public final Iterator<MyMap.Entry<K, V>> iterator() {
+			return new LinkedEntryIterator();
+		}
+
+		public final boolean contains(Object o) {
+			if (!(o instanceof MyMap.Entry)) {
+				return false;
+			}
+			MyMap.Entry<?, ?> e = (MyMap.Entry<?, ?>) o;
+			Object key = e.getKey();
+			Node<K, V> candidate = getNode(hash(key), key);
+			return candidate != null && candidate.equals(e);
+		}
+
+		public final boolean remove(Object o) {
+			if (o instanceof MyMap.Entry) {
+				MyMap.Entry<?, ?> e = (MyMap.Entry<?, ?>) o;
+				Object key = e.getKey();
+				Object value = e.getValue();
+				return removeNode(hash(key), key, value, true, true) != null;
+			}
+			return false;
+		}
+	}
+
+	abstract class LinkedHashIterator {
+		MyLinkedHashMap.Entry<K, V> next;
+		MyLinkedHashMap.Entry<K, V> current;
+		int expectedModCount;
+
+		LinkedHashIterator() {
+			next = head;
+			expectedModCount = modCount;
+			current = null;
+		}
+
+		public final boolean hasNext() {
+			return next != null;
+		}
+
+		final MyLinkedHashMap.Entry<K, V> nextNode() {
+			MyLinkedHashMap.Entry<K, V> e = next;
+			if (modCount != expectedModCount) {
+				throw new ConcurrentModificationException();
+			}
+			if (e == null) {
+				throw new NoSuchElementException();
+			}
+			current = e;
+			next = e.after;
+			return e;
+		}
+
+		public final void remove() {
+			Node<K, V> p = current;
+			if (p == null) {
+				throw new IllegalStateException();
+			}
+			if (modCount != expectedModCount) {
+				throw new ConcurrentModificationException();
+			}
+			current = null;
+			removeNode(p.hash, p.key, null, false, false);
+			expectedModCount = modCount;
+		}
+	}
+
+	final class LinkedKeyIterator extends LinkedHashIterator implements Iterator<K> {
+		public final K next() {
+			return nextNode().getKey();
+		}
+	}
+
+	final class LinkedValueIterator extends LinkedHashIterator implements Iterator<V> {
+		public final V next() {
+			return nextNode().value;
+		}
+	}
+
+	final class LinkedEntryIterator extends LinkedHashIterator implements Iterator<MyMap.Entry<K, V>> {
+		public final MyMap.Entry<K, V> next() {
+			return nextNode();
+		}
+	}
 }
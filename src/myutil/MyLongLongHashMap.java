@@ -0,0 +1,331 @@
+package myutil;
+
+import java.io.Serializable;
+import java.util.Arrays;
+
+/*
+ * 键和值都是long的哈希表，不需要装箱成Long，也没有Node对象
+ *
+ * 键和值放在两个平行的long数组中，使用线性探测，0作为空位的标记，键为0的元素单独保存
+ * getOrDefault和addTo在计数和累加的场景下完全不会创建对象
+ */
+public class MyLongLongHashMap implements Cloneable, Serializable {
+	private static final long serialVersionUID = -3846120916424765582L;
+
+	// 遍历所有键值对时的回调，避免装箱
+	@FunctionalInterface
+	public interface LongLongConsumer {
+		void accept(long key, long value);
+	}
+
+	long[] keys;
+
+	long[] values;
+
+	// 键为0的元素不能放在数组中，因为0表示空位
+	boolean containsZeroKey;
+
+	long zeroValue;
+
+	int size;
+
+	int mask;
+
+	int maxFill;
+
+	final float loadFactor;
+
+	public MyLongLongHashMap(int expected, float loadFactor) {
+		MyHashCommon.checkLoadFactor(loadFactor);
+		if (expected < 0) {
+			throw new IllegalArgumentException("Illegal initial capacity: " + expected);
+		}
+		this.loadFactor = loadFactor;
+		int n = MyHashCommon.arraySize(expected, loadFactor);
+		keys = new long[n];
+		values = new long[n];
+		mask = n - 1;
+		maxFill = MyHashCommon.maxFill(n, loadFactor);
+	}
+
+	public MyLongLongHashMap(int expected) {
+		this(expected, MyHashCommon.DEFAULT_LOAD_FACTOR);
+	}
+
+	public MyLongLongHashMap() {
+		this(MyHashCommon.DEFAULT_INITIAL_CAPACITY, MyHashCommon.DEFAULT_LOAD_FACTOR);
+	}
+
+	public int size() {
+		return size;
+	}
+
+	public boolean isEmpty() {
+		return size == 0;
+	}
+
+	// 返回键所在的下标，不存在返回-1，键不能为0
+	final int indexOf(long key) {
+		long[] ks = keys;
+		int m = mask;
+		for (int i = MyHashCommon.mix(key) & m;; i = (i + 1) & m) {
+			long k = ks[i];
+			if (k == key) {
+				return i;
+			}
+			if (k == 0) {
+				return -1;
+			}
+		}
+	}
+
+	public boolean containsKey(long key) {
+		return key == 0 ? containsZeroKey : indexOf(key) >= 0;
+	}
+
+	// 不存在的时候返回0
+	public long get(long key) {
+		return getOrDefault(key, 0);
+	}
+
+	public long getOrDefault(long key, long defaultValue) {
+		if (key == 0) {
+			return containsZeroKey ? zeroValue : defaultValue;
+		}
+		int i = indexOf(key);
+		return i < 0 ? defaultValue : values[i];
+	}
+
+	/**
+	 * 添加或者替换键值对
+	 *
+	 * @return 原来的值，不存在返回0
+	 */
+	public long put(long key, long value) {
+		if (key == 0) {
+			long old = zeroValue;
+			if (!containsZeroKey) {
+				containsZeroKey = true;
+				size++;
+			}
+			zeroValue = value;
+			return old;
+		}
+		long[] ks = keys;
+		int m = mask;
+		int i = MyHashCommon.mix(key) & m;
+		long k;
+		while ((k = ks[i]) != 0) {
+			if (k == key) {
+				long old = values[i];
+				values[i] = value;
+				return old;
+			}
+			i = (i + 1) & m;
+		}
+		ks[i] = key;
+		values[i] = value;
+		if (++size >= maxFill) {
+			rehash(keys.length << 1);
+		}
+		return 0;
+	}
+
+	/**
+	 * 将键对应的值加上increment，不存在的时候当作0处理，计数的时候使用，只需要一次查找
+	 *
+	 * @return 原来的值，不存在返回0
+	 */
+	public long addTo(long key, long increment) {
+		if (key == 0) {
+			long old = zeroValue;
+			if (!containsZeroKey) {
+				containsZeroKey = true;
+				size++;
+				old = 0;
+			}
+			zeroValue = old + increment;
+			return old;
+		}
+		long[] ks = keys;
+		int m = mask;
+		int i = MyHashCommon.mix(key) & m;
+		long k;
+		while ((k = ks[i]) != 0) {
+			if (k == key) {
+				long old = values[i];
+				values[i] = old + increment;
+				return old;
+			}
+			i = (i + 1) & m;
+		}
+		ks[i] = key;
+		values[i] = increment;
+		if (++size >= maxFill) {
+			rehash(keys.length << 1);
+		}
+		return 0;
+	}
+
+	/**
+	 * 删除键值对
+	 *
+	 * @return 原来的值，不存在返回0
+	 */
+	public long remove(long key) {
+		if (key == 0) {
+			if (!containsZeroKey) {
+				return 0;
+			}
+			containsZeroKey = false;
+			size--;
+			long old = zeroValue;
+			zeroValue = 0;
+			return old;
+		}
+		int i = indexOf(key);
+		if (i < 0) {
+			return 0;
+		}
+		long old = values[i];
+		shiftKeys(i);
+		size--;
+		return old;
+	}
+
+	/*
+	 * 删除之后把后面探测链上的元素往前移，填补空出来的位置，不需要墓碑
+	 * 一个元素可以移动到last的条件是：last在它的理想位置slot和它现在的位置pos之间（循环意义上）
+	 */
+	final void shiftKeys(int pos) {
+		long[] ks = keys;
+		int m = mask;
+		for (;;) {
+			int last = pos;
+			pos = (pos + 1) & m;
+			long curr;
+			for (;;) {
+				if ((curr = ks[pos]) == 0) {
+					ks[last] = 0;
+					values[last] = 0;
+					return;
+				}
+				int slot = MyHashCommon.mix(curr) & m;
+				if (last <= pos ? (last >= slot || slot > pos) : (last >= slot && slot > pos)) {
+					break;
+				}
+				pos = (pos + 1) & m;
+			}
+			ks[last] = curr;
+			values[last] = values[pos];
+		}
+	}
+
+	// 扩容，将所有元素重新插入到新的数组中
+	final void rehash(int newN) {
+		if (newN > MyHashCommon.MAXIMUM_CAPACITY || newN <= 0) {
+			throw new IllegalStateException("Map is full");
+		}
+		long[] oldKeys = keys, oldValues = values;
+		long[] ks = new long[newN], vs = new long[newN];
+		int m = newN - 1;
+		for (int j = 0; j < oldKeys.length; j++) {
+			long k = oldKeys[j];
+			if (k != 0) {
+				int i = MyHashCommon.mix(k) & m;
+				while (ks[i] != 0) {
+					i = (i + 1) & m;
+				}
+				ks[i] = k;
+				vs[i] = oldValues[j];
+			}
+		}
+		keys = ks;
+		values = vs;
+		mask = m;
+		maxFill = MyHashCommon.maxFill(newN, loadFactor);
+	}
+
+	public void clear() {
+		if (size > 0) {
+			size = 0;
+			containsZeroKey = false;
+			zeroValue = 0;
+			Arrays.fill(keys, 0);
+			Arrays.fill(values, 0);
+		}
+	}
+
+	public void forEach(LongLongConsumer action) {
+		if (containsZeroKey) {
+			action.accept(0, zeroValue);
+		}
+		long[] ks = keys, vs = values;
+		for (int i = 0; i < ks.length; i++) {
+			if (ks[i] != 0) {
+				action.accept(ks[i], vs[i]);
+			}
+		}
+	}
+
+	public MyLongLongHashMap clone() {
+		MyLongLongHashMap result;
+		try {
+			result = (MyLongLongHashMap) super.clone();
+		} catch (CloneNotSupportedException e) {
+			throw new InternalError(e);
+		}
+		result.keys = keys.clone();
+		result.values = values.clone();
+		return result;
+	}
+
+	public boolean equals(Object o) {
+		if (o == this) {
+			return true;
+		}
+		if (!(o instanceof MyLongLongHashMap)) {
+			return false;
+		}
+		MyLongLongHashMap m = (MyLongLongHashMap) o;
+		if (m.size != size || m.containsZeroKey != containsZeroKey
+				|| (containsZeroKey && m.zeroValue != zeroValue)) {
+			return false;
+		}
+		long[] ks = keys, vs = values;
+		for (int i = 0; i < ks.length; i++) {
+			long k = ks[i];
+			if (k != 0) {
+				int j = m.indexOf(k);
+				if (j < 0 || m.values[j] != vs[i]) {
+					return false;
+				}
+			}
+		}
+		return true;
+	}
+
+	// 与MyMap相同，是每一个键值对的hash的和
+	public int hashCode() {
+		int h = containsZeroKey ? Long.hashCode(zeroValue) : 0;
+		long[] ks = keys, vs = values;
+		for (int i = 0; i < ks.length; i++) {
+			if (ks[i] != 0) {
+				h += Long.hashCode(ks[i]) ^ Long.hashCode(vs[i]);
+			}
+		}
+		return h;
+	}
+
+	public String toString() {
+		StringBuilder sb = new StringBuilder();
+		sb.append('{');
+		forEach((k, v) -> {
+			if (sb.length() > 1) {
+				sb.append(',').append(' ');
+			}
+			sb.append(k).append('=').append(v);
+		});
+		return sb.append('}').toString();
+	}
+}
@@ -0,0 +1,642 @@
+package myutil;
+
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.Serializable;
+import java.util.AbstractSet;
+import java.util.ArrayList;
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.Set;
+
+/*
+ * 开放寻址的哈希表，使用Robin Hood线性探测
+ *
+ * 与MyHashMap不同，没有Node对象和链表指针，哈希值、键和值分别放在三个平行的数组中，查找的时候只需要顺序的扫描数组，缓存友好
+ * Robin Hood的规则：插入的时候如果当前位置的元素离自己的理想位置更近（“更富”），则把位置让给离理想位置更远的元素（“更穷”），
+ * 被替换出来的元素继续向后探测，这样所有元素的探测距离比较平均，查找不存在的键时遇到更富的元素就可以提前结束
+ * 删除的时候使用向后移位（backward shift）代替墓碑，将后面的元素依次向前移动一位，直到遇到空位或者已经在理想位置的元素
+ */
+public class MyOpenHashMap<K, V> extends MyAbstractMap<K, V> implements MyMap<K, V>, Cloneable, Serializable {
+	private static final long serialVersionUID = -2473183465387640962L;
+
+	// 默认的数组容量，必须是2的幂，通过&mask来定位
+	static final int DEFAULT_INITIAL_CAPACITY = 1 << 4;
+
+	static final int MAXIMUM_CAPACITY = 1 << 30;
+
+	// 开放寻址的加载因子不能太大，否则探测距离会迅速变长，Robin Hood可以承受比链表法稍大的加载因子
+	static final float DEFAULT_LOAD_FACTOR = 0.8f;
+
+	// null键的替代，因为数组中用null表示空位
+	static final Object NULL_KEY = new Object();
+
+	/*
+	 * 实例变量，三个平行的数组，同一下标表示同一个键值对，keys[i]为null表示该位置为空
+	 */
+	transient int[] hashes;
+
+	transient Object[] keys;
+
+	transient Object[] vals;
+
+	transient int size;
+
+	transient int modCount;
+
+	transient Set<MyMap.Entry<K, V>> entrySet;
+
+	// 阈值，表示元素达到该值进行下一次扩容，table未初始化的时候保存初始的容量
+	int threshold;
+
+	final float loadFactor;
+
+	public MyOpenHashMap(int initialCapacity, float loadFactor) {
+		if (initialCapacity < 0) {
+			throw new IllegalArgumentException("Illegal initial capacity: " + initialCapacity);
+		}
+		if (initialCapacity > MAXIMUM_CAPACITY) {
+			initialCapacity = MAXIMUM_CAPACITY;
+		}
+		// 开放寻址的表不能被填满，加载因子必须小于1
+		if (loadFactor <= 0 || loadFactor >= 1 || Float.isNaN(loadFactor)) {
+			throw new IllegalArgumentException("Illegal load factor: " + loadFactor);
+		}
+		this.loadFactor = loadFactor;
+		this.threshold = MyHashMap.tableSizeFor(initialCapacity);
+	}
+
+	public MyOpenHashMap(int initialCapacity) {
+		this(initialCapacity, DEFAULT_LOAD_FACTOR);
+	}
+
+	public MyOpenHashMap() {
+		this.loadFactor = DEFAULT_LOAD_FACTOR;
+	}
+
+	public MyOpenHashMap(MyMap<? extends K, ? extends V> m) {
+		this.loadFactor = DEFAULT_LOAD_FACTOR;
+		putAll(m);
+	}
+
+	/*
+	 * 一系列的静态工具方法
+	 */
+
+	// 线性探测对哈希值的低位很敏感，连续的hashCode会聚成一团，所以先乘以黄金分割数再把高位异或下来
+	static final int hash(Object key) {
+		int h = key.hashCode() * 0x9E3779B9;
+		return h ^ (h >>> 16);
+	}
+
+	static Object maskNull(Object key) {
+		return key == null ? NULL_KEY : key;
+	}
+
+	@SuppressWarnings("unchecked")
+	static <K> K unmaskNull(Object key) {
+		return key == NULL_KEY ? null : (K) key;
+	}
+
+	// 位置i上的元素离它的理想位置的距离
+	final int probeDistance(int i) {
+		return (i - (hashes[i] & (keys.length - 1))) & (keys.length - 1);
+	}
+
+	public int size() {
+		return size;
+	}
+
+	public boolean isEmpty() {
+		return size == 0;
+	}
+
+	/**
+	 * 查找键所在的位置，遇到空位或者遇到探测距离比当前距离小的元素就可以确定不存在
+	 *
+	 * @param key
+	 *            已经经过maskNull处理的键
+	 * @return 键所在的下标，不存在返回-1
+	 */
+	final int indexOf(Object key) {
+		Object[] ks = keys;
+		if (ks == null || size == 0) {
+			return -1;
+		}
+		int[] hs = hashes;
+		int mask = ks.length - 1;
+		int h = hash(key);
+		for (int i = h & mask, dist = 0;; i = (i + 1) & mask, dist++) {
+			Object k = ks[i];
+			if (k == null) {
+				return -1;
+			}
+			if (hs[i] == h && (k == key || key.equals(k))) {
+				return i;
+			}
+			// 如果键存在，按照Robin Hood的规则它一定会在这个更富的元素之前
+			if (((i - (hs[i] & mask)) & mask) < dist) {
+				return -1;
+			}
+		}
+	}
+
+	@SuppressWarnings("unchecked")
+	public V get(Object key) {
+		int i = indexOf(maskNull(key));
+		return i < 0 ? null : (V) vals[i];
+	}
+
+	public boolean containsKey(Object key) {
+		return indexOf(maskNull(key)) >= 0;
+	}
+
+	public boolean containsValue(Object value) {
+		Object[] ks = keys, vs = vals;
+		if (ks != null && size > 0) {
+			for (int i = 0; i < ks.length; i++) {
+				if (ks[i] != null && Objects.equals(value, vs[i])) {
+					return true;
+				}
+			}
+		}
+		return false;
+	}
+
+	public V put(K key, V value) {
+		return putVal(maskNull(key), value, false);
+	}
+
+	public V putIfAbsent(K key, V value) {
+		return putVal(maskNull(key), value, true);
+	}
+
+	/**
+	 * 添加元素的真正实现
+	 *
+	 * @param key
+	 *            已经经过maskNull处理的键
+	 * @param value
+	 * @param onlyIfAbsent
+	 *            为true的时候只有原来的值为null才会替换
+	 * @return 原来的值，新添加的元素返回null
+	 */
+	@SuppressWarnings("unchecked")
+	final V putVal(Object key, V value, boolean onlyIfAbsent) {
+		if (keys == null) {
+			resize();
+		}
+		int h = hash(key);
+		int[] hs = hashes;
+		Object[] ks = keys, vs = vals;
+		int mask = ks.length - 1;
+		for (int i = h & mask, dist = 0;; i = (i + 1) & mask, dist++) {
+			Object k = ks[i];
+			if (k == null) {
+				hs[i] = h;
+				ks[i] = key;
+				vs[i] = value;
+				break;
+			}
+			if (hs[i] == h && (k == key || key.equals(k))) {
+				V oldValue = (V) vs[i];
+				if (!onlyIfAbsent || oldValue == null) {
+					vs[i] = value;
+				}
+				return oldValue;
+			}
+			int d = (i - (hs[i] & mask)) & mask;
+			if (d < dist) {
+				// 当前位置的元素更富，键一定不存在，把位置抢过来，被替换出来的元素继续向后找位置
+				robinHoodInsert(i, d, h, key, value);
+				break;
+			}
+		}
+		++modCount;
+		if (++size > threshold) {
+			resize();
+		}
+		return null;
+	}
+
+	// 从位置i开始插入一个确定不存在的元素，dist是该元素在i上的探测距离，插入过程中不断的交换更富的元素
+	private void robinHoodInsert(int i, int dist, int h, Object key, Object value) {
+		int[] hs = hashes;
+		Object[] ks = keys, vs = vals;
+		int mask = ks.length - 1;
+		// 先把i上原来的元素换出来
+		int ch = hs[i];
+		Object ck = ks[i], cv = vs[i];
+		hs[i] = h;
+		ks[i] = key;
+		vs[i] = value;
+		h = ch;
+		key = ck;
+		value = cv;
+		for (i = (i + 1) & mask, dist++;; i = (i + 1) & mask, dist++) {
+			if (ks[i] == null) {
+				hs[i] = h;
+				ks[i] = key;
+				vs[i] = value;
+				return;
+			}
+			int d = (i - (hs[i] & mask)) & mask;
+			if (d < dist) {
+				ch = hs[i];
+				ck = ks[i];
+				cv = vs[i];
+				hs[i] = h;
+				ks[i] = key;
+				vs[i] = value;
+				h = ch;
+				key = ck;
+				value = cv;
+				dist = d;
+			}
+		}
+	}
+
+	/**
+	 * 初始化或者将容量变为两倍，然后把所有元素重新插入到新的数组中，重新插入的时候不需要判断键是否相等
+	 */
+	final void resize() {
+		Object[] oldKeys = keys, oldVals = vals;
+		int[] oldHashes = hashes;
+		int oldCap = (oldKeys == null) ? 0 : oldKeys.length;
+		int newCap;
+		if (oldCap > 0) {
+			if (oldCap >= MAXIMUM_CAPACITY) {
+				// 已经达到最大容量，开放寻址的表不能被填满
+				if (size >= MAXIMUM_CAPACITY - 1) {
+					throw new IllegalStateException("Map is full");
+				}
+				threshold = MAXIMUM_CAPACITY - 1;
+				return;
+			}
+			newCap = oldCap << 1;
+		}
+		else if (threshold > 0) {// 通过构造函数指定了初始容量
+			newCap = threshold;
+		}
+		else {
+			newCap = DEFAULT_INITIAL_CAPACITY;
+		}
+		float ft = newCap * loadFactor;
+		threshold = (newCap < MAXIMUM_CAPACITY) ? (int) ft : MAXIMUM_CAPACITY - 1;
+		hashes = new int[newCap];
+		keys = new Object[newCap];
+		vals = new Object[newCap];
+		int mask = newCap - 1;
+		for (int j = 0; j < oldCap; j++) {
+			if (oldKeys[j] != null) {
+				int h = oldHashes[j];
+				int i = h & mask;
+				if (keys[i] == null) {
+					hashes[i] = h;
+					keys[i] = oldKeys[j];
+					vals[i] = oldVals[j];
+				}
+				else {
+					// 从理想位置开始找第一个可以抢占的位置
+					int dist = 0;
+					while (keys[i] != null && probeDistance(i) >= dist) {
+						i = (i + 1) & mask;
+						dist++;
+					}
+					if (keys[i] == null) {
+						hashes[i] = h;
+						keys[i] = oldKeys[j];
+						vals[i] = oldVals[j];
+					}
+					else {
+						robinHoodInsert(i, dist, h, oldKeys[j], oldVals[j]);
+					}
+				}
+			}
+		}
+	}
+
+	@SuppressWarnings("unchecked")
+	public V remove(Object key) {
+		int i = indexOf(maskNull(key));
+		if (i < 0) {
+			return null;
+		}
+		V oldValue = (V) vals[i];
+		removeAt(i);
+		return oldValue;
+	}
+
+	/**
+	 * 删除位置i上的元素，后面的元素依次向前移动一位，直到遇到空位或者已经在理想位置上的元素
+	 *
+	 * @param i
+	 */
+	final void removeAt(int i) {
+		int[] hs = hashes;
+		Object[] ks = keys, vs = vals;
+		int mask = ks.length - 1;
+		for (;;) {
+			int next = (i + 1) & mask;
+			if (ks[next] == null || ((next - (hs[next] & mask)) & mask) == 0) {
+				ks[i] = null;
+				vs[i] = null;
+				break;
+			}
+			hs[i] = hs[next];
+			ks[i] = ks[next];
+			vs[i] = vs[next];
+			i = next;
+		}
+		++modCount;
+		--size;
+	}
+
+	public void putAll(MyMap<? extends K, ? extends V> m) {
+		int s = m.size();
+		if (s > 0) {
+			// 预先扩容，避免添加过程中的多次扩容
+			float ft = ((float) (size + s) / loadFactor) + 1.0F;
+			int t = (ft < (float) MAXIMUM_CAPACITY) ? (int) ft : MAXIMUM_CAPACITY;
+			if (keys == null) {
+				if (t > threshold) {
+					threshold = MyHashMap.tableSizeFor(t);
+				}
+			}
+			else {
+				while (keys.length < t && keys.length < MAXIMUM_CAPACITY) {
+					resize();
+				}
+			}
+			for (MyMap.Entry<? extends K, ? extends V> e : m.entrySet()) {
+				put(e.getKey(), e.getValue());
+			}
+		}
+	}
+
+	public void clear() {
+		Object[] ks = keys, vs = vals;
+		if (ks != null && size > 0) {
+			modCount++;
+			size = 0;
+			for (int i = 0; i < ks.length; i++) {
+				ks[i] = null;
+				vs[i] = null;
+			}
+		}
+	}
+
+	public Set<MyMap.Entry<K, V>> entrySet() {
+		Set<MyMap.Entry<K, V>> es;
+		return (es = entrySet) == null ? (entrySet = new EntrySet()) : es;
+	}
+
+	// 深拷贝数组，不拷贝键和值本身
+	@SuppressWarnings("unchecked")
+	public Object clone() {
+		MyOpenHashMap<K, V> result;
+		try {
+			result = (MyOpenHashMap<K, V>) super.clone();
+		} catch (CloneNotSupportedException e) {
+			throw new InternalError(e);
+		}
+		result.entrySet = null;
+		result.modCount = 0;
+		if (keys != null) {
+			result.hashes = hashes.clone();
+			result.keys = keys.clone();
+			result.vals = vals.clone();
+		}
+		return result;
+	}
+
+	/*
+	 * 以下是内部类
+	 */
+
+	// 开放寻址中元素的位置会因为删除而移动，所以entry中保存下标和键，setValue的时候如果元素已经移动则重新查找
+	final class OpenEntry implements MyMap.Entry<K, V> {
+		int index;
+		final K key;
+		V value;
+
+		OpenEntry(int index, K key, V value) {
+			this.index = index;
+			this.key = key;
+			this.value = value;
+		}
+
+		public K getKey() {
+			return key;
+		}
+
+		public V getValue() {
+			return value;
+		}
+
+		public V setValue(V value) {
+			V oldValue = this.value;
+			this.value = value;
+			Object k = maskNull(key);
+			if (index < 0 || keys == null || index >= keys.length || keys[index] != k) {
+				index = indexOf(k);
+			}
+			if (index >= 0) {
+				vals[index] = value;
+			}
+			return oldValue;
+		}
+
+		public boolean equals(Object o) {
+			if (!(o instanceof MyMap.Entry)) {
+				return false;
+			}
+			MyMap.Entry<?, ?> e = (MyMap.Entry<?, ?>) o;
+			return Objects.equals(key, e.getKey()) && Objects.equals(value, e.getValue());
+		}
+
+		public int hashCode() {
+			return Objects.hashCode(key) ^ Objects.hashCode(value);
+		}
+
+		public String toString() {
+			return key + "=" + value;
+		}
+	}
+
+	/*
+	 * 迭代器从后往前遍历数组，这样删除时向前移动的元素都来自已经遍历过的位置
+	 * 唯一的例外是探测链从数组的末尾绕回到开头，开头还没有遍历的元素会被移动到末尾已经遍历过的位置，这些元素单独保存在wrapped中最后遍历
+	 */
+	abstract class HashIterator<E> implements Iterator<E> {
+		int pos;// [pos, capacity)是已经遍历过的位置
+		int last = -1;// 上一次返回的元素的下标，-1表示没有，-2表示上一次返回的是wrapped中的元素
+		int remaining;
+		int expectedModCount;
+		ArrayList<Object> wrappedKeys, wrappedVals;
+		int wrappedIndex;
+		Object lastWrappedKey;
+
+		HashIterator() {
+			expectedModCount = modCount;
+			remaining = size;
+			pos = (keys == null) ? 0 : keys.length;
+		}
+
+		public final boolean hasNext() {
+			return remaining > 0;
+		}
+
+		@SuppressWarnings("unchecked")
+		final OpenEntry nextEntry() {
+			if (modCount != expectedModCount) {
+				throw new ConcurrentModificationException();
+			}
+			if (remaining == 0) {
+				throw new NoSuchElementException();
+			}
+			remaining--;
+			Object[] ks = keys;
+			while (--pos >= 0) {
+				if (ks[pos] != null) {
+					last = pos;
+					return new OpenEntry(pos, unmaskNull(ks[pos]), (V) vals[pos]);
+				}
+			}
+			pos = -1;
+			// 所有的位置都遍历完了，返回被移动过的元素
+			last = -2;
+			lastWrappedKey = wrappedKeys.get(wrappedIndex);
+			return new OpenEntry(-1, unmaskNull(lastWrappedKey), (V) wrappedVals.get(wrappedIndex++));
+		}
+
+		public final void remove() {
+			if (last == -1) {
+				throw new IllegalStateException();
+			}
+			if (modCount != expectedModCount) {
+				throw new ConcurrentModificationException();
+			}
+			if (last == -2) {
+				// 此时数组已经全部遍历过，直接按键删除
+				MyOpenHashMap.this.remove(unmaskNull(lastWrappedKey));
+			}
+			else {
+				shiftKeys(last);
+			}
+			last = -1;
+			expectedModCount = modCount;
+		}
+
+		// 与removeAt相同，只是需要记录从未遍历的位置移动到已遍历位置的元素
+		private void shiftKeys(int i) {
+			int[] hs = hashes;
+			Object[] ks = keys, vs = vals;
+			int mask = ks.length - 1;
+			for (;;) {
+				int next = (i + 1) & mask;
+				if (ks[next] == null || ((next - (hs[next] & mask)) & mask) == 0) {
+					ks[i] = null;
+					vs[i] = null;
+					break;
+				}
+				if (next < pos && i >= pos) {
+					if (wrappedKeys == null) {
+						wrappedKeys = new ArrayList<Object>(2);
+						wrappedVals = new ArrayList<Object>(2);
+					}
+					wrappedKeys.add(ks[next]);
+					wrappedVals.add(vs[next]);
+				}
+				hs[i] = hs[next];
+				ks[i] = ks[next];
+				vs[i] = vs[next];
+				i = next;
+			}
+			++modCount;
+			--size;
+		}
+	}
+
+	final class EntryIterator extends HashIterator<MyMap.Entry<K, V>> {
+		public MyMap.Entry<K, V> next() {
+			return nextEntry();
+		}
+	}
+
+	final class EntrySet extends AbstractSet<MyMap.Entry<K, V>> {
+		public Iterator<MyMap.Entry<K, V>> iterator() {
+			return new EntryIterator();
+		}
+
+		public int size() {
+			return size;
+		}
+
+		public void clear() {
+			MyOpenHashMap.this.clear();
+		}
+
+		// 键和值都相等才算包含
+		public boolean contains(Object o) {
+			if (!(o instanceof MyMap.Entry)) {
+				return false;
+			}
+			MyMap.Entry<?, ?> e = (MyMap.Entry<?, ?>) o;
+			int i = indexOf(maskNull(e.getKey()));
+			return i >= 0 && Objects.equals(vals[i], e.getValue());
+		}
+
+		public boolean remove(Object o) {
+			if (!(o instanceof MyMap.Entry)) {
+				return false;
+			}
+			MyMap.Entry<?, ?> e = (MyMap.Entry<?, ?>) o;
+			int i = indexOf(maskNull(e.getKey()));
+			if (i >= 0 && Objects.equals(vals[i], e.getValue())) {
+				removeAt(i);
+				return true;
+			}
+			return false;
+		}
+	}
+
+	/*
+	 * 序列化：只写入容量、元素个数和每一个键值对，反序列化的时候重新插入
+	 */
+	private void writeObject(ObjectOutputStream s) throws IOException {
+		s.defaultWriteObject();
+		s.writeInt(keys == null ? 0 : keys.length);
+		s.writeInt(size);
+		if (keys != null) {
+			for (int i = 0; i < keys.length; i++) {
+				if (keys[i] != null) {
+					s.writeObject(unmaskNull(keys[i]));
+					s.writeObject(vals[i]);
+				}
+			}
+		}
+	}
+
+	@SuppressWarnings("unchecked")
+	private void readObject(ObjectInputStream s) throws IOException, ClassNotFoundException {
+		s.defaultReadObject();
+		if (loadFactor <= 0 || loadFactor >= 1 || Float.isNaN(loadFactor)) {
+			throw new java.io.InvalidObjectException("Illegal load factor: " + loadFactor);
+		}
+		int capacity = s.readInt();
+		int mappings = s.readInt();
+		if (mappings < 0) {
+			throw new java.io.InvalidObjectException("Illegal mappings count: " + mappings);
+		}
+		threshold = MyHashMap.tableSizeFor(Math.max(capacity, (int) (mappings / loadFactor) + 1));
+		for (int i = 0; i < mappings; i++) {
+			K key = (K) s.readObject();
+			V value = (V) s.readObject();
+			putVal(maskNull(key), value, false);
+		}
+	}
+}
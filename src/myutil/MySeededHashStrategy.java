@@ -0,0 +1,31 @@
+package myutil;
+
+import java.io.Serializable;
+
+import mylang.MyHashing;
+import mylang.MyString;
+
+/*
+ * MyHashStrategy.seeded返回的实现，种子随着哈希表一起序列化，反序列化之后得到的hash值不变
+ */
+final class MySeededHashStrategy<K> implements MyHashStrategy<K>, Serializable {
+
+	private static final long serialVersionUID = -2390814420361273485L;
+
+	private final long seed;
+
+	MySeededHashStrategy(long seed) {
+		this.seed = seed;
+	}
+
+	public int hash(K key) {
+		long h;
+		if (key instanceof MyString) {
+			h = MyHashing.hash64((MyString) key, seed);
+		}
+		else {
+			h = MyHashing.hash64(key.hashCode(), seed);
+		}
+		return MyHashing.fold(h);
+	}
+}
@@ -53,16 +53,31 @@ public class MyTreeMap<K, V> extends MyAbstractMap<K, V> implements MyNavigableM
 
 	private transient int modCount = 0;// 树的修改次数（添加，刪除操作次数）
 
+	/*
+	 * 是否维护顺序统计信息，打开以后每个节点的count都是以它为根的子树的节点数，
+	 * rank、select和子视图的size都可以在O(logn)内完成，代价是插入删除时要沿路径修改count
+	 */
+	private final boolean orderStatistics;
+
 	public MyTreeMap() {
 		comparator = null;
+		orderStatistics = false;
 	}// 默认构造器，使用默认比较器
 
 	public MyTreeMap(Comparator<? super K> comparator) {
 		this.comparator = comparator;
+		orderStatistics = false;
 	}// 使用一个比较器初始化一个map
 
+	// comparator为null时使用自然顺序，orderStatistics为true时维护子树大小
+	public MyTreeMap(Comparator<? super K> comparator, boolean orderStatistics) {
+		this.comparator = comparator;
+		this.orderStatistics = orderStatistics;
+	}
+
 	public MyTreeMap(MyMap<? extends K, ? extends V> map) {
 		comparator = null;// 使用自然顺序比较器
+		orderStatistics = false;
 		putAll(map);
 	}// 使用一个常规map初始化treemap
 
@@ -70,6 +85,7 @@ public class MyTreeMap<K, V> extends MyAbstractMap<K, V> implements MyNavigableM
 	// XXX 如果map过大会不会造成stackoverflow？？？？
 	public MyTreeMap(MySortedMap<K, ? extends V> m) {
 		this.comparator = m.comparator();
+		orderStatistics = false;
 		try {
 			buildFromSorted(m.size(), m.entrySet().iterator(), null, null);
 		} catch (ClassNotFoundException e) {
@@ -177,7 +193,7 @@ public class MyTreeMap<K, V> extends MyAbstractMap<K, V> implements MyNavigableM
 		Comparator<? super K> cpr = comparator;
 		if (cpr != null) {
 			Entry<K, V> p = root;
-			while (root != null) {
+			while (p != null) {
 				int cmp = cpr.compare(k, p.key);
 				if (cmp < 0) {
 					p = p.left;
@@ -397,6 +413,11 @@ public class MyTreeMap<K, V> extends MyAbstractMap<K, V> implements MyNavigableM
 		else {
 			parent.right = e;
 		}
+		if (orderStatistics) {
+			for (Entry<K, V> q = parent; q != null; q = q.parent) {
+				q.count++;
+			}
+		}// 新节点的所有祖先的子树都多了一个节点，之后的旋转会自己修正count
 		fixAfterInsertion(e);// 对插入的值进行调整
 		size++;
 		modCount++;
@@ -447,6 +468,73 @@ public class MyTreeMap<K, V> extends MyAbstractMap<K, V> implements MyNavigableM
 		return clone;
 	}
 
+	/*
+	 * 以下是顺序统计的方法，只有使用MyTreeMap(Comparator, boolean)打开了orderStatistics才能使用
+	 */
+
+	/**
+	 * 返回map中小于key的键的个数，key不需要在map中，O(logn)
+	 *
+	 * @throws UnsupportedOperationException
+	 *             没有打开orderStatistics
+	 */
+	public int rank(K key) {
+		checkOrderStatistics();
+		return countBelow(key, false);
+	}
+
+	/**
+	 * 返回从小到大第index个键（从0开始），O(logn)
+	 *
+	 * @throws IndexOutOfBoundsException
+	 *             index小于0或者大于等于size
+	 * @throws UnsupportedOperationException
+	 *             没有打开orderStatistics
+	 */
+	public K select(int index) {
+		checkOrderStatistics();
+		if (index < 0 || index >= size) {
+			throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+		}
+		Entry<K, V> p = root;
+		for (;;) {
+			int l = countOf(p.left);
+			if (index < l) {
+				p = p.left;
+			}
+			else if (index > l) {
+				index -= l + 1;
+				p = p.right;
+			}
+			else {
+				return p.key;
+			}
+		}
+	}// 根据左子树的大小决定往哪边走
+
+	private void checkOrderStatistics() {
+		if (!orderStatistics) {
+			throw new UnsupportedOperationException("order statistics not enabled");
+		}
+	}
+
+	// 小于key（inclusive为true时是小于等于）的键的个数，从根往下走，每次往右走的时候加上左子树和当前节点
+	final int countBelow(Object key, boolean inclusive) {
+		int n = 0;
+		Entry<K, V> p = root;
+		while (p != null) {
+			int c = compare(key, p.key);
+			if (c < 0 || (c == 0 && !inclusive)) {
+				p = p.left;
+			}
+			else {
+				n += countOf(p.left) + 1;
+				p = p.right;
+			}
+		}
+		return n;
+	}
+
 	/*
 	 * 以下的方法是实现NavigableMap的API方法
 	 */
@@ -656,8 +744,7 @@ public class MyTreeMap<K, V> extends MyAbstractMap<K, V> implements MyNavigableM
 		}
 
 		public Spliterator<V> spliterator() {
-			// TODO 返回一个分割迭代器，涉及到并行计算。。之后再来看
-			return null;
+			return new ValueSpliterator<K, V>(MyTreeMap.this, null, null, 0, -1, 0);
 		}
 	}
 
@@ -701,8 +788,7 @@ public class MyTreeMap<K, V> extends MyAbstractMap<K, V> implements MyNavigableM
 		}
 
 		public Spliterator<MyMap.Entry<K, V>> spliterator() {
-			// TODO
-			return null;
+			return new EntrySpliterator<K, V>(MyTreeMap.this, null, null, 0, -1, 0);
 		}
 	}
 
@@ -837,8 +923,7 @@ public class MyTreeMap<K, V> extends MyAbstractMap<K, V> implements MyNavigableM
 		}
 
 		public Spliterator<E> spliterator() {
-			// TODO这里涉及到分割迭代器
-			return null;
+			return keySpliteratorFor(m);
 		}
 	}
 
@@ -1063,6 +1148,13 @@ public class MyTreeMap<K, V> extends MyAbstractMap<K, V> implements MyNavigableM
 			return false;
 		}
 
+		// 范围内元素的个数等于不太高的个数减去太低的个数，需要m打开orderStatistics，O(logn)
+		final int rangeSize() {
+			int high = toEnd ? m.size : m.countBelow(hi, hiInclusive);
+			int low = fromStart ? 0 : m.countBelow(lo, !loInclusive);
+			return Math.max(high - low, 0);// lo和hi相等并且都是开区间的时候可能是-1
+		}
+
 		// 判断一个key是否在指定的lo和hi之间,区间的开闭由初始化的时候指定
 		final boolean inRange(Object key) {
 			return (!tooLow(key)) && (!tooHigh(key));
@@ -1088,14 +1180,14 @@ public class MyTreeMap<K, V> extends MyAbstractMap<K, V> implements MyNavigableM
 					.getHigherEntry(lo));
 
 			// 当lo是最后一个元素的时候就可能tooHigh
-			return (e == null || tooHigh(e)) ? null : e;
+			return (e == null || tooHigh(e.key)) ? null : e;
 		}
 
 		// 返回在这个子map中最大的元素
 		final MyTreeMap.Entry<K, V> absHighest() {
 			MyTreeMap.Entry<K, V> e = toEnd ? m.getLastEntry() : (hiInclusive ? m.getFloorEntry(hi) : m
 					.getLowerEntry(hi));
-			return (e == null || tooLow(e)) ? null : e;
+			return (e == null || tooLow(e.key)) ? null : e;
 		}
 
 		// 返回大于等于key的第一个
@@ -1104,7 +1196,7 @@ public class MyTreeMap<K, V> extends MyAbstractMap<K, V> implements MyNavigableM
 				return absLowest();
 			}
 			MyTreeMap.Entry<K, V> e = m.getCeilingEntry(key);
-			return (e == null || tooHigh(e)) ? null : e;
+			return (e == null || tooHigh(e.key)) ? null : e;
 		}
 
 		// 返回大于key的第一个
@@ -1113,7 +1205,7 @@ public class MyTreeMap<K, V> extends MyAbstractMap<K, V> implements MyNavigableM
 				return absLowest();
 			}
 			MyTreeMap.Entry<K, V> e = m.getHigherEntry(key);
-			return (e == null || tooHigh(e)) ? null : e;
+			return (e == null || tooHigh(e.key)) ? null : e;
 		}
 
 		// 返回小于等于key的第一个
@@ -1122,7 +1214,7 @@ public class MyTreeMap<K, V> extends MyAbstractMap<K, V> implements MyNavigableM
 				return absHighest();
 			}
 			MyTreeMap.Entry<K, V> e = m.getFloorEntry(key);
-			return (e == null || tooLow(key)) ? null : e;
+			return (e == null || tooLow(e.key)) ? null : e;
 		}
 
 		// 返回小于key的第一个
@@ -1131,7 +1223,7 @@ public class MyTreeMap<K, V> extends MyAbstractMap<K, V> implements MyNavigableM
 				return absHighest();
 			}
 			MyTreeMap.Entry<K, V> e = m.getLowerEntry(key);
-			return (e == null || tooLow(key)) ? null : e;
+			return (e == null || tooLow(e.key)) ? null : e;
 		}
 
 		// 返回上界以外的第一个元素（围墙元素，该元素不包含在子map中）
@@ -1310,6 +1402,9 @@ public class MyTreeMap<K, V> extends MyAbstractMap<K, V> implements MyNavigableM
 				if (fromStart && toEnd) {
 					return m.size;
 				}
+				if (m.orderStatistics) {
+					return rangeSize();
+				}// 维护了子树大小，不需要遍历
 				// 没有初始化，或者外部的map发生了修改，size利用缓存机制
 				if (size == -1 || sizeModCount != m.modCount) {
 					sizeModCount = m.modCount;
@@ -1326,7 +1421,7 @@ public class MyTreeMap<K, V> extends MyAbstractMap<K, V> implements MyNavigableM
 			// 有各种方式判断
 			public boolean isEmpty() {
 				MyTreeMap.Entry<K, V> n = absLowest();
-				return n == null || tooHigh(n);
+				return n == null || tooHigh(n.key);
 			}
 
 			// 需要进行类型检查，判断key的范围，判断value是否相等,然后调用treeMap类的方法，涉及多个判断过程的时候使用短路算法
@@ -1381,7 +1476,7 @@ public class MyTreeMap<K, V> extends MyAbstractMap<K, V> implements MyNavigableM
 
 			// 必须有下一个，而且下一个不能是设置的越界
 			public final boolean hasNext() {
-				return next != null && next.key != UNBOUNDED;
+				return next != null && next.key != fenceKey;
 			}
 
 			// 返回下一个，lastReturned才是现在所处的位置
@@ -1455,7 +1550,7 @@ public class MyTreeMap<K, V> extends MyAbstractMap<K, V> implements MyNavigableM
 			}
 
 			public myutil.MyMap.Entry<K, V> next() {
-				return nextEntry();
+				return prevEntry();
 			}
 
 			public void remove() {
@@ -1783,6 +1878,7 @@ public class MyTreeMap<K, V> extends MyAbstractMap<K, V> implements MyNavigableM
 		Entry<K, V> right;
 		Entry<K, V> parent;
 		boolean color = BLACK;// 初始化时都是黑色
+		int count = 1;// 以该节点为根的子树的节点数，只有orderStatistics打开时才维护，放在对象头对齐的空隙中不增加内存
 
 		Entry(K key, V value, Entry<K, V> parent) {
 			this.key = key;
@@ -1833,7 +1929,7 @@ public class MyTreeMap<K, V> extends MyAbstractMap<K, V> implements MyNavigableM
 	final Entry<K, V> getFirstEntry() {
 		Entry<K, V> p = root;
 		if (p != null) {
-			while (p != null) {
+			while (p.left != null) {
 				p = p.left;
 			}
 		}
@@ -1904,6 +2000,10 @@ public class MyTreeMap<K, V> extends MyAbstractMap<K, V> implements MyNavigableM
 	 * 以下是支持旋转操作调整红黑树节点形态和颜色的静态操作
 	 */
 
+	private static <K, V> int countOf(Entry<K, V> e) {
+		return (e == null ? 0 : e.count);
+	}// 空子树的大小是0
+
 	private static <K, V> boolean colorOf(Entry<K, V> e) {
 		return e == null ? BLACK : e.color;
 	}// 返回节点的颜色，null默认为黑色因为叶节点都是null而且为黑色
@@ -1946,6 +2046,10 @@ public class MyTreeMap<K, V> extends MyAbstractMap<K, V> implements MyNavigableM
 			}
 			r.left = p;
 			p.parent = r;
+			if (orderStatistics) {
+				r.count = p.count;// 旋转不改变整棵子树的大小
+				p.count = countOf(p.left) + countOf(p.right) + 1;
+			}
 		}
 	}// 将该节点为根的子树左旋，需要调整三对父子关系
 
@@ -1970,6 +2074,10 @@ public class MyTreeMap<K, V> extends MyAbstractMap<K, V> implements MyNavigableM
 			}
 			l.right = p;
 			p.parent = l;
+			if (orderStatistics) {
+				l.count = p.count;
+				p.count = countOf(p.left) + countOf(p.right) + 1;
+			}
 		}
 	}// 将该节点为根的子树右旋
 
@@ -2052,6 +2160,13 @@ public class MyTreeMap<K, V> extends MyAbstractMap<K, V> implements MyNavigableM
 			p = s;
 		}// 用后继结点代替该节点，因为后继结点一定是没有左子节点的，所以也完成了控制最多只有一个子树的任务
 
+		if (orderStatistics) {
+			for (Entry<K, V> q = p.parent; q != null; q = q.parent) {
+				q.count--;
+			}
+			p.count = 0;// p在fixAfterDeletion中可能还挂在树上，不能再被算进去
+		}// 真正被摘掉的是p，它的所有祖先都少了一个节点
+
 		Entry<K, V> replacement = (p.left != null ? p.left : p.right);
 
 		if (replacement != null) {// 用唯一的一个子树替代该节点
@@ -2219,7 +2334,7 @@ public class MyTreeMap<K, V> extends MyAbstractMap<K, V> implements MyNavigableM
 		int mid = (hi + lo) >>> 1;
 		Entry<K, V> left = null;
 		if (lo < mid) {
-			left = buildFromSorted(level, lo, mid - 1, redLevel, it, str, defaultVal);// 递归方式构建左子树
+			left = buildFromSorted(level + 1, lo, mid - 1, redLevel, it, str, defaultVal);// 递归方式构建左子树
 		}
 
 		// 得到此次遍历的根节点
@@ -2245,6 +2360,7 @@ public class MyTreeMap<K, V> extends MyAbstractMap<K, V> implements MyNavigableM
 
 		// 处理现在的根节点
 		Entry<K, V> middle = new Entry<K, V>(key, value, null);
+		middle.count = hi - lo + 1;// 子树的大小就是区间的长度，不管是否打开orderStatistics都顺手设置
 		if (level == redLevel) {
 			middle.color = RED;
 		}
@@ -2254,7 +2370,7 @@ public class MyTreeMap<K, V> extends MyAbstractMap<K, V> implements MyNavigableM
 		}
 		if (mid < hi) {
 			// 递归得到右子树
-			Entry<K, V> right = buildFromSorted(level, mid + 1, hi, redLevel, it, str, defaultVal);
+			Entry<K, V> right = buildFromSorted(level + 1, mid + 1, hi, redLevel, it, str, defaultVal);
 			middle.right = right;
 			right.parent = middle;
 		}
@@ -2269,136 +2385,417 @@ public class MyTreeMap<K, V> extends MyAbstractMap<K, V> implements MyNavigableM
 		return level;
 	}
 
-	static <K> Spliterator<K> keySpliteratorFor(MyNavigableMap<K, ?> map) {
-		// TODO
-		return null;
+	/*
+	 * 返回map的键的分割迭代器，KeySet的spliterator使用
+	 * 整个map（包括整个map的逆序视图）使用基于树结构的分割迭代器，子map使用SubMapKeyIterator，不能分割
+	 */
+	static <K> Spliterator<K> keySpliteratorFor(MyNavigableMap<K, ?> m) {
+		if (m instanceof MyTreeMap) {
+			@SuppressWarnings("unchecked")
+			MyTreeMap<K, Object> t = (MyTreeMap<K, Object>) m;
+			return t.keySpliterator();
+		}
+		if (m instanceof DescendingSubMap) {
+			@SuppressWarnings("unchecked")
+			DescendingSubMap<K, ?> dm = (DescendingSubMap<K, ?>) m;
+			MyTreeMap<K, ?> tm = dm.m;
+			if (dm == tm.descendingMap) {
+				@SuppressWarnings("unchecked")
+				MyTreeMap<K, Object> t = (MyTreeMap<K, Object>) tm;
+				return t.descendingKeySpliterator();
+			}
+		}
+		@SuppressWarnings("unchecked")
+		NavigableSubMap<K, ?> sm = (NavigableSubMap<K, ?>) m;
+		return sm.keySpliterator();
 	}
 
 	final Spliterator<K> keySpliterator() {
-		// TODO
-		return null;
+		return new KeySpliterator<K, V>(this, null, null, 0, -1, 0);
 	}
 
 	final Spliterator<K> descendingKeySpliterator() {
-		// TODO
-		return null;
+		return new DescendingKeySpliterator<K, V>(this, null, null, 0, -2, 0);
 	}
 
+	/*
+	 * 分割迭代器的基类
+	 *
+	 * 迭代的范围是[current, fence)，fence为null表示一直到最后
+	 * 第一次分割的时候以根节点为界分成两半，之后左半部分以fence的左孩子为界，右半部分以current的右孩子为界，
+	 * 因为红黑树是平衡的，每一次分割得到的两部分的大小大致相等，所以估计的大小每次减半
+	 * 只有没有分割过的迭代器的大小是准确的
+	 *
+	 * 在第一次使用的时候才初始化（est < 0），这样在创建迭代器之后、开始遍历之前对map的修改也能被看到
+	 */
 	static class TreeMapSpliterator<K, V> {
-		// TODO
+		final MyTreeMap<K, V> tree;
+		MyTreeMap.Entry<K, V> current; // 下一个要返回的节点
+		MyTreeMap.Entry<K, V> fence; // 最后一个节点的下一个节点，null表示到最后
+		int side; // 0表示没有分割过，-1表示分割出来的左半部分，1表示分割之后剩下的右半部分
+		int est; // 估计的大小，-1表示还没有初始化（正序），-2表示还没有初始化（逆序）
+		int expectedModCount; // 用来检测并发修改
+
+		TreeMapSpliterator(MyTreeMap<K, V> tree, MyTreeMap.Entry<K, V> origin, MyTreeMap.Entry<K, V> fence,
+				int side, int est, int expectedModCount) {
+			this.tree = tree;
+			this.current = origin;
+			this.fence = fence;
+			this.side = side;
+			this.est = est;
+			this.expectedModCount = expectedModCount;
+		}
+
+		// 如果还没有初始化，先初始化再返回估计的大小
+		final int getEstimate() {
+			int s;
+			MyTreeMap<K, V> t;
+			if ((s = est) < 0) {
+				if ((t = tree) != null) {
+					current = (s == -1) ? t.getFirstEntry() : t.getLastEntry();
+					s = est = t.size;
+					expectedModCount = t.modCount;
+				}
+				else {
+					s = est = 0;
+				}
+			}
+			return s;
+		}
+
+		public final long estimateSize() {
+			return (long) getEstimate();
+		}
 	}
 
 	static final class KeySpliterator<K, V> extends TreeMapSpliterator<K, V> implements Spliterator<K> {
-
-		@Override
-		public boolean tryAdvance(Consumer<? super K> action) {
-			// TODO Auto-generated method stub
-			return false;
+		KeySpliterator(MyTreeMap<K, V> tree, MyTreeMap.Entry<K, V> origin, MyTreeMap.Entry<K, V> fence, int side,
+				int est, int expectedModCount) {
+			super(tree, origin, fence, side, est, expectedModCount);
+		}
+
+		// 分割出[current, s)返回，自己剩下[s, fence)
+		public KeySpliterator<K, V> trySplit() {
+			if (est < 0) {
+				getEstimate();
+			}
+			int d = side;
+			MyTreeMap.Entry<K, V> e = current, f = fence, s = ((e == null || e == f) ? null // 空的
+					: (d == 0) ? tree.root // 第一次分割
+							: (d > 0) ? e.right // 右半部分
+									: (d < 0 && f != null) ? f.left // 左半部分
+											: null);
+			if (s != null && s != e && s != f && tree.compare(e.key, s.key) < 0) {// e还没有越过s
+				side = 1;
+				return new KeySpliterator<>(tree, e, current = s, -1, est >>>= 1, expectedModCount);
+			}
+			return null;
 		}
 
-		@Override
-		public Spliterator<K> trySplit() {
-			// TODO Auto-generated method stub
-			return null;
+		// 和successor相同的方式遍历，只在最后检查一次并发修改
+		public void forEachRemaining(Consumer<? super K> action) {
+			if (action == null) {
+				throw new NullPointerException();
+			}
+			if (est < 0) {
+				getEstimate();
+			}
+			MyTreeMap.Entry<K, V> f = fence, e, p, pl;
+			if ((e = current) != null && e != f) {
+				current = f;
+				do {
+					action.accept(e.key);
+					if ((p = e.right) != null) {
+						while ((pl = p.left) != null) {
+							p = pl;
+						}
+					}
+					else {
+						while ((p = e.parent) != null && e == p.right) {
+							e = p;
+						}
+					}
+				} while ((e = p) != null && e != f);
+				if (tree.modCount != expectedModCount) {
+					throw new ConcurrentModificationException();
+				}
+			}
 		}
 
-		@Override
-		public long estimateSize() {
-			// TODO Auto-generated method stub
-			return 0;
+		public boolean tryAdvance(Consumer<? super K> action) {
+			MyTreeMap.Entry<K, V> e;
+			if (action == null) {
+				throw new NullPointerException();
+			}
+			if (est < 0) {
+				getEstimate();
+			}
+			if ((e = current) == null || e == fence) {
+				return false;
+			}
+			current = successor(e);
+			action.accept(e.key);
+			if (tree.modCount != expectedModCount) {
+				throw new ConcurrentModificationException();
+			}
+			return true;
 		}
 
-		@Override
 		public int characteristics() {
-			// TODO Auto-generated method stub
-			return 0;
+			return (side == 0 ? Spliterator.SIZED : 0) | Spliterator.DISTINCT | Spliterator.SORTED
+					| Spliterator.ORDERED;
 		}
 
+		public final Comparator<? super K> getComparator() {
+			return tree.comparator;
+		}
 	}
 
+	// 逆序的键，分割的方向和KeySpliterator相反，因为不是按照comparator的顺序，所以没有SORTED
 	static final class DescendingKeySpliterator<K, V> extends TreeMapSpliterator<K, V> implements Spliterator<K> {
-
-		@Override
-		public boolean tryAdvance(Consumer<? super K> action) {
-			// TODO Auto-generated method stub
-			return false;
+		DescendingKeySpliterator(MyTreeMap<K, V> tree, MyTreeMap.Entry<K, V> origin, MyTreeMap.Entry<K, V> fence,
+				int side, int est, int expectedModCount) {
+			super(tree, origin, fence, side, est, expectedModCount);
 		}
 
-		@Override
-		public Spliterator<K> trySplit() {
-			// TODO Auto-generated method stub
+		public DescendingKeySpliterator<K, V> trySplit() {
+			if (est < 0) {
+				getEstimate();
+			}
+			int d = side;
+			MyTreeMap.Entry<K, V> e = current, f = fence, s = ((e == null || e == f) ? null
+					: (d == 0) ? tree.root
+							: (d < 0) ? e.left
+									: (d > 0 && f != null) ? f.right
+											: null);
+			if (s != null && s != e && s != f && tree.compare(e.key, s.key) > 0) {
+				side = 1;
+				return new DescendingKeySpliterator<>(tree, e, current = s, -1, est >>>= 1, expectedModCount);
+			}
 			return null;
 		}
 
-		@Override
-		public long estimateSize() {
-			// TODO Auto-generated method stub
-			return 0;
+		// 和predecessor相同的方式遍历
+		public void forEachRemaining(Consumer<? super K> action) {
+			if (action == null) {
+				throw new NullPointerException();
+			}
+			if (est < 0) {
+				getEstimate();
+			}
+			MyTreeMap.Entry<K, V> f = fence, e, p, pr;
+			if ((e = current) != null && e != f) {
+				current = f;
+				do {
+					action.accept(e.key);
+					if ((p = e.left) != null) {
+						while ((pr = p.right) != null) {
+							p = pr;
+						}
+					}
+					else {
+						while ((p = e.parent) != null && e == p.left) {
+							e = p;
+						}
+					}
+				} while ((e = p) != null && e != f);
+				if (tree.modCount != expectedModCount) {
+					throw new ConcurrentModificationException();
+				}
+			}
 		}
 
-		@Override
-		public int characteristics() {
-			// TODO Auto-generated method stub
-			return 0;
+		public boolean tryAdvance(Consumer<? super K> action) {
+			MyTreeMap.Entry<K, V> e;
+			if (action == null) {
+				throw new NullPointerException();
+			}
+			if (est < 0) {
+				getEstimate();
+			}
+			if ((e = current) == null || e == fence) {
+				return false;
+			}
+			current = predecessor(e);
+			action.accept(e.key);
+			if (tree.modCount != expectedModCount) {
+				throw new ConcurrentModificationException();
+			}
+			return true;
 		}
 
+		public int characteristics() {
+			return (side == 0 ? Spliterator.SIZED : 0) | Spliterator.DISTINCT | Spliterator.ORDERED;
+		}
 	}
 
+	// 值可能重复，也不是有序的，所以只有ORDERED
 	static final class ValueSpliterator<K, V> extends TreeMapSpliterator<K, V> implements Spliterator<V> {
-
-		@Override
-		public boolean tryAdvance(Consumer<? super V> action) {
-			// TODO Auto-generated method stub
-			return false;
+		ValueSpliterator(MyTreeMap<K, V> tree, MyTreeMap.Entry<K, V> origin, MyTreeMap.Entry<K, V> fence, int side,
+				int est, int expectedModCount) {
+			super(tree, origin, fence, side, est, expectedModCount);
 		}
 
-		@Override
-		public Spliterator<V> trySplit() {
-			// TODO Auto-generated method stub
+		public ValueSpliterator<K, V> trySplit() {
+			if (est < 0) {
+				getEstimate();
+			}
+			int d = side;
+			MyTreeMap.Entry<K, V> e = current, f = fence, s = ((e == null || e == f) ? null
+					: (d == 0) ? tree.root
+							: (d > 0) ? e.right
+									: (d < 0 && f != null) ? f.left
+											: null);
+			if (s != null && s != e && s != f && tree.compare(e.key, s.key) < 0) {
+				side = 1;
+				return new ValueSpliterator<>(tree, e, current = s, -1, est >>>= 1, expectedModCount);
+			}
 			return null;
 		}
 
-		@Override
-		public long estimateSize() {
-			// TODO Auto-generated method stub
-			return 0;
+		public void forEachRemaining(Consumer<? super V> action) {
+			if (action == null) {
+				throw new NullPointerException();
+			}
+			if (est < 0) {
+				getEstimate();
+			}
+			MyTreeMap.Entry<K, V> f = fence, e, p, pl;
+			if ((e = current) != null && e != f) {
+				current = f;
+				do {
+					action.accept(e.value);
+					if ((p = e.right) != null) {
+						while ((pl = p.left) != null) {
+							p = pl;
+						}
+					}
+					else {
+						while ((p = e.parent) != null && e == p.right) {
+							e = p;
+						}
+					}
+				} while ((e = p) != null && e != f);
+				if (tree.modCount != expectedModCount) {
+					throw new ConcurrentModificationException();
+				}
+			}
 		}
 
-		@Override
-		public int characteristics() {
-			// TODO Auto-generated method stub
-			return 0;
+		public boolean tryAdvance(Consumer<? super V> action) {
+			MyTreeMap.Entry<K, V> e;
+			if (action == null) {
+				throw new NullPointerException();
+			}
+			if (est < 0) {
+				getEstimate();
+			}
+			if ((e = current) == null || e == fence) {
+				return false;
+			}
+			current = successor(e);
+			action.accept(e.value);
+			if (tree.modCount != expectedModCount) {
+				throw new ConcurrentModificationException();
+			}
+			return true;
 		}
 
+		public int characteristics() {
+			return (side == 0 ? Spliterator.SIZED : 0) | Spliterator.ORDERED;
+		}
 	}
 
 	static final class EntrySpliterator<K, V> extends TreeMapSpliterator<K, V> implements
 			Spliterator<MyMap.Entry<K, V>> {
-
-		@Override
-		public boolean tryAdvance(Consumer<? super MyMap.Entry<K, V>> action) {
-			// TODO Auto-generated method stub
-			return false;
+		EntrySpliterator(MyTreeMap<K, V> tree, MyTreeMap.Entry<K, V> origin, MyTreeMap.Entry<K, V> fence, int side,
+				int est, int expectedModCount) {
+			super(tree, origin, fence, side, est, expectedModCount);
 		}
 
-		@Override
-		public Spliterator<MyMap.Entry<K, V>> trySplit() {
-			// TODO Auto-generated method stub
+		public EntrySpliterator<K, V> trySplit() {
+			if (est < 0) {
+				getEstimate();
+			}
+			int d = side;
+			MyTreeMap.Entry<K, V> e = current, f = fence, s = ((e == null || e == f) ? null
+					: (d == 0) ? tree.root
+							: (d > 0) ? e.right
+									: (d < 0 && f != null) ? f.left
+											: null);
+			if (s != null && s != e && s != f && tree.compare(e.key, s.key) < 0) {
+				side = 1;
+				return new EntrySpliterator<>(tree, e, current = s, -1, est >>>= 1, expectedModCount);
+			}
 			return null;
 		}
 
-		@Override
-		public long estimateSize() {
-			// TODO Auto-generated method stub
-			return 0;
+		public void forEachRemaining(Consumer<? super MyMap.Entry<K, V>> action) {
+			if (action == null) {
+				throw new NullPointerException();
+			}
+			if (est < 0) {
+				getEstimate();
+			}
+			MyTreeMap.Entry<K, V> f = fence, e, p, pl;
+			if ((e = current) != null && e != f) {
+				current = f;
+				do {
+					action.accept(e);
+					if ((p = e.right) != null) {
+						while ((pl = p.left) != null) {
+							p = pl;
+						}
+					}
+					else {
+						while ((p = e.parent) != null && e == p.right) {
+							e = p;
+						}
+					}
+				} while ((e = p) != null && e != f);
+				if (tree.modCount != expectedModCount) {
+					throw new ConcurrentModificationException();
+				}
+			}
+		}
+
+		public boolean tryAdvance(Consumer<? super MyMap.Entry<K, V>> action) {
+			MyTreeMap.Entry<K, V> e;
+			if (action == null) {
+				throw new NullPointerException();
+			}
+			if (est < 0) {
+				getEstimate();
+			}
+			if ((e = current) == null || e == fence) {
+				return false;
+			}
+			current = successor(e);
+			action.accept(e);
+			if (tree.modCount != expectedModCount) {
+				throw new ConcurrentModificationException();
+			}
+			return true;
 		}
 
-		@Override
 		public int characteristics() {
-			// TODO Auto-generated method stub
-			return 0;
+			return (side == 0 ? Spliterator.SIZED : 0) | Spliterator.DISTINCT | Spliterator.SORTED
+					| Spliterator.ORDERED;
 		}
 
+		// 按照键的顺序排列
+		@SuppressWarnings("unchecked")
+		public Comparator<MyMap.Entry<K, V>> getComparator() {
+			if (tree.comparator != null) {
+				return MyMap.Entry.comparingByKey(tree.comparator);
+			}
+			else {
+				return (Comparator<MyMap.Entry<K, V>> & Serializable) (e1, e2) -> {
+					Comparable<? super K> k1 = (Comparable<? super K>) e1.getKey();
+					return k1.compareTo(e2.getKey());
+				};
+			}
+		}
 	}
 }
 /*
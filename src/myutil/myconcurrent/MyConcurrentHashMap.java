@@ -1,5 +1,1589 @@
 package myutil.myconcurrent;
 
-public class MyConcurrentHashMap {
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.Serializable;
+import java.util.AbstractCollection;
+import java.util.AbstractSet;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.BiConsumer;
+import java.util.function.BiFunction;
+import java.util.function.Function;
 
+import myutil.MyAbstractMap;
+import myutil.MyHashStrategy;
+import myutil.MyMap;
+
+/*
+ * 线程安全的哈希表，table的结构和MyHashMap相同，都是数组加链表
+ *
+ * 读操作不加锁，table和Node中的val、next都是volatile的，table是AtomicReferenceArray，以volatile的方式读取数组中的元素
+ * 写操作如果桶是空的，直接CAS设置头结点；否则对桶的头结点加锁，只锁住一个桶，不同的桶之间互不影响
+ * 元素个数使用LongAdder统计，多个线程同时添加的时候不会在同一个变量上竞争
+ * 扩容的时候旧数组被分成多个区间，遇到扩容的写线程会领取区间帮忙迁移，不会有线程等待一次完整的rehash
+ *
+ * 与MyHashMap不同，键和值都不能为null，因为get返回null的时候无法区分是不存在还是值为null，
+ * 而并发的情况下又不能再调用一次containsKey来判断
+ */
+public class MyConcurrentHashMap<K, V> extends MyAbstractMap<K, V> implements MyMap<K, V>, Serializable {
+	private static final long serialVersionUID = 7249069246763182397L;
+
+	/*
+	 * 常量
+	 */
+
+	private static final int MAXIMUM_CAPACITY = 1 << 30;
+
+	private static final int DEFAULT_CAPACITY = 16;
+
+	// 加载因子固定为0.75，扩容阈值用n - (n >>> 2)计算
+	private static final float LOAD_FACTOR = 0.75f;
+
+	/*
+	 * 特殊节点的hash值，都是负数，普通节点的hash值最高位总是0
+	 */
+	static final int MOVED = -1; // ForwardingNode的hash，表示这个桶已经迁移到了新的数组中
+	static final int RESERVED = -3; // ReservationNode的hash，computeIfAbsent和compute占位使用
+	static final int HASH_BITS = 0x7fffffff; // 普通节点hash值可用的位
+
+	// CPU的个数，用来决定每次迁移领取的区间大小
+	static final int NCPU = Runtime.getRuntime().availableProcessors();
+
+	// 每个线程一次领取的最少的桶数
+	private static final int MIN_TRANSFER_STRIDE = 16;
+
+	// sizeCtl中扩容标记占用的位数
+	private static final int RESIZE_STAMP_BITS = 16;
+
+	// 同时参与迁移的最多的线程数
+	private static final int MAX_RESIZERS = (1 << (32 - RESIZE_STAMP_BITS)) - 1;
+
+	// 扩容标记在sizeCtl中左移的位数
+	private static final int RESIZE_STAMP_SHIFT = 32 - RESIZE_STAMP_BITS;
+
+	/*
+	 * 节点
+	 */
+
+	// 普通的链表节点，val和next都是volatile的，读线程不加锁也能看到最新的值
+	static class Node<K, V> implements MyMap.Entry<K, V> {
+		final int hash;
+		final K key;
+		volatile V val;
+		volatile Node<K, V> next;
+
+		Node(int hash, K key, V val) {
+			this.hash = hash;
+			this.key = key;
+			this.val = val;
+		}
+
+		Node(int hash, K key, V val, Node<K, V> next) {
+			this(hash, key, val);
+			this.next = next;
+		}
+
+		public final K getKey() {
+			return key;
+		}
+
+		public final V getValue() {
+			return val;
+		}
+
+		public final int hashCode() {
+			return key.hashCode() ^ val.hashCode();
+		}
+
+		public final String toString() {
+			return key + "=" + val;
+		}
+
+		// 不支持直接修改，需要通过map的put方法修改，迭代器返回的是MapEntry
+		public final V setValue(V value) {
+			throw new UnsupportedOperationException();
+		}
+
+		public final boolean equals(Object o) {
+			Object k, v, u;
+			MyMap.Entry<?, ?> e;
+			return ((o instanceof MyMap.Entry) && (k = (e = (MyMap.Entry<?, ?>) o).getKey()) != null
+					&& (v = e.getValue()) != null && (k == key || k.equals(key)) && (v == (u = val) || v.equals(u)));
+		}
+
+		// 在以当前节点为头结点的链表中查找，子类可以重写
+		Node<K, V> find(int h, Object k) {
+			Node<K, V> e = this;
+			if (k != null) {
+				do {
+					K ek;
+					if (e.hash == h && ((ek = e.key) == k || (ek != null && k.equals(ek)))) {
+						return e;
+					}
+				} while ((e = e.next) != null);
+			}
+			return null;
+		}
+	}
+
+	// 扩容的时候放在已经迁移完的桶中，查找的时候转到新的数组中去查找
+	static final class ForwardingNode<K, V> extends Node<K, V> {
+		final AtomicReferenceArray<Node<K, V>> nextTable;
+
+		ForwardingNode(AtomicReferenceArray<Node<K, V>> tab) {
+			super(MOVED, null, null);
+			this.nextTable = tab;
+		}
+
+		Node<K, V> find(int h, Object k) {
+			// 用循环代替递归，避免连续多次扩容的时候栈太深
+			outer: for (AtomicReferenceArray<Node<K, V>> tab = nextTable;;) {
+				Node<K, V> e;
+				int n;
+				if (k == null || tab == null || (n = tab.length()) == 0 || (e = tabAt(tab, (n - 1) & h)) == null) {
+					return null;
+				}
+				for (;;) {
+					int eh;
+					K ek;
+					if ((eh = e.hash) == h && ((ek = e.key) == k || (ek != null && k.equals(ek)))) {
+						return e;
+					}
+					if (eh < 0) {
+						if (e instanceof ForwardingNode) {
+							tab = ((ForwardingNode<K, V>) e).nextTable;
+							continue outer;
+						}
+						else {
+							return e.find(h, k);
+						}
+					}
+					if ((e = e.next) == null) {
+						return null;
+					}
+				}
+			}
+		}
+	}
+
+	// computeIfAbsent和compute在空桶上计算值的时候先放一个占位节点并加锁，计算完之后再替换成真正的节点
+	static final class ReservationNode<K, V> extends Node<K, V> {
+		ReservationNode() {
+			super(RESERVED, null, null);
+		}
+
+		Node<K, V> find(int h, Object k) {
+			return null;
+		}
+	}
+
+	/*
+	 * 静态工具方法
+	 */
+
+	// 和MyHashMap.hash一样把高16位异或下来，再去掉最高位，负数留给特殊节点
+	static final int spread(int h) {
+		return (h ^ (h >>> 16)) & HASH_BITS;
+	}
+
+	/*
+	 * 长度为n的数组扩容时的标记，不同的长度得到不同的标记，左移RESIZE_STAMP_SHIFT位之后一定是负数
+	 * 扩容时sizeCtl的高16位是这个标记，低16位是正在迁移的线程数加1
+	 */
+	static final int resizeStamp(int n) {
+		return Integer.numberOfLeadingZeros(n) | (1 << (RESIZE_STAMP_BITS - 1));
+	}
+
+	// 大于等于c的最小的2的幂
+	private static final int tableSizeFor(int c) {
+		int n = -1 >>> Integer.numberOfLeadingZeros(c - 1);
+		return (n < 0) ? 1 : (n >= MAXIMUM_CAPACITY) ? MAXIMUM_CAPACITY : n + 1;
+	}
+
+	/*
+	 * 以volatile的方式访问数组元素，数组元素本身不能声明为volatile，所以table使用AtomicReferenceArray
+	 * sizeCtl和transferIndex的CAS使用字段更新器
+	 */
+
+	@SuppressWarnings("rawtypes")
+	private static final AtomicIntegerFieldUpdater<MyConcurrentHashMap> SIZECTL = AtomicIntegerFieldUpdater
+			.newUpdater(MyConcurrentHashMap.class, "sizeCtl");
+
+	@SuppressWarnings("rawtypes")
+	private static final AtomicIntegerFieldUpdater<MyConcurrentHashMap> TRANSFERINDEX = AtomicIntegerFieldUpdater
+			.newUpdater(MyConcurrentHashMap.class, "transferIndex");
+
+	static final <K, V> Node<K, V> tabAt(AtomicReferenceArray<Node<K, V>> tab, int i) {
+		return tab.get(i);
+	}
+
+	static final <K, V> boolean casTabAt(AtomicReferenceArray<Node<K, V>> tab, int i, Node<K, V> c, Node<K, V> v) {
+		return tab.compareAndSet(i, c, v);
+	}
+
+	// 只在持有桶的锁的时候调用
+	static final <K, V> void setTabAt(AtomicReferenceArray<Node<K, V>> tab, int i, Node<K, V> v) {
+		tab.lazySet(i, v);
+	}
+
+	/*
+	 * 属性
+	 */
+
+	// 延迟初始化，长度总是2的幂
+	transient volatile AtomicReferenceArray<Node<K, V>> table;
+
+	// 扩容时的新数组，只在扩容的时候不为null
+	private transient volatile AtomicReferenceArray<Node<K, V>> nextTable;
+
+	/*
+	 * 控制初始化和扩容
+	 * -1表示正在初始化
+	 * 其他的负数表示正在扩容，高16位是resizeStamp，低16位是正在迁移的线程数加1
+	 * table为null时表示初始化时的容量，0表示默认容量
+	 * 初始化之后表示下一次扩容的阈值
+	 */
+	private transient volatile int sizeCtl;
+
+	// 扩容时下一个要领取的区间的上界（不包含），从n减到0
+	private transient volatile int transferIndex;
+
+	// 元素个数，高并发下比一个AtomicLong竞争小
+	private final LongAdder counter = new LongAdder();
+
+	// 视图，延迟创建
+	private transient KeySetView<K, V> keySetView;
+	private transient ValuesView<K, V> valuesView;
+	private transient EntrySetView<K, V> entrySetView;
+
+	// 计算键的hash值的方式，为null的时候使用键的hashCode，和键值对一起序列化
+	private final MyHashStrategy<? super K> hashStrategy;
+
+	// 键的hash值，所有的操作都通过这里计算
+	@SuppressWarnings("unchecked")
+	private int hashOf(Object key) {
+		MyHashStrategy<Object> s = (MyHashStrategy<Object>) hashStrategy;
+		return spread(s == null ? key.hashCode() : s.hash(key));
+	}
+
+	/*
+	 * 构造函数
+	 */
+
+	public MyConcurrentHashMap() {
+		this.hashStrategy = null;
+	}
+
+	public MyConcurrentHashMap(int initialCapacity) {
+		this(initialCapacity, LOAD_FACTOR);
+	}
+
+	public MyConcurrentHashMap(int initialCapacity, float loadFactor) {
+		this(initialCapacity, loadFactor, null);
+	}
+
+	/**
+	 * @param hashStrategy
+	 *            计算键的hash值的方式，为null的时候使用键的hashCode，比如MyHashStrategy.seeded()
+	 */
+	public MyConcurrentHashMap(int initialCapacity, float loadFactor, MyHashStrategy<? super K> hashStrategy) {
+		if (!(loadFactor > 0.0f) || initialCapacity < 0) {
+			throw new IllegalArgumentException();
+		}
+		this.hashStrategy = hashStrategy;
+		// 加载因子只用来计算初始容量，之后总是按照0.75扩容
+		long size = (long) (1.0 + (long) initialCapacity / loadFactor);
+		this.sizeCtl = (size >= (long) MAXIMUM_CAPACITY) ? MAXIMUM_CAPACITY : tableSizeFor((int) size);
+	}
+
+	public MyConcurrentHashMap(MyMap<? extends K, ? extends V> m) {
+		this.hashStrategy = null;
+		this.sizeCtl = DEFAULT_CAPACITY;
+		putAll(m);
+	}
+
+	/*
+	 * 查询操作，都不加锁
+	 */
+
+	public int size() {
+		long n = counter.sum();
+		return ((n < 0L) ? 0 : (n > (long) Integer.MAX_VALUE) ? Integer.MAX_VALUE : (int) n);
+	}
+
+	// 元素个数可能超过int的范围，并发修改的时候只是一个估计值
+	public long mappingCount() {
+		long n = counter.sum();
+		return (n < 0L) ? 0L : n;
+	}
+
+	public boolean isEmpty() {
+		return counter.sum() <= 0L;
+	}
+
+	public V get(Object key) {
+		AtomicReferenceArray<Node<K, V>> tab;
+		Node<K, V> e, p;
+		int n, eh;
+		K ek;
+		int h = hashOf(key);
+		if ((tab = table) != null && (n = tab.length()) > 0 && (e = tabAt(tab, (n - 1) & h)) != null) {
+			if ((eh = e.hash) == h) {
+				if ((ek = e.key) == key || (ek != null && key.equals(ek))) {
+					return e.val;
+				}
+			}
+			else if (eh < 0) {
+				// 特殊节点，ForwardingNode到新数组中查找，ReservationNode返回null
+				return (p = e.find(h, key)) != null ? p.val : null;
+			}
+			while ((e = e.next) != null) {
+				if (e.hash == h && ((ek = e.key) == key || (ek != null && key.equals(ek)))) {
+					return e.val;
+				}
+			}
+		}
+		return null;
+	}
+
+	public V getOrDefault(Object key, V defaultValue) {
+		V v;
+		return (v = get(key)) == null ? defaultValue : v;
+	}
+
+	public boolean containsKey(Object key) {
+		return get(key) != null;
+	}
+
+	public boolean containsValue(Object value) {
+		if (value == null) {
+			throw new NullPointerException();
+		}
+		AtomicReferenceArray<Node<K, V>> t;
+		if ((t = table) != null) {
+			Traverser<K, V> it = new Traverser<K, V>(t, t.length(), 0, t.length());
+			for (Node<K, V> p; (p = it.advance()) != null;) {
+				V v;
+				if ((v = p.val) == value || (v != null && value.equals(v))) {
+					return true;
+				}
+			}
+		}
+		return false;
+	}
+
+	/*
+	 * 修改操作
+	 */
+
+	public V put(K key, V value) {
+		return putVal(key, value, false);
+	}
+
+	final V putVal(K key, V value, boolean onlyIfAbsent) {
+		if (key == null || value == null) {
+			throw new NullPointerException();
+		}
+		int hash = hashOf(key);
+		int binCount = 0;
+		for (AtomicReferenceArray<Node<K, V>> tab = table;;) {
+			Node<K, V> f;
+			int n, i, fh;
+			K fk;
+			V fv;
+			if (tab == null || (n = tab.length()) == 0) {
+				tab = initTable();
+			}
+			else if ((f = tabAt(tab, i = (n - 1) & hash)) == null) {
+				// 空桶，CAS设置头结点，不需要加锁，失败说明有其他线程抢先了，重新循环
+				if (casTabAt(tab, i, null, new Node<K, V>(hash, key, value))) {
+					break;
+				}
+			}
+			else if ((fh = f.hash) == MOVED) {
+				tab = helpTransfer(tab, f);
+			}
+			else if (onlyIfAbsent && fh == hash && ((fk = f.key) == key || (fk != null && key.equals(fk)))
+					&& (fv = f.val) != null) {
+				// putIfAbsent并且头结点就是要找的键，不需要加锁
+				return fv;
+			}
+			else {
+				V oldVal = null;
+				synchronized (f) {
+					// 加锁之后要再检查一次头结点有没有变化，可能已经被删除或者迁移了
+					if (tabAt(tab, i) == f) {
+						if (fh >= 0) {
+							binCount = 1;
+							for (Node<K, V> e = f;; ++binCount) {
+								K ek;
+								if (e.hash == hash && ((ek = e.key) == key || (ek != null && key.equals(ek)))) {
+									oldVal = e.val;
+									if (!onlyIfAbsent) {
+										e.val = value;
+									}
+									break;
+								}
+								Node<K, V> pred = e;
+								if ((e = e.next) == null) {
+									pred.next = new Node<K, V>(hash, key, value);
+									break;
+								}
+							}
+						}
+						else if (f instanceof ReservationNode) {
+							throw new IllegalStateException("Recursive update");
+						}
+					}
+				}
+				if (binCount != 0) {
+					if (oldVal != null) {
+						return oldVal;
+					}
+					break;
+				}
+			}
+		}
+		addCount(1L, binCount);
+		return null;
+	}
+
+	public void putAll(MyMap<? extends K, ? extends V> m) {
+		tryPresize(m.size());
+		for (MyMap.Entry<? extends K, ? extends V> e : m.entrySet()) {
+			putVal(e.getKey(), e.getValue(), false);
+		}
+	}
+
+	public V remove(Object key) {
+		return replaceNode(key, null, null);
+	}
+
+	/**
+	 * remove和replace的实现
+	 *
+	 * @param key
+	 * @param value
+	 *            新的值，null表示删除
+	 * @param cv
+	 *            期望的旧值，不为null的时候只有旧值和cv相等才会替换或者删除
+	 * @return 旧的值，没有修改返回null
+	 */
+	final V replaceNode(Object key, V value, Object cv) {
+		int hash = hashOf(key);
+		for (AtomicReferenceArray<Node<K, V>> tab = table;;) {
+			Node<K, V> f;
+			int n, i, fh;
+			if (tab == null || (n = tab.length()) == 0 || (f = tabAt(tab, i = (n - 1) & hash)) == null) {
+				break;
+			}
+			else if ((fh = f.hash) == MOVED) {
+				tab = helpTransfer(tab, f);
+			}
+			else {
+				V oldVal = null;
+				boolean validated = false;
+				synchronized (f) {
+					if (tabAt(tab, i) == f) {
+						if (fh >= 0) {
+							validated = true;
+							for (Node<K, V> e = f, pred = null;;) {
+								K ek;
+								if (e.hash == hash && ((ek = e.key) == key || (ek != null && key.equals(ek)))) {
+									V ev = e.val;
+									if (cv == null || cv == ev || (ev != null && cv.equals(ev))) {
+										oldVal = ev;
+										if (value != null) {
+											e.val = value;
+										}
+										else if (pred != null) {
+											pred.next = e.next;
+										}
+										else {
+											setTabAt(tab, i, e.next);
+										}
+									}
+									break;
+								}
+								pred = e;
+								if ((e = e.next) == null) {
+									break;
+								}
+							}
+						}
+						else if (f instanceof ReservationNode) {
+							throw new IllegalStateException("Recursive update");
+						}
+					}
+				}
+				if (validated) {
+					if (oldVal != null) {
+						if (value == null) {
+							addCount(-1L, -1);
+						}
+						return oldVal;
+					}
+					break;
+				}
+			}
+		}
+		return null;
+	}
+
+	// 逐个桶加锁清空，不是原子的，清空的过程中其他线程仍然可以添加
+	public void clear() {
+		long delta = 0L;
+		int i = 0;
+		AtomicReferenceArray<Node<K, V>> tab = table;
+		while (tab != null && i < tab.length()) {
+			int fh;
+			Node<K, V> f = tabAt(tab, i);
+			if (f == null) {
+				++i;
+			}
+			else if ((fh = f.hash) == MOVED) {
+				tab = helpTransfer(tab, f);
+				i = 0;// 在新的数组中重新开始
+			}
+			else {
+				synchronized (f) {
+					if (tabAt(tab, i) == f) {
+						Node<K, V> p = (fh >= 0 ? f : null);
+						while (p != null) {
+							--delta;
+							p = p.next;
+						}
+						setTabAt(tab, i++, null);
+					}
+				}
+			}
+		}
+		if (delta != 0L) {
+			addCount(delta, -1);
+		}
+	}
+
+	public V putIfAbsent(K key, V value) {
+		return putVal(key, value, true);
+	}
+
+	public boolean remove(Object key, Object value) {
+		if (key == null) {
+			throw new NullPointerException();
+		}
+		return value != null && replaceNode(key, null, value) != null;
+	}
+
+	public boolean replace(K key, V oldValue, V newValue) {
+		if (key == null || oldValue == null || newValue == null) {
+			throw new NullPointerException();
+		}
+		return replaceNode(key, newValue, oldValue) != null;
+	}
+
+	public V replace(K key, V value) {
+		if (key == null || value == null) {
+			throw new NullPointerException();
+		}
+		return replaceNode(key, value, null);
+	}
+
+	/**
+	 * 对于同一个键是原子的，函数最多只会被调用一次，计算的过程中持有桶的锁
+	 *
+	 * 所以函数应该简短，并且不能修改这个map中的其他键，否则可能死锁或者抛出IllegalStateException
+	 */
+	public V computeIfAbsent(K key, Function<? super K, ? extends V> mappingFunction) {
+		if (key == null || mappingFunction == null) {
+			throw new NullPointerException();
+		}
+		int h = hashOf(key);
+		V val = null;
+		int binCount = 0;
+		for (AtomicReferenceArray<Node<K, V>> tab = table;;) {
+			Node<K, V> f;
+			int n, i, fh;
+			K fk;
+			V fv;
+			if (tab == null || (n = tab.length()) == 0) {
+				tab = initTable();
+			}
+			else if ((f = tabAt(tab, i = (n - 1) & h)) == null) {
+				// 空桶，先放一个加了锁的占位节点，其他线程看到之后会阻塞在这个节点的锁上
+				Node<K, V> r = new ReservationNode<K, V>();
+				synchronized (r) {
+					if (casTabAt(tab, i, null, r)) {
+						binCount = 1;
+						Node<K, V> node = null;
+						try {
+							if ((val = mappingFunction.apply(key)) != null) {
+								node = new Node<K, V>(h, key, val);
+							}
+						} finally {
+							setTabAt(tab, i, node);
+						}
+					}
+				}
+				if (binCount != 0) {
+					break;
+				}
+			}
+			else if ((fh = f.hash) == MOVED) {
+				tab = helpTransfer(tab, f);
+			}
+			else if (fh == h && ((fk = f.key) == key || (fk != null && key.equals(fk))) && (fv = f.val) != null) {
+				return fv;
+			}
+			else {
+				boolean added = false;
+				synchronized (f) {
+					if (tabAt(tab, i) == f) {
+						if (fh >= 0) {
+							binCount = 1;
+							for (Node<K, V> e = f;; ++binCount) {
+								K ek;
+								if (e.hash == h && ((ek = e.key) == key || (ek != null && key.equals(ek)))) {
+									val = e.val;
+									break;
+								}
+								Node<K, V> pred = e;
+								if ((e = e.next) == null) {
+									if ((val = mappingFunction.apply(key)) != null) {
+										if (pred.next != null) {
+											throw new IllegalStateException("Recursive update");
+										}
+										added = true;
+										pred.next = new Node<K, V>(h, key, val);
+									}
+									break;
+								}
+							}
+						}
+						else if (f instanceof ReservationNode) {
+							throw new IllegalStateException("Recursive update");
+						}
+					}
+				}
+				if (binCount != 0) {
+					if (!added) {
+						return val;
+					}
+					break;
+				}
+			}
+		}
+		if (val != null) {
+			addCount(1L, binCount);
+		}
+		return val;
+	}
+
+	// 对于同一个键是原子的，新的值为null的时候删除
+	public V computeIfPresent(K key, BiFunction<? super K, ? super V, ? extends V> remappingFunction) {
+		if (key == null || remappingFunction == null) {
+			throw new NullPointerException();
+		}
+		int h = hashOf(key);
+		V val = null;
+		int delta = 0;
+		int binCount = 0;
+		for (AtomicReferenceArray<Node<K, V>> tab = table;;) {
+			Node<K, V> f;
+			int n, i, fh;
+			if (tab == null || (n = tab.length()) == 0) {
+				tab = initTable();
+			}
+			else if ((f = tabAt(tab, i = (n - 1) & h)) == null) {
+				break;
+			}
+			else if ((fh = f.hash) == MOVED) {
+				tab = helpTransfer(tab, f);
+			}
+			else {
+				synchronized (f) {
+					if (tabAt(tab, i) == f) {
+						if (fh >= 0) {
+							binCount = 1;
+							for (Node<K, V> e = f, pred = null;; ++binCount) {
+								K ek;
+								if (e.hash == h && ((ek = e.key) == key || (ek != null && key.equals(ek)))) {
+									val = remappingFunction.apply(key, e.val);
+									if (val != null) {
+										e.val = val;
+									}
+									else {
+										delta = -1;
+										Node<K, V> en = e.next;
+										if (pred != null) {
+											pred.next = en;
+										}
+										else {
+											setTabAt(tab, i, en);
+										}
+									}
+									break;
+								}
+								pred = e;
+								if ((e = e.next) == null) {
+									break;
+								}
+							}
+						}
+						else if (f instanceof ReservationNode) {
+							throw new IllegalStateException("Recursive update");
+						}
+					}
+				}
+				if (binCount != 0) {
+					break;
+				}
+			}
+		}
+		if (delta != 0) {
+			addCount((long) delta, binCount);
+		}
+		return val;
+	}
+
+	// 对于同一个键是原子的，不存在的时候旧值传入null，新的值为null的时候删除
+	public V compute(K key, BiFunction<? super K, ? super V, ? extends V> remappingFunction) {
+		if (key == null || remappingFunction == null) {
+			throw new NullPointerException();
+		}
+		int h = hashOf(key);
+		V val = null;
+		int delta = 0;
+		int binCount = 0;
+		for (AtomicReferenceArray<Node<K, V>> tab = table;;) {
+			Node<K, V> f;
+			int n, i, fh;
+			if (tab == null || (n = tab.length()) == 0) {
+				tab = initTable();
+			}
+			else if ((f = tabAt(tab, i = (n - 1) & h)) == null) {
+				Node<K, V> r = new ReservationNode<K, V>();
+				synchronized (r) {
+					if (casTabAt(tab, i, null, r)) {
+						binCount = 1;
+						Node<K, V> node = null;
+						try {
+							if ((val = remappingFunction.apply(key, null)) != null) {
+								delta = 1;
+								node = new Node<K, V>(h, key, val);
+							}
+						} finally {
+							setTabAt(tab, i, node);
+						}
+					}
+				}
+				if (binCount != 0) {
+					break;
+				}
+			}
+			else if ((fh = f.hash) == MOVED) {
+				tab = helpTransfer(tab, f);
+			}
+			else {
+				synchronized (f) {
+					if (tabAt(tab, i) == f) {
+						if (fh >= 0) {
+							binCount = 1;
+							for (Node<K, V> e = f, pred = null;; ++binCount) {
+								K ek;
+								if (e.hash == h && ((ek = e.key) == key || (ek != null && key.equals(ek)))) {
+									val = remappingFunction.apply(key, e.val);
+									if (val != null) {
+										e.val = val;
+									}
+									else {
+										delta = -1;
+										Node<K, V> en = e.next;
+										if (pred != null) {
+											pred.next = en;
+										}
+										else {
+											setTabAt(tab, i, en);
+										}
+									}
+									break;
+								}
+								pred = e;
+								if ((e = e.next) == null) {
+									val = remappingFunction.apply(key, null);
+									if (val != null) {
+										if (pred.next != null) {
+											throw new IllegalStateException("Recursive update");
+										}
+										delta = 1;
+										pred.next = new Node<K, V>(h, key, val);
+									}
+									break;
+								}
+							}
+						}
+						else if (f instanceof ReservationNode) {
+							throw new IllegalStateException("Recursive update");
+						}
+					}
+				}
+				if (binCount != 0) {
+					break;
+				}
+			}
+		}
+		if (delta != 0) {
+			addCount((long) delta, binCount);
+		}
+		return val;
+	}
+
+	// 对于同一个键是原子的，不存在的时候直接放入value，否则放入函数计算的结果，结果为null的时候删除
+	public V merge(K key, V value, BiFunction<? super V, ? super V, ? extends V> remappingFunction) {
+		if (key == null || value == null || remappingFunction == null) {
+			throw new NullPointerException();
+		}
+		int h = hashOf(key);
+		V val = null;
+		int delta = 0;
+		int binCount = 0;
+		for (AtomicReferenceArray<Node<K, V>> tab = table;;) {
+			Node<K, V> f;
+			int n, i, fh;
+			if (tab == null || (n = tab.length()) == 0) {
+				tab = initTable();
+			}
+			else if ((f = tabAt(tab, i = (n - 1) & h)) == null) {
+				if (casTabAt(tab, i, null, new Node<K, V>(h, key, value))) {
+					delta = 1;
+					val = value;
+					break;
+				}
+			}
+			else if ((fh = f.hash) == MOVED) {
+				tab = helpTransfer(tab, f);
+			}
+			else {
+				synchronized (f) {
+					if (tabAt(tab, i) == f) {
+						if (fh >= 0) {
+							binCount = 1;
+							for (Node<K, V> e = f, pred = null;; ++binCount) {
+								K ek;
+								if (e.hash == h && ((ek = e.key) == key || (ek != null && key.equals(ek)))) {
+									val = remappingFunction.apply(e.val, value);
+									if (val != null) {
+										e.val = val;
+									}
+									else {
+										delta = -1;
+										Node<K, V> en = e.next;
+										if (pred != null) {
+											pred.next = en;
+										}
+										else {
+											setTabAt(tab, i, en);
+										}
+									}
+									break;
+								}
+								pred = e;
+								if ((e = e.next) == null) {
+									delta = 1;
+									val = value;
+									pred.next = new Node<K, V>(h, key, val);
+									break;
+								}
+							}
+						}
+						else if (f instanceof ReservationNode) {
+							throw new IllegalStateException("Recursive update");
+						}
+					}
+				}
+				if (binCount != 0) {
+					break;
+				}
+			}
+		}
+		if (delta != 0) {
+			addCount((long) delta, binCount);
+		}
+		return val;
+	}
+
+	public void forEach(BiConsumer<? super K, ? super V> action) {
+		if (action == null) {
+			throw new NullPointerException();
+		}
+		AtomicReferenceArray<Node<K, V>> t;
+		if ((t = table) != null) {
+			Traverser<K, V> it = new Traverser<K, V>(t, t.length(), 0, t.length());
+			for (Node<K, V> p; (p = it.advance()) != null;) {
+				action.accept(p.key, p.val);
+			}
+		}
+	}
+
+	public void replaceAll(BiFunction<? super K, ? super V, ? extends V> function) {
+		if (function == null) {
+			throw new NullPointerException();
+		}
+		AtomicReferenceArray<Node<K, V>> t;
+		if ((t = table) != null) {
+			Traverser<K, V> it = new Traverser<K, V>(t, t.length(), 0, t.length());
+			for (Node<K, V> p; (p = it.advance()) != null;) {
+				V oldValue = p.val;
+				for (K key = p.key;;) {
+					V newValue = function.apply(key, oldValue);
+					if (newValue == null) {
+						throw new NullPointerException();
+					}
+					// 替换失败说明值被其他线程修改了，重新计算，被删除了则跳过
+					if (replaceNode(key, newValue, oldValue) != null || (oldValue = get(key)) == null) {
+						break;
+					}
+				}
+			}
+		}
+	}
+
+	/*
+	 * 初始化和扩容
+	 */
+
+	// 使用sizeCtl记录的容量初始化table，只有CAS设置sizeCtl为-1成功的线程才会初始化，其他线程让出CPU等待
+	private final AtomicReferenceArray<Node<K, V>> initTable() {
+		AtomicReferenceArray<Node<K, V>> tab;
+		int sc;
+		while ((tab = table) == null || tab.length() == 0) {
+			if ((sc = sizeCtl) < 0) {
+				Thread.yield();
+			}
+			else if (SIZECTL.compareAndSet(this, sc, -1)) {
+				try {
+					if ((tab = table) == null || tab.length() == 0) {
+						int n = (sc > 0) ? sc : DEFAULT_CAPACITY;
+						AtomicReferenceArray<Node<K, V>> nt = new AtomicReferenceArray<Node<K, V>>(n);
+						table = tab = nt;
+						sc = n - (n >>> 2);
+					}
+				} finally {
+					sizeCtl = sc;
+				}
+				break;
+			}
+		}
+		return tab;
+	}
+
+	/*
+	 * 修改元素个数，如果超过了阈值就扩容
+	 * check小于0的时候不检查扩容，删除的时候使用
+	 *
+	 * 第一个发现需要扩容的线程把sizeCtl设置为(rs << RESIZE_STAMP_SHIFT) + 2并创建新数组，
+	 * 之后的线程如果发现正在扩容，把sizeCtl加1加入迁移，而不是等待
+	 */
+	private final void addCount(long x, int check) {
+		counter.add(x);
+		if (check >= 0) {
+			AtomicReferenceArray<Node<K, V>> tab, nt;
+			int n, sc;
+			long s = counter.sum();
+			while (s >= (long) (sc = sizeCtl) && (tab = table) != null && (n = tab.length()) < MAXIMUM_CAPACITY) {
+				int rs = resizeStamp(n) << RESIZE_STAMP_SHIFT;
+				if (sc < 0) {
+					// 扩容已经结束、迁移的线程已经够多了或者已经没有可以领取的区间了，不需要帮忙
+					if (sc == rs + MAX_RESIZERS || sc == rs + 1 || (nt = nextTable) == null || transferIndex <= 0) {
+						break;
+					}
+					if (SIZECTL.compareAndSet(this, sc, sc + 1)) {
+						transfer(tab, nt);
+					}
+				}
+				else if (SIZECTL.compareAndSet(this, sc, rs + 2)) {
+					transfer(tab, null);
+				}
+				s = counter.sum();
+			}
+		}
+	}
+
+	/*
+	 * 写线程遇到ForwardingNode，说明正在扩容，先帮忙迁移，然后返回新数组继续操作
+	 * 这个桶已经迁移完了，扩容线程不会再修改新数组中对应的两个桶，所以在新数组中操作是安全的
+	 */
+	final AtomicReferenceArray<Node<K, V>> helpTransfer(AtomicReferenceArray<Node<K, V>> tab, Node<K, V> f) {
+		AtomicReferenceArray<Node<K, V>> nextTab;
+		int sc;
+		if (tab != null && (f instanceof ForwardingNode)
+				&& (nextTab = ((ForwardingNode<K, V>) f).nextTable) != null) {
+			int rs = resizeStamp(tab.length()) << RESIZE_STAMP_SHIFT;
+			while (nextTab == nextTable && table == tab && (sc = sizeCtl) < 0) {
+				if (sc == rs + MAX_RESIZERS || sc == rs + 1 || transferIndex <= 0) {
+					break;
+				}
+				if (SIZECTL.compareAndSet(this, sc, sc + 1)) {
+					transfer(tab, nextTab);
+					break;
+				}
+			}
+			return nextTab;
+		}
+		return table;
+	}
+
+	// putAll之前预先扩容，避免添加的过程中多次扩容
+	private final void tryPresize(int size) {
+		int c = (size >= (MAXIMUM_CAPACITY >>> 1)) ? MAXIMUM_CAPACITY : tableSizeFor(size + (size >>> 1) + 1);
+		int sc;
+		while ((sc = sizeCtl) >= 0) {
+			AtomicReferenceArray<Node<K, V>> tab = table;
+			int n;
+			if (tab == null || (n = tab.length()) == 0) {
+				n = (sc > c) ? sc : c;
+				if (SIZECTL.compareAndSet(this, sc, -1)) {
+					try {
+						if (table == tab) {
+							AtomicReferenceArray<Node<K, V>> nt = new AtomicReferenceArray<Node<K, V>>(n);
+							table = nt;
+							sc = n - (n >>> 2);
+						}
+					} finally {
+						sizeCtl = sc;
+					}
+				}
+			}
+			else if (c <= sc || n >= MAXIMUM_CAPACITY) {
+				break;
+			}
+			else if (tab == table) {
+				int rs = resizeStamp(n);
+				if (SIZECTL.compareAndSet(this, sc, (rs << RESIZE_STAMP_SHIFT) + 2)) {
+					transfer(tab, null);
+				}
+			}
+		}
+	}
+
+	/*
+	 * 把tab中的所有桶迁移到两倍大小的新数组中，nextTab为null的时候由调用者创建新数组
+	 *
+	 * 旧数组按照stride被分成若干个区间，从后往前，每个线程CAS减小transferIndex领取一个区间，
+	 * 处理完一个区间再领取下一个，所以多个线程可以同时迁移，不会有一个线程被一次完整的rehash阻塞
+	 * 每个桶加锁迁移，和MyHashMap一样按照hash & n拆成低位和高位两条链表，
+	 * 迁移完的桶放入ForwardingNode，读线程会转到新数组中去查找
+	 * 迁移的时候复制节点而不是修改原来的next，所以正在旧链表上遍历的读线程不受影响
+	 *
+	 * 每个线程领取不到区间的时候把sizeCtl减1退出，最后一个退出的线程再检查一遍整个数组，然后提交新数组
+	 */
+	private final void transfer(AtomicReferenceArray<Node<K, V>> tab, AtomicReferenceArray<Node<K, V>> nextTab) {
+		int n = tab.length(), stride;
+		// 每个CPU至少分到8个区间，区间不小于MIN_TRANSFER_STRIDE，避免线程之间过多的竞争
+		if ((stride = (NCPU > 1) ? (n >>> 3) / NCPU : n) < MIN_TRANSFER_STRIDE) {
+			stride = MIN_TRANSFER_STRIDE;
+		}
+		if (nextTab == null) {
+			try {
+				AtomicReferenceArray<Node<K, V>> nt = new AtomicReferenceArray<Node<K, V>>(n << 1);
+				nextTab = nt;
+			} catch (Throwable ex) {// 内存不够
+				sizeCtl = Integer.MAX_VALUE;
+				return;
+			}
+			nextTable = nextTab;
+			transferIndex = n;
+		}
+		int nextn = nextTab.length();
+		ForwardingNode<K, V> fwd = new ForwardingNode<K, V>(nextTab);
+		boolean advance = true; // true表示当前的桶处理完了，要前进到下一个桶
+		boolean finishing = false; // 提交新数组之前的最后一次检查
+		for (int i = 0, bound = 0;;) {
+			Node<K, V> f;
+			int fh;
+			while (advance) {
+				int nextIndex, nextBound;
+				if (--i >= bound || finishing) {
+					advance = false;
+				}
+				else if ((nextIndex = transferIndex) <= 0) {
+					i = -1;
+					advance = false;
+				}
+				else if (TRANSFERINDEX.compareAndSet(this, nextIndex,
+						nextBound = (nextIndex > stride ? nextIndex - stride : 0))) {
+					// 领取到了[nextBound, nextIndex)这个区间
+					bound = nextBound;
+					i = nextIndex - 1;
+					advance = false;
+				}
+			}
+			if (i < 0 || i >= n || i + n >= nextn) {
+				int sc;
+				if (finishing) {
+					nextTable = null;
+					table = nextTab;
+					sizeCtl = (n << 1) - (n >>> 1);
+					return;
+				}
+				if (SIZECTL.compareAndSet(this, sc = sizeCtl, sc - 1)) {
+					// 不是最后一个退出的线程，直接返回
+					if ((sc - 2) != resizeStamp(n) << RESIZE_STAMP_SHIFT) {
+						return;
+					}
+					finishing = advance = true;
+					i = n;// 提交之前从头检查一遍
+				}
+			}
+			else if ((f = tabAt(tab, i)) == null) {
+				// 空桶也要放ForwardingNode，否则其他线程可能往旧数组中添加
+				advance = casTabAt(tab, i, null, fwd);
+			}
+			else if ((fh = f.hash) == MOVED) {
+				advance = true;// 已经迁移过了
+			}
+			else {
+				synchronized (f) {
+					if (tabAt(tab, i) == f) {
+						if (fh >= 0) {
+							splitBin(f, n, nextTab, i);
+							setTabAt(tab, i, fwd);
+							advance = true;
+						}
+						else if (f instanceof ReservationNode) {
+							// 只有当前线程自己在compute中触发了扩容才会拿到占位节点的锁
+							throw new IllegalStateException("Recursive update");
+						}
+					}
+				}
+			}
+		}
+	}
+
+	// 把以f为头结点的链表拆到nextTab的i和i + n两个桶中，尾部连续落在同一边的节点直接复用
+	static final <K, V> void splitBin(Node<K, V> f, int n, AtomicReferenceArray<Node<K, V>> nextTab, int i) {
+		Node<K, V> ln, hn;
+		int runBit = f.hash & n;
+		Node<K, V> lastRun = f;
+		for (Node<K, V> p = f.next; p != null; p = p.next) {
+			int b = p.hash & n;
+			if (b != runBit) {
+				runBit = b;
+				lastRun = p;
+			}
+		}
+		if (runBit == 0) {
+			ln = lastRun;
+			hn = null;
+		}
+		else {
+			hn = lastRun;
+			ln = null;
+		}
+		for (Node<K, V> p = f; p != lastRun; p = p.next) {
+			int ph = p.hash;
+			K pk = p.key;
+			V pv = p.val;
+			if ((ph & n) == 0) {
+				ln = new Node<K, V>(ph, pk, pv, ln);
+			}
+			else {
+				hn = new Node<K, V>(ph, pk, pv, hn);
+			}
+		}
+		setTabAt(nextTab, i, ln);
+		setTabAt(nextTab, i + n, hn);
+	}
+
+	/*
+	 * 遍历
+	 */
+
+	/*
+	 * 遍历所有的普通节点，遇到ForwardingNode的时候先遍历新数组中对应的两个桶（i和i + n），再回到旧数组中继续
+	 * 用一个栈记录旧数组的状态，支持连续多次扩容
+	 * 遍历的过程中不加锁，是弱一致的：不会抛出ConcurrentModificationException，每个元素最多返回一次
+	 */
+	static class Traverser<K, V> {
+		AtomicReferenceArray<Node<K, V>> tab; // 当前的数组，扩容的时候会更新
+		Node<K, V> next; // 下一个返回的节点
+		TableStack<K, V> stack, spare; // 遇到ForwardingNode时保存/恢复
+		int index; // 下一个要遍历的桶下标
+		int baseIndex; // 初始数组中的当前下标
+		int baseLimit; // 初始数组中的结束下标
+		final int baseSize; // 初始数组的大小
+
+		Traverser(AtomicReferenceArray<Node<K, V>> tab, int size, int index, int limit) {
+			this.tab = tab;
+			this.baseSize = size;
+			this.baseIndex = this.index = index;
+			this.baseLimit = limit;
+			this.next = null;
+		}
+
+		// 返回下一个节点，没有了返回null
+		final Node<K, V> advance() {
+			Node<K, V> e;
+			if ((e = next) != null) {
+				e = e.next;
+			}
+			for (;;) {
+				AtomicReferenceArray<Node<K, V>> t;
+				int i, n;
+				if (e != null) {
+					return next = e;
+				}
+				if (baseIndex >= baseLimit || (t = tab) == null || (n = t.length()) <= (i = index) || i < 0) {
+					return next = null;
+				}
+				if ((e = tabAt(t, i)) != null && e.hash < 0) {
+					if (e instanceof ForwardingNode) {
+						tab = ((ForwardingNode<K, V>) e).nextTable;
+						e = null;
+						pushState(t, i, n);
+						continue;
+					}
+					else {
+						e = null;
+					}
+				}
+				if (stack != null) {
+					recoverState(n);
+				}
+				else if ((index = i + baseSize) >= n) {
+					index = ++baseIndex;
+				}
+			}
+		}
+
+		// 进入新数组之前保存旧数组的状态
+		private void pushState(AtomicReferenceArray<Node<K, V>> t, int i, int n) {
+			TableStack<K, V> s = spare;
+			if (s != null) {
+				spare = s.next;
+			}
+			else {
+				s = new TableStack<K, V>();
+			}
+			s.tab = t;
+			s.length = n;
+			s.index = i;
+			s.next = stack;
+			stack = s;
+		}
+
+		// 新数组中的两个桶遍历完之后恢复旧数组的状态
+		private void recoverState(int n) {
+			TableStack<K, V> s;
+			int len;
+			while ((s = stack) != null && (index += (len = s.length)) >= n) {
+				n = len;
+				index = s.index;
+				tab = s.tab;
+				s.tab = null;
+				TableStack<K, V> next = s.next;
+				s.next = spare;
+				stack = next;
+				spare = s;
+			}
+			if (s == null && (index += baseSize) >= n) {
+				index = ++baseIndex;
+			}
+		}
+	}
+
+	static final class TableStack<K, V> {
+		int length;
+		int index;
+		AtomicReferenceArray<Node<K, V>> tab;
+		TableStack<K, V> next;
+	}
+
+	// 迭代器的基类，remove通过map的remove实现
+	static class BaseIterator<K, V> extends Traverser<K, V> {
+		final MyConcurrentHashMap<K, V> map;
+		Node<K, V> lastReturned;
+
+		BaseIterator(AtomicReferenceArray<Node<K, V>> tab, int size, int index, int limit, MyConcurrentHashMap<K, V> map) {
+			super(tab, size, index, limit);
+			this.map = map;
+			advance();
+		}
+
+		public final boolean hasNext() {
+			return next != null;
+		}
+
+		public final void remove() {
+			Node<K, V> p;
+			if ((p = lastReturned) == null) {
+				throw new IllegalStateException();
+			}
+			lastReturned = null;
+			map.replaceNode(p.key, null, null);
+		}
+	}
+
+	static final class KeyIterator<K, V> extends BaseIterator<K, V> implements Iterator<K> {
+		KeyIterator(AtomicReferenceArray<Node<K, V>> tab, int size, int index, int limit, MyConcurrentHashMap<K, V> map) {
+			super(tab, size, index, limit, map);
+		}
+
+		public final K next() {
+			Node<K, V> p;
+			if ((p = next) == null) {
+				throw new NoSuchElementException();
+			}
+			K k = p.key;
+			lastReturned = p;
+			advance();
+			return k;
+		}
+	}
+
+	static final class ValueIterator<K, V> extends BaseIterator<K, V> implements Iterator<V> {
+		ValueIterator(AtomicReferenceArray<Node<K, V>> tab, int size, int index, int limit, MyConcurrentHashMap<K, V> map) {
+			super(tab, size, index, limit, map);
+		}
+
+		public final V next() {
+			Node<K, V> e;
+			if ((e = next) == null) {
+				throw new NoSuchElementException();
+			}
+			V v = e.val;
+			lastReturned = e;
+			advance();
+			return v;
+		}
+	}
+
+	static final class EntryIterator<K, V> extends BaseIterator<K, V> implements Iterator<MyMap.Entry<K, V>> {
+		EntryIterator(AtomicReferenceArray<Node<K, V>> tab, int size, int index, int limit, MyConcurrentHashMap<K, V> map) {
+			super(tab, size, index, limit, map);
+		}
+
+		public final MyMap.Entry<K, V> next() {
+			Node<K, V> e;
+			if ((e = next) == null) {
+				throw new NoSuchElementException();
+			}
+			K k = e.key;
+			V v = e.val;
+			lastReturned = e;
+			advance();
+			return new MapEntry<K, V>(k, v, map);
+		}
+	}
+
+	// 迭代器返回的键值对，setValue的时候通过map.put写回
+	static final class MapEntry<K, V> implements MyMap.Entry<K, V> {
+		final K key;
+		V val;
+		final MyConcurrentHashMap<K, V> map;
+
+		MapEntry(K key, V val, MyConcurrentHashMap<K, V> map) {
+			this.key = key;
+			this.val = val;
+			this.map = map;
+		}
+
+		public K getKey() {
+			return key;
+		}
+
+		public V getValue() {
+			return val;
+		}
+
+		public int hashCode() {
+			return key.hashCode() ^ val.hashCode();
+		}
+
+		public String toString() {
+			return key + "=" + val;
+		}
+
+		public boolean equals(Object o) {
+			Object k, v;
+			MyMap.Entry<?, ?> e;
+			return ((o instanceof MyMap.Entry) && (k = (e = (MyMap.Entry<?, ?>) o).getKey()) != null
+					&& (v = e.getValue()) != null && (k == key || k.equals(key)) && (v == val || v.equals(val)));
+		}
+
+		// 返回的是这个键值对之前的值，如果其他线程已经修改过，返回的值可能已经不是map中的值了
+		public V setValue(V value) {
+			if (value == null) {
+				throw new NullPointerException();
+			}
+			V v = val;
+			val = value;
+			map.put(key, value);
+			return v;
+		}
+	}
+
+	/*
+	 * 视图
+	 */
+
+	public Set<K> keySet() {
+		KeySetView<K, V> ks;
+		return (ks = keySetView) != null ? ks : (keySetView = new KeySetView<K, V>(this));
+	}
+
+	public Collection<V> values() {
+		ValuesView<K, V> vs;
+		return (vs = valuesView) != null ? vs : (valuesView = new ValuesView<K, V>(this));
+	}
+
+	public Set<MyMap.Entry<K, V>> entrySet() {
+		EntrySetView<K, V> es;
+		return (es = entrySetView) != null ? es : (entrySetView = new EntrySetView<K, V>(this));
+	}
+
+	static final class KeySetView<K, V> extends AbstractSet<K> {
+		final MyConcurrentHashMap<K, V> map;
+
+		KeySetView(MyConcurrentHashMap<K, V> map) {
+			this.map = map;
+		}
+
+		public int size() {
+			return map.size();
+		}
+
+		public boolean isEmpty() {
+			return map.isEmpty();
+		}
+
+		public void clear() {
+			map.clear();
+		}
+
+		public boolean contains(Object o) {
+			return map.containsKey(o);
+		}
+
+		public boolean remove(Object o) {
+			return map.remove(o) != null;
+		}
+
+		public Iterator<K> iterator() {
+			AtomicReferenceArray<Node<K, V>> t;
+			MyConcurrentHashMap<K, V> m = map;
+			int f = (t = m.table) == null ? 0 : t.length();
+			return new KeyIterator<K, V>(t, f, 0, f, m);
+		}
+	}
+
+	static final class ValuesView<K, V> extends AbstractCollection<V> {
+		final MyConcurrentHashMap<K, V> map;
+
+		ValuesView(MyConcurrentHashMap<K, V> map) {
+			this.map = map;
+		}
+
+		public int size() {
+			return map.size();
+		}
+
+		public boolean isEmpty() {
+			return map.isEmpty();
+		}
+
+		public void clear() {
+			map.clear();
+		}
+
+		public boolean contains(Object o) {
+			return map.containsValue(o);
+		}
+
+		public Iterator<V> iterator() {
+			MyConcurrentHashMap<K, V> m = map;
+			AtomicReferenceArray<Node<K, V>> t;
+			int f = (t = m.table) == null ? 0 : t.length();
+			return new ValueIterator<K, V>(t, f, 0, f, m);
+		}
+	}
+
+	static final class EntrySetView<K, V> extends AbstractSet<MyMap.Entry<K, V>> {
+		final MyConcurrentHashMap<K, V> map;
+
+		EntrySetView(MyConcurrentHashMap<K, V> map) {
+			this.map = map;
+		}
+
+		public int size() {
+			return map.size();
+		}
+
+		public boolean isEmpty() {
+			return map.isEmpty();
+		}
+
+		public void clear() {
+			map.clear();
+		}
+
+		public boolean contains(Object o) {
+			Object k, v, r;
+			MyMap.Entry<?, ?> e;
+			return ((o instanceof MyMap.Entry) && (k = (e = (MyMap.Entry<?, ?>) o).getKey()) != null
+					&& (r = map.get(k)) != null && (v = e.getValue()) != null && (v == r || v.equals(r)));
+		}
+
+		public boolean remove(Object o) {
+			Object k, v;
+			MyMap.Entry<?, ?> e;
+			return ((o instanceof MyMap.Entry) && (k = (e = (MyMap.Entry<?, ?>) o).getKey()) != null
+					&& (v = e.getValue()) != null && map.remove(k, v));
+		}
+
+		public Iterator<MyMap.Entry<K, V>> iterator() {
+			MyConcurrentHashMap<K, V> m = map;
+			AtomicReferenceArray<Node<K, V>> t;
+			int f = (t = m.table) == null ? 0 : t.length();
+			return new EntryIterator<K, V>(t, f, 0, f, m);
+		}
+	}
+
+	/*
+	 * 序列化，只写出键值对，读入的时候重新添加
+	 */
+
+	private void writeObject(ObjectOutputStream s) throws IOException {
+		s.defaultWriteObject();
+		AtomicReferenceArray<Node<K, V>> t;
+		if ((t = table) != null) {
+			Traverser<K, V> it = new Traverser<K, V>(t, t.length(), 0, t.length());
+			for (Node<K, V> p; (p = it.advance()) != null;) {
+				s.writeObject(p.key);
+				s.writeObject(p.val);
+			}
+		}
+		s.writeObject(null);
+		s.writeObject(null);
+	}
+
+	@SuppressWarnings("unchecked")
+	private void readObject(ObjectInputStream s) throws IOException, ClassNotFoundException {
+		s.defaultReadObject();
+		counter.reset();// counter是按照默认方式序列化的，清零之后重新添加
+		for (;;) {
+			K k = (K) s.readObject();
+			V v = (V) s.readObject();
+			if (k == null || v == null) {
+				break;
+			}
+			putVal(k, v, false);
+		}
+	}
 }